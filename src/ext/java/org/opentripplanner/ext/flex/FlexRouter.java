@@ -26,6 +26,8 @@ import org.opentripplanner.routing.algorithm.mapping.GraphPathToItineraryMapper;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
 import org.opentripplanner.standalone.config.sandbox.FlexConfig;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TemporaryEdgeOverlay;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.service.TransitService;
 
@@ -79,10 +81,14 @@ public class FlexRouter {
       );
 
     if (graph.hasStreets) {
+      var temporaryEdges = TemporaryEdgeOverlay.of(
+        vertices(streetAccesses),
+        vertices(egressTransfers)
+      );
       this.accessFlexPathCalculator =
-        new StreetFlexPathCalculator(false, config.maxFlexTripDuration());
+        new StreetFlexPathCalculator(false, config.maxFlexTripDuration(), temporaryEdges);
       this.egressFlexPathCalculator =
-        new StreetFlexPathCalculator(true, config.maxFlexTripDuration());
+        new StreetFlexPathCalculator(true, config.maxFlexTripDuration(), temporaryEdges);
     } else {
       // this is only really useful in tests. in real world scenarios you're unlikely to get useful
       // results if you don't have streets
@@ -244,5 +250,13 @@ public class FlexRouter {
       .flatMap(Optional::stream);
   }
 
+  private static List<Vertex> vertices(Collection<NearbyStop> nearbyStops) {
+    return nearbyStops
+      .stream()
+      .filter(it -> it.state != null)
+      .map(it -> it.state.getVertex())
+      .toList();
+  }
+
   private record AccessEgressAndNearbyStop(NearbyStop accessEgress, FlexTrip<?, ?> flexTrip) {}
 }
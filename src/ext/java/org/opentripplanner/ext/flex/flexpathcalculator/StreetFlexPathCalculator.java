@@ -13,6 +13,7 @@ import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.StreetSearchBuilder;
+import org.opentripplanner.street.search.TemporaryEdgeOverlay;
 import org.opentripplanner.street.search.state.State;
 import org.opentripplanner.street.search.strategy.DominanceFunctions;
 
@@ -35,10 +36,20 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
   private final Map<Vertex, ShortestPathTree<State, Edge, Vertex>> cache = new HashMap<>();
   private final boolean reverseDirection;
   private final Duration maxFlexTripDuration;
+  private final TemporaryEdgeOverlay temporaryEdges;
 
-  public StreetFlexPathCalculator(boolean reverseDirection, Duration maxFlexTripDuration) {
+  /**
+   * @param temporaryEdges The edges to the temporary vertices of the request, the flex paths may
+   *                       start or end at these vertices.
+   */
+  public StreetFlexPathCalculator(
+    boolean reverseDirection,
+    Duration maxFlexTripDuration,
+    TemporaryEdgeOverlay temporaryEdges
+  ) {
     this.reverseDirection = reverseDirection;
     this.maxFlexTripDuration = maxFlexTripDuration;
+    this.temporaryEdges = temporaryEdges;
   }
 
   @Override
@@ -81,6 +92,7 @@ public class StreetFlexPathCalculator implements FlexPathCalculator {
     return StreetSearchBuilder
       .of()
       .setSkipEdgeStrategy(new DurationSkipEdgeStrategy<>(maxFlexTripDuration))
+      .setExtraEdgesStrategy(temporaryEdges)
       .setDominanceFunction(new DominanceFunctions.EarliestArrival())
       .setRequest(routingRequest)
       .setStreetRequest(new StreetRequest(StreetMode.CAR))
@@ -30,6 +30,8 @@ import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.transit.service.TransitService;
 import org.opentripplanner.updater.TimetableSnapshotSourceParameters;
 import org.opentripplanner.updater.UpdateResult;
+import org.opentripplanner.updater.trip.TripUpdatePrepareExecutor;
+import org.opentripplanner.updater.trip.metrics.TimetableSnapshotMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.siri.siri20.EstimatedTimetableDeliveryStructure;
@@ -51,9 +53,12 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
    */
   private final TimetableSnapshot buffer = new TimetableSnapshot();
   /**
-   * Lock to indicate that buffer is in use
+   * Lock to indicate that buffer is in use. The lock is only used by the threads applying updates
+   * and committing the buffer, routing threads never touch it.
    */
   private final ReentrantLock bufferLock = new ReentrantLock(true);
+
+  private final TimetableSnapshotMetrics metrics = new TimetableSnapshotMetrics("siri");
   /**
    * Use a id generator to generate TripPattern ids for new TripPatterns created by RealTime
    * updates.
@@ -70,15 +75,15 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
   private final TransitLayerUpdater transitLayerUpdater;
 
   /**
-   * If a timetable snapshot is requested less than this number of milliseconds after the previous
-   * snapshot, just return the same one. Throttles the potentially resource-consuming task of
-   * duplicating a TripPattern -> Timetable map and indexing the new Timetables.
+   * The buffer is committed at most once within this number of milliseconds. Throttles the
+   * potentially resource-consuming task of indexing the new Timetables. Changes not committed
+   * when applied are committed by {@link #flushBuffer()}.
    */
   private final int maxSnapshotFrequency;
 
   /**
-   * The last committed snapshot that was handed off to a routing thread. This snapshot may be given
-   * to more than one routing thread if the maximum snapshot frequency is exceeded.
+   * The last committed snapshot that was handed off to a routing thread. This snapshot is given to
+   * all routing threads until the next commit.
    */
   private volatile TimetableSnapshot snapshot = null;
 
@@ -103,33 +108,32 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
     transitModel.initTimetableSnapshotProvider(this);
 
     // Force commit so that snapshot initializes
-    getTimetableSnapshot(true);
+    commitTimetableSnapshot(true);
   }
 
   /**
-   * @return an up-to-date snapshot mapping TripPatterns to Timetables. This snapshot and the
+   * @return the latest committed snapshot mapping TripPatterns to Timetables. This snapshot and the
    * timetable objects it references are guaranteed to never change, so the requesting thread is
    * provided a consistent view of all TripTimes. The routing thread need only release its reference
-   * to the snapshot to release resources.
+   * to the snapshot to release resources. This does not lock, the snapshot is committed by the
+   * thread applying the updates.
    */
   public TimetableSnapshot getTimetableSnapshot() {
-    TimetableSnapshot snapshotToReturn;
-
-    // Try to get a lock on the buffer
-    if (bufferLock.tryLock()) {
-      // Make a new snapshot if necessary
-      try {
-        snapshotToReturn = getTimetableSnapshot(false);
-      } finally {
-        bufferLock.unlock();
-      }
-    } else {
-      // No lock could be obtained because there is either a snapshot commit busy or updates
-      // are applied at this moment, just return the current snapshot
-      snapshotToReturn = snapshot;
-    }
+    return snapshot;
+  }
 
-    return snapshotToReturn;
+  /**
+   * Commit the changes in the buffer if the max snapshot frequency allows it. This should be called
+   * periodically by the graph writer thread, to publish the updates which were not committed when
+   * they were applied, because of the max snapshot frequency.
+   */
+  public void flushBuffer() {
+    metrics.lock(bufferLock);
+    try {
+      commitTimetableSnapshot(false);
+    } finally {
+      metrics.unlock(bufferLock);
+    }
   }
 
   /**
@@ -154,7 +158,7 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
     }
 
     // Acquire lock on buffer
-    bufferLock.lock();
+    metrics.lock(bufferLock);
 
     List<Result<UpdateSuccess, UpdateError>> results = new ArrayList<>();
 
@@ -164,13 +168,30 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
         buffer.clear(feedId);
       }
 
+      List<EstimatedVehicleJourney> journeys = new ArrayList<>();
       for (var etDelivery : updates) {
         for (var estimatedJourneyVersion : etDelivery.getEstimatedJourneyVersionFrames()) {
-          var journeys = estimatedJourneyVersion.getEstimatedVehicleJourneies();
-          LOG.debug("Handling {} EstimatedVehicleJourneys.", journeys.size());
-          for (EstimatedVehicleJourney journey : journeys) {
-            results.add(apply(journey, transitModel, fuzzyTripMatcher, entityResolver));
-          }
+          var frameJourneys = estimatedJourneyVersion.getEstimatedVehicleJourneies();
+          LOG.debug("Handling {} EstimatedVehicleJourneys.", frameJourneys.size());
+          journeys.addAll(frameJourneys);
+        }
+      }
+
+      // Build the updated trip times for journeys of existing trips in parallel, this only reads
+      // the transit model and the current snapshot. The buffer is updated serially below, in the
+      // order of the journeys.
+      List<PreparedModifiedTrip> preparedTrips = TripUpdatePrepareExecutor.prepare(
+        journeys,
+        journey -> prepareModifiedTrip(journey, entityResolver)
+      );
+
+      for (int i = 0; i < journeys.size(); ++i) {
+        var journey = journeys.get(i);
+        var prepared = preparedTrips.get(i);
+        if (prepared != null) {
+          results.add(applyModifiedTrip(prepared, journey, entityResolver));
+        } else {
+          results.add(apply(journey, transitModel, fuzzyTripMatcher, entityResolver));
         }
       }
 
@@ -179,16 +200,15 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
 
       // Make a snapshot after each message in anticipation of incoming requests
       // Purge data if necessary (and force new snapshot if anything was purged)
-      // Make sure that the public (locking) getTimetableSnapshot function is not called.
       if (purgeExpiredData) {
         final boolean modified = purgeExpiredData();
-        getTimetableSnapshot(modified);
+        commitTimetableSnapshot(modified);
       } else {
-        getTimetableSnapshot(false);
+        commitTimetableSnapshot(false);
       }
     } finally {
       // Always release lock
-      bufferLock.unlock();
+      metrics.unlock(bufferLock);
     }
     return UpdateResult.ofResults(results);
   }
@@ -233,6 +253,67 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
     }
   }
 
+  /**
+   * Build the updated trip times for a journey of an existing trip, without changing the buffer
+   * or the transit model, so this can be done in parallel for all journeys in a batch. New trips
+   * and journeys which can not be resolved to a trip directly (fuzzy matching depends on the
+   * buffer) are not prepared, {@code null} is returned and they are applied serially.
+   * <p>
+   * The trip and its pattern are resolved before any journey in the batch is applied, this is
+   * safe since applying a journey only adds new trips to the transit model, and a journey for a
+   * new trip is never prepared.
+   */
+  @Nullable
+  private PreparedModifiedTrip prepareModifiedTrip(
+    EstimatedVehicleJourney journey,
+    EntityResolver entityResolver
+  ) {
+    try {
+      if (shouldAddNewTrip(journey, entityResolver)) {
+        return null;
+      }
+      Trip trip = entityResolver.resolveTrip(journey);
+      if (trip == null) {
+        return null;
+      }
+      var serviceDate = resolveServiceDate(journey, trip, entityResolver);
+      if (serviceDate.isFailure()) {
+        return new PreparedModifiedTrip(trip, null, serviceDate.toFailureResult());
+      }
+      TripPattern pattern = transitService.getPatternForTrip(trip);
+      return new PreparedModifiedTrip(
+        trip,
+        pattern,
+        createModifiedTrip(trip, pattern, serviceDate.successValue(), journey, entityResolver)
+      );
+    } catch (RuntimeException e) {
+      // Applied serially, where the failure is logged
+      return null;
+    }
+  }
+
+  /**
+   * Apply a modified trip prepared by {@link #prepareModifiedTrip}, the caller must hold the
+   * {@link #bufferLock}.
+   */
+  private Result<UpdateSuccess, UpdateError> applyModifiedTrip(
+    PreparedModifiedTrip prepared,
+    EstimatedVehicleJourney journey,
+    EntityResolver entityResolver
+  ) {
+    try {
+      var result = prepared.tripUpdate();
+      if (result.isFailure()) {
+        return result.toFailureResult();
+      }
+      removePreviousUpdates(prepared.trip(), prepared.pattern(), result.successValue());
+      return addTripToGraphAndBuffer(result.successValue(), journey, entityResolver);
+    } catch (Throwable t) {
+      LOG.warn("Updating EstimatedJourney {} failed.", DebugString.of(journey), t);
+      return Result.failure(UpdateError.noTripId(UNKNOWN));
+    }
+  }
+
   /**
    * Check if VehicleJourney is a replacement departure according to SIRI-ET requirements.
    */
@@ -249,12 +330,15 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
     return entityResolver.resolveTrip(vehicleJourney) == null;
   }
 
-  private TimetableSnapshot getTimetableSnapshot(final boolean force) {
+  /**
+   * Commit the buffer, the caller must hold the {@link #bufferLock}.
+   */
+  private void commitTimetableSnapshot(final boolean force) {
     final long now = System.currentTimeMillis();
-    if (force || now - lastSnapshotTime > maxSnapshotFrequency) {
+    if (force || now - lastSnapshotTime >= maxSnapshotFrequency) {
       if (force || buffer.isDirty()) {
         LOG.debug("Committing {}", buffer);
-        snapshot = buffer.commit(transitLayerUpdater, force);
+        snapshot = metrics.recordCommit(() -> buffer.commit(transitLayerUpdater, force));
       } else {
         LOG.debug("Buffer was unchanged, keeping old snapshot.");
       }
@@ -262,7 +346,6 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
     } else {
       LOG.debug("Snapshot frequency exceeded. Reusing snapshot {}", snapshot);
     }
-    return snapshot;
   }
 
   /**
@@ -285,20 +368,11 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
   ) {
     Trip trip = entityResolver.resolveTrip(estimatedVehicleJourney);
 
-    // Check if EstimatedVehicleJourney is reported as NOT monitored, ignore the notMonitored-flag
-    // if the journey is NOT monitored because it has been cancelled
-    if (
-      !TRUE.equals(estimatedVehicleJourney.isMonitored()) &&
-      !TRUE.equals(estimatedVehicleJourney.isCancellation())
-    ) {
-      return UpdateError.result(trip != null ? trip.getId() : null, NOT_MONITORED);
-    }
-
-    LocalDate serviceDate = entityResolver.resolveServiceDate(estimatedVehicleJourney);
-
-    if (serviceDate == null) {
-      return UpdateError.result(trip != null ? trip.getId() : null, NO_START_DATE);
+    var serviceDateResult = resolveServiceDate(estimatedVehicleJourney, trip, entityResolver);
+    if (serviceDateResult.isFailure()) {
+      return serviceDateResult.toFailureResult();
     }
+    LocalDate serviceDate = serviceDateResult.successValue();
 
     TripPattern pattern;
 
@@ -328,6 +402,58 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
       return UpdateError.result(null, NO_TRIP_ID);
     }
 
+    var updateResult = createModifiedTrip(
+      trip,
+      pattern,
+      serviceDate,
+      estimatedVehicleJourney,
+      entityResolver
+    );
+    if (updateResult.isFailure()) {
+      return updateResult;
+    }
+
+    removePreviousUpdates(trip, pattern, updateResult.successValue());
+
+    return updateResult;
+  }
+
+  /**
+   * Check that the journey is monitored and resolve its service date. This does not change the
+   * buffer.
+   *
+   * @param trip The trip of the journey, only used in the error, may be {@code null}.
+   */
+  private static Result<LocalDate, UpdateError> resolveServiceDate(
+    EstimatedVehicleJourney journey,
+    @Nullable Trip trip,
+    EntityResolver entityResolver
+  ) {
+    var tripId = trip != null ? trip.getId() : null;
+
+    // Check if EstimatedVehicleJourney is reported as NOT monitored, ignore the notMonitored-flag
+    // if the journey is NOT monitored because it has been cancelled
+    if (!TRUE.equals(journey.isMonitored()) && !TRUE.equals(journey.isCancellation())) {
+      return UpdateError.result(tripId, NOT_MONITORED);
+    }
+
+    LocalDate serviceDate = entityResolver.resolveServiceDate(journey);
+    if (serviceDate == null) {
+      return UpdateError.result(tripId, NO_START_DATE);
+    }
+    return Result.success(serviceDate);
+  }
+
+  /**
+   * Build the updated trip times for an existing trip. This does not change the buffer.
+   */
+  private Result<TripUpdate, UpdateError> createModifiedTrip(
+    Trip trip,
+    TripPattern pattern,
+    LocalDate serviceDate,
+    EstimatedVehicleJourney estimatedVehicleJourney,
+    EntityResolver entityResolver
+  ) {
     Timetable currentTimetable = getCurrentTimetable(pattern, serviceDate);
     TripTimes existingTripTimes = currentTimetable.getTripTimes(trip);
     if (existingTripTimes == null) {
@@ -345,10 +471,16 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
       .build();
     if (updateResult.isFailure()) {
       LOG.info("Failed to update TripTimes for trip {}", trip);
-      return updateResult.toFailureResult();
     }
+    return updateResult;
+  }
 
-    if (!updateResult.successValue().stopPattern().equals(pattern.getStopPattern())) {
+  /**
+   * Remove the scheduled trip and previous realtime updates of a modified trip from the buffer.
+   */
+  private void removePreviousUpdates(Trip trip, TripPattern pattern, TripUpdate tripUpdate) {
+    LocalDate serviceDate = tripUpdate.serviceDate();
+    if (!tripUpdate.stopPattern().equals(pattern.getStopPattern())) {
       // Replace scheduled trip pattern, if pattern has changed
       markScheduledTripAsDeleted(trip, serviceDate);
     }
@@ -356,8 +488,6 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
     // Also check whether trip id has been used for previously ADDED/MODIFIED trip message and
     // remove the previously created trip
     removePreviousRealtimeUpdate(trip, serviceDate);
-
-    return updateResult;
   }
 
   /**
@@ -462,4 +592,13 @@ public class SiriTimetableSnapshotSource implements TimetableSnapshotProvider {
 
     return buffer.purgeExpiredData(previously);
   }
+
+  /**
+   * The updated trip times for a journey of an existing trip, built before the buffer is updated.
+   */
+  private record PreparedModifiedTrip(
+    Trip trip,
+    @Nullable TripPattern pattern,
+    Result<TripUpdate, UpdateError> tripUpdate
+  ) {}
 }
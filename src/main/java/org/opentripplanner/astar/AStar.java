@@ -8,13 +8,18 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
-import org.opentripplanner.astar.model.BinHeap;
+import javax.annotation.Nullable;
 import org.opentripplanner.astar.model.GraphPath;
+import org.opentripplanner.astar.model.SearchArena;
+import org.opentripplanner.astar.model.SearchQueue;
+import org.opentripplanner.astar.model.SearchQueueType;
 import org.opentripplanner.astar.model.ShortestPathTree;
+import org.opentripplanner.astar.model.ShortestPathTreeStorage;
 import org.opentripplanner.astar.spi.AStarEdge;
 import org.opentripplanner.astar.spi.AStarState;
 import org.opentripplanner.astar.spi.AStarVertex;
 import org.opentripplanner.astar.spi.DominanceFunction;
+import org.opentripplanner.astar.spi.ExtraEdgesStrategy;
 import org.opentripplanner.astar.spi.RemainingWeightHeuristic;
 import org.opentripplanner.astar.spi.SearchTerminationStrategy;
 import org.opentripplanner.astar.spi.SkipEdgeStrategy;
@@ -42,65 +47,120 @@ public class AStar<
   private final Set<Vertex> toVertices;
   private final RemainingWeightHeuristic<State> heuristic;
   private final SkipEdgeStrategy<State, Edge> skipEdgeStrategy;
+
+  @Nullable
+  private final ExtraEdgesStrategy<Edge, Vertex> extraEdgesStrategy;
+
   private final SearchTerminationStrategy<State> terminationStrategy;
   private final TraverseVisitor<State, Edge> traverseVisitor;
   private final Duration timeout;
 
-  private final ShortestPathTree<State, Edge, Vertex> spt;
-  private final BinHeap<State> pq;
+  private final DominanceFunction<State> dominanceFunction;
+  private final ShortestPathTreeStorage shortestPathTreeStorage;
+  private final SearchQueueType searchQueueType;
+  private final boolean useSearchArena;
+  private final Collection<State> initialStates;
   private final List<State> targetAcceptedStates;
 
+  /** The tree and the queue are created when the search is run, see {@link #initialize}. */
+  private ShortestPathTree<State, Edge, Vertex> spt;
+  private SearchQueue<State> pq;
+
   private State u;
   private int nVisited;
 
   AStar(
     RemainingWeightHeuristic<State> heuristic,
     SkipEdgeStrategy<State, Edge> skipEdgeStrategy,
+    @Nullable ExtraEdgesStrategy<Edge, Vertex> extraEdgesStrategy,
     TraverseVisitor<State, Edge> traverseVisitor,
     boolean arriveBy,
     Set<Vertex> fromVertices,
     Set<Vertex> toVertices,
     SearchTerminationStrategy<State> terminationStrategy,
     DominanceFunction<State> dominanceFunction,
+    ShortestPathTreeStorage shortestPathTreeStorage,
+    SearchQueueType searchQueueType,
+    boolean useSearchArena,
     @Nonnull Duration timeout,
     Collection<State> initialStates
   ) {
     this.heuristic = heuristic;
     this.skipEdgeStrategy = skipEdgeStrategy;
+    this.extraEdgesStrategy = extraEdgesStrategy;
     this.traverseVisitor = traverseVisitor;
     this.fromVertices = fromVertices;
     this.toVertices = toVertices;
     this.arriveBy = arriveBy;
     this.terminationStrategy = terminationStrategy;
     this.timeout = Objects.requireNonNull(timeout);
-
-    this.spt = new ShortestPathTree<>(dominanceFunction);
-
-    // Initialized with a reasonable size, see #4445
-    this.pq = new BinHeap<>(1000);
+    this.dominanceFunction = dominanceFunction;
+    this.shortestPathTreeStorage = shortestPathTreeStorage;
+    this.searchQueueType = searchQueueType;
+    this.useSearchArena = useSearchArena;
+    this.initialStates = initialStates;
     this.nVisited = 0;
     this.targetAcceptedStates = new ArrayList<>();
-
-    for (State initialState : initialStates) {
-      spt.add(initialState);
-      pq.insert(initialState, initialState.getWeight());
-    }
   }
 
   ShortestPathTree<State, Edge, Vertex> getShortestPathTree() {
-    runSearch();
-
+    // The tree is returned, so it can not be taken from the arena
+    SearchArena arena = borrowArena();
+    try {
+      initialize(arena, false);
+      runSearch();
+    } finally {
+      releaseArena(arena);
+    }
     return spt;
   }
 
   List<GraphPath<State, Edge, Vertex>> getPathsToTarget() {
-    runSearch();
+    SearchArena arena = borrowArena();
+    try {
+      initialize(arena, true);
+      runSearch();
+
+      return targetAcceptedStates
+        .stream()
+        .filter(State::isFinal)
+        .map(GraphPath::new)
+        .collect(Collectors.toList());
+    } finally {
+      releaseArena(arena);
+    }
+  }
+
+  /**
+   * The arena is borrowed when the search is run, and released in the same method; Hence, a search
+   * which is created, but never run, does not hold on to the arena.
+   */
+  @Nullable
+  private SearchArena borrowArena() {
+    return useSearchArena ? SearchArena.borrow() : null;
+  }
 
-    return targetAcceptedStates
-      .stream()
-      .filter(State::isFinal)
-      .map(GraphPath::new)
-      .collect(Collectors.toList());
+  private void releaseArena(@Nullable SearchArena arena) {
+    if (arena != null) {
+      arena.release();
+    }
+  }
+
+  private void initialize(@Nullable SearchArena arena, boolean shortestPathTreeFromArena) {
+    if (arena == null) {
+      this.spt = new ShortestPathTree<>(dominanceFunction, shortestPathTreeStorage);
+      this.pq = searchQueueType.createQueue(s -> s.getVertex().getIndex(), spt::visit);
+    } else {
+      this.spt =
+        shortestPathTreeFromArena
+          ? arena.shortestPathTree(dominanceFunction, shortestPathTreeStorage)
+          : new ShortestPathTree<>(dominanceFunction, shortestPathTreeStorage);
+      this.pq = arena.queue(searchQueueType, s -> s.getVertex().getIndex(), spt::visit);
+    }
+    for (State initialState : initialStates) {
+      spt.add(initialState);
+      pq.insert(initialState, initialState.getWeight());
+    }
   }
 
   private boolean iterate() {
@@ -134,6 +194,15 @@ public class AStar<
     }
 
     Collection<Edge> edges = arriveBy ? u_vertex.getIncoming() : u_vertex.getOutgoing();
+    if (extraEdgesStrategy != null) {
+      Collection<Edge> extraEdges = arriveBy
+        ? extraEdgesStrategy.extraIncomingEdges(u_vertex)
+        : extraEdgesStrategy.extraOutgoingEdges(u_vertex);
+      if (!extraEdges.isEmpty()) {
+        edges = new ArrayList<>(edges);
+        edges.addAll(extraEdges);
+      }
+    }
     for (Edge edge : edges) {
       if (skipEdgeStrategy != null && skipEdgeStrategy.shouldSkipEdge(u, edge)) {
         continue;
@@ -8,11 +8,15 @@ import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import org.opentripplanner.astar.model.GraphPath;
+import org.opentripplanner.astar.model.SearchArena;
+import org.opentripplanner.astar.model.SearchQueueType;
 import org.opentripplanner.astar.model.ShortestPathTree;
+import org.opentripplanner.astar.model.ShortestPathTreeStorage;
 import org.opentripplanner.astar.spi.AStarEdge;
 import org.opentripplanner.astar.spi.AStarState;
 import org.opentripplanner.astar.spi.AStarVertex;
 import org.opentripplanner.astar.spi.DominanceFunction;
+import org.opentripplanner.astar.spi.ExtraEdgesStrategy;
 import org.opentripplanner.astar.spi.RemainingWeightHeuristic;
 import org.opentripplanner.astar.spi.SearchTerminationStrategy;
 import org.opentripplanner.astar.spi.SkipEdgeStrategy;
@@ -28,12 +32,16 @@ public abstract class AStarBuilder<
   private Builder builder;
   private RemainingWeightHeuristic<State> heuristic = RemainingWeightHeuristic.TRIVIAL;
   private SkipEdgeStrategy<State, Edge> skipEdgeStrategy;
+  private ExtraEdgesStrategy<Edge, Vertex> extraEdgesStrategy;
   private TraverseVisitor<State, Edge> traverseVisitor;
   private boolean arriveBy;
   private Set<Vertex> fromVertices;
   private Set<Vertex> toVertices;
   private SearchTerminationStrategy<State> terminationStrategy;
   private DominanceFunction<State> dominanceFunction;
+  private ShortestPathTreeStorage shortestPathTreeStorage = ShortestPathTreeStorage.IDENTITY_MAP;
+  private SearchQueueType searchQueueType = SearchQueueType.BINARY_HEAP;
+  private boolean useSearchArena = false;
   private Edge originBackEdge;
   private Collection<State> initialStates;
 
@@ -53,6 +61,15 @@ public abstract class AStarBuilder<
     return builder;
   }
 
+  /**
+   * Provide edges not in the edge lists of the vertices. If not set, the strategy is created by
+   * {@link #createDefaultExtraEdgesStrategy(Collection, Collection)}.
+   */
+  public Builder setExtraEdgesStrategy(ExtraEdgesStrategy<Edge, Vertex> extraEdgesStrategy) {
+    this.extraEdgesStrategy = extraEdgesStrategy;
+    return builder;
+  }
+
   public Builder setTraverseVisitor(TraverseVisitor<State, Edge> traverseVisitor) {
     this.traverseVisitor = traverseVisitor;
     return builder;
@@ -98,6 +115,32 @@ public abstract class AStarBuilder<
     return builder;
   }
 
+  /** How the states are stored in the shortest path tree, the default is an identity hash map. */
+  public Builder setShortestPathTreeStorage(ShortestPathTreeStorage shortestPathTreeStorage) {
+    this.shortestPathTreeStorage = shortestPathTreeStorage;
+    return builder;
+  }
+
+  /**
+   * The priority queue implementation used by the search, the default is a binary heap. The
+   * {@link SearchQueueType#RADIX_HEAP} is only used by searches without a heuristic, see
+   * {@link #searchQueueType()}.
+   */
+  public Builder setSearchQueueType(SearchQueueType searchQueueType) {
+    this.searchQueueType = searchQueueType;
+    return builder;
+  }
+
+  /**
+   * Reuse the memory of the queue and the shortest path tree from the last search on the same
+   * thread, see {@link SearchArena}. The shortest path tree is only reused when the paths are
+   * returned, not when the tree itself is returned from {@link #getShortestPathTree()}.
+   */
+  public Builder setUseSearchArena(boolean useSearchArena) {
+    this.useSearchArena = useSearchArena;
+    return builder;
+  }
+
   @Nonnull
   protected abstract Duration streetRoutingTimeout();
 
@@ -140,20 +183,46 @@ public abstract class AStarBuilder<
     prepareInitialStates(initialStates);
     initializeHeuristic(heuristic, origin, destination, arriveBy);
 
+    var extraEdges = extraEdgesStrategy != null
+      ? extraEdgesStrategy
+      : createDefaultExtraEdgesStrategy(
+        initialStates.stream().map(AStarState::getVertex).toList(),
+        destination == null ? List.of() : destination
+      );
+
     return new AStar<>(
       heuristic,
       skipEdgeStrategy,
+      extraEdges,
       traverseVisitor,
       arriveBy,
       origin,
       destination,
       terminationStrategy,
       Optional.ofNullable(dominanceFunction).orElseGet(this::createDefaultDominanceFunction),
+      shortestPathTreeStorage,
+      searchQueueType(),
+      useSearchArena,
       streetRoutingTimeout(),
       initialStates
     );
   }
 
+  /**
+   * The radix heap requires that no key is lower than the last key extracted. This holds for a
+   * search without a heuristic, since the weight never decrease. The heuristics used by the street
+   * searches are not consistent - bicycle safety, changing speed after parking or renting a vehicle
+   * and the distance bounds can all lower the key - so the binary heap is used if the search has a
+   * heuristic.
+   */
+  private SearchQueueType searchQueueType() {
+    boolean hasHeuristic = heuristic != RemainingWeightHeuristic.TRIVIAL;
+    if (searchQueueType == SearchQueueType.RADIX_HEAP && hasHeuristic) {
+      return SearchQueueType.BINARY_HEAP;
+    }
+    return searchQueueType;
+  }
+
   protected abstract Collection<State> createInitialStates(Set<Vertex> originVertices);
 
   protected abstract void prepareInitialStates(Collection<State> initialStates);
@@ -166,4 +235,13 @@ public abstract class AStarBuilder<
   );
 
   protected abstract DominanceFunction<State> createDefaultDominanceFunction();
+
+  /**
+   * Create the strategy used to find edges not in the edge lists of the vertices, for a search
+   * between the given vertices. Return null if all edges are in the edge lists.
+   */
+  protected abstract ExtraEdgesStrategy<Edge, Vertex> createDefaultExtraEdgesStrategy(
+    Collection<Vertex> origin,
+    Collection<Vertex> destination
+  );
 }
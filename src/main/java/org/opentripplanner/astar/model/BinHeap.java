@@ -2,7 +2,7 @@ package org.opentripplanner.astar.model;
 
 import java.util.Arrays;
 
-public class BinHeap<T> {
+public class BinHeap<T> implements SearchQueue<T> {
 
   private static final double GROW_FACTOR = 2.0;
 
@@ -25,14 +25,17 @@ public class BinHeap<T> {
     prio[0] = Double.NEGATIVE_INFINITY; // set sentinel
   }
 
+  @Override
   public int size() {
     return size;
   }
 
+  @Override
   public boolean empty() {
     return size <= 0;
   }
 
+  @Override
   public double peek_min_key() {
     if (size > 0) return prio[1]; else throw new IllegalStateException(
       "An empty queue does not have a minimum key."
@@ -87,11 +90,15 @@ public class BinHeap<T> {
     System.out.printf("-----------------------\n");
   }
 
+  @Override
   public void reset() {
-    // empties the queue in one operation
+    // empties the queue, and clear the references so the elements can be garbage collected. The
+    // elements above the size are cleared when they are extracted.
+    Arrays.fill(elem, 1, size + 1, null);
     size = 0;
   }
 
+  @Override
   public void insert(T e, double p) {
     int i;
     size += 1;
@@ -104,6 +111,7 @@ public class BinHeap<T> {
     prio[i] = p;
   }
 
+  @Override
   public T extract_min() {
     int i, child;
     T minElem = elem[1];
@@ -123,6 +131,8 @@ public class BinHeap<T> {
     }
     elem[i] = lastElem;
     prio[i] = lastPrio;
+    // The last element is moved, clear the reference to it at the old position
+    elem[size + 1] = null;
     return minElem;
   }
 
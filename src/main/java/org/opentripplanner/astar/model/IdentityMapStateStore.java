@@ -0,0 +1,85 @@
+package org.opentripplanner.astar.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.opentripplanner.astar.spi.AStarEdge;
+import org.opentripplanner.astar.spi.AStarState;
+import org.opentripplanner.astar.spi.AStarVertex;
+import org.opentripplanner.astar.spi.DominanceFunction;
+
+/**
+ * Store the states in an identity hash map keyed on the vertex.
+ *
+ * @see ShortestPathTreeStorage#IDENTITY_MAP
+ */
+class IdentityMapStateStore<
+  State extends AStarState<State, Edge, Vertex>,
+  Edge extends AStarEdge<State, Edge, Vertex>,
+  Vertex extends AStarVertex<State, Edge, Vertex>
+>
+  implements StateStore<State, Edge, Vertex> {
+
+  private final Map<Vertex, List<State>> stateSets;
+
+  IdentityMapStateStore() {
+    // Initialized with a reasonable size, see #4445
+    this(10_000);
+  }
+
+  IdentityMapStateStore(int expectedNumberOfVertices) {
+    this.stateSets = new IdentityHashMap<>(expectedNumberOfVertices);
+  }
+
+  @Override
+  public boolean add(State newState, DominanceFunction<State> dominanceFunction) {
+    Vertex vertex = newState.getVertex();
+    List<State> states = stateSets.get(vertex);
+
+    // if the vertex has no states, add one and return
+    if (states == null) {
+      states = new ArrayList<>();
+      stateSets.put(vertex, states);
+      states.add(newState);
+      return true;
+    }
+    return StateStore.addToStateSet(states, newState, dominanceFunction);
+  }
+
+  @Override
+  public boolean contains(State state) {
+    List<State> states = stateSets.get(state.getVertex());
+    if (states == null) {
+      return false;
+    }
+    for (State s : states) {
+      if (s == state) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public List<State> get(Vertex vertex) {
+    return stateSets.get(vertex);
+  }
+
+  @Override
+  public Set<Vertex> vertices() {
+    return stateSets.keySet();
+  }
+
+  @Override
+  public int vertexCount() {
+    return stateSets.size();
+  }
+
+  @Override
+  public void forEachStateSet(Consumer<List<State>> body) {
+    stateSets.values().forEach(body);
+  }
+}
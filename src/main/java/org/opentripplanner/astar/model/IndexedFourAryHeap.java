@@ -0,0 +1,213 @@
+package org.opentripplanner.astar.model;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A 4-ary min-heap with support for decrease-key. Each element may have a (vertex) index, and the
+ * heap keeps track of the position of the last inserted element for each index. When a new
+ * element with the same index is inserted, and the existing element is no longer live (it is
+ * dominated), the existing element is replaced by the new one and moved to its new position in
+ * O(log n) time. If the existing element is still live, the new element is added as a separate
+ * entry.
+ * <p>
+ * A 4-ary heap is shallower than a binary heap, and the children of a node are next to each other
+ * in memory, so it is often faster even without the decrease-key support.
+ * <p>
+ * THIS CLASS IS NOT THREAD-SAFE.
+ */
+public class IndexedFourAryHeap<T> implements SearchQueue<T> {
+
+  private static final int D = 4;
+  private static final int NOT_INDEXED = -1;
+  /** Positions are stored with an offset of one, so the default value 0 means "not in heap". */
+  private static final int NOT_IN_HEAP = 0;
+
+  private final ToIntFunction<T> indexOf;
+  private final Predicate<T> isLive;
+
+  private T[] elem;
+  private double[] prio;
+
+  /** The index for the element at each heap position, or NOT_INDEXED if not tracked. */
+  private int[] indexAt;
+
+  /** The heap position (plus one) for each index, or NOT_IN_HEAP. */
+  private int[] positionOf;
+
+  private int size = 0;
+
+  @SuppressWarnings("unchecked")
+  public IndexedFourAryHeap(int capacity, ToIntFunction<T> indexOf, Predicate<T> isLive) {
+    capacity = Math.max(capacity, 16);
+    this.indexOf = indexOf;
+    this.isLive = isLive;
+    this.elem = (T[]) new Object[capacity];
+    this.prio = new double[capacity];
+    this.indexAt = new int[capacity];
+    this.positionOf = new int[capacity];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean empty() {
+    return size == 0;
+  }
+
+  @Override
+  public void insert(T e, double p) {
+    int index = indexOf.applyAsInt(e);
+
+    if (index >= 0) {
+      ensurePositionCapacity(index);
+      int pos = positionOf[index] - 1;
+
+      if (pos >= 0) {
+        if (!isLive.test(elem[pos])) {
+          // The queued element is dominated, replace it and move it to its new place
+          double oldPrio = prio[pos];
+          elem[pos] = e;
+          prio[pos] = p;
+          if (p < oldPrio) {
+            siftUp(pos);
+          } else {
+            siftDown(pos);
+          }
+          return;
+        }
+        // Both elements are live, stop tracking the old one
+        indexAt[pos] = NOT_INDEXED;
+      }
+    }
+
+    if (size == elem.length) {
+      grow();
+    }
+    elem[size] = e;
+    prio[size] = p;
+    indexAt[size] = index < 0 ? NOT_INDEXED : index;
+    updatePosition(size);
+    siftUp(size++);
+  }
+
+  @Override
+  public T extract_min() {
+    if (size == 0) {
+      return null;
+    }
+    T min = elem[0];
+    clearPosition(0);
+
+    --size;
+    if (size > 0) {
+      move(size, 0);
+      siftDown(0);
+    }
+    elem[size] = null;
+    return min;
+  }
+
+  @Override
+  public double peek_min_key() {
+    if (size == 0) {
+      throw new IllegalStateException("An empty queue does not have a minimum key.");
+    }
+    return prio[0];
+  }
+
+  @Override
+  public void reset() {
+    for (int i = 0; i < size; ++i) {
+      clearPosition(i);
+      elem[i] = null;
+    }
+    size = 0;
+  }
+
+  /* private methods */
+
+  private void siftUp(int i) {
+    T e = elem[i];
+    double p = prio[i];
+    int index = indexAt[i];
+
+    while (i > 0) {
+      int parent = (i - 1) / D;
+      if (prio[parent] <= p) {
+        break;
+      }
+      move(parent, i);
+      i = parent;
+    }
+    set(i, e, p, index);
+  }
+
+  private void siftDown(int i) {
+    T e = elem[i];
+    double p = prio[i];
+    int index = indexAt[i];
+
+    while (true) {
+      int firstChild = D * i + 1;
+      if (firstChild >= size) {
+        break;
+      }
+      int lastChild = Math.min(firstChild + D, size);
+      int minChild = firstChild;
+      for (int c = firstChild + 1; c < lastChild; ++c) {
+        if (prio[c] < prio[minChild]) {
+          minChild = c;
+        }
+      }
+      if (p <= prio[minChild]) {
+        break;
+      }
+      move(minChild, i);
+      i = minChild;
+    }
+    set(i, e, p, index);
+  }
+
+  private void move(int from, int to) {
+    set(to, elem[from], prio[from], indexAt[from]);
+  }
+
+  private void set(int pos, T e, double p, int index) {
+    elem[pos] = e;
+    prio[pos] = p;
+    indexAt[pos] = index;
+    updatePosition(pos);
+  }
+
+  private void updatePosition(int pos) {
+    int index = indexAt[pos];
+    if (index != NOT_INDEXED) {
+      positionOf[index] = pos + 1;
+    }
+  }
+
+  private void clearPosition(int pos) {
+    int index = indexAt[pos];
+    if (index != NOT_INDEXED) {
+      positionOf[index] = NOT_IN_HEAP;
+    }
+  }
+
+  private void ensurePositionCapacity(int index) {
+    if (index >= positionOf.length) {
+      positionOf = Arrays.copyOf(positionOf, Math.max(positionOf.length * 2, index + 1));
+    }
+  }
+
+  private void grow() {
+    int capacity = elem.length * 2;
+    elem = Arrays.copyOf(elem, capacity);
+    prio = Arrays.copyOf(prio, capacity);
+    indexAt = Arrays.copyOf(indexAt, capacity);
+  }
+}
@@ -0,0 +1,163 @@
+package org.opentripplanner.astar.model;
+
+import java.util.Arrays;
+
+/**
+ * A monotone radix heap. The priorities are non-negative doubles, the bit pattern of a non-negative
+ * double is ordered the same way as the double value, so the radix heap operates on the raw
+ * 64-bit pattern. An element is placed in bucket {@code b}, where {@code b} is the position of the
+ * highest bit that differs between the element priority and the last extracted priority. When
+ * bucket 0 is empty, the lowest non-empty bucket is redistributed into lower buckets. Each element
+ * can only move down, at most 64 times, so all operations are amortized O(log C).
+ * <p>
+ * The heap is monotone; the priority of an inserted element must not be less than the last
+ * extracted priority. Inserting an element with a lower priority throws an
+ * {@link IllegalArgumentException}, the search would otherwise silently return a non-optimal
+ * result. This happens if the A* heuristic is not consistent.
+ * <p>
+ * THIS CLASS IS NOT THREAD-SAFE.
+ */
+public class RadixHeap<T> implements SearchQueue<T> {
+
+  private static final int N_BUCKETS = 65;
+  private static final int INITIAL_BUCKET_CAPACITY = 16;
+
+  private final Bucket[] buckets = new Bucket[N_BUCKETS];
+  private long last = 0;
+  private int size = 0;
+
+  public RadixHeap() {
+    for (int i = 0; i < N_BUCKETS; ++i) {
+      buckets[i] = new Bucket();
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean empty() {
+    return size == 0;
+  }
+
+  @Override
+  public void insert(T e, double p) {
+    double lastPriority = Double.longBitsToDouble(last);
+    // This also rejects NaN and negative numbers
+    if (!(p >= lastPriority)) {
+      throw new IllegalArgumentException(
+        "The priority " +
+        p +
+        " is less than the last extracted priority " +
+        lastPriority +
+        ", the radix heap requires a consistent heuristic."
+      );
+    }
+    // Adding zero turns -0.0 into 0.0
+    long key = Double.doubleToLongBits(p + 0.0);
+    buckets[bucketIndex(key)].add(e, key);
+    ++size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T extract_min() {
+    if (size == 0) {
+      return null;
+    }
+    prepareBucketZero();
+    --size;
+    return (T) buckets[0].removeLast();
+  }
+
+  @Override
+  public double peek_min_key() {
+    if (size == 0) {
+      throw new IllegalStateException("An empty queue does not have a minimum key.");
+    }
+    prepareBucketZero();
+    return Double.longBitsToDouble(last);
+  }
+
+  @Override
+  public void reset() {
+    for (Bucket bucket : buckets) {
+      bucket.clear();
+    }
+    size = 0;
+    last = 0;
+  }
+
+  /* private methods */
+
+  private int bucketIndex(long key) {
+    return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+  }
+
+  /**
+   * Make sure bucket zero contains the element(s) with the lowest priority, by redistributing the
+   * lowest non-empty bucket. The queue must not be empty.
+   */
+  private void prepareBucketZero() {
+    if (!buckets[0].isEmpty()) {
+      return;
+    }
+    int i = 1;
+    while (buckets[i].isEmpty()) {
+      ++i;
+    }
+    Bucket bucket = buckets[i];
+    last = bucket.minKey();
+
+    for (int j = 0; j < bucket.size; ++j) {
+      long key = bucket.keys[j];
+      buckets[bucketIndex(key)].add(bucket.elements[j], key);
+    }
+    bucket.clear();
+  }
+
+  /** A bucket is a simple growable array of elements and their (raw double bits) keys. */
+  private static class Bucket {
+
+    private Object[] elements = new Object[INITIAL_BUCKET_CAPACITY];
+    private long[] keys = new long[INITIAL_BUCKET_CAPACITY];
+    private int size = 0;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void add(Object e, long key) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size * 2);
+        keys = Arrays.copyOf(keys, size * 2);
+      }
+      elements[size] = e;
+      keys[size] = key;
+      ++size;
+    }
+
+    Object removeLast() {
+      Object e = elements[--size];
+      elements[size] = null;
+      return e;
+    }
+
+    long minKey() {
+      long min = keys[0];
+      for (int i = 1; i < size; ++i) {
+        if (keys[i] < min) {
+          min = keys[i];
+        }
+      }
+      return min;
+    }
+
+    void clear() {
+      Arrays.fill(elements, 0, size, null);
+      size = 0;
+    }
+  }
+}
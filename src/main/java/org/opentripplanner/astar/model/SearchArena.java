@@ -0,0 +1,111 @@
+package org.opentripplanner.astar.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import org.opentripplanner.astar.spi.AStarEdge;
+import org.opentripplanner.astar.spi.AStarState;
+import org.opentripplanner.astar.spi.AStarVertex;
+import org.opentripplanner.astar.spi.DominanceFunction;
+
+/**
+ * A search arena keeps the memory used by the core of the A* search - the priority queue arrays
+ * and the {@link ShortestPathTreeStorage#VERTEX_INDEX} state arrays - so it can be reused by the
+ * next search on the same thread, instead of being allocated again for each search. Each thread
+ * has its own arena, which is borrowed by a search and released when the search is done.
+ * <p>
+ * A shortest path tree can only be taken from the arena if it is not used after the arena is
+ * released, the tree is reset by the next search. Paths returned from the search only reference
+ * the states, so they are safe to use.
+ * <p>
+ * THIS CLASS IS NOT THREAD-SAFE, it is only accessed by the thread owning it.
+ */
+public final class SearchArena {
+
+  private static final ThreadLocal<SearchArena> ARENA = ThreadLocal.withInitial(SearchArena::new);
+
+  private final Map<SearchQueueType, SearchQueue<Object>> queues = new EnumMap<>(
+    SearchQueueType.class
+  );
+  private VertexIndexStateStore<?, ?, ?> stateStore;
+  private boolean inUse = false;
+
+  /** The queue functions for the current search, the queues delegate to these. */
+  private ToIntFunction<Object> vertexIndex;
+  private Predicate<Object> isLive;
+
+  private SearchArena() {}
+
+  /**
+   * Borrow the arena for the current thread. Returns {@code null} if the arena is already in use,
+   * for example by an outer search, in which case the search should allocate its own memory.
+   * The arena must be returned with {@link #release()}.
+   */
+  public static SearchArena borrow() {
+    var arena = ARENA.get();
+    if (arena.inUse) {
+      return null;
+    }
+    arena.inUse = true;
+    return arena;
+  }
+
+  /** Return a reset queue of the given type, the queue is valid until the arena is released. */
+  @SuppressWarnings("unchecked")
+  public <T> SearchQueue<T> queue(
+    SearchQueueType type,
+    ToIntFunction<T> vertexIndex,
+    Predicate<T> isLive
+  ) {
+    this.vertexIndex = (ToIntFunction<Object>) vertexIndex;
+    this.isLive = (Predicate<Object>) isLive;
+
+    var queue = queues.computeIfAbsent(
+      type,
+      t -> t.createQueue(e -> this.vertexIndex.applyAsInt(e), e -> this.isLive.test(e))
+    );
+    queue.reset();
+    return (SearchQueue<T>) queue;
+  }
+
+  /**
+   * Return an empty shortest path tree. The {@link ShortestPathTreeStorage#VERTEX_INDEX} storage
+   * is reused, the tree is only valid until the arena is released.
+   */
+  @SuppressWarnings("unchecked")
+  public <
+    State extends AStarState<State, Edge, Vertex>,
+    Edge extends AStarEdge<State, Edge, Vertex>,
+    Vertex extends AStarVertex<State, Edge, Vertex>
+  > ShortestPathTree<State, Edge, Vertex> shortestPathTree(
+    DominanceFunction<State> dominanceFunction,
+    ShortestPathTreeStorage storage
+  ) {
+    if (storage != ShortestPathTreeStorage.VERTEX_INDEX) {
+      return new ShortestPathTree<>(dominanceFunction, storage);
+    }
+    if (stateStore == null) {
+      stateStore = new VertexIndexStateStore<>();
+    }
+    stateStore.reset();
+    return new ShortestPathTree<>(
+      dominanceFunction,
+      (VertexIndexStateStore<State, Edge, Vertex>) stateStore
+    );
+  }
+
+  /**
+   * Return the arena to the thread, clearing all references to search states so they can be
+   * garbage collected.
+   */
+  public void release() {
+    queues.values().forEach(SearchQueue::reset);
+    if (stateStore != null) {
+      stateStore.reset();
+    }
+    vertexIndex = null;
+    isLive = null;
+    inUse = false;
+  }
+}
@@ -0,0 +1,23 @@
+package org.opentripplanner.astar.model;
+
+/**
+ * The priority queue used by the A* search to decide which state to explore next. The method
+ * names follow the original {@link BinHeap} implementation.
+ */
+public interface SearchQueue<T> {
+  int size();
+
+  boolean empty();
+
+  /** Add the element with the given priority (lowest priority is extracted first). */
+  void insert(T e, double p);
+
+  /** Remove and return the element with the lowest priority, or {@code null} if empty. */
+  T extract_min();
+
+  /** @return the lowest priority in the queue. Throws an exception if the queue is empty. */
+  double peek_min_key();
+
+  /** Empty the queue, keeping the allocated memory for reuse. */
+  void reset();
+}
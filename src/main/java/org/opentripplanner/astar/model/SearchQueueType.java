@@ -0,0 +1,48 @@
+package org.opentripplanner.astar.model;
+
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Select the {@link SearchQueue} implementation used by the A* search.
+ */
+public enum SearchQueueType {
+  /**
+   * A plain binary heap. A state is added to the queue each time it is enqueued, dominated states
+   * stay in the queue until they are extracted and discarded.
+   */
+  BINARY_HEAP,
+
+  /**
+   * An indexed 4-ary heap. When a new state is enqueued for a vertex which already have a state
+   * in the queue, and that state is dominated (no longer in the shortest path tree), the queued
+   * state is replaced, and its key decreased (or increased) in O(log n). This keeps the queue
+   * small when states are frequently improved, like in long walk and bike searches.
+   */
+  INDEXED_4_ARY_HEAP,
+
+  /**
+   * A monotone radix heap. Inserting and extracting elements is amortized O(1) + O(log C) with
+   * no comparisons between elements. The queue requires that the priority of an inserted element
+   * is not lower than the last extracted one. This holds for searches without a heuristic (plain
+   * Dijkstra, like the duration-weighted access/egress searches), but not for the street searches
+   * with a heuristic. Inserting an element violating this throws an exception; Hence, the
+   * {@link org.opentripplanner.astar.AStarBuilder} use the {@link #BINARY_HEAP} instead for
+   * searches with a heuristic.
+   */
+  RADIX_HEAP;
+
+  /**
+   * @param vertexIndex A function returning the (non-negative) index for the vertex of an element,
+   *                    or a negative number if the element should not be indexed.
+   * @param isLive      Return {@code false} if the element is dominated and can be dropped.
+   */
+  public <T> SearchQueue<T> createQueue(ToIntFunction<T> vertexIndex, Predicate<T> isLive) {
+    return switch (this) {
+      // Initialized with a reasonable size, see #4445
+      case BINARY_HEAP -> new BinHeap<>(1000);
+      case INDEXED_4_ARY_HEAP -> new IndexedFourAryHeap<>(1000, vertexIndex, isLive);
+      case RADIX_HEAP -> new RadixHeap<>();
+    };
+  }
+}
@@ -5,11 +5,9 @@ import com.google.common.collect.Multiset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.IdentityHashMap;
-import java.util.Iterator;
+import java.util.IntSummaryStatistics;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import org.opentripplanner.astar.spi.AStarEdge;
 import org.opentripplanner.astar.spi.AStarState;
@@ -33,6 +31,9 @@ import org.slf4j.LoggerFactory;
  * when walking. The turn restriction handling is done in the base dominance function
  * implementation, and applies to all subclasses. It essentially splits each vertex into N vertices
  * depending on the incoming edge being taken.
+ * <p>
+ * How the states are stored is selected with {@link ShortestPathTreeStorage}, the default is an
+ * identity hash map keyed on the vertex.
  */
 public class ShortestPathTree<
   State extends AStarState<State, Edge, Vertex>,
@@ -44,15 +45,28 @@ public class ShortestPathTree<
 
   public final DominanceFunction<State> dominanceFunction;
 
-  private final Map<Vertex, List<State>> stateSets;
+  private final StateStore<State, Edge, Vertex> stateSets;
 
   /** Indicates that the search timed out or was otherwise aborted. */
   private boolean aborted = false;
 
   public ShortestPathTree(DominanceFunction<State> dominanceFunction) {
+    this(dominanceFunction, ShortestPathTreeStorage.IDENTITY_MAP);
+  }
+
+  public ShortestPathTree(
+    DominanceFunction<State> dominanceFunction,
+    ShortestPathTreeStorage storage
+  ) {
+    this(dominanceFunction, storage.<State, Edge, Vertex>createStore());
+  }
+
+  ShortestPathTree(
+    DominanceFunction<State> dominanceFunction,
+    StateStore<State, Edge, Vertex> stateSets
+  ) {
     this.dominanceFunction = dominanceFunction;
-    // Initialized with a reasonable size, see #4445
-    stateSets = new IdentityHashMap<>(10_000);
+    this.stateSets = stateSets;
   }
 
   /** @return a list of GraphPaths, sometimes empty but never null. */
@@ -83,26 +97,20 @@ public class ShortestPathTree<
   /** Print out a summary of the number of states and vertices. */
   public void dump() {
     Multiset<Integer> histogram = HashMultiset.create();
-    int statesCount = 0;
-    int maxSize = 0;
-    for (Map.Entry<Vertex, List<State>> kv : stateSets.entrySet()) {
-      List<State> states = kv.getValue();
-      int size = states.size();
-      histogram.add(size);
-      statesCount += size;
-      if (size > maxSize) {
-        maxSize = size;
-      }
-    }
+    IntSummaryStatistics stats = new IntSummaryStatistics();
+    stateSets.forEachStateSet(states -> {
+      histogram.add(states.size());
+      stats.accept(states.size());
+    });
     LOG.info(
       "SPT: vertices: " +
-      stateSets.size() +
+      stats.getCount() +
       " states: total: " +
-      statesCount +
+      stats.getSum() +
       " per vertex max: " +
-      maxSize +
+      stats.getMax() +
       " avg: " +
-      (statesCount * 1.0 / stateSets.size())
+      stats.getAverage()
     );
     List<Integer> nStates = new ArrayList<>(histogram.elementSet());
     Collections.sort(nStates);
@@ -112,7 +120,7 @@ public class ShortestPathTree<
   }
 
   public Set<Vertex> getVertices() {
-    return stateSets.keySet();
+    return stateSets.vertices();
   }
 
   /**
@@ -126,35 +134,7 @@ public class ShortestPathTree<
    * be enqueued
    */
   public boolean add(State newState) {
-    Vertex vertex = newState.getVertex();
-    List<State> states = stateSets.get(vertex);
-
-    // if the vertex has no states, add one and return
-    if (states == null) {
-      states = new ArrayList<>();
-      stateSets.put(vertex, states);
-      states.add(newState);
-      return true;
-    }
-
-    // if the vertex has any states that dominate the new state, don't add the state
-    // if the new state dominates any old states, remove them
-    Iterator<State> it = states.iterator();
-    while (it.hasNext()) {
-      State oldState = it.next();
-      // order is important, because in the case of a tie
-      // we want to reject the new state
-      if (dominanceFunction.betterOrEqualAndComparable(oldState, newState)) {
-        return false;
-      }
-      if (dominanceFunction.betterOrEqualAndComparable(newState, oldState)) {
-        it.remove();
-      }
-    }
-
-    // any states remaining are co-dominant with the new state
-    states.add(newState);
-    return true;
+    return stateSets.add(newState, dominanceFunction);
   }
 
   /**
@@ -193,7 +173,7 @@ public class ShortestPathTree<
 
   /** @return number of vertices referenced in this SPT */
   public int getVertexCount() {
-    return stateSets.keySet().size();
+    return stateSets.vertexCount();
   }
 
   /**
@@ -221,22 +201,13 @@ public class ShortestPathTree<
    * @return - whether this state is still considered worth visiting.
    */
   public boolean visit(State state) {
-    boolean ret = false;
-    for (State s : stateSets.get(state.getVertex())) {
-      if (s == state) {
-        ret = true;
-        break;
-      }
-    }
-    return ret;
+    return stateSets.contains(state);
   }
 
   /** @return every state in this tree */
   public Collection<State> getAllStates() {
     ArrayList<State> allStates = new ArrayList<>();
-    for (List<State> stateSet : stateSets.values()) {
-      allStates.addAll(stateSet);
-    }
+    stateSets.forEachStateSet(allStates::addAll);
     return allStates;
   }
 
@@ -249,6 +220,6 @@ public class ShortestPathTree<
   }
 
   public String toString() {
-    return "ShortestPathTree(" + this.stateSets.size() + " vertices)";
+    return "ShortestPathTree(" + this.stateSets.vertexCount() + " vertices)";
   }
 }
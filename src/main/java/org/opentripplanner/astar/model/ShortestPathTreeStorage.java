@@ -0,0 +1,39 @@
+package org.opentripplanner.astar.model;
+
+import org.opentripplanner.astar.spi.AStarEdge;
+import org.opentripplanner.astar.spi.AStarState;
+import org.opentripplanner.astar.spi.AStarVertex;
+
+/**
+ * The {@link ShortestPathTree} keeps a set of pareto-optimal states for each visited vertex. This
+ * enum selects how these state sets are stored.
+ */
+public enum ShortestPathTreeStorage {
+  /**
+   * Keep the states in an identity hash map keyed on the vertex, with a list of states per vertex.
+   * This works for all vertices and only allocate memory for the visited vertices, but each
+   * visited vertex cost a map entry and a list.
+   */
+  IDENTITY_MAP,
+
+  /**
+   * Keep the states in flat arrays keyed on the vertex index, see {@link AStarVertex#getIndex()}.
+   * A vertex with only one state (the common case) does not allocate anything. The arrays are
+   * allocated in chunks of consecutive vertex indexes, so this is best for long searches visiting
+   * a large part of the graph, reusing the chunks with the {@link SearchArena}. Short searches,
+   * like the nearby stop and linking searches, should use the {@link #IDENTITY_MAP}. Vertices
+   * without an index (temporary vertices) fall back to an identity map.
+   */
+  VERTEX_INDEX;
+
+  <
+    State extends AStarState<State, Edge, Vertex>,
+    Edge extends AStarEdge<State, Edge, Vertex>,
+    Vertex extends AStarVertex<State, Edge, Vertex>
+  > StateStore<State, Edge, Vertex> createStore() {
+    return switch (this) {
+      case IDENTITY_MAP -> new IdentityMapStateStore<>();
+      case VERTEX_INDEX -> new VertexIndexStateStore<>();
+    };
+  }
+}
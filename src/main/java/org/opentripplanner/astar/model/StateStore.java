@@ -0,0 +1,69 @@
+package org.opentripplanner.astar.model;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.opentripplanner.astar.spi.AStarEdge;
+import org.opentripplanner.astar.spi.AStarState;
+import org.opentripplanner.astar.spi.AStarVertex;
+import org.opentripplanner.astar.spi.DominanceFunction;
+
+/**
+ * Keep the set of non-dominated states for each vertex visited by the {@link ShortestPathTree}.
+ */
+interface StateStore<
+  State extends AStarState<State, Edge, Vertex>,
+  Edge extends AStarEdge<State, Edge, Vertex>,
+  Vertex extends AStarVertex<State, Edge, Vertex>
+> {
+  /**
+   * Add the state if it is not dominated by any of the existing states at the same vertex, and
+   * remove the existing states dominated by the new state.
+   *
+   * @return {@code true} if the state was added.
+   */
+  boolean add(State newState, DominanceFunction<State> dominanceFunction);
+
+  /** @return {@code true} if the given state (by identity) is in the store. */
+  boolean contains(State state);
+
+  /** @return the states at the given vertex, or {@code null} if the vertex is not visited. */
+  List<State> get(Vertex vertex);
+
+  Set<Vertex> vertices();
+
+  int vertexCount();
+
+  /** Call the given consumer with the (non-empty) list of states for each visited vertex. */
+  void forEachStateSet(Consumer<List<State>> body);
+
+  /**
+   * Add the new state to the list of states for a vertex, unless it is dominated. Existing states
+   * dominated by the new state are removed.
+   */
+  static <State extends AStarState<State, ?, ?>> boolean addToStateSet(
+    List<State> states,
+    State newState,
+    DominanceFunction<State> dominanceFunction
+  ) {
+    // if the vertex has any states that dominate the new state, don't add the state
+    // if the new state dominates any old states, remove them
+    Iterator<State> it = states.iterator();
+    while (it.hasNext()) {
+      State oldState = it.next();
+      // order is important, because in the case of a tie
+      // we want to reject the new state
+      if (dominanceFunction.betterOrEqualAndComparable(oldState, newState)) {
+        return false;
+      }
+      if (dominanceFunction.betterOrEqualAndComparable(newState, oldState)) {
+        it.remove();
+      }
+    }
+
+    // any states remaining are co-dominant with the new state
+    states.add(newState);
+    return true;
+  }
+}
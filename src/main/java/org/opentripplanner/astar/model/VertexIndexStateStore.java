@@ -0,0 +1,225 @@
+package org.opentripplanner.astar.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.opentripplanner.astar.spi.AStarEdge;
+import org.opentripplanner.astar.spi.AStarState;
+import org.opentripplanner.astar.spi.AStarVertex;
+import org.opentripplanner.astar.spi.DominanceFunction;
+
+/**
+ * Store the states in flat arrays keyed on the {@link AStarVertex#getIndex()}. Most vertices only
+ * ever keep one state, so this is stored directly in the {@code singleStates} array. The first
+ * time a vertex get two co-dominant states, the states are moved into a list in the
+ * {@code multiStates} array. Vertices without an index are kept in an {@link IdentityMapStateStore}.
+ * <p>
+ * The arrays are split into chunks of {@link #CHUNK_SIZE} vertices, and a chunk is allocated the
+ * first time a vertex in it is visited. A short search, visiting vertices with high indexes, only
+ * allocate the chunks it touches - not arrays sized to the highest vertex index in the graph. The
+ * chunks are kept by {@link #reset()}, so the store should be reused with the {@link SearchArena}.
+ *
+ * @see ShortestPathTreeStorage#VERTEX_INDEX
+ */
+class VertexIndexStateStore<
+  State extends AStarState<State, Edge, Vertex>,
+  Edge extends AStarEdge<State, Edge, Vertex>,
+  Vertex extends AStarVertex<State, Edge, Vertex>
+>
+  implements StateStore<State, Edge, Vertex> {
+
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The state for vertices with exactly one state, {@code null} otherwise. Chunked by index. */
+  private Object[][] singleStates;
+
+  /** The states for vertices with more than one state, {@code null} otherwise. Chunked by index. */
+  private Object[][] multiStates;
+
+  /** The vertex index of all visited vertices, in the order they are visited. */
+  private int[] visitedIndexes;
+  private int nVisited = 0;
+
+  /** Temporary vertices do not have an index, these are kept in a small map. */
+  private IdentityMapStateStore<State, Edge, Vertex> notIndexed = null;
+
+  VertexIndexStateStore() {
+    this.singleStates = new Object[INITIAL_CAPACITY][];
+    this.multiStates = new Object[INITIAL_CAPACITY][];
+    this.visitedIndexes = new int[CHUNK_SIZE];
+  }
+
+  @Override
+  public boolean add(State newState, DominanceFunction<State> dominanceFunction) {
+    int index = newState.getVertex().getIndex();
+
+    if (index < 0) {
+      return notIndexed().add(newState, dominanceFunction);
+    }
+    ensureChunk(index);
+
+    List<State> states = multiStates(index);
+    if (states != null) {
+      return StateStore.addToStateSet(states, newState, dominanceFunction);
+    }
+
+    State oldState = singleState(index);
+
+    // if the vertex has no states, add one and return
+    if (oldState == null) {
+      setSingleState(index, newState);
+      addVisited(index);
+      return true;
+    }
+    // order is important, because in the case of a tie we want to reject the new state
+    if (dominanceFunction.betterOrEqualAndComparable(oldState, newState)) {
+      return false;
+    }
+    if (dominanceFunction.betterOrEqualAndComparable(newState, oldState)) {
+      setSingleState(index, newState);
+      return true;
+    }
+    // The states are co-dominant, move them into a list
+    states = new ArrayList<>(2);
+    states.add(oldState);
+    states.add(newState);
+    multiStates[index >>> CHUNK_BITS][index & CHUNK_MASK] = states;
+    setSingleState(index, null);
+    return true;
+  }
+
+  @Override
+  public boolean contains(State state) {
+    int index = state.getVertex().getIndex();
+
+    if (index < 0) {
+      return notIndexed != null && notIndexed.contains(state);
+    }
+    if (!isChunkAllocated(index)) {
+      return false;
+    }
+    if (singleState(index) == state) {
+      return true;
+    }
+    List<State> states = multiStates(index);
+    if (states == null) {
+      return false;
+    }
+    for (State s : states) {
+      if (s == state) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public List<State> get(Vertex vertex) {
+    int index = vertex.getIndex();
+
+    if (index < 0) {
+      return notIndexed == null ? null : notIndexed.get(vertex);
+    }
+    if (!isChunkAllocated(index)) {
+      return null;
+    }
+    State state = singleState(index);
+    if (state != null) {
+      return Collections.singletonList(state);
+    }
+    return multiStates(index);
+  }
+
+  @Override
+  public Set<Vertex> vertices() {
+    Set<Vertex> vertices = Collections.newSetFromMap(
+      new IdentityHashMap<>(vertexCount())
+    );
+    forEachStateSet(states -> vertices.add(states.get(0).getVertex()));
+    return vertices;
+  }
+
+  @Override
+  public int vertexCount() {
+    return nVisited + (notIndexed == null ? 0 : notIndexed.vertexCount());
+  }
+
+  @Override
+  public void forEachStateSet(Consumer<List<State>> body) {
+    for (int i = 0; i < nVisited; ++i) {
+      int index = visitedIndexes[i];
+      State state = singleState(index);
+      body.accept(state != null ? Collections.singletonList(state) : multiStates(index));
+    }
+    if (notIndexed != null) {
+      notIndexed.forEachStateSet(body);
+    }
+  }
+
+  /**
+   * Remove all states, keeping the allocated chunks for reuse. Only the visited entries are
+   * cleared, so the cost is proportional to the size of the last search, not the graph.
+   */
+  void reset() {
+    for (int i = 0; i < nVisited; ++i) {
+      int index = visitedIndexes[i];
+      singleStates[index >>> CHUNK_BITS][index & CHUNK_MASK] = null;
+      multiStates[index >>> CHUNK_BITS][index & CHUNK_MASK] = null;
+    }
+    nVisited = 0;
+    notIndexed = null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private State singleState(int index) {
+    return (State) singleStates[index >>> CHUNK_BITS][index & CHUNK_MASK];
+  }
+
+  private void setSingleState(int index, State state) {
+    singleStates[index >>> CHUNK_BITS][index & CHUNK_MASK] = state;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<State> multiStates(int index) {
+    return (List<State>) multiStates[index >>> CHUNK_BITS][index & CHUNK_MASK];
+  }
+
+  private void addVisited(int index) {
+    if (nVisited == visitedIndexes.length) {
+      visitedIndexes = Arrays.copyOf(visitedIndexes, nVisited * 2);
+    }
+    visitedIndexes[nVisited++] = index;
+  }
+
+  private IdentityMapStateStore<State, Edge, Vertex> notIndexed() {
+    if (notIndexed == null) {
+      notIndexed = new IdentityMapStateStore<>(16);
+    }
+    return notIndexed;
+  }
+
+  private boolean isChunkAllocated(int index) {
+    int chunk = index >>> CHUNK_BITS;
+    return chunk < singleStates.length && singleStates[chunk] != null;
+  }
+
+  private void ensureChunk(int index) {
+    int chunk = index >>> CHUNK_BITS;
+    if (chunk >= singleStates.length) {
+      int newCapacity = Math.max(singleStates.length * 2, chunk + 1);
+      singleStates = Arrays.copyOf(singleStates, newCapacity);
+      multiStates = Arrays.copyOf(multiStates, newCapacity);
+    }
+    if (singleStates[chunk] == null) {
+      singleStates[chunk] = new Object[CHUNK_SIZE];
+      multiStates[chunk] = new Object[CHUNK_SIZE];
+    }
+  }
+}
@@ -16,4 +16,11 @@ public interface AStarVertex<
 
   /** Get a collection containing all the edges leading from other vertices to this vertex. */
   Collection<Edge> getIncoming();
+
+  /**
+   * A dense, non-negative index unique for each vertex in the graph, or a negative number if the
+   * vertex is not indexed (e.g. temporary vertices). The index is used to store search state in
+   * flat arrays instead of hash maps.
+   */
+  int getIndex();
 }
@@ -0,0 +1,24 @@
+package org.opentripplanner.astar.spi;
+
+import java.util.Collection;
+
+/**
+ * Strategy interface to provide edges of a vertex which are not in the edge lists of the vertex
+ * itself. This is used to connect the temporary vertices of a request to the graph, without
+ * adding edges to vertices shared with other requests.
+ */
+public interface ExtraEdgesStrategy<
+  Edge extends AStarEdge<?, Edge, Vertex>, Vertex extends AStarVertex<?, Edge, Vertex>
+> {
+  /**
+   * @return the edges to traverse from the given vertex in addition to the outgoing edges of the
+   * vertex, in a depart-after search
+   */
+  Collection<Edge> extraOutgoingEdges(Vertex vertex);
+
+  /**
+   * @return the edges to traverse from the given vertex in addition to the incoming edges of the
+   * vertex, in an arrive-by search
+   */
+  Collection<Edge> extraIncomingEdges(Vertex vertex);
+}
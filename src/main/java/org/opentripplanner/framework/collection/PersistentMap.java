@@ -0,0 +1,420 @@
+package org.opentripplanner.framework.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map implemented as a hash array mapped trie (HAMT). Adding or removing an entry
+ * returns a new map, which shares all nodes except the path to the changed entry with this map.
+ * The cost of a change is O(log32 n), and making a "copy" is free, since nothing is copied.
+ * <p>
+ * This is used for the realtime state, where a new immutable version is published frequently and
+ * each version differs from the previous one by a few entries.
+ * <p>
+ * Keys must be non-null and implement {@code equals()} and {@code hashCode()}. Values may not be
+ * null. Use {@link #asMap()} to get a read-only {@link Map} view.
+ */
+public final class PersistentMap<K, V> {
+
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+  private static final Object NOT_FOUND = new Object();
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  /** The max depth is 7 bitmap nodes (32 bit hash) and one collision node. */
+  private static final int MAX_DEPTH = 8;
+
+  private final Node root;
+  private final int size;
+
+  private PersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  public static <K, V> PersistentMap<K, V> of(Map<K, V> map) {
+    PersistentMap<K, V> result = empty();
+    for (var e : map.entrySet()) {
+      result = result.plus(e.getKey(), e.getValue());
+    }
+    return result;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (root == null || key == null) {
+      return null;
+    }
+    Object value = root.find(0, hash(key), key);
+    return value == NOT_FOUND ? null : (V) value;
+  }
+
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Return a map with the given key mapped to the given value. If the key is already mapped to
+   * the same value instance, this map is returned.
+   */
+  public PersistentMap<K, V> plus(K key, V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    var added = new boolean[1];
+    Node start = root == null ? BitmapNode.EMPTY : root;
+    Node newRoot = start.put(0, hash(key), key, value, added);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Return a map without the given key. If the key does not exist, this map is returned.
+   */
+  public PersistentMap<K, V> minus(Object key) {
+    if (root == null || key == null) {
+      return this;
+    }
+    Node newRoot = root.remove(0, hash(key), key);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? empty() : new PersistentMap<>(newRoot, size - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (root != null) {
+      root.forEach((BiConsumer<Object, Object>) action);
+    }
+  }
+
+  /**
+   * A read-only view of this map, the view is immutable as this map.
+   */
+  public Map<K, V> asMap() {
+    return new MapView();
+  }
+
+  @Override
+  public String toString() {
+    return asMap().toString();
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int bitpos(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static Object[] cloneAndSet(Object[] array, int i, Object a) {
+    Object[] clone = array.clone();
+    clone[i] = a;
+    return clone;
+  }
+
+  private static Object[] cloneAndSet(Object[] array, int i, Object a, int j, Object b) {
+    Object[] clone = array.clone();
+    clone[i] = a;
+    clone[j] = b;
+    return clone;
+  }
+
+  private static Object[] removePair(Object[] array, int pairIndex) {
+    Object[] result = new Object[array.length - 2];
+    System.arraycopy(array, 0, result, 0, 2 * pairIndex);
+    int tail = result.length - 2 * pairIndex;
+    System.arraycopy(array, 2 * (pairIndex + 1), result, 2 * pairIndex, tail);
+    return result;
+  }
+
+  /**
+   * The nodes keep key/value pairs in a flat array. In a {@link BitmapNode} a {@code null} key
+   * means that the value is a sub-node.
+   */
+  private interface Node {
+    Object find(int shift, int hash, Object key);
+
+    Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+    /** Return the node without the key, or {@code null} if the node becomes empty. */
+    Node remove(int shift, int hash, Object key);
+
+    Object[] array();
+
+    default void forEach(BiConsumer<Object, Object> action) {
+      Object[] array = array();
+      for (int i = 0; i < array.length; i += 2) {
+        if (array[i] == null) {
+          ((Node) array[i + 1]).forEach(action);
+        } else {
+          action.accept(array[i], array[i + 1]);
+        }
+      }
+    }
+  }
+
+  private record BitmapNode(int bitmap, Object[] array) implements Node {
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    @Override
+    public Object find(int shift, int hash, Object key) {
+      int bit = bitpos(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return NOT_FOUND;
+      }
+      int i = 2 * index(bit);
+      Object k = array[i];
+      Object v = array[i + 1];
+      if (k == null) {
+        return ((Node) v).find(shift + BITS, hash, key);
+      }
+      return key.equals(k) ? v : NOT_FOUND;
+    }
+
+    @Override
+    public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+      int bit = bitpos(hash, shift);
+      int idx = index(bit);
+
+      if ((bitmap & bit) == 0) {
+        int n = Integer.bitCount(bitmap);
+        Object[] newArray = new Object[2 * (n + 1)];
+        System.arraycopy(array, 0, newArray, 0, 2 * idx);
+        newArray[2 * idx] = key;
+        newArray[2 * idx + 1] = value;
+        System.arraycopy(array, 2 * idx, newArray, 2 * (idx + 1), 2 * (n - idx));
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, newArray);
+      }
+
+      int i = 2 * idx;
+      Object k = array[i];
+      Object v = array[i + 1];
+
+      if (k == null) {
+        Node node = ((Node) v).put(shift + BITS, hash, key, value, added);
+        return node == v ? this : new BitmapNode(bitmap, cloneAndSet(array, i + 1, node));
+      }
+      if (key.equals(k)) {
+        return v == value ? this : new BitmapNode(bitmap, cloneAndSet(array, i + 1, value));
+      }
+      added[0] = true;
+      Node node = createNode(shift + BITS, k, v, hash, key, value);
+      return new BitmapNode(bitmap, cloneAndSet(array, i, null, i + 1, node));
+    }
+
+    @Override
+    public Node remove(int shift, int hash, Object key) {
+      int bit = bitpos(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int idx = index(bit);
+      Object k = array[2 * idx];
+      Object v = array[2 * idx + 1];
+
+      if (k == null) {
+        Node node = ((Node) v).remove(shift + BITS, hash, key);
+        if (node == v) {
+          return this;
+        }
+        if (node != null) {
+          return new BitmapNode(bitmap, cloneAndSet(array, 2 * idx + 1, node));
+        }
+      } else if (!key.equals(k)) {
+        return this;
+      }
+      return bitmap == bit ? null : new BitmapNode(bitmap ^ bit, removePair(array, idx));
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static Node createNode(
+      int shift,
+      Object key1,
+      Object value1,
+      int hash2,
+      Object key2,
+      Object value2
+    ) {
+      int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+      }
+      var ignore = new boolean[1];
+      return EMPTY
+        .put(shift, hash1, key1, value1, ignore)
+        .put(shift, hash2, key2, value2, ignore);
+    }
+  }
+
+  /** Keys with the same hash code. */
+  private record CollisionNode(int hash, Object[] array) implements Node {
+    @Override
+    public Object find(int shift, int hash, Object key) {
+      int i = indexOf(key);
+      return i < 0 ? NOT_FOUND : array[i + 1];
+    }
+
+    @Override
+    public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+      if (hash != this.hash) {
+        // Push this node one level down, and add the new key next to it
+        return new BitmapNode(bitpos(this.hash, shift), new Object[] { null, this })
+          .put(shift, hash, key, value, added);
+      }
+      int i = indexOf(key);
+      if (i >= 0) {
+        return array[i + 1] == value
+          ? this
+          : new CollisionNode(hash, cloneAndSet(array, i + 1, value));
+      }
+      Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      added[0] = true;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    public Node remove(int shift, int hash, Object key) {
+      int i = indexOf(key);
+      if (i < 0) {
+        return this;
+      }
+      return array.length == 2 ? null : new CollisionNode(hash, removePair(array, i / 2));
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  private class MapView extends AbstractMap<K, V> {
+
+    @Override
+    public V get(Object key) {
+      return PersistentMap.this.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return PersistentMap.this.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+  }
+
+  /** Depth first iteration of the trie, without allocating anything but the returned entries. */
+  private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+    private final Object[][] arrays = new Object[MAX_DEPTH][];
+    private final int[] positions = new int[MAX_DEPTH];
+    private int depth = -1;
+    private Object nextKey;
+    private Object nextValue;
+
+    private EntryIterator() {
+      if (root != null) {
+        push(root.array());
+      }
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextKey != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> next() {
+      if (nextKey == null) {
+        throw new NoSuchElementException();
+      }
+      var entry = new AbstractMap.SimpleImmutableEntry<>((K) nextKey, (V) nextValue);
+      advance();
+      return entry;
+    }
+
+    private void push(Object[] array) {
+      ++depth;
+      arrays[depth] = array;
+      positions[depth] = 0;
+    }
+
+    private void advance() {
+      while (depth >= 0) {
+        Object[] array = arrays[depth];
+        int pos = positions[depth];
+        if (pos >= array.length) {
+          arrays[depth] = null;
+          --depth;
+          continue;
+        }
+        positions[depth] = pos + 2;
+        if (array[pos] == null) {
+          push(((Node) array[pos + 1]).array());
+        } else {
+          nextKey = array[pos];
+          nextValue = array[pos + 1];
+          return;
+        }
+      }
+      nextKey = null;
+      nextValue = null;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package org.opentripplanner.framework.geometry;
+
+import gnu.trove.list.array.TLongArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * A static spatial index using the same grid as {@link HashGridSpatialIndex}, but packed into flat
+ * arrays: the keys of the non-empty grid cells sorted by x and then y, an array of offsets and one
+ * array with the objects of all cells, ordered by cell. A query scans a continuous range of the
+ * key array for each column of the grid, so there are no hash lookups, boxed keys or per cell
+ * lists.
+ * <p>
+ * The index is immutable, and safe to use from several threads. The cells of each object are
+ * computed in parallel when the index is created, since this is the expensive part. Like the
+ * hash grid, an object is returned for all cells it touches, so the client must filter out false
+ * positives.
+ *
+ * @param <T> Type of objects to be spatial indexed.
+ */
+public final class PackedGridSpatialIndex<T> {
+
+  private static final double DEFAULT_Y_BIN_SIZE = 0.005; // ~500m
+  private static final double DEFAULT_X_BIN_SIZE = 0.0035; // ~500m
+
+  private final double xBinSize;
+  private final double yBinSize;
+
+  /** The keys of the non-empty cells, sorted, see {@link #key(long, long)} */
+  private final long[] cellKeys;
+
+  /** The objects of cell i are objects[cellOffsets[i]] to objects[cellOffsets[i + 1] - 1] */
+  private final int[] cellOffsets;
+
+  private final Object[] objects;
+
+  private final int nObjects;
+
+  private PackedGridSpatialIndex(
+    double xBinSize,
+    double yBinSize,
+    long[] cellKeys,
+    int[] cellOffsets,
+    Object[] objects,
+    int nObjects
+  ) {
+    this.xBinSize = xBinSize;
+    this.yBinSize = yBinSize;
+    this.cellKeys = cellKeys;
+    this.cellOffsets = cellOffsets;
+    this.objects = objects;
+    this.nObjects = nObjects;
+  }
+
+  /**
+   * Index the objects by envelope, the object is added to all cells touching the envelope.
+   */
+  public static <T> PackedGridSpatialIndex<T> ofEnvelopes(
+    List<T> objects,
+    Function<T, Envelope> envelope
+  ) {
+    return of(
+      DEFAULT_X_BIN_SIZE,
+      DEFAULT_Y_BIN_SIZE,
+      objects,
+      (it, cells) -> cells.visit(envelope.apply(it))
+    );
+  }
+
+  /**
+   * Index the objects by line string, the object is added to all cells touching the envelope of
+   * each segment of the line string.
+   */
+  public static <T> PackedGridSpatialIndex<T> ofLineStrings(
+    List<T> objects,
+    Function<T, LineString> lineString
+  ) {
+    return of(
+      DEFAULT_X_BIN_SIZE,
+      DEFAULT_Y_BIN_SIZE,
+      objects,
+      (it, cells) -> {
+        Coordinate[] coord = lineString.apply(it).getCoordinates();
+        for (int i = 0; i < coord.length - 1; i++) {
+          cells.visit(new Envelope(coord[i], coord[i + 1]));
+        }
+      }
+    );
+  }
+
+  static <T> PackedGridSpatialIndex<T> of(
+    double xBinSize,
+    double yBinSize,
+    List<T> objects,
+    BiConsumer<T, CellCollector> cellsOfObject
+  ) {
+    int n = objects.size();
+
+    // Find the cells of each object in parallel
+    long[][] keysByObject = IntStream
+      .range(0, n)
+      .parallel()
+      .mapToObj(i -> {
+        var cells = new CellCollector(xBinSize, yBinSize);
+        cellsOfObject.accept(objects.get(i), cells);
+        return cells.keys();
+      })
+      .toArray(long[][]::new);
+
+    int nEntries = 0;
+    for (long[] keys : keysByObject) {
+      nEntries += keys.length;
+    }
+    long[] allKeys = new long[nEntries];
+    int pos = 0;
+    for (long[] keys : keysByObject) {
+      System.arraycopy(keys, 0, allKeys, pos, keys.length);
+      pos += keys.length;
+    }
+    Arrays.parallelSort(allKeys);
+    long[] cellKeys = Arrays.stream(allKeys).distinct().toArray();
+
+    int[] cellOffsets = new int[cellKeys.length + 1];
+    for (long[] keys : keysByObject) {
+      for (long key : keys) {
+        ++cellOffsets[Arrays.binarySearch(cellKeys, key) + 1];
+      }
+    }
+    for (int i = 0; i < cellKeys.length; ++i) {
+      cellOffsets[i + 1] += cellOffsets[i];
+    }
+
+    // The objects are added in the order of the input, so the order is the same for each run
+    var packed = new Object[nEntries];
+    int[] next = Arrays.copyOf(cellOffsets, cellKeys.length);
+    for (int i = 0; i < n; ++i) {
+      for (long key : keysByObject[i]) {
+        packed[next[Arrays.binarySearch(cellKeys, key)]++] = objects.get(i);
+      }
+    }
+    return new PackedGridSpatialIndex<>(xBinSize, yBinSize, cellKeys, cellOffsets, packed, n);
+  }
+
+  /**
+   * Return the objects in all cells touching the envelope, without duplicates. The returned list
+   * may be modified by the caller.
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> query(Envelope envelope) {
+    final Set<T> ret = new HashSet<>();
+    long minXKey = xKey(envelope.getMinX(), xBinSize);
+    long maxXKey = xKey(envelope.getMaxX(), xBinSize);
+    long minYKey = yKey(envelope.getMinY(), yBinSize);
+    long maxYKey = yKey(envelope.getMaxY(), yBinSize);
+
+    for (long xKey = minXKey; xKey <= maxXKey; xKey++) {
+      long maxKey = key(xKey, maxYKey);
+      int i = firstCellAtOrAfter(key(xKey, minYKey));
+      for (; i < cellKeys.length && cellKeys[i] <= maxKey; ++i) {
+        for (int j = cellOffsets[i]; j < cellOffsets[i + 1]; ++j) {
+          ret.add((T) objects[j]);
+        }
+      }
+    }
+    return new ArrayList<>(ret);
+  }
+
+  public int size() {
+    return nObjects;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      Locale.ROOT,
+      "PackedGridSpatialIndex %f x %f, %d cells, %d objs, %d entries",
+      xBinSize,
+      yBinSize,
+      cellKeys.length,
+      nObjects,
+      objects.length
+    );
+  }
+
+  private int firstCellAtOrAfter(long key) {
+    int i = Arrays.binarySearch(cellKeys, key);
+    return i >= 0 ? i : -(i + 1);
+  }
+
+  /**
+   * The key of a cell, the keys are sorted by x-key and then y-key. The y-key is shifted to be
+   * non-negative, so it fits in the lower 32 bits.
+   */
+  private static long key(long xKey, long yKey) {
+    return (xKey << 32) | (yKey + Integer.MAX_VALUE);
+  }
+
+  /** Coordinates are clamped to the earth, like in {@link HashGridSpatialIndex}. */
+  private static long xKey(double x, double xBinSize) {
+    return Math.round(Math.max(-180, Math.min(180, x)) / xBinSize);
+  }
+
+  private static long yKey(double y, double yBinSize) {
+    return Math.round(Math.max(-90, Math.min(90, y)) / yBinSize);
+  }
+
+  /**
+   * Collect the keys of the cells touching one object.
+   */
+  static final class CellCollector {
+
+    private final double xBinSize;
+    private final double yBinSize;
+    private final TLongArrayList keys = new TLongArrayList();
+
+    private CellCollector(double xBinSize, double yBinSize) {
+      this.xBinSize = xBinSize;
+      this.yBinSize = yBinSize;
+    }
+
+    void visit(Envelope envelope) {
+      long minXKey = xKey(envelope.getMinX(), xBinSize);
+      long maxXKey = xKey(envelope.getMaxX(), xBinSize);
+      long minYKey = yKey(envelope.getMinY(), yBinSize);
+      long maxYKey = yKey(envelope.getMaxY(), yBinSize);
+      for (long xKey = minXKey; xKey <= maxXKey; xKey++) {
+        for (long yKey = minYKey; yKey <= maxYKey; yKey++) {
+          keys.add(key(xKey, yKey));
+        }
+      }
+    }
+
+    /** The distinct keys, an object is only added once to each cell. */
+    private long[] keys() {
+      long[] result = keys.toArray();
+      Arrays.sort(result);
+      return Arrays.stream(result).distinct().toArray();
+    }
+  }
+}
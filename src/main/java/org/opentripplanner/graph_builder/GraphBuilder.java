@@ -148,6 +148,22 @@ public class GraphBuilder implements Runnable {
       graphBuilder.addModule(factory.graphCoherencyCheckerModule());
     }
 
+    if ((loadStreetGraph || hasOsm) && config.streetLandmarks > 0) {
+      graphBuilder.addModule(factory.streetLandmarksModule());
+    }
+
+    if ((loadStreetGraph || hasOsm) && config.carContractionHierarchy) {
+      graphBuilder.addModule(factory.carContractionHierarchyModule());
+    }
+
+    if (
+      (loadStreetGraph || hasOsm) &&
+      hasTransitData &&
+      !(config.walkStopAccessTableDuration.isZero() && config.bikeStopAccessTableDuration.isZero())
+    ) {
+      graphBuilder.addModule(factory.stopAccessTableModule());
+    }
+
     if (config.dataImportReport) {
       graphBuilder.addModule(factory.dataImportIssueReporter());
     }
@@ -0,0 +1,34 @@
+package org.opentripplanner.graph_builder.module;
+
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.contraction.ContractionHierarchyBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Build the contraction hierarchy of the street network for driving a car, and store it in the
+ * graph. It is used by the direct street search for car requests with the default cost
+ * parameters. This must run after all modules changing the street network.
+ */
+public class CarContractionHierarchyModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CarContractionHierarchyModule.class);
+
+  private final Graph graph;
+
+  public CarContractionHierarchyModule(Graph graph) {
+    this.graph = graph;
+  }
+
+  @Override
+  public void buildGraph() {
+    LOG.info("Building the car contraction hierarchy...");
+    // The routing defaults of the router config are not known here, the built-in defaults are used
+    var builder = new ContractionHierarchyBuilder(graph.getVertices(), new RoutingPreferences());
+    var hierarchy = builder.build();
+    graph.setCarContractionHierarchy(hierarchy);
+    LOG.info("Done building the car contraction hierarchy: {}", hierarchy);
+  }
+}
@@ -10,6 +10,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.astar.model.ShortestPathTree;
 import org.opentripplanner.astar.spi.SkipEdgeStrategy;
@@ -26,8 +27,10 @@ import org.opentripplanner.routing.api.request.preference.WalkPreferences;
 import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.routing.graphfinder.DirectGraphFinder;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.graphfinder.StopAccessTableFinder;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.stopaccess.StopAccessTable;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
@@ -63,6 +66,9 @@ public class NearbyStopFinder {
   private final Duration durationLimit;
   private final DataOverlayContext dataOverlayContext;
 
+  @Nullable
+  private final StopAccessTable stopAccessTable;
+
   private DirectGraphFinder directGraphFinder;
 
   /**
@@ -76,9 +82,24 @@ public class NearbyStopFinder {
     Duration durationLimit,
     DataOverlayContext dataOverlayContext,
     boolean useStreets
+  ) {
+    this(transitService, durationLimit, dataOverlayContext, useStreets, null);
+  }
+
+  /**
+   * @param stopAccessTable if set, the precomputed paths of the table are used instead of the
+   *                        street search, for the requests which are compatible with the table.
+   */
+  public NearbyStopFinder(
+    TransitService transitService,
+    Duration durationLimit,
+    DataOverlayContext dataOverlayContext,
+    boolean useStreets,
+    @Nullable StopAccessTable stopAccessTable
   ) {
     this.transitService = transitService;
     this.dataOverlayContext = dataOverlayContext;
+    this.stopAccessTable = stopAccessTable;
     this.useStreets = useStreets;
     this.durationLimit = durationLimit;
 
@@ -200,10 +221,23 @@ public class NearbyStopFinder {
       return stopsFound;
     }
 
+    var stopsInTable = findNearbyStopsInTable(
+      originVertices,
+      reverseDirection,
+      request,
+      streetRequest
+    );
+    if (stopsInTable != null) {
+      stopsFound.addAll(stopsInTable);
+      return stopsFound;
+    }
+
     ShortestPathTree<State, Edge, Vertex> spt = StreetSearchBuilder
       .of()
       .setSkipEdgeStrategy(getSkipEdgeStrategy(reverseDirection, request))
       .setDominanceFunction(new DominanceFunctions.MinimumWeight())
+      .setSearchQueueType(request.preferences().street().searchQueueType())
+      .setUseSearchArena(true)
       .setRequest(request)
       .setArriveBy(reverseDirection)
       .setStreetRequest(streetRequest)
@@ -264,6 +298,36 @@ public class NearbyStopFinder {
     return stopsFound;
   }
 
+  /**
+   * Use the precomputed paths of the stop access table, if the request is compatible with it. The
+   * flex area stops are not in the table, and the vehicle-to-stop heuristics limit the search in a
+   * way the table can not, the street search is used for them.
+   *
+   * @return the stops found, or {@code null} if the table can not be used.
+   */
+  @Nullable
+  private List<NearbyStop> findNearbyStopsInTable(
+    Set<Vertex> originVertices,
+    boolean reverseDirection,
+    RouteRequest request,
+    StreetRequest streetRequest
+  ) {
+    if (
+      stopAccessTable == null ||
+      dataOverlayContext != null ||
+      OTPFeature.FlexRouting.isOn() ||
+      (
+        OTPFeature.VehicleToStopHeuristics.isOn() &&
+        request.journey().access().mode() == StreetMode.BIKE
+      ) ||
+      !stopAccessTable.isCompatible(request, streetRequest.mode(), durationLimit)
+    ) {
+      return null;
+    }
+    return new StopAccessTableFinder(stopAccessTable, durationLimit)
+      .findNearbyStops(originVertices, reverseDirection, request, streetRequest);
+  }
+
   private List<NearbyStop> findNearbyStopsViaDirectTransfers(Vertex vertex) {
     // It make sense for the directGraphFinder to use meters as a limit, so we convert first
     double limitMeters = durationLimit.toSeconds() * WalkPreferences.DEFAULT.speed();
@@ -0,0 +1,55 @@
+package org.opentripplanner.graph_builder.module;
+
+import java.time.Duration;
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.stopaccess.StopAccessTable;
+import org.opentripplanner.street.model.stopaccess.StopAccessTableBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Build the walking and bicycle {@link StopAccessTable}s enabled in the build config, and store
+ * them in the graph. They are used by the access and egress search for requests with the default
+ * preferences. This must run after the stops are linked to the streets, and after all modules
+ * changing the street network.
+ */
+public class StopAccessTableModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StopAccessTableModule.class);
+
+  private final Graph graph;
+  private final Duration walkDuration;
+  private final Duration bikeDuration;
+
+  public StopAccessTableModule(Graph graph, Duration walkDuration, Duration bikeDuration) {
+    this.graph = graph;
+    this.walkDuration = walkDuration;
+    this.bikeDuration = bikeDuration;
+  }
+
+  @Override
+  public void buildGraph() {
+    build(StreetMode.WALK, walkDuration);
+    build(StreetMode.BIKE, bikeDuration);
+  }
+
+  private void build(StreetMode mode, Duration maxDuration) {
+    if (maxDuration.isZero() || maxDuration.isNegative()) {
+      return;
+    }
+    LOG.info("Building the {} stop access table for paths up to {}...", mode, maxDuration);
+    // The routing defaults of the router config are not known here, the built-in defaults are used
+    var builder = new StopAccessTableBuilder(
+      graph.getVertices(),
+      new RouteRequest(),
+      mode,
+      maxDuration
+    );
+    var table = builder.build();
+    graph.addStopAccessTable(table);
+    LOG.info("Done building the stop access table: {}", table);
+  }
+}
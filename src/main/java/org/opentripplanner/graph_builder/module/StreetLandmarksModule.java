@@ -0,0 +1,40 @@
+package org.opentripplanner.graph_builder.module;
+
+import org.opentripplanner.graph_builder.model.GraphBuilderModule;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.landmark.LandmarkTableBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compute the street network distances to and from a set of landmark vertices, and store them in
+ * the graph. They are used as a lower bound on the remaining distance in the direct street search.
+ * This must run after all modules changing the street network.
+ */
+public class StreetLandmarksModule implements GraphBuilderModule {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreetLandmarksModule.class);
+
+  private final Graph graph;
+  private final int nLandmarks;
+
+  public StreetLandmarksModule(Graph graph, int nLandmarks) {
+    this.graph = graph;
+    this.nLandmarks = nLandmarks;
+  }
+
+  @Override
+  public void buildGraph() {
+    LOG.info("Computing the street network distances for {} landmarks...", nLandmarks);
+    var landmarks = new LandmarkTableBuilder(graph.getVertices()).build(nLandmarks);
+    graph.setStreetLandmarks(landmarks);
+    LOG.info("Done computing the street landmarks: {}", landmarks);
+  }
+
+  @Override
+  public void checkInputs() {
+    if (nLandmarks < 1) {
+      throw new IllegalArgumentException("The number of street landmarks must be at least one.");
+    }
+  }
+}
@@ -19,7 +19,10 @@ import org.opentripplanner.graph_builder.issue.api.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueSummary;
 import org.opentripplanner.graph_builder.issue.report.DataImportIssueReporter;
 import org.opentripplanner.graph_builder.issue.service.DefaultDataImportIssueStore;
+import org.opentripplanner.graph_builder.module.CarContractionHierarchyModule;
 import org.opentripplanner.graph_builder.module.DirectTransferGenerator;
+import org.opentripplanner.graph_builder.module.StopAccessTableModule;
+import org.opentripplanner.graph_builder.module.StreetLandmarksModule;
 import org.opentripplanner.graph_builder.module.StreetLinkerModule;
 import org.opentripplanner.graph_builder.module.islandpruning.PruneIslands;
 import org.opentripplanner.graph_builder.module.ned.DegreeGridNEDTileSource;
@@ -229,6 +232,28 @@ public class GraphBuilderModules {
     );
   }
 
+  @Provides
+  @Singleton
+  static StreetLandmarksModule provideStreetLandmarksModule(BuildConfig config, Graph graph) {
+    return new StreetLandmarksModule(graph, config.streetLandmarks);
+  }
+
+  @Provides
+  @Singleton
+  static CarContractionHierarchyModule provideCarContractionHierarchyModule(Graph graph) {
+    return new CarContractionHierarchyModule(graph);
+  }
+
+  @Provides
+  @Singleton
+  static StopAccessTableModule provideStopAccessTableModule(BuildConfig config, Graph graph) {
+    return new StopAccessTableModule(
+      graph,
+      config.walkStopAccessTableDuration,
+      config.bikeStopAccessTableDuration
+    );
+  }
+
   @Provides
   @Singleton
   static EdgeUpdaterModule provideDataOverlayFactory(BuildConfig config, Graph graph) {
@@ -1,19 +1,19 @@
 package org.opentripplanner.model;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map.Entry;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Predicate;
+import org.opentripplanner.framework.collection.PersistentMap;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.model.framework.Result;
@@ -38,6 +38,10 @@ import org.slf4j.LoggerFactory;
  * <p>
  * At this point, only one writing thread at a time is supported.
  * <p>
+ * The indexes are kept in {@link PersistentMap}s, so a commit shares them with the committed
+ * snapshot instead of copying them. The cost of a commit is proportional to the number of changes
+ * since the last commit, not to the amount of realtime data accumulated in the snapshot.
+ * <p>
  *  TODO OTP2 - Move this to package: org.opentripplanner.model
  *            - after ass Entur NeTEx PRs are merged.
  */
@@ -56,36 +60,35 @@ public class TimetableSnapshot {
    * Route) for which we have an updated Timetable. The keys include both TripPatterns from the
    * scheduled GTFS, and TripPatterns added by realtime messages and tracked by the
    * TripPatternCache. Note that the keys will not include all scheduled TripPatterns, only those
-   * for which we've got an update. We use a HashMap rather than a Map so we can clone it. If this
-   * turns out to be slow/spacious we can use an array with integer pattern indexes. The SortedSet
-   * members are copy-on-write.
-   * FIXME: this could be made into a flat hashtable with compound keys.
+   * for which we've got an update. The SortedSet members are copy-on-write.
    */
-  private HashMap<TripPattern, SortedSet<Timetable>> timetables = new HashMap();
+  private PersistentMap<TripPattern, SortedSet<Timetable>> timetables = PersistentMap.empty();
 
   /**
    * <p>
    * Map containing the current trip pattern given a trip id and a service date, if it has been
    * changed from the scheduled pattern with an update, for which the stopPattern is different.
    * </p>
-   * <p>
-   * This is a HashMap and not a Map so the clone function is available.
    */
-  private HashMap<TripIdAndServiceDate, TripPattern> realtimeAddedTripPattern = new HashMap<>();
+  private PersistentMap<TripIdAndServiceDate, TripPattern> realtimeAddedTripPattern =
+    PersistentMap.empty();
 
-  private HashMap<FeedScopedId, TripOnServiceDate> realtimeAddedTripOnServiceDate = new HashMap<>();
-  private HashMap<TripIdAndServiceDate, TripOnServiceDate> realtimeAddedTripOnServiceDateByTripIdAndServiceDate = new HashMap<>();
+  private PersistentMap<FeedScopedId, TripOnServiceDate> realtimeAddedTripOnServiceDate =
+    PersistentMap.empty();
+  private PersistentMap<TripIdAndServiceDate, TripOnServiceDate> realtimeAddedTripOnServiceDateByTripIdAndServiceDate =
+    PersistentMap.empty();
 
   /**
    * This maps contains all of the new or updated TripPatterns added by realtime data indexed on
    * stop. This has to be kept in order for them to be included in the stop times api call on a
    * specific stop.
    * <p>
-   * This is a SetMultimap, so that each pattern can only be added once.
+   * The sets are immutable and replaced when a pattern is added, so each pattern can only be added
+   * once.
    * <p>
    * TODO Find a generic way to keep all realtime indexes.
    */
-  private SetMultimap<StopLocation, TripPattern> patternsForStop = HashMultimap.create();
+  private PersistentMap<StopLocation, Set<TripPattern>> patternsForStop = PersistentMap.empty();
 
   /**
    * Boolean value indicating that timetable snapshot is read only if true. Once it is true, it
@@ -207,7 +210,7 @@ public class TimetableSnapshot {
       }
       if (old.getServiceDate() != null) sortedTimetables.remove(old);
       sortedTimetables.add(tt);
-      timetables.put(pattern, sortedTimetables);
+      timetables = timetables.plus(pattern, sortedTimetables);
       dirtyTimetables.add(tt);
       dirty = true;
     }
@@ -227,7 +230,7 @@ public class TimetableSnapshot {
       // Remember this pattern for the added trip id and service date
       FeedScopedId tripId = updatedTripTimes.getTrip().getId();
       TripIdAndServiceDate tripIdAndServiceDate = new TripIdAndServiceDate(tripId, serviceDate);
-      realtimeAddedTripPattern.put(tripIdAndServiceDate, pattern);
+      realtimeAddedTripPattern = realtimeAddedTripPattern.plus(tripIdAndServiceDate, pattern);
     }
 
     // To make these trip patterns visible for departureRow searches.
@@ -239,12 +242,11 @@ public class TimetableSnapshot {
   }
 
   /**
-   * This produces a small delay of typically around 50ms, which is almost entirely due to the
-   * indexing step. Cloning the map is much faster (2ms). It is perhaps better to index timetables
-   * as they are changed to avoid experiencing all this lag at once, but we want to avoid
-   * re-indexing when receiving multiple updates for the same timetable in rapid succession. This
-   * compromise is expressed by the maxSnapshotFrequency property of StoptimeUpdater. The indexing
-   * could be made much more efficient as well.
+   * The committed snapshot shares the persistent indexes with this buffer, so the cost of a commit
+   * does not grow with the number of realtime updates accumulated. The realtime transit layer is
+   * updated with the timetables changed since the last commit. We still want to avoid committing
+   * when receiving multiple updates for the same timetable in rapid succession. This compromise is
+   * expressed by the maxSnapshotFrequency property of StoptimeUpdater.
    *
    * @return an immutable copy of this TimetableSnapshot with all updates applied
    */
@@ -252,7 +254,6 @@ public class TimetableSnapshot {
     return commit(null, false);
   }
 
-  @SuppressWarnings("unchecked")
   public TimetableSnapshot commit(TransitLayerUpdater transitLayerUpdater, boolean force) {
     if (readOnly) {
       throw new ConcurrentModificationException("This TimetableSnapshot is read-only.");
@@ -262,22 +263,20 @@ public class TimetableSnapshot {
     if (!force && !this.isDirty()) {
       return null;
     }
-    ret.timetables = (HashMap<TripPattern, SortedSet<Timetable>>) this.timetables.clone();
-    ret.realtimeAddedTripPattern =
-      (HashMap<TripIdAndServiceDate, TripPattern>) this.realtimeAddedTripPattern.clone();
+    ret.timetables = this.timetables;
+    ret.realtimeAddedTripPattern = this.realtimeAddedTripPattern;
 
     if (transitLayerUpdater != null) {
-      transitLayerUpdater.update(dirtyTimetables, timetables);
+      transitLayerUpdater.update(dirtyTimetables, timetables.asMap());
     }
 
-    ret.realtimeAddedTripOnServiceDate =
-      (HashMap<FeedScopedId, TripOnServiceDate>) this.realtimeAddedTripOnServiceDate.clone();
+    ret.realtimeAddedTripOnServiceDate = this.realtimeAddedTripOnServiceDate;
     ret.realtimeAddedTripOnServiceDateByTripIdAndServiceDate =
-      (HashMap<TripIdAndServiceDate, TripOnServiceDate>) this.realtimeAddedTripOnServiceDateByTripIdAndServiceDate.clone();
+      this.realtimeAddedTripOnServiceDateByTripIdAndServiceDate;
     this.dirtyTimetables.clear();
     this.dirty = false;
 
-    ret.setPatternsForStop(HashMultimap.create(this.patternsForStop));
+    ret.patternsForStop = this.patternsForStop;
 
     ret.readOnly = true; // mark the snapshot as henceforth immutable
     return ret;
@@ -307,7 +306,8 @@ public class TimetableSnapshot {
    * trip times from the timetable the trip has been added to.
    */
   public void removeLastAddedTripPattern(FeedScopedId feedScopedTripId, LocalDate serviceDate) {
-    realtimeAddedTripPattern.remove(new TripIdAndServiceDate(feedScopedTripId, serviceDate));
+    realtimeAddedTripPattern =
+      realtimeAddedTripPattern.minus(new TripIdAndServiceDate(feedScopedTripId, serviceDate));
   }
 
   /**
@@ -319,40 +319,35 @@ public class TimetableSnapshot {
     }
 
     boolean modified = false;
-    for (Iterator<TripPattern> it = timetables.keySet().iterator(); it.hasNext();) {
-      TripPattern pattern = it.next();
-      SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
+    for (var entry : timetables.asMap().entrySet()) {
+      TripPattern pattern = entry.getKey();
       SortedSet<Timetable> toKeepTimetables = new TreeSet<>(new SortedTimetableComparator());
-      for (Timetable timetable : sortedTimetables) {
+      boolean patternModified = false;
+      for (Timetable timetable : entry.getValue()) {
         if (serviceDate.compareTo(timetable.getServiceDate()) < 0) {
           toKeepTimetables.add(timetable);
         } else {
-          modified = true;
+          patternModified = true;
         }
       }
 
       if (toKeepTimetables.isEmpty()) {
-        it.remove();
-      } else {
-        timetables.put(pattern, toKeepTimetables);
+        timetables = timetables.minus(pattern);
+      } else if (patternModified) {
+        timetables = timetables.plus(pattern, toKeepTimetables);
       }
+      modified |= patternModified;
     }
 
     // Also remove last added trip pattern for days that are purged
-    for (
-      Iterator<Entry<TripIdAndServiceDate, TripPattern>> iterator = realtimeAddedTripPattern
-        .entrySet()
-        .iterator();
-      iterator.hasNext();
-    ) {
-      TripIdAndServiceDate tripIdAndServiceDate = iterator.next().getKey();
-      if (serviceDate.compareTo(tripIdAndServiceDate.serviceDate()) >= 0) {
-        iterator.remove();
-        modified = true;
-      }
-    }
+    int sizeBefore = realtimeAddedTripPattern.size();
+    realtimeAddedTripPattern =
+      removeKeys(
+        realtimeAddedTripPattern,
+        tripIdAndServiceDate -> serviceDate.compareTo(tripIdAndServiceDate.serviceDate()) >= 0
+      );
 
-    return modified;
+    return modified || realtimeAddedTripPattern.size() != sizeBefore;
   }
 
   public boolean isDirty() {
@@ -368,27 +363,26 @@ public class TimetableSnapshot {
   }
 
   public Collection<TripPattern> getPatternsForStop(StopLocation stop) {
-    return patternsForStop.get(stop);
-  }
-
-  public void setPatternsForStop(SetMultimap<StopLocation, TripPattern> patternsForStop) {
-    this.patternsForStop = patternsForStop;
+    var patterns = patternsForStop.get(stop);
+    return patterns == null ? Set.of() : patterns;
   }
 
   public void addLastAddedTripOnServiceDate(TripOnServiceDate tripOnServiceDate) {
-    realtimeAddedTripOnServiceDate.put(tripOnServiceDate.getId(), tripOnServiceDate);
-    realtimeAddedTripOnServiceDateByTripIdAndServiceDate.put(
-      tripOnServiceDate.getTripIdAndServiceDate(),
-      tripOnServiceDate
-    );
+    realtimeAddedTripOnServiceDate =
+      realtimeAddedTripOnServiceDate.plus(tripOnServiceDate.getId(), tripOnServiceDate);
+    realtimeAddedTripOnServiceDateByTripIdAndServiceDate =
+      realtimeAddedTripOnServiceDateByTripIdAndServiceDate.plus(
+        tripOnServiceDate.getTripIdAndServiceDate(),
+        tripOnServiceDate
+      );
   }
 
-  public HashMap<FeedScopedId, TripOnServiceDate> getRealtimeAddedTripOnServiceDate() {
-    return realtimeAddedTripOnServiceDate;
+  public Map<FeedScopedId, TripOnServiceDate> getRealtimeAddedTripOnServiceDate() {
+    return realtimeAddedTripOnServiceDate.asMap();
   }
 
-  public HashMap<TripIdAndServiceDate, TripOnServiceDate> getRealtimeAddedTripOnServiceDateByTripIdAndServiceDate() {
-    return realtimeAddedTripOnServiceDateByTripIdAndServiceDate;
+  public Map<TripIdAndServiceDate, TripOnServiceDate> getRealtimeAddedTripOnServiceDateByTripIdAndServiceDate() {
+    return realtimeAddedTripOnServiceDateByTripIdAndServiceDate.asMap();
   }
 
   /**
@@ -398,7 +392,9 @@ public class TimetableSnapshot {
    * @return true if the timetable changed as a result of the call
    */
   protected boolean clearTimetable(String feedId) {
-    return timetables.keySet().removeIf(tripPattern -> feedId.equals(tripPattern.getFeedId()));
+    int sizeBefore = timetables.size();
+    timetables = removeKeys(timetables, tripPattern -> feedId.equals(tripPattern.getFeedId()));
+    return timetables.size() != sizeBefore;
   }
 
   /**
@@ -408,11 +404,13 @@ public class TimetableSnapshot {
    * @return true if the realtimeAddedTripPattern changed as a result of the call
    */
   protected boolean clearRealtimeAddedTripPattern(String feedId) {
-    return realtimeAddedTripPattern
-      .keySet()
-      .removeIf(realtimeAddedTripPattern ->
-        feedId.equals(realtimeAddedTripPattern.tripId().getFeedId())
+    int sizeBefore = realtimeAddedTripPattern.size();
+    realtimeAddedTripPattern =
+      removeKeys(
+        realtimeAddedTripPattern,
+        tripIdAndServiceDate -> feedId.equals(tripIdAndServiceDate.tripId().getFeedId())
       );
+    return realtimeAddedTripPattern.size() != sizeBefore;
   }
 
   /**
@@ -423,9 +421,32 @@ public class TimetableSnapshot {
       //TODO - SIRI: Add pattern to index?
 
       for (var stop : tripPattern.getStops()) {
-        patternsForStop.put(stop, tripPattern);
+        var patterns = patternsForStop.get(stop);
+        if (patterns == null) {
+          patternsForStop = patternsForStop.plus(stop, Set.of(tripPattern));
+        } else if (!patterns.contains(tripPattern)) {
+          var copy = new HashSet<>(patterns);
+          copy.add(tripPattern);
+          patternsForStop = patternsForStop.plus(stop, Set.copyOf(copy));
+        }
+      }
+    }
+  }
+
+  private static <K, V> PersistentMap<K, V> removeKeys(
+    PersistentMap<K, V> map,
+    Predicate<K> predicate
+  ) {
+    List<K> keysToRemove = new ArrayList<>();
+    map.forEach((key, value) -> {
+      if (predicate.test(key)) {
+        keysToRemove.add(key);
       }
+    });
+    for (K key : keysToRemove) {
+      map = map.minus(key);
     }
+    return map;
   }
 
   protected static class SortedTimetableComparator implements Comparator<Timetable> {
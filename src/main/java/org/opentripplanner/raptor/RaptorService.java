@@ -2,6 +2,7 @@ package org.opentripplanner.raptor;
 
 import java.util.stream.Collectors;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
 import org.opentripplanner.raptor.api.request.RaptorRequest;
 import org.opentripplanner.raptor.api.response.RaptorResponse;
 import org.opentripplanner.raptor.configure.RaptorConfig;
@@ -75,7 +76,9 @@ public class RaptorService<T extends RaptorTripSchedule> {
     RaptorTransitDataProvider<T> transitData,
     RaptorRequest<T> request
   ) {
-    var worker = config.createStdWorker(transitData, request);
+    var worker = request.profile().is(RaptorProfile.TRIP_BASED)
+      ? config.createTripBasedWorker(transitData, request)
+      : config.createStdWorker(transitData, request);
     var result = worker.route();
     var arrivals = new DefaultStopArrivals(result);
     return new RaptorResponse<>(result.extractPaths(), arrivals, request, request);
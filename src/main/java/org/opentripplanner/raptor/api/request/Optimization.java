@@ -15,6 +15,55 @@ public enum Optimization {
    */
   PARALLEL,
 
+  /**
+   * Scan the routes reached in each round in parallel, using the Raptor thread pool. The routes
+   * are split in partitions, and each partition write the transit arrivals to its own buffer. The
+   * buffers are merged into the state when all routes of the round are scanned. This use more
+   * resources, but allow one search to use more than one core when the server is lightly loaded.
+   * Small rounds are scanned on the calling thread.
+   * <p>
+   * The standard profile find the same paths as the sequential scan. The best-time and
+   * min-travel-duration profiles only board at the times found in the previous round, while the
+   * sequential scan may also use times found earlier in the same round.
+   * <p>
+   * This only apply to: standard, best-time and min-travel-duration searches, including the
+   * heuristic searches of a multi-criteria search. It is ignored if the stop arrivals are debugged.
+   */
+  PARALLEL_ROUTE_SCAN,
+
+  /**
+   * Split the search-window of the main range-raptor search into sub-windows, and search each
+   * sub-window in parallel using the Raptor thread pool. The range-raptor iterations are divided
+   * between the sub-windows, and the paths are merged into one pareto-set at the end. Each
+   * sub-window must have at least 10 iterations, shorter search-windows are searched on the
+   * calling thread.
+   * <p>
+   * A sub-window search can not use the paths found in the later departure iterations of the other
+   * sub-windows to prune the search, so the total amount of work increases. This reduces the
+   * latency of long search-windows when the server has idle cores. The routes are not scanned in
+   * parallel within a sub-window, the threads are already in use.
+   * <p>
+   * This only apply to: standard and forward multi-criteria searches, not the heuristic searches.
+   * The reverse multi-criteria search is not split, the paths it finds depend on the iterations
+   * searched before, so the result would change. It is ignored if the stop arrivals are debugged.
+   */
+  PARALLEL_SEARCH_WINDOW,
+
+  /**
+   * Use the Connection Scan Algorithm (CSA) instead of Range Raptor to find the minimum travel
+   * duration and number of transfers. The trips are split into connections sorted by time, and
+   * the connections are scanned once for each round. The connections are created in the
+   * background the first time they are used, and shared by all requests using the same transit
+   * data. Range Raptor is used until the connections are ready.
+   * <p>
+   * The result is the same as the min-travel-duration Range Raptor search. Like the parallel route
+   * scan, the trips are only boarded at the times found in the previous round.
+   * <p>
+   * This only apply to: min-travel-duration searches, including the heuristic searches of a
+   * multi-criteria search. It is ignored if the stop arrivals are debugged.
+   */
+  CONNECTION_SCAN,
+
   /**
    * This optimization use heuristics at each stop calculate an optimistic estimate for all criteria
    * at the destination. Then this "vector" is checked if it qualify in the existing set of pareto
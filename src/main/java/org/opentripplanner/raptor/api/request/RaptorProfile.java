@@ -32,7 +32,25 @@ public enum RaptorProfile {
    * The path is not kept, because this potentially creates paths which is not possible; Hence,
    * can not be constructed.
    */
-  MIN_TRAVEL_DURATION("MinTravelDuration", true);
+  MIN_TRAVEL_DURATION("MinTravelDuration", true),
+
+  /**
+   * Find the same paths as {@link #STANDARD} using Trip-Based routing, the transfers between trips
+   * are computed up front and pruned, and the search scans trip segments instead of routes. The
+   * trip-to-trip transfers are cached between requests, if the transit data provides a key - see
+   * {@link org.opentripplanner.raptor.spi.RaptorTransitDataProvider#transitDataCacheKey()}.
+   * <p/>
+   * Only forward search is supported, and access and egress with rides (flex) are not supported.
+   * Constrained transfers (guaranteed, stay-seated and not-allowed transfers) are ignored, the
+   * profile does not support them - the same as the {@link #BEST_TIME} profile.
+   * <p/>
+   * The trip-to-trip transfers are created in the background, and Standard Range Raptor is used
+   * until they are ready. Standard Range Raptor is also used if the transit data contains
+   * frequency based routes, or routes where the trips overtake each other.
+   * <p/>
+   * See Sascha Witt, "Trip-Based Public Transit Routing", ESA 2015.
+   */
+  TRIP_BASED("TripBased", false);
 
   private final boolean supportsConstrainedTransfers;
 
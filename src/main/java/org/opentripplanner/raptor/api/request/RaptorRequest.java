@@ -96,7 +96,7 @@ public class RaptorRequest<T extends RaptorTripSchedule> {
     if (profile().is(RaptorProfile.MULTI_CRITERIA)) {
       return true;
     }
-    if (profile.is(RaptorProfile.STANDARD)) {
+    if (profile.isOneOf(RaptorProfile.STANDARD, RaptorProfile.TRIP_BASED)) {
       return !searchParams().searchOneIterationOnly();
     }
     return false;
@@ -137,6 +137,14 @@ public class RaptorRequest<T extends RaptorTripSchedule> {
     return optimizationEnabled(Optimization.PARALLEL);
   }
 
+  public boolean scanRoutesInParallel() {
+    return optimizationEnabled(Optimization.PARALLEL_ROUTE_SCAN);
+  }
+
+  public boolean useConnectionScan() {
+    return optimizationEnabled(Optimization.CONNECTION_SCAN);
+  }
+
   public MultiCriteriaRequest<T> multiCriteria() {
     return multiCriteria;
   }
@@ -160,6 +160,18 @@ public class RaptorRequestBuilder<T extends RaptorTripSchedule> {
       // Run search in parallel
       name += "-LL";
     }
+    if (Optimization.PARALLEL_ROUTE_SCAN.isOneOf(optimizations)) {
+      // Scan the routes of each round in parallel
+      name += "-PR";
+    }
+    if (Optimization.PARALLEL_SEARCH_WINDOW.isOneOf(optimizations)) {
+      // Split the search-window and search each part in parallel
+      name += "-PW";
+    }
+    if (Optimization.CONNECTION_SCAN.isOneOf(optimizations)) {
+      // Use the Connection Scan Algorithm for the min-travel-duration searches
+      name += "-CS";
+    }
     if (Optimization.PARETO_CHECK_AGAINST_DESTINATION.isOneOf(optimizations)) {
       // Heuristic to prune on pareto optimal Destination arrivals
       name += "-DP";
@@ -2,13 +2,19 @@ package org.opentripplanner.raptor.configure;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
 import org.opentripplanner.raptor.api.request.RaptorRequest;
 import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
 import org.opentripplanner.raptor.rangeraptor.DefaultRangeRaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.SplitSearchWindowWorker;
 import org.opentripplanner.raptor.rangeraptor.context.SearchContext;
+import org.opentripplanner.raptor.rangeraptor.csa.ConnectionsCache;
+import org.opentripplanner.raptor.rangeraptor.csa.configure.ConnectionScanConfig;
 import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
+import org.opentripplanner.raptor.rangeraptor.internalapi.ParallelRoutingStrategies;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerState;
@@ -16,6 +22,8 @@ import org.opentripplanner.raptor.rangeraptor.internalapi.RoutingStrategy;
 import org.opentripplanner.raptor.rangeraptor.multicriteria.configure.McRangeRaptorConfig;
 import org.opentripplanner.raptor.rangeraptor.standard.configure.StdRangeRaptorConfig;
 import org.opentripplanner.raptor.rangeraptor.transit.RaptorSearchWindowCalculator;
+import org.opentripplanner.raptor.rangeraptor.tripbased.TripBasedIndexCache;
+import org.opentripplanner.raptor.rangeraptor.tripbased.configure.TripBasedConfig;
 import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
 
 /**
@@ -30,6 +38,8 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
 
   private final ExecutorService threadPool;
   private final RaptorTuningParameters tuningParameters;
+  private final TripBasedIndexCache tripBasedIndexCache = new TripBasedIndexCache();
+  private final ConnectionsCache connectionsCache = new ConnectionsCache();
 
   public RaptorConfig(RaptorTuningParameters tuningParameters) {
     this.tuningParameters = tuningParameters;
@@ -49,8 +59,17 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
     RaptorRequest<T> request
   ) {
     var context = context(transitData, request);
+    var connectionScanWorker = createConnectionScanWorker(context, request);
+    if (connectionScanWorker != null) {
+      return connectionScanWorker;
+    }
     var stdConfig = new StdRangeRaptorConfig<>(context);
-    return createWorker(context, stdConfig.state(), stdConfig.strategy());
+    return createWorker(
+      context,
+      stdConfig.state(),
+      stdConfig.strategy(),
+      parallelStrategies(request, stdConfig)
+    );
   }
 
   public RaptorWorker<T> createMcWorker(
@@ -62,17 +81,73 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
     return new McRangeRaptorConfig<>(context)
       .createWorker(
         heuristics,
-        (state, routingStrategy) -> createWorker(context, state, routingStrategy)
+        (state, routingStrategy) -> createWorker(context, state, routingStrategy, null)
       );
   }
 
+  /**
+   * Create a worker for the {@link RaptorProfile#TRIP_BASED} profile. The trip-to-trip transfers
+   * are created in the background using the thread pool the first time they are needed, and
+   * cached for later requests if the transit data provides a cache key. A Standard Range Raptor
+   * worker is returned until the transfers are ready, or if the transit data is not supported.
+   */
+  public RaptorWorker<T> createTripBasedWorker(
+    RaptorTransitDataProvider<T> transitData,
+    RaptorRequest<T> request
+  ) {
+    var context = context(transitData, request);
+    var config = new TripBasedConfig<>(context);
+    var index = tripBasedIndexCache.get(
+      transitData,
+      threadPool,
+      tuningParameters.searchThreadPoolSize() + 1
+    );
+    if (index == null) {
+      return createStdWorker(transitData, request.mutate().profile(RaptorProfile.STANDARD).build());
+    }
+    return config.createWorker(index);
+  }
+
   public RaptorWorker<T> createHeuristicSearch(
     RaptorTransitDataProvider<T> transitData,
     RaptorRequest<T> request
   ) {
     var context = context(transitData, request);
+    var connectionScanWorker = createConnectionScanWorker(context, request);
+    if (connectionScanWorker != null) {
+      return connectionScanWorker;
+    }
     var stdConfig = new StdRangeRaptorConfig<>(context);
-    return createWorker(context, stdConfig.state(), stdConfig.strategy());
+    return createWorker(
+      context,
+      stdConfig.state(),
+      stdConfig.strategy(),
+      parallelStrategies(request, stdConfig)
+    );
+  }
+
+  /**
+   * Split the search-window and create one worker for each part, the parts are searched in
+   * parallel. Return {@code null} if the thread pool does not exist, the optimization is not
+   * enabled or the search-window is too short.
+   *
+   * @param workerFactory create the worker for each part of the search-window
+   */
+  @Nullable
+  public RaptorWorker<T> createSplitSearchWindowWorker(
+    RaptorRequest<T> request,
+    Function<RaptorRequest<T>, RaptorWorker<T>> workerFactory
+  ) {
+    if (!isMultiThreaded()) {
+      return null;
+    }
+    return SplitSearchWindowWorker.of(
+      threadPool,
+      request,
+      tuningParameters.searchThreadPoolSize() + 1,
+      tuningParameters.iterationDepartureStepInSeconds(),
+      workerFactory
+    );
   }
 
   public Heuristics createHeuristic(
@@ -107,7 +182,8 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
   private RaptorWorker<T> createWorker(
     SearchContext<T> ctx,
     RaptorWorkerState<T> workerState,
-    RoutingStrategy<T> routingStrategy
+    RoutingStrategy<T> routingStrategy,
+    @Nullable ParallelRoutingStrategies<T> parallelStrategies
   ) {
     return new DefaultRangeRaptorWorker<>(
       workerState,
@@ -119,10 +195,56 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
       ctx.calculator(),
       ctx.createLifeCyclePublisher(),
       ctx.performanceTimers(),
-      ctx.useConstrainedTransfers()
+      ctx.useConstrainedTransfers(),
+      parallelStrategies
     );
   }
 
+  /**
+   * Return a Connection Scan worker if it should be used, and the connections are ready. The
+   * connections are created in the background using the thread pool the first time they are
+   * needed, and cached for later requests if the transit data provides a cache key. Return
+   * {@code null} to use Range Raptor instead.
+   */
+  @Nullable
+  private RaptorWorker<T> createConnectionScanWorker(
+    SearchContext<T> ctx,
+    RaptorRequest<T> request
+  ) {
+    if (!useConnectionScan(ctx, request)) {
+      return null;
+    }
+    var connections = connectionsCache.get(ctx.transit(), ctx.searchDirection(), threadPool);
+    return connections == null ? null : new ConnectionScanConfig<>(ctx).createWorker(connections);
+  }
+
+  /**
+   * The Connection Scan worker is used for min-travel-duration searches if requested, but not if
+   * the stop arrivals are debugged. The debugger is only supported by the Range Raptor worker.
+   */
+  private boolean useConnectionScan(SearchContext<T> ctx, RaptorRequest<T> request) {
+    return (
+      request.useConnectionScan() &&
+      request.profile().is(RaptorProfile.MIN_TRAVEL_DURATION) &&
+      !ctx.debugFactory().isDebugStopArrival()
+    );
+  }
+
+  /**
+   * The routes are scanned in parallel if requested and the thread pool exists. There is one
+   * partition for each thread in the pool, and one for the calling thread.
+   */
+  @Nullable
+  private ParallelRoutingStrategies<T> parallelStrategies(
+    RaptorRequest<T> request,
+    StdRangeRaptorConfig<T> stdConfig
+  ) {
+    if (!isMultiThreaded() || !request.scanRoutesInParallel()) {
+      return null;
+    }
+    return stdConfig.parallelStrategies(threadPool, tuningParameters.searchThreadPoolSize() + 1);
+  }
+
   @Nullable
   private ExecutorService createNewThreadPool(int size) {
     return size > 0 ? Executors.newFixedThreadPool(size) : null;
@@ -1,10 +1,16 @@
 package org.opentripplanner.raptor.rangeraptor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.annotation.Nullable;
 import org.opentripplanner.raptor.api.RaptorConstants;
 import org.opentripplanner.raptor.api.debug.RaptorTimers;
 import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.rangeraptor.internalapi.ParallelRoutingStrategies;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerState;
@@ -51,6 +57,13 @@ import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
 public final class DefaultRangeRaptorWorker<T extends RaptorTripSchedule>
   implements RaptorWorker<T> {
 
+  /**
+   * The routes of a round are scanned in parallel only if each partition get at least this number
+   * of routes. Scanning a route is fast, and for small rounds the overhead of handing the work to
+   * another thread is larger than the gain.
+   */
+  private static final int MIN_NUMBER_OF_ROUTES_IN_PARTITION = 100;
+
   private final RoutingStrategy<T> transitWorker;
 
   /**
@@ -86,6 +99,16 @@ public final class DefaultRangeRaptorWorker<T extends RaptorTripSchedule>
 
   private final boolean enableTransferConstraints;
 
+  /**
+   * The strategies used to scan the routes of a round in parallel, {@code null} if the routes are
+   * scanned on the calling thread.
+   */
+  @Nullable
+  private final ParallelRoutingStrategies<T> parallelStrategies;
+
+  /** The routes of the current round, used when the routes are scanned in parallel. */
+  private int[] routeIndexes = new int[256];
+
   private int iterationDepartureTime;
 
   public DefaultRangeRaptorWorker(
@@ -98,7 +121,8 @@ public final class DefaultRangeRaptorWorker<T extends RaptorTripSchedule>
     RaptorTransitCalculator<T> calculator,
     LifeCycleEventPublisher lifeCyclePublisher,
     RaptorTimers timers,
-    boolean enableTransferConstraints
+    boolean enableTransferConstraints,
+    @Nullable ParallelRoutingStrategies<T> parallelStrategies
   ) {
     this.transitWorker = transitWorker;
     this.state = state;
@@ -109,6 +133,7 @@ public final class DefaultRangeRaptorWorker<T extends RaptorTripSchedule>
     this.accessPaths = accessPaths;
     this.minNumberOfRounds = accessPaths.calculateMaxNumberOfRides();
     this.enableTransferConstraints = enableTransferConstraints;
+    this.parallelStrategies = parallelStrategies;
 
     // We do a cast here to avoid exposing the round tracker  and the life cycle publisher to
     // "everyone" by providing access to it in the context.
@@ -189,58 +214,130 @@ public final class DefaultRangeRaptorWorker<T extends RaptorTripSchedule>
       IntIterator stops = state.stopsTouchedPreviousRound();
       IntIterator routeIndexIterator = transitData.routeIndexIterator(stops);
 
-      while (routeIndexIterator.hasNext()) {
-        var routeIndex = routeIndexIterator.next();
-        var route = transitData.getRouteForIndex(routeIndex);
-        var pattern = route.pattern();
-        var txSearch = enableTransferConstraints
-          ? calculator.transferConstraintsSearch(transitData, routeIndex)
-          : null;
-
-        int alightSlack = slackProvider.alightSlack(pattern.slackIndex());
-        int boardSlack = slackProvider.boardSlack(pattern.slackIndex());
-
-        transitWorker.prepareForTransitWith(route);
-
-        IntIterator stop = calculator.patternStopIterator(pattern.numberOfStopsInPattern());
-
-        while (stop.hasNext()) {
-          int stopPos = stop.next();
-          int stopIndex = pattern.stopIndex(stopPos);
-
-          // attempt to alight if we're on board, this is done above the board search
-          // so that we don't alight on first stop boarded
-          if (calculator.alightingPossibleAt(pattern, stopPos)) {
-            if (enableTransferConstraints && txSearch.transferExistSourceStop(stopPos)) {
-              transitWorker.alightConstrainedTransferExist(stopIndex, stopPos, alightSlack);
-            } else {
-              transitWorker.alightOnlyRegularTransferExist(stopIndex, stopPos, alightSlack);
-            }
-          }
-
-          if (calculator.boardingPossibleAt(pattern, stopPos)) {
-            // Don't attempt to board if this stop was not reached in the last round.
-            // Allow to reboard the same pattern - a pattern may loop and visit the same stop twice
-            if (state.isStopReachedInPreviousRound(stopIndex)) {
-              // has constrained transfers
-              if (enableTransferConstraints && txSearch.transferExistTargetStop(stopPos)) {
-                transitWorker.boardWithConstrainedTransfer(
-                  stopIndex,
-                  stopPos,
-                  boardSlack,
-                  txSearch
-                );
-              } else {
-                transitWorker.boardWithRegularTransfer(stopIndex, stopPos, boardSlack);
-              }
-            }
-          }
+      if (parallelStrategies == null) {
+        while (routeIndexIterator.hasNext()) {
+          scanRoute(transitWorker, routeIndexIterator.next());
         }
+      } else {
+        scanRoutesInParallel(routeIndexIterator);
       }
       lifeCycle.transitsForRoundComplete();
     });
   }
 
+  /**
+   * Split the routes in partitions and scan each partition with its own routing strategy. The
+   * partitions are scanned in the thread pool and on the calling thread. The transit arrivals are
+   * merged into the state when all partitions are done. Small rounds are scanned on the calling
+   * thread.
+   */
+  private void scanRoutesInParallel(IntIterator routeIndexIterator) {
+    int nRoutes = 0;
+    while (routeIndexIterator.hasNext()) {
+      if (nRoutes == routeIndexes.length) {
+        routeIndexes = Arrays.copyOf(routeIndexes, 2 * nRoutes);
+      }
+      routeIndexes[nRoutes++] = routeIndexIterator.next();
+    }
+
+    int nPartitions = Math.min(
+      parallelStrategies.numberOfPartitions(),
+      nRoutes / MIN_NUMBER_OF_ROUTES_IN_PARTITION
+    );
+
+    if (nPartitions < 2) {
+      for (int i = 0; i < nRoutes; ++i) {
+        scanRoute(transitWorker, routeIndexes[i]);
+      }
+      return;
+    }
+
+    var tasks = new ArrayList<FutureTask<Void>>(nPartitions - 1);
+    for (int p = 1; p < nPartitions; ++p) {
+      var task = new FutureTask<Void>(scanPartition(p, nPartitions, nRoutes), null);
+      tasks.add(task);
+      parallelStrategies.executor().execute(task);
+    }
+    scanPartition(0, nPartitions, nRoutes).run();
+
+    for (FutureTask<Void> task : tasks) {
+      // Scan the partition on this thread if the thread pool has not started it yet, the
+      // run method does nothing if the task is started.
+      task.run();
+      waitFor(task);
+    }
+    parallelStrategies.mergeTransitArrivals();
+  }
+
+  private Runnable scanPartition(int partition, int nPartitions, int nRoutes) {
+    var strategy = parallelStrategies.strategy(partition);
+    int[] routes = routeIndexes;
+    int start = (int) ((long) nRoutes * partition / nPartitions);
+    int end = (int) ((long) nRoutes * (partition + 1) / nPartitions);
+    return () -> {
+      for (int i = start; i < end; ++i) {
+        scanRoute(strategy, routes[i]);
+      }
+    };
+  }
+
+  private static void waitFor(FutureTask<Void> task) {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Failed to scan routes in parallel: " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while scanning routes in parallel.", e);
+    }
+  }
+
+  private void scanRoute(RoutingStrategy<T> strategy, int routeIndex) {
+    var route = transitData.getRouteForIndex(routeIndex);
+    var pattern = route.pattern();
+    var txSearch = enableTransferConstraints
+      ? calculator.transferConstraintsSearch(transitData, routeIndex)
+      : null;
+
+    int alightSlack = slackProvider.alightSlack(pattern.slackIndex());
+    int boardSlack = slackProvider.boardSlack(pattern.slackIndex());
+
+    strategy.prepareForTransitWith(route);
+
+    IntIterator stop = calculator.patternStopIterator(pattern.numberOfStopsInPattern());
+
+    while (stop.hasNext()) {
+      int stopPos = stop.next();
+      int stopIndex = pattern.stopIndex(stopPos);
+
+      // attempt to alight if we're on board, this is done above the board search
+      // so that we don't alight on first stop boarded
+      if (calculator.alightingPossibleAt(pattern, stopPos)) {
+        if (enableTransferConstraints && txSearch.transferExistSourceStop(stopPos)) {
+          strategy.alightConstrainedTransferExist(stopIndex, stopPos, alightSlack);
+        } else {
+          strategy.alightOnlyRegularTransferExist(stopIndex, stopPos, alightSlack);
+        }
+      }
+
+      if (calculator.boardingPossibleAt(pattern, stopPos)) {
+        // Don't attempt to board if this stop was not reached in the last round.
+        // Allow to reboard the same pattern - a pattern may loop and visit the same stop twice
+        if (state.isStopReachedInPreviousRound(stopIndex)) {
+          // has constrained transfers
+          if (enableTransferConstraints && txSearch.transferExistTargetStop(stopPos)) {
+            strategy.boardWithConstrainedTransfer(stopIndex, stopPos, boardSlack, txSearch);
+          } else {
+            strategy.boardWithRegularTransfer(stopIndex, stopPos, boardSlack);
+          }
+        }
+      }
+    }
+  }
+
   private void findTransfersForRound() {
     timers.findTransfersForRound(() -> {
       IntIterator it = state.stopsTouchedByTransitCurrentRound();
@@ -0,0 +1,222 @@
+package org.opentripplanner.raptor.rangeraptor;
+
+import static org.opentripplanner.raptor.api.request.RaptorProfile.MULTI_CRITERIA;
+import static org.opentripplanner.raptor.rangeraptor.path.PathParetoSetComparators.paretoComparator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.model.RelaxFunction;
+import org.opentripplanner.raptor.api.path.RaptorPath;
+import org.opentripplanner.raptor.api.request.Optimization;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.SearchParams;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.rangeraptor.internalapi.SingleCriteriaStopArrivals;
+import org.opentripplanner.raptor.util.paretoset.ParetoComparator;
+import org.opentripplanner.raptor.util.paretoset.ParetoSet;
+
+/**
+ * Split the search-window of a range-raptor search into sub-windows, and run one worker for each
+ * sub-window in parallel. The range-raptor iterations are divided between the sub-windows, so the
+ * departure times of the iterations are the same as in the original search. The paths are merged
+ * into a pareto-set using the same comparator as the destination arrivals of each worker.
+ * <p>
+ * A worker does not know about the paths found in the other sub-windows, so it prune less than
+ * the sequential search. Each sub-window must have a minimum number of iterations, or the extra
+ * work is not worth it. The time limit (LAT in a forward search and EDT in a reverse search) is not
+ * changed.
+ * <p>
+ * The stop arrivals are taken from the sub-window with the last iteration. The last iteration
+ * departs at the EDT (forward) or arrives at the LAT (reverse), so the stop arrivals are the same
+ * as in the original search, unless a later departure reach a stop at an earlier time.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public final class SplitSearchWindowWorker<T extends RaptorTripSchedule> implements RaptorWorker<T> {
+
+  /**
+   * Each sub-window must have at least this number of iterations. On short search-windows the
+   * overhead of running more than one worker is higher than the time saved.
+   */
+  private static final int MIN_ITERATIONS_IN_SUB_WINDOW = 10;
+
+  private final ExecutorService executor;
+  private final RaptorRequest<T> request;
+  private final List<RaptorWorker<T>> workers;
+
+  private SplitSearchWindowWorker(
+    ExecutorService executor,
+    RaptorRequest<T> request,
+    List<RaptorWorker<T>> workers
+  ) {
+    this.executor = executor;
+    this.request = request;
+    this.workers = workers;
+  }
+
+  /**
+   * Create a worker for each sub-window, or return {@code null} if the search-window is too short
+   * to be split.
+   *
+   * @param maxNumberOfSubWindows the number of threads available, including the calling thread
+   * @param iterationStep         the departure step between each range-raptor iteration
+   * @param workerFactory         create a worker for the given sub-window request
+   */
+  @Nullable
+  public static <T extends RaptorTripSchedule> SplitSearchWindowWorker<T> of(
+    ExecutorService executor,
+    RaptorRequest<T> request,
+    int maxNumberOfSubWindows,
+    int iterationStep,
+    Function<RaptorRequest<T>, RaptorWorker<T>> workerFactory
+  ) {
+    if (!isSplitPossible(request)) {
+      return null;
+    }
+    var s = request.searchParams();
+    // The forward search iterations are "EDT + SW - i * step" for i in [1, floor(SW/step)], and
+    // the reverse search iterations are "LAT - SW + i * step" for i in [1, ceil(SW/step)].
+    int sw = s.searchWindowInSeconds();
+    boolean forward = request.searchDirection().isForward();
+    int nIterations = forward ? sw / iterationStep : (sw + iterationStep - 1) / iterationStep;
+    int nSubWindows = Math.min(maxNumberOfSubWindows, nIterations / MIN_ITERATIONS_IN_SUB_WINDOW);
+
+    if (nSubWindows < 2) {
+      return null;
+    }
+
+    int iterationsInSubWindow = (nIterations + nSubWindows - 1) / nSubWindows;
+    List<RaptorWorker<T>> workers = new ArrayList<>();
+
+    for (int i = 0; i < nIterations; i += iterationsInSubWindow) {
+      int offset = i * iterationStep;
+      boolean last = i + iterationsInSubWindow >= nIterations;
+      int subSw = last ? sw - offset : iterationsInSubWindow * iterationStep;
+      var builder = request
+        .mutate()
+        .disableOptimization(Optimization.PARALLEL_SEARCH_WINDOW)
+        .disableOptimization(Optimization.PARALLEL_ROUTE_SCAN);
+      var params = builder.searchParams().searchWindowInSeconds(subSw);
+
+      if (forward) {
+        params.earliestDepartureTime(s.earliestDepartureTime() + sw - offset - subSw);
+      } else {
+        params.latestArrivalTime(s.latestArrivalTime() - sw + offset + subSw);
+      }
+      workers.add(workerFactory.apply(builder.build()));
+    }
+    return new SplitSearchWindowWorker<>(executor, request, workers);
+  }
+
+  @Override
+  public RaptorWorkerResult<T> route() {
+    int lastIndex = workers.size() - 1;
+    List<FutureTask<RaptorWorkerResult<T>>> tasks = new ArrayList<>();
+
+    for (int i = 0; i < lastIndex; ++i) {
+      var task = new FutureTask<>(workers.get(i)::route);
+      tasks.add(task);
+      executor.execute(task);
+    }
+
+    // The last sub-window is routed by the calling thread, and the tasks not yet started by the
+    // thread pool is run here - so the search does not wait for a busy thread pool.
+    var lastResult = workers.get(lastIndex).route();
+
+    var paths = new ParetoSet<>(createPathParetoComparator());
+    for (var task : tasks) {
+      task.run();
+      paths.addAll(waitFor(task).extractPaths());
+    }
+    paths.addAll(lastResult.extractPaths());
+
+    return new Result<>(List.copyOf(paths), lastResult);
+  }
+
+  /**
+   * The reverse multi-criteria search does not return all paths in the search-window, the paths
+   * found depend on the iterations searched before. Hence, splitting the search-window would
+   * change the result, and the reverse multi-criteria search is not split.
+   */
+  private static boolean isSplitPossible(RaptorRequest<?> request) {
+    SearchParams s = request.searchParams();
+    boolean isForward = request.searchDirection().isForward();
+    boolean isTimeSet = isForward ? s.isEarliestDepartureTimeSet() : s.isLatestArrivalTimeSet();
+    return (
+      request.optimizationEnabled(Optimization.PARALLEL_SEARCH_WINDOW) &&
+      (isForward || !request.profile().is(MULTI_CRITERIA)) &&
+      isTimeSet &&
+      s.isSearchWindowSet() &&
+      !s.searchOneIterationOnly() &&
+      request.debug().stops().isEmpty() &&
+      request.debug().path().isEmpty()
+    );
+  }
+
+  private ParetoComparator<RaptorPath<T>> createPathParetoComparator() {
+    boolean includeCost = request.profile().is(MULTI_CRITERIA);
+    return paretoComparator(
+      includeCost,
+      request.searchParams().timetable(),
+      request.searchParams().preferLateArrival(),
+      request.searchDirection(),
+      includeCost ? request.multiCriteria().relaxC1AtDestination() : RelaxFunction.NORMAL
+    );
+  }
+
+  private static <R> R waitFor(FutureTask<R> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a sub-window search.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * The merged paths of all sub-windows, and the stop arrivals of the last sub-window.
+   */
+  private record Result<T extends RaptorTripSchedule>(
+    Collection<RaptorPath<T>> paths,
+    RaptorWorkerResult<T> lastSubWindow
+  )
+    implements RaptorWorkerResult<T> {
+    @Override
+    public Collection<RaptorPath<T>> extractPaths() {
+      return paths;
+    }
+
+    @Override
+    public SingleCriteriaStopArrivals extractBestOverallArrivals() {
+      return lastSubWindow.extractBestOverallArrivals();
+    }
+
+    @Override
+    public SingleCriteriaStopArrivals extractBestTransitArrivals() {
+      return lastSubWindow.extractBestTransitArrivals();
+    }
+
+    @Override
+    public SingleCriteriaStopArrivals extractBestNumberOfTransfers() {
+      return lastSubWindow.extractBestNumberOfTransfers();
+    }
+
+    @Override
+    public boolean isDestinationReached() {
+      return !paths.isEmpty() || lastSubWindow.isDestinationReached();
+    }
+  }
+}
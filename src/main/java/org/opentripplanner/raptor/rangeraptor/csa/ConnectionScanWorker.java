@@ -0,0 +1,439 @@
+package org.opentripplanner.raptor.rangeraptor.csa;
+
+import static org.opentripplanner.framework.lang.IntUtils.intArray;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.api.RaptorConstants;
+import org.opentripplanner.raptor.api.debug.RaptorTimers;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.path.RaptorPath;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RoundProvider;
+import org.opentripplanner.raptor.rangeraptor.internalapi.SlackProvider;
+import org.opentripplanner.raptor.rangeraptor.lifecycle.LifeCycleEventPublisher;
+import org.opentripplanner.raptor.rangeraptor.transit.AccessPaths;
+import org.opentripplanner.raptor.rangeraptor.transit.EgressPaths;
+import org.opentripplanner.raptor.rangeraptor.transit.RaptorTransitCalculator;
+import org.opentripplanner.raptor.rangeraptor.transit.RoundTracker;
+import org.opentripplanner.raptor.spi.IntIterator;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.opentripplanner.raptor.util.paretoset.ParetoComparator;
+
+/**
+ * The algorithm used herein is described in
+ * <p>
+ * Julian Dibbelt, Thomas Pajor, Ben Strasser, Dorothea Wagner, "Connection Scan Algorithm",
+ * Journal of Experimental Algorithmics 23, 2018. doi:10.1145/3274661.
+ * <p>
+ * This worker finds the minimum travel duration ignoring wait-time and the minimum number of
+ * transfers for each stop, the same as the Range Raptor worker with the
+ * {@link org.opentripplanner.raptor.api.request.RaptorProfile#MIN_TRAVEL_DURATION} profile. The
+ * result can be used to create heuristics for the multi-criteria search.
+ * <p>
+ * The connections are scanned once for each round, this is the CSA variant with a limit on the
+ * number of transfers. In each round the worker boards the trips at the stops reached in the
+ * previous round, so the number of transfers is known. The scan starts at the first connection
+ * departing after the earliest stop arrival-time of the previous round. Like in Range Raptor, the
+ * trip is time-shifted to remove the wait-time at the boarding stop, and only the first trip of
+ * each route is boarded at a stop. The transfers are added after all connections are scanned.
+ * <p>
+ * Times are in the search direction, in a reverse search all times are negated - see
+ * {@link Connections}. The times are converted back when the result is created.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public final class ConnectionScanWorker<T extends RaptorTripSchedule> implements RaptorWorker<T> {
+
+  private static final int UNREACHED = Integer.MAX_VALUE;
+  private static final int NOT_SCANNED = -1;
+
+  private final Connections connections;
+  private final RaptorTransitDataProvider<T> transitData;
+  private final RaptorTransitCalculator<T> calculator;
+  private final SlackProvider slackProvider;
+  private final AccessPaths accessPaths;
+  private final EgressPaths egressPaths;
+  private final ParetoComparator<RaptorPath<T>> pathComparator;
+  private final RoundTracker roundTracker;
+  private final LifeCycleEventPublisher lifeCycle;
+  private final RaptorTimers timers;
+  private final int minNumberOfRounds;
+
+  /** Negate all times in a reverse search, {@code 1} or {@code -1}. */
+  private final int timeSign;
+
+  /**
+   * The route stop positions where a constrained transfer exist. We do not know if a constrained
+   * transfer can be used, so the slack is not added. Both are {@code null} if constrained
+   * transfers are not used.
+   */
+  @Nullable
+  private final boolean[] constrainedBoarding;
+
+  @Nullable
+  private final boolean[] constrainedAlighting;
+
+  /** The best arrival-time at each stop, across rounds and iterations. */
+  private final int[] times;
+
+  /** The best transit arrival-time at each stop, across rounds and iterations. */
+  private final int[] transitTimes;
+
+  /** The time a stop reached in the previous round can be boarded from, not including slack. */
+  private final int[] boardTimes;
+
+  private final int[] bestNumberOfTransfers;
+
+  /** The scan a trip was boarded in, and the time-shift of the trip in that scan. */
+  private final int[] tripScan;
+  private final int[] tripTimeShift;
+
+  /** The scan a route was boarded in at each route stop position. */
+  private final int[] routeStopPosScan;
+
+  private BitSet reachedCurrentRound;
+  private BitSet reachedLastRound;
+  private final BitSet reachedByTransitCurrentRound;
+
+  /** The earliest time in the {@link #boardTimes}. */
+  private int minBoardTime;
+
+  /** Each scan of the connections is numbered, so the trip state does not need to be cleared. */
+  private int scan = NOT_SCANNED;
+
+  private int iterationDepartureTime;
+
+  public ConnectionScanWorker(
+    Connections connections,
+    RaptorTransitDataProvider<T> transitData,
+    RaptorTransitCalculator<T> calculator,
+    SlackProvider slackProvider,
+    AccessPaths accessPaths,
+    EgressPaths egressPaths,
+    boolean useConstrainedTransfers,
+    ParetoComparator<RaptorPath<T>> pathComparator,
+    RoundProvider roundProvider,
+    LifeCycleEventPublisher lifeCyclePublisher,
+    RaptorTimers timers
+  ) {
+    this.connections = connections;
+    this.transitData = transitData;
+    this.calculator = calculator;
+    this.slackProvider = slackProvider;
+    this.accessPaths = accessPaths;
+    this.egressPaths = egressPaths;
+    this.pathComparator = pathComparator;
+    this.timers = timers;
+    this.minNumberOfRounds = accessPaths.calculateMaxNumberOfRides();
+    this.timeSign = connections.searchForward() ? 1 : -1;
+
+    int nStops = connections.numberOfStops();
+    this.times = intArray(nStops, UNREACHED);
+    this.transitTimes = intArray(nStops, UNREACHED);
+    this.boardTimes = intArray(nStops, UNREACHED);
+    this.bestNumberOfTransfers = intArray(nStops, RaptorConstants.N_TRANSFERS_UNREACHED);
+    this.tripScan = intArray(connections.numberOfTrips(), NOT_SCANNED);
+    this.tripTimeShift = new int[connections.numberOfTrips()];
+    this.routeStopPosScan = intArray(connections.numberOfRouteStopPositions(), NOT_SCANNED);
+    this.reachedCurrentRound = new BitSet(nStops);
+    this.reachedLastRound = new BitSet(nStops);
+    this.reachedByTransitCurrentRound = new BitSet(nStops);
+
+    if (useConstrainedTransfers) {
+      this.constrainedBoarding = new boolean[connections.numberOfRouteStopPositions()];
+      this.constrainedAlighting = new boolean[connections.numberOfRouteStopPositions()];
+      findConstrainedTransfers();
+    } else {
+      this.constrainedBoarding = null;
+      this.constrainedAlighting = null;
+    }
+
+    // The round tracker is not exposed in the context, see the Range Raptor worker
+    this.roundTracker = (RoundTracker) roundProvider;
+    this.lifeCycle = lifeCyclePublisher;
+  }
+
+  @Override
+  public RaptorWorkerResult<T> route() {
+    timers.route(() -> {
+      lifeCycle.notifyRouteSearchStart(calculator.searchForward());
+      transitData.setup();
+
+      final IntIterator it = calculator.rangeRaptorMinutes();
+      while (it.hasNext()) {
+        iterationDepartureTime = it.next();
+        lifeCycle.setupIteration(iterationDepartureTime);
+        runConnectionScanForMinute();
+      }
+    });
+    return new ConnectionScanWorkerResult<>(
+      calculator,
+      toResultTimes(times),
+      toResultTimes(transitTimes),
+      bestNumberOfTransfers,
+      RaptorConstants.N_TRANSFERS_UNREACHED,
+      egressPaths.listAll(),
+      slackProvider.transferSlack(),
+      pathComparator,
+      iterationDepartureTime
+    );
+  }
+
+  /**
+   * Perform one minute of a connection scan search.
+   */
+  private void runConnectionScanForMinute() {
+    clearReachedStops();
+    addAccessPaths(accessPaths.arrivedOnStreetByNumOfRides().get(0), 0);
+
+    while (hasMoreRounds()) {
+      int round = roundTracker.nextRound();
+      lifeCycle.prepareForNextRound(round);
+      prepareBoardTimesForRound();
+
+      timers.findTransitForRound(() -> {
+        scanConnections(round);
+        lifeCycle.transitsForRoundComplete();
+      });
+
+      addAccessPaths(accessPaths.arrivedOnBoardByNumOfRides().get(round), round);
+
+      timers.findTransfersForRound(() -> {
+        findTransfers(round);
+        lifeCycle.transfersForRoundComplete();
+      });
+
+      lifeCycle.roundComplete(isDestinationReachedInCurrentRound());
+
+      addAccessPaths(accessPaths.arrivedOnStreetByNumOfRides().get(round), round);
+    }
+    lifeCycle.iterationComplete();
+  }
+
+  private boolean hasMoreRounds() {
+    if (roundTracker.round() < minNumberOfRounds) {
+      return true;
+    }
+    return !reachedCurrentRound.isEmpty() && roundTracker.hasMoreRounds();
+  }
+
+  /**
+   * Scan the connections starting at or after the earliest board time, board the trips at the
+   * stops reached in the previous round and alight them at all stops after the boarding.
+   */
+  private void scanConnections(int round) {
+    if (minBoardTime == UNREACHED) {
+      return;
+    }
+    ++scan;
+    final int n = connections.numberOfConnections();
+
+    for (int c = connections.firstConnection(minBoardTime); c < n; ++c) {
+      int trip = connections.trip(c);
+
+      if (connections.boardingPossible(c)) {
+        int boardTime = boardTimes[connections.fromStop(c)];
+        if (boardTime != UNREACHED) {
+          board(c, trip, boardTime);
+        }
+      }
+      if (tripScan[trip] == scan && connections.alightingPossible(c)) {
+        alight(c, trip, round);
+      }
+    }
+  }
+
+  /**
+   * Board the trip if it is the first trip of the route departing from the stop, or time-shift
+   * the trip if it is already boarded and the wait-time at this stop is longer.
+   */
+  private void board(int connection, int trip, int boardTime) {
+    int routeStopPos = connections.fromRouteStopPos(connection);
+    int earliestBoardTime = boardTime + boardSlack(trip, routeStopPos);
+    int departureTime = connections.fromTime(connection);
+
+    if (departureTime < earliestBoardTime) {
+      return;
+    }
+    int timeShift = departureTime - earliestBoardTime;
+
+    if (tripScan[trip] == scan) {
+      tripTimeShift[trip] = Math.max(tripTimeShift[trip], timeShift);
+    } else if (routeStopPosScan[routeStopPos] != scan) {
+      tripScan[trip] = scan;
+      tripTimeShift[trip] = timeShift;
+    }
+    routeStopPosScan[routeStopPos] = scan;
+  }
+
+  private void alight(int connection, int trip, int round) {
+    int alightSlack = alightSlack(trip, connections.toRouteStopPos(connection));
+    int arrivalTime = connections.toTime(connection) + alightSlack - tripTimeShift[trip];
+    int stop = connections.toStop(connection);
+
+    if (arrivalTime >= transitTimes[stop] || exceedsTimeLimit(arrivalTime)) {
+      return;
+    }
+    transitTimes[stop] = arrivalTime;
+    reachedByTransitCurrentRound.set(stop);
+    if (arrivalTime < times[stop]) {
+      times[stop] = arrivalTime;
+      reachedCurrentRound.set(stop);
+    }
+    arriveAtStop(stop, round);
+  }
+
+  private void findTransfers(int round) {
+    var it = reachedByTransitCurrentRound.stream().iterator();
+    while (it.hasNext()) {
+      int fromStop = it.nextInt();
+      int transitTime = transitTimes[fromStop];
+      Iterator<? extends RaptorTransfer> transfers = calculator.getTransfers(
+        transitData,
+        fromStop
+      );
+      while (transfers.hasNext()) {
+        RaptorTransfer transfer = transfers.next();
+        int arrivalTime = transitTime + transfer.durationInSeconds();
+        int toStop = transfer.stop();
+
+        if (arrivalTime < times[toStop] && !exceedsTimeLimit(arrivalTime)) {
+          times[toStop] = arrivalTime;
+          reachedCurrentRound.set(toStop);
+          arriveAtStop(toStop, round);
+        }
+      }
+    }
+  }
+
+  /**
+   * The wait-time is ignored, so the access arrival-time is computed from the iteration
+   * departure-time - the same as in the min-travel-duration Range Raptor search.
+   */
+  private void addAccessPaths(@Nullable Collection<RaptorAccessEgress> paths, int round) {
+    if (paths == null) {
+      return;
+    }
+    for (RaptorAccessEgress it : paths) {
+      // Access must be available after the iteration departure time
+      if (calculator.departureTime(it, iterationDepartureTime) == RaptorConstants.TIME_NOT_SET) {
+        continue;
+      }
+      int stop = it.stop();
+      int arrivalTime =
+        timeSign * calculator.plusDuration(iterationDepartureTime, it.durationInSeconds());
+
+      if (exceedsTimeLimit(arrivalTime)) {
+        continue;
+      }
+      boolean reachedOnBoard = it.stopReachedOnBoard() && arrivalTime < transitTimes[stop];
+      if (reachedOnBoard) {
+        transitTimes[stop] = arrivalTime;
+        reachedByTransitCurrentRound.set(stop);
+      }
+      boolean bestTime = arrivalTime < times[stop];
+      if (bestTime) {
+        times[stop] = arrivalTime;
+        reachedCurrentRound.set(stop);
+      }
+      if (reachedOnBoard || bestTime) {
+        arriveAtStop(stop, round);
+      }
+    }
+  }
+
+  private void arriveAtStop(int stop, int round) {
+    bestNumberOfTransfers[stop] = Math.min(bestNumberOfTransfers[stop], round - 1);
+  }
+
+  /**
+   * The stops reached in the previous round can be boarded in this round, the board-time is not
+   * changed by the arrivals found in this round.
+   */
+  private void prepareBoardTimesForRound() {
+    reachedLastRound.stream().forEach(s -> boardTimes[s] = UNREACHED);
+
+    BitSet tmp = reachedLastRound;
+    reachedLastRound = reachedCurrentRound;
+    reachedCurrentRound = tmp;
+    reachedCurrentRound.clear();
+    reachedByTransitCurrentRound.clear();
+
+    minBoardTime = UNREACHED;
+    reachedLastRound
+      .stream()
+      .forEach(s -> {
+        boardTimes[s] = times[s];
+        minBoardTime = Math.min(minBoardTime, times[s]);
+      });
+  }
+
+  /**
+   * An egress starting with walking can only be used after a transit arrival. This might stop the
+   * search before a valid path is found, see the Range Raptor version of this check.
+   */
+  private boolean isDestinationReachedInCurrentRound() {
+    for (int stop : egressPaths.egressesWitchStartByWalking()) {
+      if (reachedByTransitCurrentRound.get(stop)) {
+        return true;
+      }
+    }
+    for (int stop : egressPaths.egressesWitchStartByARide()) {
+      if (reachedCurrentRound.get(stop)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void clearReachedStops() {
+    reachedLastRound.stream().forEach(s -> boardTimes[s] = UNREACHED);
+    reachedLastRound.clear();
+    reachedCurrentRound.clear();
+    reachedByTransitCurrentRound.clear();
+  }
+
+  private int boardSlack(int trip, int routeStopPos) {
+    if (constrainedBoarding != null && constrainedBoarding[routeStopPos]) {
+      return 0;
+    }
+    return slackProvider.boardSlack(connections.slackIndex(trip));
+  }
+
+  private int alightSlack(int trip, int routeStopPos) {
+    if (constrainedAlighting != null && constrainedAlighting[routeStopPos]) {
+      return 0;
+    }
+    return slackProvider.alightSlack(connections.slackIndex(trip));
+  }
+
+  private boolean exceedsTimeLimit(int time) {
+    return calculator.exceedsTimeLimit(timeSign * time);
+  }
+
+  private int[] toResultTimes(int[] values) {
+    int unreached = calculator.unreachedTime();
+    int[] result = new int[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      result[i] = values[i] == UNREACHED ? unreached : timeSign * values[i];
+    }
+    return result;
+  }
+
+  private void findConstrainedTransfers() {
+    for (int r = 0; r < connections.numberOfRoutes(); ++r) {
+      var txSearch = calculator.transferConstraintsSearch(transitData, connections.routeIndex(r));
+      for (int pos = 0; pos < connections.numberOfStopsInRoute(r); ++pos) {
+        int i = connections.routeStopPos(r, pos);
+        constrainedBoarding[i] = txSearch.transferExistTargetStop(pos);
+        constrainedAlighting[i] = txSearch.transferExistSourceStop(pos);
+      }
+    }
+  }
+}
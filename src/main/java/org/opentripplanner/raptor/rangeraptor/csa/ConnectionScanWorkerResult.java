@@ -0,0 +1,130 @@
+package org.opentripplanner.raptor.rangeraptor.csa;
+
+import static org.opentripplanner.raptor.api.RaptorConstants.TIME_NOT_SET;
+
+import java.util.Collection;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.path.RaptorPath;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.rangeraptor.internalapi.SingleCriteriaStopArrivals;
+import org.opentripplanner.raptor.rangeraptor.support.IntArraySingleCriteriaArrivals;
+import org.opentripplanner.raptor.rangeraptor.transit.TransitCalculator;
+import org.opentripplanner.raptor.spi.UnknownPath;
+import org.opentripplanner.raptor.util.paretoset.ParetoComparator;
+import org.opentripplanner.raptor.util.paretoset.ParetoSet;
+
+/**
+ * The best stop arrivals found by the connection scan. The path is not kept, so the paths returned
+ * are {@link UnknownPath}s with the departure-time, arrival-time and number-of-transfers only -
+ * the same as the paths returned by the min-travel-duration Range Raptor search.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+final class ConnectionScanWorkerResult<T extends RaptorTripSchedule>
+  implements RaptorWorkerResult<T> {
+
+  private final TransitCalculator<T> calculator;
+  private final int unreachedTime;
+  private final int[] bestArrivalTimes;
+  private final int[] bestTransitArrivalTimes;
+  private final int[] bestNumberOfTransfers;
+  private final int unreachedNumberOfTransfers;
+  private final Collection<RaptorAccessEgress> egressPaths;
+  private final int transferSlack;
+  private final ParetoComparator<RaptorPath<T>> pathComparator;
+  private final int iterationDepartureTime;
+
+  ConnectionScanWorkerResult(
+    TransitCalculator<T> calculator,
+    int[] bestArrivalTimes,
+    int[] bestTransitArrivalTimes,
+    int[] bestNumberOfTransfers,
+    int unreachedNumberOfTransfers,
+    Collection<RaptorAccessEgress> egressPaths,
+    int transferSlack,
+    ParetoComparator<RaptorPath<T>> pathComparator,
+    int iterationDepartureTime
+  ) {
+    this.calculator = calculator;
+    this.unreachedTime = calculator.unreachedTime();
+    this.bestArrivalTimes = bestArrivalTimes;
+    this.bestTransitArrivalTimes = bestTransitArrivalTimes;
+    this.bestNumberOfTransfers = bestNumberOfTransfers;
+    this.unreachedNumberOfTransfers = unreachedNumberOfTransfers;
+    this.egressPaths = egressPaths;
+    this.transferSlack = transferSlack;
+    this.pathComparator = pathComparator;
+    this.iterationDepartureTime = iterationDepartureTime;
+  }
+
+  @Override
+  public Collection<RaptorPath<T>> extractPaths() {
+    ParetoSet<RaptorPath<T>> paths = new ParetoSet<>(pathComparator);
+    for (RaptorAccessEgress egress : egressPaths) {
+      var path = createPath(egress);
+      if (path != null) {
+        paths.add(path);
+      }
+    }
+    return paths.stream().toList();
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestOverallArrivals() {
+    return new IntArraySingleCriteriaArrivals(unreachedTime, bestArrivalTimes);
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestTransitArrivals() {
+    return new IntArraySingleCriteriaArrivals(unreachedTime, bestTransitArrivalTimes);
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestNumberOfTransfers() {
+    return new IntArraySingleCriteriaArrivals(unreachedNumberOfTransfers, bestNumberOfTransfers);
+  }
+
+  @Override
+  public boolean isDestinationReached() {
+    return !extractPaths().isEmpty();
+  }
+
+  /* private methods */
+
+  /**
+   * Create a path from the egress and the stop arrival-time, the wait-time before the egress is
+   * ignored the same way as in the min-travel-duration Range Raptor search.
+   */
+  private RaptorPath<T> createPath(RaptorAccessEgress egress) {
+    int arrivalTime = stopArrivalTime(egress);
+    if (arrivalTime == unreachedTime) {
+      return null;
+    }
+    int egressDepartureTime = calculator.calculateEgressDepartureTimeWithoutTimeShift(
+      arrivalTime,
+      egress,
+      transferSlack
+    );
+    if (egressDepartureTime == TIME_NOT_SET) {
+      return null;
+    }
+    int destinationArrivalTime = calculator.plusDuration(
+      egressDepartureTime,
+      egress.durationInSeconds()
+    );
+    int nTransfers = bestNumberOfTransfers[egress.stop()] + egress.numberOfRides();
+
+    return new UnknownPath<>(iterationDepartureTime, destinationArrivalTime, nTransfers);
+  }
+
+  /**
+   * An egress starting with walking can only be used after a transit arrival, two walking legs
+   * after each other are not allowed.
+   */
+  private int stopArrivalTime(RaptorAccessEgress egress) {
+    return egress.stopReachedByWalking()
+      ? bestTransitArrivalTimes[egress.stop()]
+      : bestArrivalTimes[egress.stop()];
+  }
+}
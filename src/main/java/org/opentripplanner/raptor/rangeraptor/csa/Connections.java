@@ -0,0 +1,283 @@
+package org.opentripplanner.raptor.rangeraptor.csa;
+
+import gnu.trove.list.array.TIntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.opentripplanner.raptor.api.model.RaptorTripPattern;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.spi.IntIterator;
+import org.opentripplanner.raptor.spi.RaptorRoute;
+import org.opentripplanner.raptor.spi.RaptorTimeTable;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.opentripplanner.raptor.util.IntIterators;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The trips of the transit data split into connections, used by the {@link ConnectionScanWorker}.
+ * A connection is a trip going from one stop to the next stop in the pattern. The connections are
+ * sorted by the time they start in the search direction, and stored after each other in one
+ * {@code int} array, so the worker can read them sequentially.
+ * <p>
+ * In a reverse search a connection starts at the arrival and ends at the departure of the trip,
+ * and the times are negated. The connections are then sorted by increasing time in both search
+ * directions; Hence, the worker can use the same code for both.
+ * <p>
+ * The connections of a trip are sorted in the order they are visited, also if the trip stays at a
+ * stop for zero seconds. The connections do not change, so they can be shared between requests
+ * using the same transit data.
+ */
+public final class Connections {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Connections.class);
+
+  private static final int FROM_STOP = 0;
+  private static final int TO_STOP = 1;
+  private static final int FROM_TIME = 2;
+  private static final int TO_TIME = 3;
+  private static final int TRIP = 4;
+  /** The route stop position boarded, and the board and alight flags. */
+  private static final int BOARD_INFO = 5;
+  private static final int SIZE = 6;
+
+  private static final int BOARDING_POSSIBLE = 1;
+  private static final int ALIGHTING_POSSIBLE = 2;
+  private static final int BOARD_INFO_FLAGS_SHIFT = 2;
+
+  private final int nStops;
+  private final boolean searchForward;
+
+  /** The connections, {@link #SIZE} values for each connection. */
+  private final int[] connections;
+
+  /** The route of each trip. */
+  private final int[] tripRoute;
+
+  /** The Raptor route index of each route. */
+  private final int[] routeIndexes;
+
+  /** The slack index of each route pattern. */
+  private final int[] routeSlackIndexes;
+
+  /**
+   * The first route stop position of each route, the last element is the number of route stop
+   * positions. A route stop position is a stop position in the pattern of a route, numbered in one
+   * sequence for all routes.
+   */
+  private final int[] firstRouteStopPos;
+
+  private Connections(RaptorTransitDataProvider<?> transitData, boolean searchForward) {
+    this.nStops = transitData.numberOfStops();
+    this.searchForward = searchForward;
+
+    List<RaptorRoute<?>> routes = new ArrayList<>();
+    TIntArrayList routeIndexList = new TIntArrayList();
+    IntIterator it = transitData.routeIndexIterator(IntIterators.intIncIterator(0, nStops));
+    while (it.hasNext()) {
+      int routeIndex = it.next();
+      routes.add(transitData.getRouteForIndex(routeIndex));
+      routeIndexList.add(routeIndex);
+    }
+    int nRoutes = routes.size();
+    this.routeIndexes = routeIndexList.toArray();
+    this.routeSlackIndexes = new int[nRoutes];
+    this.firstRouteStopPos = new int[nRoutes + 1];
+
+    int nTrips = 0;
+    long nConnections = 0;
+    for (int r = 0; r < nRoutes; ++r) {
+      var pattern = routes.get(r).pattern();
+      int nStopsInPattern = pattern.numberOfStopsInPattern();
+      int nTripsInRoute = routes.get(r).timetable().numberOfTripSchedules();
+      routeSlackIndexes[r] = pattern.slackIndex();
+      firstRouteStopPos[r + 1] = firstRouteStopPos[r] + nStopsInPattern;
+      nTrips += nTripsInRoute;
+      nConnections += (long) nTripsInRoute * (nStopsInPattern - 1);
+    }
+    if (nConnections * SIZE > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Too many connections in the transit data: " + nConnections);
+    }
+
+    this.tripRoute = new int[nTrips];
+    int[] unsorted = new int[(int) nConnections * SIZE];
+    long[] sortKeys = new long[(int) nConnections];
+    int trip = 0;
+    int c = 0;
+
+    for (int r = 0; r < nRoutes; ++r) {
+      RaptorTripPattern pattern = routes.get(r).pattern();
+      RaptorTimeTable<?> timetable = routes.get(r).timetable();
+      int nHops = pattern.numberOfStopsInPattern() - 1;
+
+      for (int t = 0; t < timetable.numberOfTripSchedules(); ++t, ++trip) {
+        RaptorTripSchedule schedule = timetable.getTripSchedule(t);
+        tripRoute[trip] = r;
+
+        for (int i = 0; i < nHops; ++i, ++c) {
+          // The connections of a trip are numbered in the order they are visited
+          int pos = searchForward ? i : nHops - 1 - i;
+          int fromPos = searchForward ? pos : pos + 1;
+          int fromTime;
+          int toTime;
+          boolean boarding;
+          boolean alighting;
+
+          if (searchForward) {
+            fromTime = schedule.departure(pos);
+            toTime = schedule.arrival(pos + 1);
+            boarding = pattern.boardingPossibleAt(pos);
+            alighting = pattern.alightingPossibleAt(pos + 1);
+          } else {
+            fromTime = -schedule.arrival(pos + 1);
+            toTime = -schedule.departure(pos);
+            boarding = pattern.alightingPossibleAt(pos + 1);
+            alighting = pattern.boardingPossibleAt(pos);
+          }
+
+          int k = c * SIZE;
+          unsorted[k + FROM_STOP] = pattern.stopIndex(fromPos);
+          unsorted[k + TO_STOP] = pattern.stopIndex(searchForward ? pos + 1 : pos);
+          unsorted[k + FROM_TIME] = fromTime;
+          unsorted[k + TO_TIME] = toTime;
+          unsorted[k + TRIP] = trip;
+          unsorted[k + BOARD_INFO] =
+            ((firstRouteStopPos[r] + fromPos) << BOARD_INFO_FLAGS_SHIFT) |
+            (boarding ? BOARDING_POSSIBLE : 0) |
+            (alighting ? ALIGHTING_POSSIBLE : 0);
+
+          // Sort by time, and then by the connection number to keep the order within a trip
+          sortKeys[c] = ((long) fromTime << 32) | c;
+        }
+      }
+    }
+
+    Arrays.parallelSort(sortKeys);
+
+    this.connections = new int[unsorted.length];
+    for (int i = 0; i < sortKeys.length; ++i) {
+      int from = (int) sortKeys[i] * SIZE;
+      int to = i * SIZE;
+      for (int j = 0; j < SIZE; ++j) {
+        connections[to + j] = unsorted[from + j];
+      }
+    }
+  }
+
+  /**
+   * Create the connections for the given transit data and search direction.
+   */
+  public static Connections create(
+    RaptorTransitDataProvider<?> transitData,
+    SearchDirection searchDirection
+  ) {
+    long start = System.currentTimeMillis();
+    var connections = new Connections(transitData, searchDirection.isForward());
+    LOG.info(
+      "Connections created for {} search: {} trips, {} connections in {} ms.",
+      searchDirection,
+      connections.numberOfTrips(),
+      connections.numberOfConnections(),
+      System.currentTimeMillis() - start
+    );
+    return connections;
+  }
+
+  public int numberOfStops() {
+    return nStops;
+  }
+
+  public int numberOfTrips() {
+    return tripRoute.length;
+  }
+
+  public int numberOfConnections() {
+    return connections.length / SIZE;
+  }
+
+  public boolean searchForward() {
+    return searchForward;
+  }
+
+  int numberOfRoutes() {
+    return routeIndexes.length;
+  }
+
+  int numberOfRouteStopPositions() {
+    return firstRouteStopPos[numberOfRoutes()];
+  }
+
+  int routeIndex(int route) {
+    return routeIndexes[route];
+  }
+
+  /** The route stop position of the given stop position in the pattern of the route. */
+  int routeStopPos(int route, int stopPos) {
+    return firstRouteStopPos[route] + stopPos;
+  }
+
+  int numberOfStopsInRoute(int route) {
+    return firstRouteStopPos[route + 1] - firstRouteStopPos[route];
+  }
+
+  int slackIndex(int trip) {
+    return routeSlackIndexes[tripRoute[trip]];
+  }
+
+  /**
+   * Find the first connection starting at or after the given time, return
+   * {@link #numberOfConnections()} if no connection exist.
+   */
+  int firstConnection(int time) {
+    int low = 0;
+    int high = numberOfConnections();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (fromTime(mid) < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  int fromStop(int connection) {
+    return connections[connection * SIZE + FROM_STOP];
+  }
+
+  int toStop(int connection) {
+    return connections[connection * SIZE + TO_STOP];
+  }
+
+  int fromTime(int connection) {
+    return connections[connection * SIZE + FROM_TIME];
+  }
+
+  int toTime(int connection) {
+    return connections[connection * SIZE + TO_TIME];
+  }
+
+  int trip(int connection) {
+    return connections[connection * SIZE + TRIP];
+  }
+
+  boolean boardingPossible(int connection) {
+    return (connections[connection * SIZE + BOARD_INFO] & BOARDING_POSSIBLE) != 0;
+  }
+
+  boolean alightingPossible(int connection) {
+    return (connections[connection * SIZE + BOARD_INFO] & ALIGHTING_POSSIBLE) != 0;
+  }
+
+  /** The route stop position the connection starts at. */
+  int fromRouteStopPos(int connection) {
+    return connections[connection * SIZE + BOARD_INFO] >>> BOARD_INFO_FLAGS_SHIFT;
+  }
+
+  /** The route stop position the connection ends at. */
+  int toRouteStopPos(int connection) {
+    return fromRouteStopPos(connection) + (searchForward ? 1 : -1);
+  }
+}
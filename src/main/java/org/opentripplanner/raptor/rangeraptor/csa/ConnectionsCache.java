@@ -0,0 +1,66 @@
+package org.opentripplanner.raptor.rangeraptor.csa;
+
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.opentripplanner.raptor.util.TransitDataCache;
+
+/**
+ * Cache the {@link Connections} for the most recently used transit data. The connections are
+ * shared between all requests with the same transit data cache key and search direction - see
+ * {@link RaptorTransitDataProvider#transitDataCacheKey()}. The connections are created for each
+ * request if the transit data does not provide a key, on the calling thread and without caching.
+ * OTP does not provide a key if the trip pattern cache is turned off.
+ * <p>
+ * The connections use 24 bytes for each trip going from one stop to the next, and twice as much
+ * while they are sorted. There is one instance for each search direction, and up to
+ * {@link #MAX_NUMBER_OF_ENTRIES} instances are kept. The trip times change with each realtime
+ * update, and so does the OTP transit data cache key; Hence, new connections are created every
+ * time realtime updates are applied.
+ * <p>
+ * To avoid that requests wait for them, the connections are created in the background using the
+ * Raptor thread pool, and {@link #get(RaptorTransitDataProvider, SearchDirection, Executor)}
+ * returns {@code null} until they are ready. The caller should search using Range Raptor instead.
+ * <p>
+ * This class has APPLICATION scope.
+ */
+public final class ConnectionsCache {
+
+  /**
+   * There is one entry for each search direction, so this keep the connections of the two most
+   * recently used transit data versions.
+   */
+  private static final int MAX_NUMBER_OF_ENTRIES = 4;
+
+  private final TransitDataCache<CacheKey, Connections> cache = new TransitDataCache<>(
+    MAX_NUMBER_OF_ENTRIES
+  );
+
+  /**
+   * Return the connections for the given transit data and search direction, or {@code null} if
+   * they are not ready yet.
+   *
+   * @param executor used to create the connections in the background, may be {@code null} - the
+   *                 connections are then created on the calling thread.
+   */
+  @Nullable
+  public Connections get(
+    RaptorTransitDataProvider<?> transitData,
+    SearchDirection direction,
+    @Nullable Executor executor
+  ) {
+    Object key = transitData.transitDataCacheKey();
+
+    if (key == null) {
+      return Connections.create(transitData, direction);
+    }
+    return cache.get(
+      new CacheKey(key, direction),
+      () -> Connections.create(transitData, direction),
+      executor
+    );
+  }
+
+  private record CacheKey(Object transitDataKey, SearchDirection direction) {}
+}
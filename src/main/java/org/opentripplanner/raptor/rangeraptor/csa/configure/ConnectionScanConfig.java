@@ -0,0 +1,66 @@
+package org.opentripplanner.raptor.rangeraptor.csa.configure;
+
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.model.RelaxFunction;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.rangeraptor.context.SearchContext;
+import org.opentripplanner.raptor.rangeraptor.csa.ConnectionScanWorker;
+import org.opentripplanner.raptor.rangeraptor.csa.Connections;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.path.PathParetoSetComparators;
+
+/**
+ * The responsibility of this class is to wire the Connection Scan worker together based on the
+ * context passed into the class.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public class ConnectionScanConfig<T extends RaptorTripSchedule> {
+
+  private final SearchContext<T> ctx;
+
+  public ConnectionScanConfig(SearchContext<T> context) {
+    this.ctx = context;
+    verifyRequestIsValid();
+  }
+
+  public RaptorWorker<T> createWorker(Connections connections) {
+    // The slack provider subscribe to life-cycle events, so it must be created before the publisher
+    var slackProvider = ctx.slackProvider();
+    var pathComparator = PathParetoSetComparators.<T>paretoComparator(
+      false,
+      ctx.searchParams().timetable(),
+      ctx.searchParams().preferLateArrival(),
+      ctx.searchDirection(),
+      RelaxFunction.NORMAL
+    );
+
+    return new ConnectionScanWorker<>(
+      connections,
+      ctx.transit(),
+      ctx.calculator(),
+      slackProvider,
+      ctx.accessPaths(),
+      ctx.egressPaths(),
+      ctx.useConstrainedTransfers(),
+      pathComparator,
+      ctx.roundProvider(),
+      ctx.createLifeCyclePublisher(),
+      ctx.performanceTimers()
+    );
+  }
+
+  /* private methods */
+
+  private void verifyRequestIsValid() {
+    if (!ctx.profile().is(RaptorProfile.MIN_TRAVEL_DURATION)) {
+      throw new IllegalArgumentException(
+        "The connection scan only support the " +
+        RaptorProfile.MIN_TRAVEL_DURATION +
+        " profile, not " +
+        ctx.profile() +
+        "."
+      );
+    }
+  }
+}
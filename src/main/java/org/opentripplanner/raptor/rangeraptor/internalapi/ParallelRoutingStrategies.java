@@ -0,0 +1,33 @@
+package org.opentripplanner.raptor.rangeraptor.internalapi;
+
+import java.util.concurrent.Executor;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.rangeraptor.DefaultRangeRaptorWorker;
+
+/**
+ * Used by the {@link DefaultRangeRaptorWorker} to scan the routes of a round in parallel. The
+ * routes are split in one partition for each strategy. The strategies do not update the worker
+ * state, they keep the best transit arrivals in a buffer. The worker state is only read while the
+ * routes are scanned, so it is safe to share it between threads.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public interface ParallelRoutingStrategies<T extends RaptorTripSchedule> {
+  /**
+   * The executor used to scan the partitions. The calling thread scan the partitions not yet
+   * started by the executor, so the search does not wait for a busy thread pool.
+   */
+  Executor executor();
+
+  /** The number of partitions, there is one strategy for each partition. */
+  int numberOfPartitions();
+
+  /** The strategy used to scan the routes of the given partition. */
+  RoutingStrategy<T> strategy(int partition);
+
+  /**
+   * Merge the transit arrivals of all partitions into the worker state, in the order of the
+   * partitions. The buffers are cleared and ready for the next round.
+   */
+  void mergeTransitArrivals();
+}
@@ -0,0 +1,66 @@
+package org.opentripplanner.raptor.rangeraptor.standard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.rangeraptor.internalapi.ParallelRoutingStrategies;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RoutingStrategy;
+import org.opentripplanner.raptor.rangeraptor.transit.TransitCalculator;
+
+/**
+ * Create one routing strategy with its own {@link StdTransitArrivalBuffer} for each partition,
+ * and merge the buffers into the worker state at the end of the transit scan.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public final class StdParallelRoutingStrategies<T extends RaptorTripSchedule>
+  implements ParallelRoutingStrategies<T> {
+
+  private final Executor executor;
+  private final List<StdTransitArrivalBuffer<T>> buffers = new ArrayList<>();
+  private final List<RoutingStrategy<T>> strategies = new ArrayList<>();
+
+  /**
+   * @param strategyFactory create a routing strategy for the given state, all strategies must be
+   *                        created before the worker life cycle is closed for new subscriptions
+   */
+  public StdParallelRoutingStrategies(
+    StdWorkerState<T> state,
+    TransitCalculator<T> calculator,
+    int nStops,
+    int nPartitions,
+    Executor executor,
+    Function<StdWorkerState<T>, RoutingStrategy<T>> strategyFactory
+  ) {
+    this.executor = executor;
+    for (int i = 0; i < nPartitions; ++i) {
+      var buffer = new StdTransitArrivalBuffer<>(state, calculator, nStops);
+      buffers.add(buffer);
+      strategies.add(strategyFactory.apply(buffer));
+    }
+  }
+
+  @Override
+  public Executor executor() {
+    return executor;
+  }
+
+  @Override
+  public int numberOfPartitions() {
+    return strategies.size();
+  }
+
+  @Override
+  public RoutingStrategy<T> strategy(int partition) {
+    return strategies.get(partition);
+  }
+
+  @Override
+  public void mergeTransitArrivals() {
+    for (StdTransitArrivalBuffer<T> buffer : buffers) {
+      buffer.mergeIntoState();
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package org.opentripplanner.raptor.rangeraptor.standard;
+
+import static org.opentripplanner.framework.lang.IntUtils.intArray;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.model.TransitArrival;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.rangeraptor.transit.TransitCalculator;
+import org.opentripplanner.raptor.spi.IntIterator;
+
+/**
+ * A state used by the routing strategy of one partition, when the routes of a round are scanned in
+ * parallel. The queries are delegated to the worker state, while the transit arrivals are kept in
+ * this buffer - only the best arrival for each stop is kept. The buffer is merged into the worker
+ * state when all partitions are scanned.
+ * <p>
+ * If two trips arrive at the same time, the first one is kept. This is the same as the worker
+ * state does, so the merged result is the same as if the routes were scanned in one sequence.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+final class StdTransitArrivalBuffer<T extends RaptorTripSchedule> implements StdWorkerState<T> {
+
+  private final StdWorkerState<T> state;
+  private final TransitCalculator<T> calculator;
+  private final int unreachedTime;
+
+  private final BitSet reached;
+  private final int[] arrivalTimes;
+  private final int[] boardStops;
+  private final int[] boardTimes;
+  private final Object[] trips;
+
+  StdTransitArrivalBuffer(StdWorkerState<T> state, TransitCalculator<T> calculator, int nStops) {
+    this.state = state;
+    this.calculator = calculator;
+    this.unreachedTime = calculator.unreachedTime();
+    this.reached = new BitSet(nStops);
+    this.arrivalTimes = intArray(nStops, unreachedTime);
+    this.boardStops = new int[nStops];
+    this.boardTimes = new int[nStops];
+    this.trips = new Object[nStops];
+  }
+
+  /**
+   * Add the buffered transit arrivals to the worker state, and clear the buffer.
+   */
+  @SuppressWarnings("unchecked")
+  void mergeIntoState() {
+    for (int stop = reached.nextSetBit(0); stop >= 0; stop = reached.nextSetBit(stop + 1)) {
+      state.transitToStop(
+        stop,
+        arrivalTimes[stop],
+        boardStops[stop],
+        boardTimes[stop],
+        (T) trips[stop]
+      );
+      arrivalTimes[stop] = unreachedTime;
+      trips[stop] = null;
+    }
+    reached.clear();
+  }
+
+  @Override
+  public void transitToStop(int stop, int arrivalTime, int boardStop, int boardTime, T trip) {
+    if (calculator.isBefore(arrivalTime, arrivalTimes[stop])) {
+      reached.set(stop);
+      arrivalTimes[stop] = arrivalTime;
+      boardStops[stop] = boardStop;
+      boardTimes[stop] = boardTime;
+      trips[stop] = trip;
+    }
+  }
+
+  @Override
+  public int bestTimePreviousRound(int stop) {
+    return state.bestTimePreviousRound(stop);
+  }
+
+  @Override
+  public TransitArrival<T> previousTransit(int boardStopIndex) {
+    return state.previousTransit(boardStopIndex);
+  }
+
+  @Override
+  public boolean isStopReachedInPreviousRound(int stopIndex) {
+    return state.isStopReachedInPreviousRound(stopIndex);
+  }
+
+  @Override
+  public boolean isNewRoundAvailable() {
+    return state.isNewRoundAvailable();
+  }
+
+  @Override
+  public IntIterator stopsTouchedPreviousRound() {
+    return state.stopsTouchedPreviousRound();
+  }
+
+  @Override
+  public IntIterator stopsTouchedByTransitCurrentRound() {
+    return state.stopsTouchedByTransitCurrentRound();
+  }
+
+  @Override
+  public boolean isDestinationReachedInCurrentRound() {
+    return state.isDestinationReachedInCurrentRound();
+  }
+
+  @Override
+  public void setAccessToStop(RaptorAccessEgress accessPath, int departureTime) {
+    throw new IllegalStateException("Access is added to the worker state, not to the buffer.");
+  }
+
+  @Override
+  public void transferToStops(int fromStop, Iterator<? extends RaptorTransfer> transfers) {
+    throw new IllegalStateException("Transfers are added to the worker state, not to the buffer.");
+  }
+
+  @Override
+  public RaptorWorkerResult<T> results() {
+    return state.results();
+  }
+}
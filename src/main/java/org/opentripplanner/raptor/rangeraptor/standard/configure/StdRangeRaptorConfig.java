@@ -5,10 +5,13 @@ import static org.opentripplanner.raptor.rangeraptor.path.PathParetoSetComparato
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
 import org.opentripplanner.raptor.api.model.RelaxFunction;
 import org.opentripplanner.raptor.rangeraptor.context.SearchContext;
 import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
+import org.opentripplanner.raptor.rangeraptor.internalapi.ParallelRoutingStrategies;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerState;
 import org.opentripplanner.raptor.rangeraptor.internalapi.RoutingStrategy;
@@ -16,6 +19,7 @@ import org.opentripplanner.raptor.rangeraptor.path.DestinationArrivalPaths;
 import org.opentripplanner.raptor.rangeraptor.path.configure.PathConfig;
 import org.opentripplanner.raptor.rangeraptor.standard.ArrivalTimeRoutingStrategy;
 import org.opentripplanner.raptor.rangeraptor.standard.MinTravelDurationRoutingStrategy;
+import org.opentripplanner.raptor.rangeraptor.standard.StdParallelRoutingStrategies;
 import org.opentripplanner.raptor.rangeraptor.standard.StdRangeRaptorWorkerState;
 import org.opentripplanner.raptor.rangeraptor.standard.StdWorkerState;
 import org.opentripplanner.raptor.rangeraptor.standard.besttimes.BestTimes;
@@ -57,7 +61,7 @@ public class StdRangeRaptorConfig<T extends RaptorTripSchedule> {
     new VerifyRequestIsValid(context).verify();
     this.ctx = context;
     this.pathConfig = new PathConfig<>(context);
-    this.strategy = createWorkerStrategy();
+    this.strategy = createWorkerStrategy(resolveState());
   }
 
   public RaptorWorkerState<T> state() {
@@ -68,6 +72,26 @@ public class StdRangeRaptorConfig<T extends RaptorTripSchedule> {
     return strategy;
   }
 
+  /**
+   * Create the routing strategies used to scan the routes of each round in parallel. Return
+   * {@code null} if the stop arrivals are debugged, the debugger must see all arrivals in the
+   * order they are found.
+   */
+  @Nullable
+  public ParallelRoutingStrategies<T> parallelStrategies(Executor executor, int nPartitions) {
+    if (ctx.debugFactory().isDebugStopArrival()) {
+      return null;
+    }
+    return new StdParallelRoutingStrategies<>(
+      resolveState(),
+      ctx.calculator(),
+      ctx.nStops(),
+      nPartitions,
+      executor,
+      this::createWorkerStrategy
+    );
+  }
+
   public Heuristics createHeuristics(RaptorWorkerResult<T> results) {
     return oneOf(
       new HeuristicsAdapter(
@@ -85,20 +109,22 @@ public class StdRangeRaptorConfig<T extends RaptorTripSchedule> {
 
   /* private factory methods */
 
-  private RoutingStrategy<T> createWorkerStrategy() {
+  private RoutingStrategy<T> createWorkerStrategy(StdWorkerState<T> state) {
     return switch (ctx.profile()) {
       case STANDARD, BEST_TIME -> new ArrivalTimeRoutingStrategy<>(
-        resolveState(),
+        state,
         ctx.createTimeBasedBoardingSupport(),
         ctx.calculator()
       );
       case MIN_TRAVEL_DURATION -> new MinTravelDurationRoutingStrategy<>(
-        resolveState(),
+        state,
         ctx.createTimeBasedBoardingSupport(),
         ctx.calculator(),
         ctx.lifeCycle()
       );
-      case MULTI_CRITERIA -> throw new IllegalArgumentException(ctx.profile().toString());
+      case MULTI_CRITERIA, TRIP_BASED -> throw new IllegalArgumentException(
+        ctx.profile().toString()
+      );
     };
   }
 
@@ -133,7 +159,9 @@ public class StdRangeRaptorConfig<T extends RaptorTripSchedule> {
     return switch (ctx.profile()) {
       case STANDARD -> stdStopArrivalsState();
       case BEST_TIME, MIN_TRAVEL_DURATION -> createBestTimeStopArrivalsState();
-      case MULTI_CRITERIA -> throw new IllegalArgumentException(ctx.profile().toString());
+      case MULTI_CRITERIA, TRIP_BASED -> throw new IllegalArgumentException(
+        ctx.profile().toString()
+      );
     };
   }
 
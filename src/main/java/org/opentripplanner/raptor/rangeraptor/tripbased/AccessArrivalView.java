@@ -0,0 +1,46 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import static org.opentripplanner.raptor.api.model.PathLegType.ACCESS;
+
+import org.opentripplanner.raptor.api.model.PathLegType;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.view.AccessPathView;
+import org.opentripplanner.raptor.api.view.ArrivalView;
+
+final class AccessArrivalView<T extends RaptorTripSchedule>
+  extends StopArrivalView<T>
+  implements AccessPathView {
+
+  private final RaptorAccessEgress access;
+
+  AccessArrivalView(int arrivalTime, RaptorAccessEgress access) {
+    super(0, access.stop(), arrivalTime);
+    this.access = access;
+  }
+
+  @Override
+  public ArrivalView<T> previous() {
+    return null;
+  }
+
+  @Override
+  public PathLegType arrivedBy() {
+    return ACCESS;
+  }
+
+  @Override
+  public AccessPathView accessPath() {
+    return this;
+  }
+
+  @Override
+  public RaptorAccessEgress access() {
+    return access;
+  }
+
+  @Override
+  public boolean arrivedOnBoard() {
+    return access.stopReachedOnBoard();
+  }
+}
@@ -0,0 +1,54 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.view.ArrivalView;
+import org.opentripplanner.raptor.spi.RaptorCostCalculator;
+
+/**
+ * Implement the {@link ArrivalView}. The trip-based search does not keep stop arrivals, the views
+ * are created from the trip segments when a destination arrival is found.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+abstract class StopArrivalView<T extends RaptorTripSchedule> implements ArrivalView<T> {
+
+  private final int round;
+  private final int stop;
+  private final int arrivalTime;
+
+  StopArrivalView(int round, int stop, int arrivalTime) {
+    this.round = round;
+    this.stop = stop;
+    this.arrivalTime = arrivalTime;
+  }
+
+  @Override
+  public final int stop() {
+    return stop;
+  }
+
+  @Override
+  public final int round() {
+    return round;
+  }
+
+  @Override
+  public final int arrivalTime() {
+    return arrivalTime;
+  }
+
+  @Override
+  public final int c1() {
+    return RaptorCostCalculator.ZERO_COST;
+  }
+
+  @Override
+  public final int c2() {
+    throw new UnsupportedOperationException("C2 is not available for the trip-based search");
+  }
+
+  @Override
+  public String toString() {
+    return asString();
+  }
+}
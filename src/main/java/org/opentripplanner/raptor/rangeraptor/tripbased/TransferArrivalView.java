@@ -0,0 +1,40 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import static org.opentripplanner.raptor.api.model.PathLegType.TRANSFER;
+
+import org.opentripplanner.raptor.api.model.PathLegType;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.view.ArrivalView;
+
+final class TransferArrivalView<T extends RaptorTripSchedule> extends StopArrivalView<T> {
+
+  private final RaptorTransfer transfer;
+  private final ArrivalView<T> previous;
+
+  TransferArrivalView(RaptorTransfer transfer, ArrivalView<T> previous) {
+    super(previous.round(), transfer.stop(), previous.arrivalTime() + transfer.durationInSeconds());
+    this.transfer = transfer;
+    this.previous = previous;
+  }
+
+  @Override
+  public ArrivalView<T> previous() {
+    return previous;
+  }
+
+  @Override
+  public PathLegType arrivedBy() {
+    return TRANSFER;
+  }
+
+  @Override
+  public RaptorTransfer transfer() {
+    return transfer;
+  }
+
+  @Override
+  public boolean arrivedOnBoard() {
+    return false;
+  }
+}
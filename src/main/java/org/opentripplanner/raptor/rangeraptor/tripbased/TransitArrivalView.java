@@ -0,0 +1,61 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import static org.opentripplanner.raptor.api.model.PathLegType.TRANSIT;
+
+import org.opentripplanner.raptor.api.model.PathLegType;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.view.ArrivalView;
+import org.opentripplanner.raptor.api.view.TransitPathView;
+
+final class TransitArrivalView<T extends RaptorTripSchedule>
+  extends StopArrivalView<T>
+  implements TransitPathView<T> {
+
+  private final int boardStop;
+  private final T trip;
+  private final ArrivalView<T> previous;
+
+  TransitArrivalView(
+    int round,
+    int stop,
+    int arrivalTime,
+    int boardStop,
+    T trip,
+    ArrivalView<T> previous
+  ) {
+    super(round, stop, arrivalTime);
+    this.boardStop = boardStop;
+    this.trip = trip;
+    this.previous = previous;
+  }
+
+  @Override
+  public ArrivalView<T> previous() {
+    return previous;
+  }
+
+  @Override
+  public PathLegType arrivedBy() {
+    return TRANSIT;
+  }
+
+  @Override
+  public TransitPathView<T> transitPath() {
+    return this;
+  }
+
+  @Override
+  public int boardStop() {
+    return boardStop;
+  }
+
+  @Override
+  public T trip() {
+    return trip;
+  }
+
+  @Override
+  public boolean arrivedOnBoard() {
+    return true;
+  }
+}
@@ -0,0 +1,188 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.raptor.api.model.RaptorTripPattern;
+
+/**
+ * The routes, trips and trip-to-trip transfers used by the {@link TripBasedWorker}. The index is
+ * created by the {@link TripBasedIndexBuilder} and does not change, so it can be shared between
+ * requests using the same transit data.
+ * <p>
+ * The trips of all routes are numbered in one sequence, the trips of a route have consecutive
+ * numbers in the same order as in the route timetable. A <em>stop-event</em> is a trip at a stop
+ * position in the trip pattern, the stop-events of a trip have consecutive numbers. The transfers
+ * are listed by the stop-event they start from.
+ * <p>
+ * Like Raptor, the index assumes that trips of the same route do not overtake each other.
+ */
+public final class TripBasedIndex {
+
+  /** The number of stops in the transit data. */
+  private final int nStops;
+
+  /** The pattern of each route. */
+  private final RaptorTripPattern[] patterns;
+
+  /** The Raptor route index of each route. */
+  private final int[] routeIndexes;
+
+  /** The first trip of each route, the last element is the number of trips. */
+  private final int[] firstTrip;
+
+  /** The route of each trip. */
+  private final int[] tripRoute;
+
+  /** The first stop-event of each trip, the last element is the number of stop-events. */
+  private final int[] firstStopEvent;
+
+  /** The arrival-time of each stop-event, without alight-slack. */
+  private final int[] arrivalTimes;
+
+  /** The departure-time of each stop-event, without board-slack. */
+  private final int[] departureTimes;
+
+  /** The first route-visit of each stop, the last element is the number of route-visits. */
+  private final int[] firstRouteVisit;
+  private final int[] routeVisitRoute;
+  private final int[] routeVisitStopPos;
+
+  /** The first transfer of each stop-event, the last element is the number of transfers. */
+  private final int[] firstTransfer;
+  private final int[] transferToTrip;
+  private final int[] transferToStopPos;
+
+  /** The walking transfer used, {@code null} if the transfer is at the same stop. */
+  private final RaptorTransfer[] transferWalks;
+
+  TripBasedIndex(
+    int nStops,
+    RaptorTripPattern[] patterns,
+    int[] routeIndexes,
+    int[] firstTrip,
+    int[] tripRoute,
+    int[] firstStopEvent,
+    int[] arrivalTimes,
+    int[] departureTimes,
+    int[] firstRouteVisit,
+    int[] routeVisitRoute,
+    int[] routeVisitStopPos,
+    int[] firstTransfer,
+    int[] transferToTrip,
+    int[] transferToStopPos,
+    RaptorTransfer[] transferWalks
+  ) {
+    this.nStops = nStops;
+    this.patterns = patterns;
+    this.routeIndexes = routeIndexes;
+    this.firstTrip = firstTrip;
+    this.tripRoute = tripRoute;
+    this.firstStopEvent = firstStopEvent;
+    this.arrivalTimes = arrivalTimes;
+    this.departureTimes = departureTimes;
+    this.firstRouteVisit = firstRouteVisit;
+    this.routeVisitRoute = routeVisitRoute;
+    this.routeVisitStopPos = routeVisitStopPos;
+    this.firstTransfer = firstTransfer;
+    this.transferToTrip = transferToTrip;
+    this.transferToStopPos = transferToStopPos;
+    this.transferWalks = transferWalks;
+  }
+
+  public int numberOfStops() {
+    return nStops;
+  }
+
+  public int numberOfTrips() {
+    return tripRoute.length;
+  }
+
+  public int numberOfTransfers() {
+    return transferToTrip.length;
+  }
+
+  RaptorTripPattern pattern(int route) {
+    return patterns[route];
+  }
+
+  int routeIndex(int route) {
+    return routeIndexes[route];
+  }
+
+  int route(int trip) {
+    return tripRoute[trip];
+  }
+
+  /** The index of the trip in the route timetable. */
+  int tripIndexInRoute(int trip) {
+    return trip - firstTrip[tripRoute[trip]];
+  }
+
+  /** The first trip number after the trips of the given route. */
+  int endTrip(int route) {
+    return firstTrip[route + 1];
+  }
+
+  int arrivalTime(int trip, int stopPos) {
+    return arrivalTimes[firstStopEvent[trip] + stopPos];
+  }
+
+  int departureTime(int trip, int stopPos) {
+    return departureTimes[firstStopEvent[trip] + stopPos];
+  }
+
+  /**
+   * Find the first trip of the route departing from the given stop position at or after the given
+   * time, return {@code -1} if no trip exist.
+   */
+  int earliestTrip(int route, int stopPos, int earliestDepartureTime) {
+    int low = firstTrip[route];
+    int high = firstTrip[route + 1];
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (departureTime(mid, stopPos) < earliestDepartureTime) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low < firstTrip[route + 1] ? low : -1;
+  }
+
+  /** The first route-visit of the stop, use with {@link #endRouteVisit(int)}. */
+  int firstRouteVisit(int stop) {
+    return firstRouteVisit[stop];
+  }
+
+  int endRouteVisit(int stop) {
+    return firstRouteVisit[stop + 1];
+  }
+
+  int routeVisitRoute(int routeVisit) {
+    return routeVisitRoute[routeVisit];
+  }
+
+  int routeVisitStopPos(int routeVisit) {
+    return routeVisitStopPos[routeVisit];
+  }
+
+  /** The first transfer from the trip at the stop position, use with {@link #endTransfer}. */
+  int firstTransfer(int trip, int stopPos) {
+    return firstTransfer[firstStopEvent[trip] + stopPos];
+  }
+
+  int endTransfer(int trip, int stopPos) {
+    return firstTransfer[firstStopEvent[trip] + stopPos + 1];
+  }
+
+  int transferToTrip(int transfer) {
+    return transferToTrip[transfer];
+  }
+
+  int transferToStopPos(int transfer) {
+    return transferToStopPos[transfer];
+  }
+
+  RaptorTransfer transferWalk(int transfer) {
+    return transferWalks[transfer];
+  }
+}
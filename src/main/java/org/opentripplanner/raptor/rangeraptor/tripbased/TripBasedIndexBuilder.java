@@ -0,0 +1,538 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import static org.opentripplanner.framework.lang.IntUtils.intArray;
+
+import gnu.trove.list.array.TIntArrayList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.raptor.api.model.RaptorTripPattern;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.spi.IntIterator;
+import org.opentripplanner.raptor.spi.RaptorRoute;
+import org.opentripplanner.raptor.spi.RaptorSlackProvider;
+import org.opentripplanner.raptor.spi.RaptorTimeTable;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.opentripplanner.raptor.util.IntIterators;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Create the {@link TripBasedIndex} for the given transit data. The trip-to-trip transfers are
+ * generated and reduced as described by Witt:
+ * <ol>
+ *   <li>For each trip and stop where alighting is possible, find the earliest trip of each route
+ *   which can be boarded at the same stop, or at a stop reached by a walking transfer.</li>
+ *   <li>Remove U-turn transfers, where the same trip could be boarded at the previous stop.</li>
+ *   <li>Remove transfers which do not improve the arrival-time at any stop, compared with staying
+ *   on the trip or transferring at a later stop.</li>
+ * </ol>
+ * The slack is added the same way as in Range Raptor: alight-slack, walking, transfer-slack and
+ * board-slack is added between the arrival of one trip and the departure of the next.
+ * <p>
+ * The transfers of each trip are computed independently of the other trips, so the trips are split
+ * in partitions and the partitions are processed in parallel if an executor is given.
+ * <p>
+ * The index and the {@link TripBasedWorker} find the earliest trip to board by departure-time, and
+ * assume that a later trip of the same route does not arrive earlier at any stop. Frequency based
+ * routes and routes where the trips overtake each other are not supported, no index is created if
+ * the transit data contains such a route.
+ */
+public final class TripBasedIndexBuilder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TripBasedIndexBuilder.class);
+
+  /** The trips are not split in partitions smaller than this. */
+  private static final int MIN_NUMBER_OF_TRIPS_IN_PARTITION = 500;
+
+  /**
+   * The time used to process a trip varies a lot, so we create more partitions than threads to
+   * balance the work.
+   */
+  private static final int PARTITIONS_PER_THREAD = 4;
+
+  private static final int NOT_REACHED = Integer.MAX_VALUE;
+
+  private final RaptorSlackProvider slackProvider;
+  private final int nStops;
+
+  private final RaptorTripPattern[] patterns;
+  private final int[] routeIndexes;
+  private final int[] firstTrip;
+  private final int[] tripRoute;
+  private final int[] firstStopEvent;
+  private final int[] arrivalTimes;
+  private final int[] departureTimes;
+
+  /** The stop positions where each route can be boarded, listed by stop. */
+  private final int[] firstRouteVisit;
+  private final int[] routeVisitRoute;
+  private final int[] routeVisitStopPos;
+
+  /** The walking transfers listed by from-stop. */
+  private final int[] firstWalk;
+  private final RaptorTransfer[] walks;
+
+  private TripBasedIndexBuilder(
+    RaptorTransitDataProvider<?> transitData,
+    List<RaptorRoute<?>> routes,
+    int[] routeIndexes
+  ) {
+    this.slackProvider = transitData.slackProvider();
+    this.nStops = transitData.numberOfStops();
+
+    int nRoutes = routes.size();
+    this.routeIndexes = routeIndexes;
+    this.patterns = new RaptorTripPattern[nRoutes];
+    this.firstTrip = new int[nRoutes + 1];
+
+    for (int r = 0; r < nRoutes; ++r) {
+      patterns[r] = routes.get(r).pattern();
+      firstTrip[r + 1] = firstTrip[r] + routes.get(r).timetable().numberOfTripSchedules();
+    }
+
+    int nTrips = firstTrip[nRoutes];
+    this.tripRoute = new int[nTrips];
+    this.firstStopEvent = new int[nTrips + 1];
+
+    for (int r = 0; r < nRoutes; ++r) {
+      int nStopsInPattern = patterns[r].numberOfStopsInPattern();
+      for (int t = firstTrip[r]; t < firstTrip[r + 1]; ++t) {
+        tripRoute[t] = r;
+        firstStopEvent[t + 1] = firstStopEvent[t] + nStopsInPattern;
+      }
+    }
+
+    this.arrivalTimes = new int[firstStopEvent[nTrips]];
+    this.departureTimes = new int[firstStopEvent[nTrips]];
+
+    for (int r = 0; r < nRoutes; ++r) {
+      RaptorTimeTable<?> timetable = routes.get(r).timetable();
+      int nStopsInPattern = patterns[r].numberOfStopsInPattern();
+      for (int t = firstTrip[r]; t < firstTrip[r + 1]; ++t) {
+        RaptorTripSchedule trip = timetable.getTripSchedule(t - firstTrip[r]);
+        for (int pos = 0; pos < nStopsInPattern; ++pos) {
+          arrivalTimes[firstStopEvent[t] + pos] = trip.arrival(pos);
+          departureTimes[firstStopEvent[t] + pos] = trip.departure(pos);
+        }
+      }
+    }
+
+    // List the boarding positions of each route by stop
+    this.firstRouteVisit = new int[nStops + 1];
+    for (RaptorTripPattern pattern : patterns) {
+      for (int pos = 0; pos < pattern.numberOfStopsInPattern() - 1; ++pos) {
+        if (pattern.boardingPossibleAt(pos)) {
+          ++firstRouteVisit[pattern.stopIndex(pos) + 1];
+        }
+      }
+    }
+    for (int s = 0; s < nStops; ++s) {
+      firstRouteVisit[s + 1] += firstRouteVisit[s];
+    }
+    this.routeVisitRoute = new int[firstRouteVisit[nStops]];
+    this.routeVisitStopPos = new int[firstRouteVisit[nStops]];
+    int[] next = firstRouteVisit.clone();
+    for (int r = 0; r < nRoutes; ++r) {
+      var pattern = patterns[r];
+      for (int pos = 0; pos < pattern.numberOfStopsInPattern() - 1; ++pos) {
+        if (pattern.boardingPossibleAt(pos)) {
+          int i = next[pattern.stopIndex(pos)]++;
+          routeVisitRoute[i] = r;
+          routeVisitStopPos[i] = pos;
+        }
+      }
+    }
+
+    // List the walking transfers by from-stop
+    this.firstWalk = new int[nStops + 1];
+    List<RaptorTransfer> walkList = new ArrayList<>();
+    for (int s = 0; s < nStops; ++s) {
+      Iterator<? extends RaptorTransfer> walkIt = transitData.getTransfersFromStop(s);
+      while (walkIt.hasNext()) {
+        walkList.add(walkIt.next());
+      }
+      firstWalk[s + 1] = walkList.size();
+    }
+    this.walks = walkList.toArray(new RaptorTransfer[0]);
+  }
+
+  /**
+   * Create the index for the given transit data, return {@code null} if the transit data contains
+   * routes which are not supported.
+   *
+   * @param executor        the trips are processed in parallel using this executor, use
+   *                        {@code null} to process the trips on the calling thread.
+   * @param numberOfThreads the number of threads available, including the calling thread
+   */
+  @Nullable
+  public static TripBasedIndex build(
+    RaptorTransitDataProvider<?> transitData,
+    @Nullable Executor executor,
+    int numberOfThreads
+  ) {
+    long start = System.currentTimeMillis();
+
+    List<RaptorRoute<?>> routes = new ArrayList<>();
+    TIntArrayList routeIndexes = new TIntArrayList();
+    IntIterator it = transitData.routeIndexIterator(
+      IntIterators.intIncIterator(0, transitData.numberOfStops())
+    );
+    while (it.hasNext()) {
+      int routeIndex = it.next();
+      var route = transitData.getRouteForIndex(routeIndex);
+      String reason = notSupportedReason(route);
+      if (reason != null) {
+        LOG.info("Trip-based index not created, {}: {}", reason, route.pattern().debugInfo());
+        return null;
+      }
+      routes.add(route);
+      routeIndexes.add(routeIndex);
+    }
+
+    var builder = new TripBasedIndexBuilder(transitData, routes, routeIndexes.toArray());
+    var index = builder.createIndex(executor, numberOfThreads);
+    LOG.info(
+      "Trip-based index created: {} trips, {} transfers in {} ms.",
+      index.numberOfTrips(),
+      index.numberOfTransfers(),
+      System.currentTimeMillis() - start
+    );
+    return index;
+  }
+
+  /* private methods */
+
+  /**
+   * Return the reason the route is not supported, or {@code null} if it is. The departure and
+   * arrival times of the trips must be in the same order at every stop, this is checked for each
+   * pair of consecutive trips.
+   */
+  @Nullable
+  private static String notSupportedReason(RaptorRoute<?> route) {
+    RaptorTimeTable<?> timetable = route.timetable();
+    if (timetable.useCustomizedTripSearch()) {
+      return "the route has a customized trip search (frequency based trips)";
+    }
+    int nStopsInPattern = route.pattern().numberOfStopsInPattern();
+    for (int t = 1; t < timetable.numberOfTripSchedules(); ++t) {
+      RaptorTripSchedule prev = timetable.getTripSchedule(t - 1);
+      RaptorTripSchedule trip = timetable.getTripSchedule(t);
+      for (int pos = 0; pos < nStopsInPattern; ++pos) {
+        if (trip.departure(pos) < prev.departure(pos) || trip.arrival(pos) < prev.arrival(pos)) {
+          return "the trips of the route overtake each other";
+        }
+      }
+    }
+    return null;
+  }
+
+  private TripBasedIndex createIndex(@Nullable Executor executor, int numberOfThreads) {
+    int nTrips = tripRoute.length;
+    int nPartitions = executor == null
+      ? 1
+      : Math.min(
+        PARTITIONS_PER_THREAD * numberOfThreads,
+        nTrips / MIN_NUMBER_OF_TRIPS_IN_PARTITION
+      );
+    nPartitions = Math.max(1, nPartitions);
+
+    var partitions = new ArrayList<TransferGenerator>(nPartitions);
+    for (int p = 0; p < nPartitions; ++p) {
+      int startTrip = (int) ((long) nTrips * p / nPartitions);
+      int endTrip = (int) ((long) nTrips * (p + 1) / nPartitions);
+      partitions.add(new TransferGenerator(startTrip, endTrip));
+    }
+    generateTransfers(partitions, executor);
+
+    // Merge the transfers of all partitions, the partitions are in stop-event order
+    int nStopEvents = firstStopEvent[nTrips];
+    int nTransfers = partitions.stream().mapToInt(it -> it.toTrip.size()).sum();
+    int[] firstTransfer = new int[nStopEvents + 1];
+    int[] transferToTrip = new int[nTransfers];
+    int[] transferToStopPos = new int[nTransfers];
+    var transferWalks = new RaptorTransfer[nTransfers];
+
+    int transfer = 0;
+    for (TransferGenerator it : partitions) {
+      int firstEvent = firstStopEvent[it.startTrip];
+      for (int e = 0; e < it.counts.length; ++e) {
+        firstTransfer[firstEvent + e] = transfer;
+        transfer += it.counts[e];
+      }
+      int offset = firstTransfer[firstEvent];
+      it.toTrip.toArray(transferToTrip, 0, offset, it.toTrip.size());
+      it.toStopPos.toArray(transferToStopPos, 0, offset, it.toStopPos.size());
+      for (int i = 0; i < it.transferWalks.size(); ++i) {
+        transferWalks[offset + i] = it.transferWalks.get(i);
+      }
+    }
+    firstTransfer[nStopEvents] = transfer;
+
+    return new TripBasedIndex(
+      nStops,
+      patterns,
+      routeIndexes,
+      firstTrip,
+      tripRoute,
+      firstStopEvent,
+      arrivalTimes,
+      departureTimes,
+      firstRouteVisit,
+      routeVisitRoute,
+      routeVisitStopPos,
+      firstTransfer,
+      transferToTrip,
+      transferToStopPos,
+      transferWalks
+    );
+  }
+
+  /**
+   * Generate the transfers of all partitions. The partitions are given to the executor, and
+   * processed on the calling thread if the executor has not started them yet.
+   */
+  private static void generateTransfers(
+    List<TransferGenerator> partitions,
+    @Nullable Executor executor
+  ) {
+    if (executor == null || partitions.size() == 1) {
+      partitions.forEach(TransferGenerator::run);
+      return;
+    }
+    var tasks = new ArrayList<FutureTask<Void>>(partitions.size());
+    for (TransferGenerator it : partitions) {
+      var task = new FutureTask<Void>(it, null);
+      tasks.add(task);
+      executor.execute(task);
+    }
+    for (FutureTask<Void> task : tasks) {
+      // The run method does nothing if the task is started
+      task.run();
+      waitFor(task);
+    }
+  }
+
+  private static void waitFor(FutureTask<Void> task) {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Failed to create trip transfers: " + e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while creating trip transfers.", e);
+    }
+  }
+
+  private int arrivalTime(int trip, int stopPos) {
+    return arrivalTimes[firstStopEvent[trip] + stopPos];
+  }
+
+  private int departureTime(int trip, int stopPos) {
+    return departureTimes[firstStopEvent[trip] + stopPos];
+  }
+
+  /** Same as {@link TripBasedIndex#earliestTrip(int, int, int)}. */
+  private int earliestTrip(int route, int stopPos, int earliestDepartureTime) {
+    int low = firstTrip[route];
+    int high = firstTrip[route + 1];
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (departureTime(mid, stopPos) < earliestDepartureTime) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low < firstTrip[route + 1] ? low : -1;
+  }
+
+  /**
+   * Generate and reduce the transfers for the trips in the range {@code [startTrip, endTrip)}.
+   * Each generator has its own state, so the generators can run in parallel.
+   */
+  private final class TransferGenerator implements Runnable {
+
+    private final int startTrip;
+    private final int endTrip;
+
+    /** The number of transfers from each stop-event of the partition. */
+    private final int[] counts;
+    private final TIntArrayList toTrip = new TIntArrayList();
+    private final TIntArrayList toStopPos = new TIntArrayList();
+    private final List<RaptorTransfer> transferWalks = new ArrayList<>();
+
+    /** The transfers of the current trip, in decreasing stop position order. */
+    private final TIntArrayList tripFromStopPos = new TIntArrayList();
+    private final TIntArrayList tripToTrip = new TIntArrayList();
+    private final TIntArrayList tripToStopPos = new TIntArrayList();
+    private final List<RaptorTransfer> tripWalks = new ArrayList<>();
+
+    /** The best arrival-time by transit at each stop, after alighting the current trip. */
+    private int[] stopArrivalTimes;
+    private final TIntArrayList touchedStops = new TIntArrayList();
+
+    private TransferGenerator(int startTrip, int endTrip) {
+      this.startTrip = startTrip;
+      this.endTrip = endTrip;
+      this.counts = new int[firstStopEvent[endTrip] - firstStopEvent[startTrip]];
+    }
+
+    @Override
+    public void run() {
+      this.stopArrivalTimes = intArray(nStops, NOT_REACHED);
+      for (int t = startTrip; t < endTrip; ++t) {
+        generateTransfersForTrip(t);
+      }
+      // Release the memory, the generator is kept until the transfers are merged
+      this.stopArrivalTimes = null;
+    }
+
+    private void generateTransfersForTrip(int trip) {
+      int route = tripRoute[trip];
+      var pattern = patterns[route];
+      int alightSlack = slackProvider.alightSlack(pattern.slackIndex());
+
+      // Visit the stops in reverse order, the transfers at later stops are kept before the
+      // transfers at earlier stops are checked
+      for (int i = pattern.numberOfStopsInPattern() - 1; i > 0; --i) {
+        if (!pattern.alightingPossibleAt(i)) {
+          continue;
+        }
+        int stop = pattern.stopIndex(i);
+        int arrivalTime = arrivalTime(trip, i) + alightSlack;
+        improve(stop, arrivalTime);
+
+        addTransfers(trip, route, i, arrivalTime, stop, 0, null);
+        for (int w = firstWalk[stop]; w < firstWalk[stop + 1]; ++w) {
+          var walk = walks[w];
+          addTransfers(trip, route, i, arrivalTime, walk.stop(), walk.durationInSeconds(), walk);
+        }
+      }
+
+      // Add the transfers in stop-event order
+      int firstEvent = firstStopEvent[trip] - firstStopEvent[startTrip];
+      for (int k = tripToTrip.size() - 1; k >= 0; --k) {
+        ++counts[firstEvent + tripFromStopPos.get(k)];
+        toTrip.add(tripToTrip.get(k));
+        toStopPos.add(tripToStopPos.get(k));
+        transferWalks.add(tripWalks.get(k));
+      }
+      tripFromStopPos.resetQuick();
+      tripToTrip.resetQuick();
+      tripToStopPos.resetQuick();
+      tripWalks.clear();
+
+      for (int k = 0; k < touchedStops.size(); ++k) {
+        int stop = touchedStops.getQuick(k);
+        stopArrivalTimes[stop] = NOT_REACHED;
+      }
+      touchedStops.resetQuick();
+    }
+
+    /**
+     * Add the transfers to all routes boarding at the given stop, which improve the arrival-time
+     * at one or more stops.
+     */
+    private void addTransfers(
+      int trip,
+      int route,
+      int stopPos,
+      int arrivalTime,
+      int toStop,
+      int walkDuration,
+      @Nullable RaptorTransfer walk
+    ) {
+      int readyToBoardTime = arrivalTime + walkDuration + slackProvider.transferSlack();
+
+      for (int v = firstRouteVisit[toStop]; v < firstRouteVisit[toStop + 1]; ++v) {
+        int toRoute = routeVisitRoute[v];
+        int toPos = routeVisitStopPos[v];
+        var toPattern = patterns[toRoute];
+        int boardSlack = slackProvider.boardSlack(toPattern.slackIndex());
+        int toTrip = earliestTrip(toRoute, toPos, readyToBoardTime + boardSlack);
+
+        if (toTrip < 0) {
+          continue;
+        }
+        // Staying on the trip is at least as good as transferring to it, or a later trip
+        if (toRoute == route && toTrip >= trip && toPos >= stopPos) {
+          continue;
+        }
+        if (isUTurn(trip, stopPos, toTrip, toPos)) {
+          continue;
+        }
+        if (improvesArrivals(toTrip, toPos)) {
+          tripFromStopPos.add(stopPos);
+          tripToTrip.add(toTrip);
+          tripToStopPos.add(toPos);
+          tripWalks.add(walk);
+        }
+      }
+    }
+
+    /**
+     * A transfer is a U-turn if the to-trip visits the previous stop of the from-trip next, and
+     * the to-trip can be boarded at that stop.
+     */
+    private boolean isUTurn(int fromTrip, int fromPos, int toTrip, int toPos) {
+      var fromPattern = patterns[tripRoute[fromTrip]];
+      var toPattern = patterns[tripRoute[toTrip]];
+
+      if (toPos + 1 >= toPattern.numberOfStopsInPattern()) {
+        return false;
+      }
+      if (fromPattern.stopIndex(fromPos - 1) != toPattern.stopIndex(toPos + 1)) {
+        return false;
+      }
+      if (!fromPattern.alightingPossibleAt(fromPos - 1)) {
+        return false;
+      }
+      if (!toPattern.boardingPossibleAt(toPos + 1)) {
+        return false;
+      }
+      int earliestBoardTime =
+        arrivalTime(fromTrip, fromPos - 1) +
+        slackProvider.alightSlack(fromPattern.slackIndex()) +
+        slackProvider.transferSlack() +
+        slackProvider.boardSlack(toPattern.slackIndex());
+      return earliestBoardTime <= departureTime(toTrip, toPos + 1);
+    }
+
+    /**
+     * Ride the trip from the board position and return {@code true} if any stop is reached
+     * earlier than before. The stops reached by walking from a stop are only reached earlier if
+     * the stop is; Hence, it is enough to compare the arrival-times by transit.
+     */
+    private boolean improvesArrivals(int trip, int boardPos) {
+      var pattern = patterns[tripRoute[trip]];
+      int alightSlack = slackProvider.alightSlack(pattern.slackIndex());
+      boolean improved = false;
+
+      for (int i = boardPos + 1; i < pattern.numberOfStopsInPattern(); ++i) {
+        if (pattern.alightingPossibleAt(i)) {
+          improved |= improve(pattern.stopIndex(i), arrivalTime(trip, i) + alightSlack);
+        }
+      }
+      return improved;
+    }
+
+    /** Update the arrival-time at the stop, return {@code true} if it is improved. */
+    private boolean improve(int stop, int arrivalTime) {
+      if (arrivalTime >= stopArrivalTimes[stop]) {
+        return false;
+      }
+      stopArrivalTimes[stop] = arrivalTime;
+      touchedStops.add(stop);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+import org.opentripplanner.raptor.util.TransitDataCache;
+
+/**
+ * Cache the {@link TripBasedIndex} for the most recently used transit data. Creating the index is
+ * expensive, so it is shared between all requests with the same transit data cache key - see
+ * {@link RaptorTransitDataProvider#transitDataCacheKey()}. The index is created for each request
+ * if the transit data does not provide a key, on the calling thread and without caching. OTP does
+ * not provide a key if the trip pattern cache is turned off.
+ * <p>
+ * The index is large, it keeps the arrival and departure time of every stop-event, and the
+ * trip-to-trip transfers - usually several transfers for each stop-event. This is about 12 bytes
+ * for each stop-event and 12-16 bytes for each transfer, and up to {@link #MAX_NUMBER_OF_ENTRIES}
+ * indexes are kept. The trip times change with each realtime update, and so does the OTP transit
+ * data cache key; Hence, a new index is created every time realtime updates are applied.
+ * <p>
+ * To avoid that requests wait for it, the index is created in the background using the Raptor
+ * thread pool, and {@link #get(RaptorTransitDataProvider, Executor, int)} returns {@code null}
+ * until it is ready. The caller should search using Standard Range Raptor instead, it finds the
+ * same paths.
+ * <p>
+ * This class has APPLICATION scope.
+ */
+public final class TripBasedIndexCache {
+
+  /**
+   * The transit data change with each realtime update, and the old index is not used after a
+   * while. A small number of entries is enough to serve requests using different search dates.
+   */
+  private static final int MAX_NUMBER_OF_ENTRIES = 4;
+
+  private final TransitDataCache<Object, TripBasedIndex> cache = new TransitDataCache<>(
+    MAX_NUMBER_OF_ENTRIES
+  );
+
+  /**
+   * Return the index for the given transit data, or {@code null} if the index is not ready yet or
+   * the transit data is not supported - see {@link TripBasedIndexBuilder}.
+   *
+   * @param executor        used to create the index in the background and in parallel, may be
+   *                        {@code null} - the index is then created on the calling thread.
+   * @param numberOfThreads the number of threads available, including the calling thread
+   */
+  @Nullable
+  public TripBasedIndex get(
+    RaptorTransitDataProvider<?> transitData,
+    @Nullable Executor executor,
+    int numberOfThreads
+  ) {
+    Object key = transitData.transitDataCacheKey();
+
+    if (key == null) {
+      return TripBasedIndexBuilder.build(transitData, executor, numberOfThreads);
+    }
+    return cache.get(
+      key,
+      () -> TripBasedIndexBuilder.build(transitData, executor, numberOfThreads),
+      executor
+    );
+  }
+}
@@ -0,0 +1,352 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import static org.opentripplanner.framework.lang.IntUtils.intArray;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.api.RaptorConstants;
+import org.opentripplanner.raptor.api.debug.RaptorTimers;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.view.ArrivalView;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RoundProvider;
+import org.opentripplanner.raptor.rangeraptor.lifecycle.LifeCycleEventPublisher;
+import org.opentripplanner.raptor.rangeraptor.path.DestinationArrivalPaths;
+import org.opentripplanner.raptor.rangeraptor.transit.RaptorTransitCalculator;
+import org.opentripplanner.raptor.rangeraptor.transit.RoundTracker;
+import org.opentripplanner.raptor.spi.IntIterator;
+import org.opentripplanner.raptor.spi.RaptorSlackProvider;
+import org.opentripplanner.raptor.spi.RaptorTransitDataProvider;
+
+/**
+ * The algorithm used herein is described in
+ * <p>
+ * Sascha Witt, "Trip-Based Public Transit Routing", Algorithms - ESA 2015, pp 1025-1036.
+ * doi:10.1007/978-3-662-48350-3_85.
+ * <p>
+ * The search is done in rounds like Raptor, but instead of scanning all routes serving the stops
+ * reached in the previous round, the worker scans the trip segments reached using the
+ * trip-to-trip transfers in the {@link TripBasedIndex}. Each trip keeps track of the first stop
+ * position it is reached at, so the same part of a trip is never scanned twice in an iteration.
+ * <p>
+ * This worker finds the same paths as the Standard Range Raptor worker. A range of departure
+ * times is searched by running one search for each minute, starting with the latest departure
+ * time. The best destination arrival-time for each round is kept between the iterations, and used
+ * to stop scanning segments which can not improve the result.
+ * <p>
+ * Limitations: Only forward search is supported. The access and egress paths must arrive at the
+ * stop on street, access and egress with rides (flex) is not supported. Constrained transfers are
+ * not supported.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public final class TripBasedWorker<T extends RaptorTripSchedule> implements RaptorWorker<T> {
+
+  private static final int NOT_REACHED = Integer.MAX_VALUE;
+
+  private final TripBasedIndex index;
+  private final RaptorTransitDataProvider<T> transitData;
+  private final RaptorTransitCalculator<T> calculator;
+  private final RaptorSlackProvider slackProvider;
+  private final Collection<RaptorAccessEgress> accessPaths;
+  private final TIntObjectMap<List<RaptorAccessEgress>> egressPathsByStop;
+  private final boolean[] egressStops;
+  private final DestinationArrivalPaths<T> destinationArrivalPaths;
+  private final RoundTracker roundTracker;
+  private final LifeCycleEventPublisher lifeCycle;
+  private final RaptorTimers timers;
+  private final TripBasedWorkerResult<T> result;
+
+  /**
+   * The first stop position each trip is reached at in the current iteration, this is the
+   * {@code R(t)} in the paper.
+   */
+  private final int[] reachedStopPos;
+
+  /** The trips reached in the current iteration, used to reset the {@link #reachedStopPos}. */
+  private final TIntArrayList reachedTrips = new TIntArrayList();
+
+  private final TripSegments segments = new TripSegments();
+
+  /**
+   * The best destination arrival-time for each round, in this and the previous iterations. A
+   * path found in a later iteration with the same or fewer transfers dominates all paths arriving
+   * later in this iteration.
+   */
+  private final int[] bestArrivalTimeByRound;
+
+  /** The best destination arrival-time for the current round and the rounds before it. */
+  private int bestArrivalTime;
+
+  private int iterationDepartureTime;
+
+  public TripBasedWorker(
+    TripBasedIndex index,
+    RaptorTransitDataProvider<T> transitData,
+    RaptorTransitCalculator<T> calculator,
+    RaptorSlackProvider slackProvider,
+    Collection<RaptorAccessEgress> accessPaths,
+    TIntObjectMap<List<RaptorAccessEgress>> egressPathsByStop,
+    DestinationArrivalPaths<T> destinationArrivalPaths,
+    int nRounds,
+    RoundProvider roundProvider,
+    LifeCycleEventPublisher lifeCyclePublisher,
+    RaptorTimers timers
+  ) {
+    this.index = index;
+    this.transitData = transitData;
+    this.calculator = calculator;
+    this.slackProvider = slackProvider;
+    this.accessPaths = accessPaths;
+    this.egressPathsByStop = egressPathsByStop;
+    this.destinationArrivalPaths = destinationArrivalPaths;
+    this.timers = timers;
+    this.result = new TripBasedWorkerResult<>(index.numberOfStops(), destinationArrivalPaths);
+    this.reachedStopPos = intArray(index.numberOfTrips(), NOT_REACHED);
+    this.bestArrivalTimeByRound = intArray(nRounds, NOT_REACHED);
+
+    this.egressStops = new boolean[index.numberOfStops()];
+    for (int stop : egressPathsByStop.keys()) {
+      egressStops[stop] = true;
+    }
+
+    // The round tracker is not exposed in the context, see the Range Raptor worker
+    this.roundTracker = (RoundTracker) roundProvider;
+    this.lifeCycle = lifeCyclePublisher;
+  }
+
+  @Override
+  public RaptorWorkerResult<T> route() {
+    timers.route(() -> {
+      lifeCycle.notifyRouteSearchStart(calculator.searchForward());
+      transitData.setup();
+
+      // Iterate backward over all minutes in the search window, the best arrival-times found in
+      // the later iterations are used to prune the search in the earlier iterations.
+      final IntIterator it = calculator.rangeRaptorMinutes();
+      while (it.hasNext()) {
+        iterationDepartureTime = it.next();
+        lifeCycle.setupIteration(iterationDepartureTime);
+        runTripBasedSearchForMinute();
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Perform one minute of a Trip-Based search.
+   */
+  private void runTripBasedSearchForMinute() {
+    clearReachedTrips();
+    segments.clear();
+    bestArrivalTime = bestArrivalTimeByRound[0];
+
+    addAccessPaths();
+
+    while (segments.hasNextRound() && roundTracker.hasMoreRounds()) {
+      int round = roundTracker.nextRound();
+      lifeCycle.prepareForNextRound(round);
+      bestArrivalTime = Math.min(bestArrivalTime, bestArrivalTimeByRound[round]);
+      segments.nextRound();
+
+      timers.findTransitForRound(() -> {
+        boolean addTransfers = roundTracker.hasMoreRounds();
+        for (int s = segments.roundStart(); s < segments.roundEnd(); ++s) {
+          scanSegment(s, round, addTransfers);
+        }
+        lifeCycle.transitsForRoundComplete();
+      });
+      // The transfers are added to the segments of the next round while scanning
+      lifeCycle.transfersForRoundComplete();
+
+      lifeCycle.roundComplete(destinationArrivalPaths.isReachedCurrentRound());
+    }
+    lifeCycle.iterationComplete();
+  }
+
+  /**
+   * Board the first trip of each route leaving from the access stops, and add the paths where the
+   * access and egress stop is the same.
+   */
+  private void addAccessPaths() {
+    for (RaptorAccessEgress it : accessPaths) {
+      int departureTime = calculator.departureTime(it, iterationDepartureTime);
+
+      // Access must be available after the iteration departure time
+      if (departureTime == RaptorConstants.TIME_NOT_SET) {
+        continue;
+      }
+      int stop = it.stop();
+      int arrivalTime = departureTime + it.durationInSeconds();
+      result.setAccessTime(stop, arrivalTime);
+
+      if (egressStops[stop]) {
+        addDestinationArrivals(new AccessArrivalView<>(arrivalTime, it), 0);
+      }
+
+      for (int v = index.firstRouteVisit(stop); v < index.endRouteVisit(stop); ++v) {
+        int route = index.routeVisitRoute(v);
+        int stopPos = index.routeVisitStopPos(v);
+        int boardSlack = slackProvider.boardSlack(index.pattern(route).slackIndex());
+        int trip = index.earliestTrip(route, stopPos, arrivalTime + boardSlack);
+
+        if (trip >= 0) {
+          enqueue(trip, stopPos, TripSegments.NO_PARENT, -1, it, null);
+        }
+      }
+    }
+  }
+
+  /**
+   * Alight the trip segment at each stop until the stop arrival-time can not improve the
+   * destination arrival-time. Add the egress paths and the transfers to the next round.
+   */
+  private void scanSegment(int segment, int round, boolean addTransfers) {
+    int trip = segments.trip(segment);
+    var pattern = index.pattern(index.route(trip));
+    int alightSlack = slackProvider.alightSlack(pattern.slackIndex());
+    int toStopPos = segments.toStopPos(segment);
+
+    for (int stopPos = segments.fromStopPos(segment) + 1; stopPos <= toStopPos; ++stopPos) {
+      if (!pattern.alightingPossibleAt(stopPos)) {
+        continue;
+      }
+      int arrivalTime = index.arrivalTime(trip, stopPos) + alightSlack;
+
+      // The arrival-time is increasing along the trip, so the rest of the segment is not better
+      if (arrivalTime > bestArrivalTime || calculator.exceedsTimeLimit(arrivalTime)) {
+        return;
+      }
+      int stop = pattern.stopIndex(stopPos);
+      result.transitToStop(stop, arrivalTime, round);
+
+      if (egressStops[stop]) {
+        addDestinationArrivals(transitArrival(segment, stopPos, round), round);
+      }
+
+      if (addTransfers) {
+        int end = index.endTransfer(trip, stopPos);
+        for (int k = index.firstTransfer(trip, stopPos); k < end; ++k) {
+          enqueue(
+            index.transferToTrip(k),
+            index.transferToStopPos(k),
+            segment,
+            stopPos,
+            null,
+            index.transferWalk(k)
+          );
+        }
+      }
+    }
+  }
+
+  /**
+   * Add a trip segment to the next round, if the trip is not reached at the given stop position or
+   * before already. The later trips of the same route are marked as reached as well, they can not
+   * improve the result.
+   */
+  private void enqueue(
+    int trip,
+    int stopPos,
+    int parent,
+    int parentStopPos,
+    @Nullable RaptorAccessEgress accessPath,
+    @Nullable RaptorTransfer transfer
+  ) {
+    int reached = reachedStopPos[trip];
+
+    if (stopPos >= reached) {
+      return;
+    }
+    int route = index.route(trip);
+    int lastStopPos = index.pattern(route).numberOfStopsInPattern() - 1;
+    int toStopPos = Math.min(reached, lastStopPos);
+
+    segments.add(trip, stopPos, toStopPos, parent, parentStopPos, accessPath, transfer);
+
+    int endTrip = index.endTrip(route);
+    for (int t = trip; t < endTrip && reachedStopPos[t] > stopPos; ++t) {
+      if (reachedStopPos[t] == NOT_REACHED) {
+        reachedTrips.add(t);
+      }
+      reachedStopPos[t] = stopPos;
+    }
+  }
+
+  private void addDestinationArrivals(ArrivalView<T> arrival, int round) {
+    for (RaptorAccessEgress egress : egressPathsByStop.get(arrival.stop())) {
+      int departureTime = calculator.calculateEgressDepartureTime(
+        arrival.arrivalTime(),
+        egress,
+        slackProvider.transferSlack()
+      );
+      if (departureTime == RaptorConstants.TIME_NOT_SET) {
+        continue;
+      }
+      int arrivalTime = departureTime + egress.durationInSeconds();
+
+      if (arrivalTime < bestArrivalTimeByRound[round]) {
+        bestArrivalTimeByRound[round] = arrivalTime;
+      }
+      if (arrivalTime < bestArrivalTime) {
+        bestArrivalTime = arrivalTime;
+      }
+      destinationArrivalPaths.add(arrival, egress);
+    }
+  }
+
+  /**
+   * Create the stop arrival for alighting the segment at the given stop position, including the
+   * previous arrivals back to the access. This is only done when the destination is reached.
+   */
+  private ArrivalView<T> transitArrival(int segment, int stopPos, int round) {
+    int trip = segments.trip(segment);
+    int route = index.route(trip);
+    var pattern = index.pattern(route);
+    int alightSlack = slackProvider.alightSlack(pattern.slackIndex());
+    int arrivalTime = index.arrivalTime(trip, stopPos) + alightSlack;
+    T tripSchedule = transitData
+      .getRouteForIndex(index.routeIndex(route))
+      .timetable()
+      .getTripSchedule(index.tripIndexInRoute(trip));
+
+    return new TransitArrivalView<>(
+      round,
+      pattern.stopIndex(stopPos),
+      arrivalTime,
+      pattern.stopIndex(segments.fromStopPos(segment)),
+      tripSchedule,
+      boardingArrival(segment, round)
+    );
+  }
+
+  /**
+   * Create the stop arrival the segment is boarded from; The access or the transit arrival of the
+   * previous round, followed by a walking transfer if the transfer is not at the same stop.
+   */
+  private ArrivalView<T> boardingArrival(int segment, int round) {
+    RaptorAccessEgress accessPath = segments.accessPath(segment);
+
+    if (accessPath != null) {
+      int departureTime = calculator.departureTime(accessPath, iterationDepartureTime);
+      return new AccessArrivalView<>(departureTime + accessPath.durationInSeconds(), accessPath);
+    }
+    int parent = segments.parent(segment);
+    var arrival = transitArrival(parent, segments.parentStopPos(segment), round - 1);
+    RaptorTransfer transfer = segments.transfer(segment);
+    return transfer == null ? arrival : new TransferArrivalView<>(transfer, arrival);
+  }
+
+  private void clearReachedTrips() {
+    for (int i = 0; i < reachedTrips.size(); ++i) {
+      reachedStopPos[reachedTrips.getQuick(i)] = NOT_REACHED;
+    }
+    reachedTrips.resetQuick();
+  }
+}
@@ -0,0 +1,71 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import static org.opentripplanner.framework.lang.IntUtils.intArray;
+
+import java.util.Collection;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.api.path.RaptorPath;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorkerResult;
+import org.opentripplanner.raptor.rangeraptor.internalapi.SingleCriteriaStopArrivals;
+import org.opentripplanner.raptor.rangeraptor.path.DestinationArrivalPaths;
+import org.opentripplanner.raptor.rangeraptor.support.IntArraySingleCriteriaArrivals;
+
+/**
+ * The paths and the best stop arrivals found by the trip-based search. The stops reached by
+ * walking from a trip are not visited by the search; Hence, only stops reached by access and by
+ * transit are included in the stop arrivals.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+final class TripBasedWorkerResult<T extends RaptorTripSchedule> implements RaptorWorkerResult<T> {
+
+  private static final int UNREACHED = Integer.MAX_VALUE;
+
+  private final DestinationArrivalPaths<T> paths;
+  private final int[] bestArrivalTimes;
+  private final int[] bestTransitArrivalTimes;
+  private final int[] bestNumberOfTransfers;
+
+  TripBasedWorkerResult(int nStops, DestinationArrivalPaths<T> paths) {
+    this.paths = paths;
+    this.bestArrivalTimes = intArray(nStops, UNREACHED);
+    this.bestTransitArrivalTimes = intArray(nStops, UNREACHED);
+    this.bestNumberOfTransfers = intArray(nStops, UNREACHED);
+  }
+
+  void setAccessTime(int stop, int arrivalTime) {
+    bestArrivalTimes[stop] = Math.min(bestArrivalTimes[stop], arrivalTime);
+    bestNumberOfTransfers[stop] = 0;
+  }
+
+  void transitToStop(int stop, int arrivalTime, int round) {
+    bestArrivalTimes[stop] = Math.min(bestArrivalTimes[stop], arrivalTime);
+    bestTransitArrivalTimes[stop] = Math.min(bestTransitArrivalTimes[stop], arrivalTime);
+    bestNumberOfTransfers[stop] = Math.min(bestNumberOfTransfers[stop], round - 1);
+  }
+
+  @Override
+  public Collection<RaptorPath<T>> extractPaths() {
+    return paths.listPaths();
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestOverallArrivals() {
+    return new IntArraySingleCriteriaArrivals(UNREACHED, bestArrivalTimes);
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestTransitArrivals() {
+    return new IntArraySingleCriteriaArrivals(UNREACHED, bestTransitArrivalTimes);
+  }
+
+  @Override
+  public SingleCriteriaStopArrivals extractBestNumberOfTransfers() {
+    return new IntArraySingleCriteriaArrivals(UNREACHED, bestNumberOfTransfers);
+  }
+
+  @Override
+  public boolean isDestinationReached() {
+    return !paths.isEmpty();
+  }
+}
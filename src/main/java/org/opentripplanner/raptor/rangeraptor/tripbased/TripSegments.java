@@ -0,0 +1,130 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+
+/**
+ * The queue of trip segments to scan in the trip-based search. A segment is a part of a trip,
+ * from the stop position where it is boarded to the first stop position already reached. The
+ * segments of all rounds in an iteration are kept, each segment refers to the segment it is
+ * boarded from, and this is used to create the paths.
+ * <p>
+ * The segments added while scanning one round belong to the next round.
+ */
+final class TripSegments {
+
+  static final int NO_PARENT = -1;
+
+  private int size = 0;
+  private int roundStart = 0;
+  private int roundEnd = 0;
+
+  private int[] trips = new int[1024];
+  private int[] fromStopPos = new int[1024];
+  private int[] toStopPos = new int[1024];
+  private int[] parents = new int[1024];
+  private int[] parentStopPos = new int[1024];
+  private RaptorAccessEgress[] accessPaths = new RaptorAccessEgress[1024];
+  private RaptorTransfer[] transfers = new RaptorTransfer[1024];
+
+  void clear() {
+    Arrays.fill(accessPaths, 0, size, null);
+    Arrays.fill(transfers, 0, size, null);
+    size = 0;
+    roundStart = 0;
+    roundEnd = 0;
+  }
+
+  /**
+   * Add a segment boarded from an access path, or from a segment of the previous round.
+   *
+   * @param parent        the segment alighted before boarding, {@link #NO_PARENT} if the segment
+   *                      is boarded from an access path
+   * @param parentStopPos the stop position the parent segment is alighted at
+   * @param transfer      the walking transfer between the trips, {@code null} if the transfer is
+   *                      at the same stop or the segment is boarded from an access path
+   */
+  void add(
+    int trip,
+    int fromStopPos,
+    int toStopPos,
+    int parent,
+    int parentStopPos,
+    @Nullable RaptorAccessEgress accessPath,
+    @Nullable RaptorTransfer transfer
+  ) {
+    if (size == trips.length) {
+      grow();
+    }
+    this.trips[size] = trip;
+    this.fromStopPos[size] = fromStopPos;
+    this.toStopPos[size] = toStopPos;
+    this.parents[size] = parent;
+    this.parentStopPos[size] = parentStopPos;
+    this.accessPaths[size] = accessPath;
+    this.transfers[size] = transfer;
+    ++size;
+  }
+
+  /** Return {@code true} if segments are added to the next round. */
+  boolean hasNextRound() {
+    return size > roundEnd;
+  }
+
+  /** Start scanning the segments added in the previous round. */
+  void nextRound() {
+    roundStart = roundEnd;
+    roundEnd = size;
+  }
+
+  int roundStart() {
+    return roundStart;
+  }
+
+  int roundEnd() {
+    return roundEnd;
+  }
+
+  int trip(int segment) {
+    return trips[segment];
+  }
+
+  int fromStopPos(int segment) {
+    return fromStopPos[segment];
+  }
+
+  int toStopPos(int segment) {
+    return toStopPos[segment];
+  }
+
+  int parent(int segment) {
+    return parents[segment];
+  }
+
+  int parentStopPos(int segment) {
+    return parentStopPos[segment];
+  }
+
+  @Nullable
+  RaptorAccessEgress accessPath(int segment) {
+    return accessPaths[segment];
+  }
+
+  @Nullable
+  RaptorTransfer transfer(int segment) {
+    return transfers[segment];
+  }
+
+  private void grow() {
+    int newSize = 2 * trips.length;
+    trips = Arrays.copyOf(trips, newSize);
+    fromStopPos = Arrays.copyOf(fromStopPos, newSize);
+    toStopPos = Arrays.copyOf(toStopPos, newSize);
+    parents = Arrays.copyOf(parents, newSize);
+    parentStopPos = Arrays.copyOf(parentStopPos, newSize);
+    accessPaths = Arrays.copyOf(accessPaths, newSize);
+    transfers = Arrays.copyOf(transfers, newSize);
+  }
+}
@@ -0,0 +1,70 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased.configure;
+
+import java.util.List;
+import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
+import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
+import org.opentripplanner.raptor.rangeraptor.context.SearchContext;
+import org.opentripplanner.raptor.rangeraptor.internalapi.RaptorWorker;
+import org.opentripplanner.raptor.rangeraptor.path.configure.PathConfig;
+import org.opentripplanner.raptor.rangeraptor.tripbased.TripBasedIndex;
+import org.opentripplanner.raptor.rangeraptor.tripbased.TripBasedWorker;
+
+/**
+ * The responsibility of this class is to wire the Trip-Based worker together based on the context
+ * passed into the class.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public class TripBasedConfig<T extends RaptorTripSchedule> {
+
+  private final SearchContext<T> ctx;
+
+  public TripBasedConfig(SearchContext<T> context) {
+    this.ctx = context;
+    verifyRequestIsValid();
+  }
+
+  public RaptorWorker<T> createWorker(TripBasedIndex index) {
+    // The paths subscribe to life-cycle events, so they must be created before the publisher
+    var destinationArrivalPaths = new PathConfig<>(ctx)
+      .createDestArrivalPathsWithoutGeneralizedCost();
+    List<RaptorAccessEgress> accessPaths = ctx.accessPaths().arrivedOnStreetByNumOfRides().get(0);
+
+    return new TripBasedWorker<>(
+      index,
+      ctx.transit(),
+      ctx.calculator(),
+      ctx.raptorSlackProvider(),
+      accessPaths == null ? List.of() : accessPaths,
+      ctx.egressPaths().byStop(),
+      destinationArrivalPaths,
+      ctx.nRounds(),
+      ctx.roundProvider(),
+      ctx.createLifeCyclePublisher(),
+      ctx.performanceTimers()
+    );
+  }
+
+  /* private methods */
+
+  private void verifyRequestIsValid() {
+    verify(
+      !ctx.searchDirection().isForward(),
+      "The profile %s only support forward search.",
+      ctx.profile()
+    );
+    verify(
+      ctx.accessPaths().calculateMaxNumberOfRides() > 0 ||
+      !ctx.accessPaths().arrivedOnBoardByNumOfRides().isEmpty() ||
+      ctx.egressPaths().egressesWitchStartByARide().length > 0,
+      "The profile %s does not support access and egress with rides.",
+      ctx.profile()
+    );
+  }
+
+  private static void verify(boolean condition, String format, Object... args) {
+    if (condition) {
+      throw new IllegalArgumentException(String.format(format, args));
+    }
+  }
+}
@@ -6,6 +6,7 @@ import javax.annotation.Nullable;
 import org.opentripplanner.framework.time.DurationUtils;
 import org.opentripplanner.raptor.api.model.RaptorTripSchedule;
 import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.api.request.Optimization;
 import org.opentripplanner.raptor.api.request.RaptorRequest;
 import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
@@ -138,6 +139,13 @@ public class HeuristicSearchTask<T extends RaptorTripSchedule> {
 
       builder.searchParams().searchOneIterationOnly();
 
+      if (request.scanRoutesInParallel()) {
+        builder.enableOptimization(Optimization.PARALLEL_ROUTE_SCAN);
+      }
+      if (request.useConnectionScan()) {
+        builder.enableOptimization(Optimization.CONNECTION_SCAN);
+      }
+
       // Add this last, it depends on generating an alias from the set values
       builder.performanceTimers(
         request.performanceTimers().withNamePrefix(builder.generateAlias())
@@ -2,6 +2,7 @@ package org.opentripplanner.raptor.service;
 
 import static org.opentripplanner.raptor.api.request.RaptorProfile.MULTI_CRITERIA;
 import static org.opentripplanner.raptor.api.request.RaptorProfile.STANDARD;
+import static org.opentripplanner.raptor.api.request.RaptorProfile.TRIP_BASED;
 
 import org.opentripplanner.raptor.api.request.RaptorRequest;
 import org.opentripplanner.raptor.api.request.SearchParams;
@@ -10,14 +11,14 @@ class HeuristicToRunResolver {
 
   /**
    * Create and prepare heuristic search (both FORWARD and REVERSE) based on optimizations and input
-   * search parameters. This is done for Standard and Multi-criteria profiles only.
+   * search parameters. This is done for Standard, Trip-Based and Multi-criteria profiles only.
    */
   static void resolveHeuristicToRunBasedOnOptimizationsAndSearchParameters(
     RaptorRequest<?> req,
     Runnable turnFwdOn,
     Runnable turnRevOn
   ) {
-    if (!req.profile().isOneOf(STANDARD, MULTI_CRITERIA)) {
+    if (!req.profile().isOneOf(STANDARD, MULTI_CRITERIA, TRIP_BASED)) {
       return;
     }
     boolean forward = false;
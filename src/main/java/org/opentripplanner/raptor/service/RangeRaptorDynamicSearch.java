@@ -3,12 +3,14 @@ package org.opentripplanner.raptor.service;
 import static org.opentripplanner.raptor.api.model.SearchDirection.FORWARD;
 import static org.opentripplanner.raptor.api.model.SearchDirection.REVERSE;
 import static org.opentripplanner.raptor.api.request.RaptorProfile.MULTI_CRITERIA;
+import static org.opentripplanner.raptor.api.request.RaptorProfile.TRIP_BASED;
 import static org.opentripplanner.raptor.service.HeuristicToRunResolver.resolveHeuristicToRunBasedOnOptimizationsAndSearchParameters;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.opentripplanner.raptor.RaptorService;
@@ -101,7 +103,7 @@ public class RangeRaptorDynamicSearch<T extends RaptorTripSchedule> {
 
   /**
    * Create and prepare heuristic search (both FORWARD and REVERSE) based on optimizations and input
-   * search parameters. This is done for Standard and Multi-criteria profiles only.
+   * search parameters. This is done for Standard, Trip-Based and Multi-criteria profiles only.
    */
   private void enableHeuristicSearchBasedOnOptimizationsAndSearchParameters() {
     // We delegate this to a static method to be able to write unit test on this logic
@@ -133,9 +135,12 @@ public class RangeRaptorDynamicSearch<T extends RaptorTripSchedule> {
 
     // Create worker
     if (request.profile().is(MULTI_CRITERIA)) {
-      raptorWorker = config.createMcWorker(transitData, request, getDestinationHeuristics());
+      var heuristics = getDestinationHeuristics();
+      raptorWorker = createWorker(request, r -> config.createMcWorker(transitData, r, heuristics));
+    } else if (request.profile().is(TRIP_BASED)) {
+      raptorWorker = createWorker(request, r -> config.createTripBasedWorker(transitData, r));
     } else {
-      raptorWorker = config.createStdWorker(transitData, request);
+      raptorWorker = createWorker(request, r -> config.createStdWorker(transitData, r));
     }
 
     // Route
@@ -150,6 +155,22 @@ public class RangeRaptorDynamicSearch<T extends RaptorTripSchedule> {
     );
   }
 
+  /**
+   * Split the search-window and run one worker for each part in parallel, if enabled and the
+   * search-window is long enough. If not, a single worker is created.
+   */
+  private RaptorWorker<T> createWorker(
+    RaptorRequest<T> request,
+    Function<RaptorRequest<T>, RaptorWorker<T>> workerFactory
+  ) {
+    var worker = config.createSplitSearchWindowWorker(request, workerFactory);
+    if (worker != null) {
+      LOG.debug("RangeRaptor - The search-window is split and searched in parallel.");
+      return worker;
+    }
+    return workerFactory.apply(request);
+  }
+
   private boolean isItPossibleToRunHeuristicsInParallel() {
     SearchParams s = originalRequest.searchParams();
     return (
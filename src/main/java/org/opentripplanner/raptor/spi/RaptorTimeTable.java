@@ -31,4 +31,14 @@ public interface RaptorTimeTable<T extends RaptorTripSchedule> {
    * Factory method to create the trip search
    */
   RaptorTripScheduleSearch<T> tripSearch(SearchDirection direction);
+
+  /**
+   * Return {@code true} if the trip schedules can not be searched by their times, and a
+   * customized {@link #tripSearch(SearchDirection)} is used - for example for frequency based
+   * trips. Raptor features indexing the trip schedules up front, like the Trip-Based profile, are
+   * not used for such time-tables.
+   */
+  default boolean useCustomizedTripSearch() {
+    return false;
+  }
 }
@@ -2,6 +2,7 @@ package org.opentripplanner.raptor.spi;
 
 import java.util.Iterator;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.opentripplanner.raptor.api.model.RaptorTransfer;
 import org.opentripplanner.raptor.api.model.RaptorTransferConstraint;
 import org.opentripplanner.raptor.api.model.RaptorTripPattern;
@@ -150,4 +151,18 @@ public interface RaptorTransitDataProvider<T extends RaptorTripSchedule> {
    * REVERSE search.
    */
   RaptorConstrainedBoardingSearch<T> transferConstraintsReverseSearch(int routeIndex);
+
+  /**
+   * Return a key identifying the routes, transfers and slack of this provider, or {@code null} if
+   * this is not supported. Raptor use the key to cache data derived from the transit data between
+   * requests, like the trip-to-trip transfers of the
+   * {@link org.opentripplanner.raptor.api.request.RaptorProfile#TRIP_BASED} profile. Providers
+   * with equal keys must return the same routes, transfers and slack.
+   * <p>
+   * The default is {@code null}, the derived data is then created for each request.
+   */
+  @Nullable
+  default Object transitDataCacheKey() {
+    return null;
+  }
 }
@@ -0,0 +1,132 @@
+package org.opentripplanner.raptor.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache data derived from the transit data, which is expensive to create and shared between
+ * requests - like the trip-to-trip transfers of the Trip-Based profile. The value of a key is
+ * created once, in the background, and {@link #get(Object, Supplier, Executor)} return
+ * {@code null} until it is ready; Hence, the caller can fall back to a search not using the value,
+ * instead of waiting for it.
+ * <p>
+ * The values are created outside of any lock, so creating the value of one key does not block
+ * requests using other keys. The least recently used entry is dropped when the cache is full. A
+ * factory may return {@code null}, if the value can not be created for the given transit data;
+ * The {@code null} is cached as well, so the factory is not called again for the same key.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <K> The cache key type, must implement {@code equals} and {@code hashCode}.
+ * @param <V> The cached value type.
+ */
+public final class TransitDataCache<K, V> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TransitDataCache.class);
+
+  private final int maxNumberOfEntries;
+  private final Map<K, Entry<V>> cache = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+
+  public TransitDataCache(int maxNumberOfEntries) {
+    if (maxNumberOfEntries < 1) {
+      throw new IllegalArgumentException("maxNumberOfEntries: " + maxNumberOfEntries);
+    }
+    this.maxNumberOfEntries = maxNumberOfEntries;
+  }
+
+  /**
+   * Return the value for the given key, or {@code null} if the value is not created yet. The
+   * first time a key is requested the value is created by the factory, in a task given to the
+   * executor. If the executor is {@code null}, the task is run on the calling thread, and the
+   * value is returned.
+   */
+  @Nullable
+  public V get(K key, Supplier<V> factory, @Nullable Executor executor) {
+    var entry = cache.get(key);
+
+    if (entry == null) {
+      var newEntry = new Entry<V>(new FutureTask<>(() -> create(factory)), clock.incrementAndGet());
+      entry = cache.putIfAbsent(key, newEntry);
+
+      if (entry == null) {
+        entry = newEntry;
+        removeLeastRecentlyUsed();
+        start(entry.task, executor);
+      }
+    }
+    entry.lastUsed = clock.incrementAndGet();
+    return entry.task.isDone() ? resultOf(entry.task) : null;
+  }
+
+  /* private methods */
+
+  @Nullable
+  private static <V> V create(Supplier<V> factory) {
+    try {
+      return factory.get();
+    } catch (RuntimeException e) {
+      LOG.error("Failed to create cached transit data: {}", e.getMessage(), e);
+      return null;
+    }
+  }
+
+  private static void start(FutureTask<?> task, @Nullable Executor executor) {
+    if (executor != null) {
+      try {
+        executor.execute(task);
+        return;
+      } catch (RejectedExecutionException ignore) {
+        // The executor is shut down, create the value on the calling thread
+      }
+    }
+    task.run();
+  }
+
+  @Nullable
+  private static <V> V resultOf(FutureTask<V> task) {
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      // The factory exceptions are caught by the task, so this is an Error
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /**
+   * The new entry is the most recently used, so it is not removed. Two threads adding an entry at
+   * the same time may both remove an entry, this is ok.
+   */
+  private void removeLeastRecentlyUsed() {
+    while (cache.size() > maxNumberOfEntries) {
+      cache
+        .entrySet()
+        .stream()
+        .min((a, b) -> Long.compare(a.getValue().lastUsed, b.getValue().lastUsed))
+        .ifPresent(e -> cache.remove(e.getKey(), e.getValue()));
+    }
+  }
+
+  private static final class Entry<V> {
+
+    private final FutureTask<V> task;
+    private volatile long lastUsed;
+
+    private Entry(FutureTask<V> task, long lastUsed) {
+      this.task = task;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
@@ -6,12 +6,14 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.model.plan.Itinerary;
 import org.opentripplanner.raptor.RaptorService;
 import org.opentripplanner.raptor.api.path.RaptorPath;
 import org.opentripplanner.raptor.api.response.RaptorResponse;
 import org.opentripplanner.routing.algorithm.mapping.RaptorPathToItineraryMapper;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressRouter;
 import org.opentripplanner.routing.algorithm.raptoradapter.router.street.FlexAccessEgressRouter;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.DefaultAccessEgress;
@@ -29,6 +31,7 @@ import org.opentripplanner.routing.api.response.RoutingError;
 import org.opentripplanner.routing.api.response.RoutingErrorCode;
 import org.opentripplanner.routing.error.RoutingValidationException;
 import org.opentripplanner.routing.framework.DebugTimingAggregator;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
 
@@ -101,7 +104,7 @@ public class TransitRouter {
 
     debugTimingAggregator.finishedPatternFiltering();
 
-    var accessEgresses = getAccessEgresses(temporaryVertices);
+    var accessEgresses = getAccessEgresses(temporaryVertices, transitLayer.getAccessEgressCache());
 
     debugTimingAggregator.finishedAccessEgress(
       accessEgresses.getAccesses().size(),
@@ -124,7 +127,9 @@ public class TransitRouter {
 
     checkIfTransitConnectionExists(transitResponse);
 
-    debugTimingAggregator.finishedRaptorSearch();
+    debugTimingAggregator.finishedRaptorSearch(
+      requestTransitDataProvider.numberOfUsedTripPatterns()
+    );
 
     Collection<RaptorPath<TripSchedule>> paths = transitResponse.paths();
 
@@ -159,20 +164,27 @@ public class TransitRouter {
     return new TransitRouterResult(itineraries, transitResponse.requestUsed().searchParams());
   }
 
-  private AccessEgresses getAccessEgresses(TemporaryVerticesContainer temporaryVertices) {
+  private AccessEgresses getAccessEgresses(
+    TemporaryVerticesContainer temporaryVertices,
+    AccessEgressCache accessEgressCache
+  ) {
     var accessEgressMapper = new AccessEgressMapper();
     var accessList = new ArrayList<DefaultAccessEgress>();
     var egressList = new ArrayList<DefaultAccessEgress>();
 
     var accessCalculator = (Runnable) () -> {
       debugTimingAggregator.startedAccessCalculating();
-      accessList.addAll(getAccessEgresses(accessEgressMapper, temporaryVertices, false));
+      accessList.addAll(
+        getAccessEgresses(accessEgressMapper, temporaryVertices, accessEgressCache, false)
+      );
       debugTimingAggregator.finishedAccessCalculating();
     };
 
     var egressCalculator = (Runnable) () -> {
       debugTimingAggregator.startedEgressCalculating();
-      egressList.addAll(getAccessEgresses(accessEgressMapper, temporaryVertices, true));
+      egressList.addAll(
+        getAccessEgresses(accessEgressMapper, temporaryVertices, accessEgressCache, true)
+      );
       debugTimingAggregator.finishedEgressCalculating();
     };
 
@@ -200,6 +212,7 @@ public class TransitRouter {
   private Collection<DefaultAccessEgress> getAccessEgresses(
     AccessEgressMapper accessEgressMapper,
     TemporaryVerticesContainer temporaryVertices,
+    AccessEgressCache accessEgressCache,
     boolean isEgress
   ) {
     var streetRequest = isEgress ? request.journey().egress() : request.journey().access();
@@ -211,15 +224,40 @@ public class TransitRouter {
       accessRequest.journey().rental().setAllowArrivingInRentedVehicleAtDestination(false);
     }
 
-    var nearbyStops = AccessEgressRouter.streetSearch(
-      accessRequest,
-      temporaryVertices,
-      serverContext.transitService(),
-      streetRequest,
-      serverContext.dataOverlayContext(accessRequest),
-      isEgress,
-      accessRequest.preferences().street().maxAccessEgressDuration().valueOf(streetRequest.mode())
-    );
+    var durationLimit = accessRequest
+      .preferences()
+      .street()
+      .maxAccessEgressDuration()
+      .valueOf(streetRequest.mode());
+    var dataOverlayContext = serverContext.dataOverlayContext(accessRequest);
+
+    Supplier<Collection<NearbyStop>> streetSearch = () ->
+      AccessEgressRouter.streetSearch(
+        accessRequest,
+        temporaryVertices,
+        serverContext.transitService(),
+        streetRequest,
+        dataOverlayContext,
+        isEgress,
+        durationLimit,
+        serverContext.graph().getStopAccessTable(streetRequest.mode())
+      );
+
+    Collection<NearbyStop> nearbyStops;
+    // The data overlay parameters are not part of the cache key
+    if (dataOverlayContext == null) {
+      nearbyStops =
+        accessEgressCache.get(
+          isEgress ? temporaryVertices.getToVertices() : temporaryVertices.getFromVertices(),
+          accessRequest,
+          streetRequest,
+          isEgress,
+          durationLimit,
+          streetSearch
+        );
+    } else {
+      nearbyStops = streetSearch.get();
+    }
 
     var results = new ArrayList<>(accessEgressMapper.mapNearbyStops(nearbyStops, isEgress));
 
@@ -0,0 +1,238 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.framework.i18n.I18NString;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.preference.BikePreferences;
+import org.opentripplanner.routing.api.request.preference.CarPreferences;
+import org.opentripplanner.routing.api.request.preference.StreetPreferences;
+import org.opentripplanner.routing.api.request.preference.WalkPreferences;
+import org.opentripplanner.routing.api.request.preference.WheelchairPreferences;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache the access and egress stops found by the street search, so requests from and to the same
+ * place can share them. Popular destinations, like an airport or a central station, get many
+ * requests with the same egress search, most of them with the default preferences.
+ * <p>
+ * The stops are cached for the vertices the location is linked to, the street mode, the direction
+ * of the search and the preferences which may change the result of the search. The temporary
+ * vertices of a request are identified by their coordinate and name, since requests with the same
+ * coordinate are linked to the same streets.
+ * <p>
+ * The states found by the search go through the temporary vertices and edges of the request which
+ * did the search, and can not be used by other requests. Only the request independent part of the
+ * paths is cached, and the states are created again for each request using the cache, see
+ * {@link AccessEgressPaths}.
+ * <p>
+ * Only the modes where the result does not depend on the time of the request or on realtime data,
+ * like the available rental vehicles, are cached. The entries expire after a short time, so changes
+ * to the street graph are picked up. The size of the cache is limited by the total number of stops
+ * in the cached results. If more requests for the same key arrive while the search is running,
+ * they wait for the result instead of doing the same search.
+ */
+public class AccessEgressCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AccessEgressCache.class);
+
+  private final int maximumSize;
+  private final Duration timeToLive;
+  private final Cache<CacheKey, AccessEgressPaths> cache;
+
+  /**
+   * @param maximumSize the maximum number of stops in the cached results, use {@code 0} to turn
+   *                    the cache off.
+   * @param timeToLive  the time an entry is kept after the search is done
+   */
+  public AccessEgressCache(int maximumSize, Duration timeToLive) {
+    this.maximumSize = maximumSize;
+    this.timeToLive = timeToLive;
+    // The cache statistics (hits, misses and load time) are published by MetricsLogging
+    this.cache =
+      CacheBuilder
+        .newBuilder()
+        .maximumWeight(maximumSize)
+        .<CacheKey, AccessEgressPaths>weigher((key, paths) -> Math.max(1, paths.size()))
+        .expireAfterWrite(timeToLive)
+        .recordStats()
+        .build();
+  }
+
+  public Cache<?, ?> getCache() {
+    return cache;
+  }
+
+  public boolean isEnabled() {
+    return maximumSize > 0;
+  }
+
+  /**
+   * The search for these modes depends only on the street graph and the preferences of the
+   * request. Renting, parking and pickup depend on the realtime data, and are not cached.
+   */
+  public static boolean isCacheable(StreetMode mode) {
+    return switch (mode) {
+      case WALK, BIKE, CAR -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * Return the access or egress stops of the vertices, created from the cached paths, or do the
+   * street search and add the result to the cache. The street search is also used if the cached
+   * paths can not be used for the request.
+   *
+   * @param vertices   the origin vertices of the access search, or the destination vertices of the
+   *                   egress search
+   * @param fromTarget {@code true} for the egress search
+   * @param search     the street search, it is used if the result is not cached
+   */
+  public Collection<NearbyStop> get(
+    @Nullable Set<Vertex> vertices,
+    RouteRequest request,
+    StreetRequest streetRequest,
+    boolean fromTarget,
+    Duration durationLimit,
+    Supplier<Collection<NearbyStop>> search
+  ) {
+    if (!isEnabled() || vertices == null || !isCacheable(streetRequest.mode())) {
+      return search.get();
+    }
+    var key = new CacheKey(
+      vertexKeys(vertices),
+      StreetRelevantOptions.of(request, streetRequest.mode()),
+      fromTarget,
+      durationLimit
+    );
+    // The request doing the search uses the states of the search
+    var searchResult = new AtomicReference<Collection<NearbyStop>>();
+    AccessEgressPaths paths;
+    try {
+      paths =
+        cache.get(
+          key,
+          () -> {
+            LOG.debug("Adding access/egress stops to cache: {}", key);
+            var stops = search.get();
+            searchResult.set(stops);
+            return AccessEgressPaths.of(stops);
+          }
+        );
+    } catch (UncheckedExecutionException e) {
+      // Routing errors thrown by the search are rethrown unchanged
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to get item from access/egress cache", e);
+    }
+    if (searchResult.get() != null) {
+      return searchResult.get();
+    }
+    var stops = paths.findNearbyStops(vertices, fromTarget, request, streetRequest, durationLimit);
+    return stops != null ? stops : search.get();
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(AccessEgressCache.class)
+      .addNum("maximumSize", maximumSize)
+      .addDuration("timeToLive", timeToLive)
+      .addNum("size", cache.size())
+      .toString();
+  }
+
+  /**
+   * The temporary vertices are created for each request, they are replaced by their coordinate
+   * and name. Other vertices, like the vertex of a stop, are part of the graph and used as they
+   * are.
+   */
+  private static Set<Object> vertexKeys(Set<Vertex> vertices) {
+    return vertices
+      .stream()
+      .map(v ->
+        v instanceof TemporaryVertex ? new TemporaryVertexKey(v.getCoordinate(), v.getName()) : v
+      )
+      .collect(Collectors.toUnmodifiableSet());
+  }
+
+  private record TemporaryVertexKey(Coordinate coordinate, I18NString name) {}
+
+  private record CacheKey(
+    Set<Object> vertices,
+    StreetRelevantOptions options,
+    boolean fromTarget,
+    Duration durationLimit
+  ) {
+    @Override
+    public String toString() {
+      return ToStringBuilder
+        .of(CacheKey.class)
+        .addCol("vertices", vertices)
+        .addObj("options", options)
+        .addBoolIfTrue("fromTarget", fromTarget)
+        .addDuration("durationLimit", durationLimit)
+        .toString();
+    }
+  }
+
+  /**
+   * The preferences which may influence the street search. The preferences of the modes not used
+   * are replaced by the defaults, so they do not split the cache.
+   */
+  private record StreetRelevantOptions(
+    StreetMode mode,
+    boolean wheelchair,
+    WalkPreferences walk,
+    BikePreferences bike,
+    CarPreferences car,
+    StreetPreferences street,
+    WheelchairPreferences wheelchairPreferences
+  ) {
+    static StreetRelevantOptions of(RouteRequest request, StreetMode mode) {
+      var preferences = request.preferences();
+      return new StreetRelevantOptions(
+        mode,
+        request.wheelchair(),
+        preferences.walk(),
+        mode.includesBiking() ? preferences.bike() : BikePreferences.DEFAULT,
+        mode.includesDriving() ? preferences.car() : CarPreferences.DEFAULT,
+        preferences.street(),
+        request.wheelchair() ? preferences.wheelchair() : WheelchairPreferences.DEFAULT
+      );
+    }
+
+    @Override
+    public String toString() {
+      return ToStringBuilder
+        .of(StreetRelevantOptions.class)
+        .addEnum("mode", mode)
+        .addBoolIfTrue("wheelchair", wheelchair)
+        .addObj("walk", walk, WalkPreferences.DEFAULT)
+        .addObj("bike", bike, BikePreferences.DEFAULT)
+        .addObj("car", car, CarPreferences.DEFAULT)
+        .addObj("street", street, StreetPreferences.DEFAULT)
+        .addObj("wheelchairPreferences", wheelchairPreferences, WheelchairPreferences.DEFAULT)
+        .toString();
+    }
+  }
+}
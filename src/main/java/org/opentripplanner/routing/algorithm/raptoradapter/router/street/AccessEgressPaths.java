@@ -0,0 +1,208 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.opentripplanner.astar.spi.SkipEdgeStrategy;
+import org.opentripplanner.astar.strategy.ComposingSkipEdgeStrategy;
+import org.opentripplanner.astar.strategy.DurationSkipEdgeStrategy;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.StreetSearchBuilder;
+import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.street.search.strategy.DominanceFunctions;
+import org.opentripplanner.transit.model.site.StopLocation;
+
+/**
+ * The request independent part of the access or egress paths found by a street search, cached by
+ * the {@link AccessEgressCache}.
+ * <p>
+ * The states of a search can not be shared with other requests, they go through the temporary
+ * vertices and edges of the request which did the search. These are removed when the request is
+ * done, and the states can no longer be traversed or reversed. Instead, the path to each stop is
+ * kept as the first vertex of the path which is not a request scoped temporary vertex (the entry
+ * vertex) and the edges from it to the stop. The edges of the graph do not change between requests.
+ * <p>
+ * The states of a later request are created the same way as in the
+ * {@link org.opentripplanner.routing.graphfinder.StopAccessTableFinder}: A short street search
+ * through the temporary vertices of the request finds the state of each entry vertex, and the
+ * cached edges are traversed from it.
+ */
+final class AccessEgressPaths {
+
+  /** The search result can not be reused, the requests must do their own search. */
+  private static final AccessEgressPaths NOT_REUSABLE = new AccessEgressPaths(null);
+
+  @Nullable
+  private final List<Path> paths;
+
+  private AccessEgressPaths(@Nullable List<Path> paths) {
+    this.paths = paths;
+  }
+
+  /**
+   * Keep the request independent part of the paths to the stops. The result can not be reused if
+   * a path goes through a temporary vertex after it has left the temporary vertices of the
+   * request, for example a vertex linked by a realtime updater.
+   */
+  static AccessEgressPaths of(Collection<NearbyStop> stops) {
+    var paths = new ArrayList<Path>(stops.size());
+    for (NearbyStop stop : stops) {
+      var path = Path.of(stop);
+      if (path == null) {
+        return NOT_REUSABLE;
+      }
+      paths.add(path);
+    }
+    return new AccessEgressPaths(List.copyOf(paths));
+  }
+
+  /** The number of cached paths, used to limit the size of the cache. */
+  int size() {
+    return paths == null ? 0 : paths.size();
+  }
+
+  /**
+   * Create the states of the cached paths for the given request.
+   *
+   * @param vertices the origin vertices of the access search, or the destination vertices of the
+   *                 egress search
+   * @return the access or egress stops of the request, or {@code null} if the paths can not be
+   * created - the street search must be used in that case.
+   */
+  @Nullable
+  List<NearbyStop> findNearbyStops(
+    Set<Vertex> vertices,
+    boolean reverseDirection,
+    RouteRequest request,
+    StreetRequest streetRequest,
+    Duration durationLimit
+  ) {
+    if (paths == null) {
+      return null;
+    }
+    if (paths.isEmpty()) {
+      return List.of();
+    }
+    var entryStates = findEntryStates(
+      vertices,
+      reverseDirection,
+      request,
+      streetRequest,
+      durationLimit
+    );
+    var stopsFound = new ArrayList<NearbyStop>(paths.size());
+    Map<Step, State> states = new HashMap<>();
+
+    for (Path path : paths) {
+      State state = entryStates.get(path.entryVertex());
+      if (state == null) {
+        return null;
+      }
+      for (Edge edge : path.edges()) {
+        var step = new Step(state, edge);
+        State next = states.get(step);
+        if (next == null) {
+          next = edge.traverse(state);
+          if (next == null) {
+            return null;
+          }
+          states.put(step, next);
+        }
+        state = next;
+      }
+      stopsFound.add(NearbyStop.nearbyStopForState(state, path.stop()));
+    }
+    return stopsFound;
+  }
+
+  /**
+   * Search from the vertices of the request until the vertices shared with other requests are
+   * reached, and return the lowest cost final state of each of them.
+   */
+  private static Map<Vertex, State> findEntryStates(
+    Set<Vertex> vertices,
+    boolean reverseDirection,
+    RouteRequest request,
+    StreetRequest streetRequest,
+    Duration durationLimit
+  ) {
+    SkipEdgeStrategy<State, Edge> durationLimitReached = new DurationSkipEdgeStrategy<>(
+      durationLimit
+    );
+    SkipEdgeStrategy<State, Edge> stopAtEntryVertices = (current, edge) ->
+      !TemporaryVertex.isRequestScoped(current.getVertex());
+
+    var spt = StreetSearchBuilder
+      .of()
+      .setSkipEdgeStrategy(
+        new ComposingSkipEdgeStrategy<>(durationLimitReached, stopAtEntryVertices)
+      )
+      .setDominanceFunction(new DominanceFunctions.MinimumWeight())
+      .setRequest(request)
+      .setArriveBy(reverseDirection)
+      .setStreetRequest(streetRequest)
+      .setFrom(reverseDirection ? null : vertices)
+      .setTo(reverseDirection ? vertices : null)
+      .getShortestPathTree();
+
+    Map<Vertex, State> best = new HashMap<>();
+    for (State state : spt.getAllStates()) {
+      if (state.isFinal() && !TemporaryVertex.isRequestScoped(state.getVertex())) {
+        best.merge(state.getVertex(), state, (a, b) -> a.getWeight() <= b.getWeight() ? a : b);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * The path to a stop, from the entry vertex. None of the vertices are temporary.
+   */
+  private record Path(StopLocation stop, Vertex entryVertex, List<Edge> edges) {
+    @Nullable
+    static Path of(NearbyStop stop) {
+      if (stop.state == null) {
+        return null;
+      }
+      var states = new ArrayList<State>();
+      for (State s = stop.state; s != null; s = s.getBackState()) {
+        states.add(s);
+      }
+      // The states in the order of the search
+      Collections.reverse(states);
+
+      int entry = 0;
+      while (
+        entry < states.size() && TemporaryVertex.isRequestScoped(states.get(entry).getVertex())
+      ) {
+        ++entry;
+      }
+      if (entry == states.size() || states.get(entry).getVertex() instanceof TemporaryVertex) {
+        return null;
+      }
+
+      var edges = new ArrayList<Edge>(states.size() - entry - 1);
+      for (State s : states.subList(entry + 1, states.size())) {
+        Edge edge = s.getBackEdge();
+        if (edge == null || s.getVertex() instanceof TemporaryVertex) {
+          return null;
+        }
+        edges.add(edge);
+      }
+      return new Path(stop.stop, states.get(entry).getVertex(), List.copyOf(edges));
+    }
+  }
+
+  /** Traversing an edge from a state, the states are compared by identity */
+  private record Step(State state, Edge edge) {}
+}
@@ -3,11 +3,13 @@ package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.opentripplanner.ext.dataoverlay.routing.DataOverlayContext;
 import org.opentripplanner.graph_builder.module.NearbyStopFinder;
 import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.request.StreetRequest;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.stopaccess.StopAccessTable;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
 import org.opentripplanner.transit.service.TransitService;
 import org.slf4j.Logger;
@@ -35,12 +37,39 @@ public class AccessEgressRouter {
     DataOverlayContext dataOverlayContext,
     boolean fromTarget,
     Duration durationLimit
+  ) {
+    return streetSearch(
+      request,
+      verticesContainer,
+      transitService,
+      streetRequest,
+      dataOverlayContext,
+      fromTarget,
+      durationLimit,
+      null
+    );
+  }
+
+  /**
+   * @param stopAccessTable the precomputed paths to and from the stops for the street mode, used
+   *                        instead of the street search if the request is compatible with it
+   */
+  public static Collection<NearbyStop> streetSearch(
+    RouteRequest request,
+    TemporaryVerticesContainer verticesContainer,
+    TransitService transitService,
+    StreetRequest streetRequest,
+    DataOverlayContext dataOverlayContext,
+    boolean fromTarget,
+    Duration durationLimit,
+    @Nullable StopAccessTable stopAccessTable
   ) {
     NearbyStopFinder nearbyStopFinder = new NearbyStopFinder(
       transitService,
       durationLimit,
       dataOverlayContext,
-      true
+      true,
+      stopAccessTable
     );
     List<NearbyStop> nearbyStopList = nearbyStopFinder.findNearbyStopsViaStreets(
       fromTarget ? verticesContainer.getToVertices() : verticesContainer.getFromVertices(),
@@ -2,6 +2,7 @@ package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
 
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.opentripplanner.astar.model.GraphPath;
 import org.opentripplanner.framework.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.model.plan.Itinerary;
@@ -10,6 +11,7 @@ import org.opentripplanner.routing.algorithm.mapping.ItinerariesHelper;
 import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.error.PathNotFoundException;
+import org.opentripplanner.routing.impl.ContractionHierarchyPathFinder;
 import org.opentripplanner.routing.impl.GraphPathFinder;
 import org.opentripplanner.standalone.api.OtpServerRequestContext;
 import org.opentripplanner.street.model.edge.Edge;
@@ -37,15 +39,21 @@ public class DirectStreetRouter {
         return Collections.emptyList();
       }
 
-      // we could also get a persistent router-scoped GraphPathFinder but there's no setup cost here
-      GraphPathFinder gpFinder = new GraphPathFinder(
-        serverContext.traverseVisitor(),
-        serverContext.dataOverlayContext(request)
-      );
-      List<GraphPath<State, Edge, Vertex>> paths = gpFinder.graphPathFinderEntryPoint(
+      List<GraphPath<State, Edge, Vertex>> paths = findPathsInContractionHierarchy(
+        serverContext,
         directRequest,
         temporaryVertices
       );
+      if (paths == null) {
+        // we could also get a persistent router-scoped GraphPathFinder but there's no setup cost
+        // here
+        GraphPathFinder gpFinder = new GraphPathFinder(
+          serverContext.traverseVisitor(),
+          serverContext.dataOverlayContext(request),
+          serverContext.graph().getStreetLandmarks()
+        );
+        paths = gpFinder.graphPathFinderEntryPoint(directRequest, temporaryVertices);
+      }
 
       // Convert the internal GraphPaths to itineraries
       final GraphPathToItineraryMapper graphPathToItineraryMapper = new GraphPathToItineraryMapper(
@@ -65,6 +73,38 @@ public class DirectStreetRouter {
     }
   }
 
+  /**
+   * Use the car contraction hierarchy of the graph, if there is one, the request is a plain car
+   * request and no data overlay or traverse visitor is used.
+   *
+   * @return {@code null} if the A* search should be used instead.
+   */
+  @Nullable
+  private static List<GraphPath<State, Edge, Vertex>> findPathsInContractionHierarchy(
+    OtpServerRequestContext serverContext,
+    RouteRequest request,
+    TemporaryVerticesContainer temporaryVertices
+  ) {
+    var hierarchy = serverContext.graph().getCarContractionHierarchy();
+    if (
+      hierarchy == null ||
+      serverContext.dataOverlayContext(request) != null ||
+      serverContext.traverseVisitor() != null
+    ) {
+      return null;
+    }
+    var pathFinder = new ContractionHierarchyPathFinder(hierarchy);
+    if (!pathFinder.canRoute(request)) {
+      return null;
+    }
+    var path = pathFinder.findPath(
+      request,
+      temporaryVertices.getFromVertices(),
+      temporaryVertices.getToVertices()
+    );
+    return path == null ? null : List.of(path);
+  }
+
   private static boolean straightLineDistanceIsWithinLimit(
     RouteRequest request,
     TemporaryVerticesContainer vertexContainer
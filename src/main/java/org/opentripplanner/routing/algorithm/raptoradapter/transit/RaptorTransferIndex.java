@@ -2,72 +2,162 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit;
 
 import static java.util.stream.Collectors.toMap;
 
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import org.opentripplanner.raptor.api.model.RaptorTransfer;
 import org.opentripplanner.street.search.request.StreetSearchRequest;
 
+/**
+ * The transfers from and to each stop for a given request. The transfers are stored in a
+ * compressed sparse row layout: one flat array with the transfers of all stops, ordered by stop
+ * index, and an array of offsets where the transfers for each stop start. Iterating over the
+ * transfers of a stop is a scan of a continuous part of the array.
+ */
 public class RaptorTransferIndex {
 
-  private final List<RaptorTransfer>[] forwardTransfers;
+  private final int[] forwardOffsets;
+  private final RaptorTransfer[] forwardTransfers;
 
-  private final List<RaptorTransfer>[] reversedTransfers;
+  private final int[] reversedOffsets;
+  private final RaptorTransfer[] reversedTransfers;
 
-  public RaptorTransferIndex(
-    List<List<RaptorTransfer>> forwardTransfers,
-    List<List<RaptorTransfer>> reversedTransfers
+  private RaptorTransferIndex(
+    int[] forwardOffsets,
+    RaptorTransfer[] forwardTransfers,
+    int[] reversedOffsets,
+    RaptorTransfer[] reversedTransfers
   ) {
-    // Create immutable copies of the lists for each stop to make them immutable and faster to iterate
-    this.forwardTransfers = forwardTransfers.stream().map(List::copyOf).toArray(List[]::new);
-    this.reversedTransfers = reversedTransfers.stream().map(List::copyOf).toArray(List[]::new);
+    this.forwardOffsets = forwardOffsets;
+    this.forwardTransfers = forwardTransfers;
+    this.reversedOffsets = reversedOffsets;
+    this.reversedTransfers = reversedTransfers;
   }
 
+  /**
+   * Create the index. Computing the transfers for the request is done in parallel for all stops,
+   * since traversing the street edges of each transfer is the expensive part.
+   */
   public static RaptorTransferIndex create(
     List<List<Transfer>> transfersByStopIndex,
     StreetSearchRequest request
   ) {
-    var forwardTransfers = new ArrayList<List<RaptorTransfer>>(transfersByStopIndex.size());
-    var reversedTransfers = new ArrayList<List<RaptorTransfer>>(transfersByStopIndex.size());
+    int nStops = transfersByStopIndex.size();
 
-    for (int i = 0; i < transfersByStopIndex.size(); i++) {
-      forwardTransfers.add(new ArrayList<>());
-      reversedTransfers.add(new ArrayList<>());
+    // The transfers are filtered so that there is only one possible directional transfer
+    // for a stop pair.
+    RaptorTransfer[][] transfersByFromStop = IntStream
+      .range(0, nStops)
+      .parallel()
+      .mapToObj(fromStop ->
+        transfersByStopIndex
+          .get(fromStop)
+          .stream()
+          .flatMap(s -> s.asRaptorTransfer(request).stream())
+          .collect(
+            toMap(
+              RaptorTransfer::stop,
+              Function.identity(),
+              (a, b) -> a.generalizedCost() < b.generalizedCost() ? a : b
+            )
+          )
+          .values()
+          .toArray(RaptorTransfer[]::new)
+      )
+      .toArray(RaptorTransfer[][]::new);
+
+    return of(transfersByFromStop);
+  }
+
+  /**
+   * Create the index from the forward transfers of each stop, the reversed transfers are derived
+   * from these.
+   */
+  public static RaptorTransferIndex of(RaptorTransfer[][] transfersByFromStop) {
+    int nStops = transfersByFromStop.length;
+    int[] forwardOffsets = new int[nStops + 1];
+    int[] reversedOffsets = new int[nStops + 1];
+
+    for (int fromStop = 0; fromStop < nStops; fromStop++) {
+      var transfers = transfersByFromStop[fromStop];
+      forwardOffsets[fromStop + 1] = forwardOffsets[fromStop] + transfers.length;
+      for (RaptorTransfer it : transfers) {
+        ++reversedOffsets[it.stop() + 1];
+      }
+    }
+    for (int stop = 0; stop < nStops; stop++) {
+      reversedOffsets[stop + 1] += reversedOffsets[stop];
     }
 
-    for (int fromStop = 0; fromStop < transfersByStopIndex.size(); fromStop++) {
-      // The transfers are filtered so that there is only one possible directional transfer
-      // for a stop pair.
-      var transfers = transfersByStopIndex
-        .get(fromStop)
-        .stream()
-        .flatMap(s -> s.asRaptorTransfer(request).stream())
-        .collect(
-          toMap(
-            RaptorTransfer::stop,
-            Function.identity(),
-            (a, b) -> a.generalizedCost() < b.generalizedCost() ? a : b
-          )
-        )
-        .values();
+    var forwardTransfers = new RaptorTransfer[forwardOffsets[nStops]];
+    var reversedTransfers = new RaptorTransfer[reversedOffsets[nStops]];
 
-      forwardTransfers.get(fromStop).addAll(transfers);
+    // The next free position for each stop in the reversed transfers
+    int[] reversedPos = new int[nStops];
+    System.arraycopy(reversedOffsets, 0, reversedPos, 0, nStops);
+
+    for (int fromStop = 0; fromStop < nStops; fromStop++) {
+      var transfers = transfersByFromStop[fromStop];
+      System.arraycopy(transfers, 0, forwardTransfers, forwardOffsets[fromStop], transfers.length);
 
       for (RaptorTransfer forwardTransfer : transfers) {
-        reversedTransfers
-          .get(forwardTransfer.stop())
-          .add(DefaultRaptorTransfer.reverseOf(fromStop, forwardTransfer));
+        reversedTransfers[reversedPos[forwardTransfer.stop()]++] =
+          DefaultRaptorTransfer.reverseOf(fromStop, forwardTransfer);
       }
     }
 
-    return new RaptorTransferIndex(forwardTransfers, reversedTransfers);
+    return new RaptorTransferIndex(
+      forwardOffsets,
+      forwardTransfers,
+      reversedOffsets,
+      reversedTransfers
+    );
   }
 
-  public List<RaptorTransfer> getForwardTransfers(int stopIndex) {
-    return forwardTransfers[stopIndex];
+  public Iterator<RaptorTransfer> getForwardTransfers(int stopIndex) {
+    return new TransferIterator(
+      forwardTransfers,
+      forwardOffsets[stopIndex],
+      forwardOffsets[stopIndex + 1]
+    );
   }
 
-  public List<RaptorTransfer> getReversedTransfers(int stopIndex) {
-    return reversedTransfers[stopIndex];
+  public Iterator<RaptorTransfer> getReversedTransfers(int stopIndex) {
+    return new TransferIterator(
+      reversedTransfers,
+      reversedOffsets[stopIndex],
+      reversedOffsets[stopIndex + 1]
+    );
+  }
+
+  /**
+   * Iterate over the transfers of one stop, a cursor over a range of the flat transfer array.
+   */
+  private static final class TransferIterator implements Iterator<RaptorTransfer> {
+
+    private final RaptorTransfer[] transfers;
+    private final int end;
+    private int index;
+
+    private TransferIterator(RaptorTransfer[] transfers, int start, int end) {
+      this.transfers = transfers;
+      this.index = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < end;
+    }
+
+    @Override
+    public RaptorTransfer next() {
+      if (index >= end) {
+        throw new NoSuchElementException();
+      }
+      return transfers[index++];
+    }
   }
 }
@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit;
 
+import java.io.File;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -10,9 +11,11 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.opentripplanner.model.transfer.TransferService;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.ConstrainedTransfersForPatterns;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTripPatternCache;
 import org.opentripplanner.routing.api.request.RouteRequest;
 import org.opentripplanner.transit.model.site.StopLocation;
 import org.opentripplanner.transit.service.StopModel;
@@ -22,8 +25,9 @@ public class TransitLayer {
   /**
    * Transit data required for routing, indexed by each local date(Graph TimeZone) it runs through.
    * A Trip "runs through" a date if any of its arrivals or departures is happening on that date.
+   * The values are immutable, and are shared between copies of the transit layer.
    */
-  private final HashMap<LocalDate, List<TripPatternForDate>> tripPatternsRunningOnDate;
+  private final HashMap<LocalDate, TripPatternsRunningOnDate> tripPatternsRunningOnDate;
 
   /**
    * Index of outer list is from stop index, inner list index has no specific meaning. To stop index
@@ -42,6 +46,18 @@ public class TransitLayer {
 
   private final RaptorRequestTransferCache transferCache;
 
+  /**
+   * The filtered trip patterns are cached per TransitLayer instance, the cache is NOT shared with
+   * copies of this layer, because the trip patterns of the copy may change.
+   */
+  private final RaptorRequestTripPatternCache tripPatternCache;
+
+  /**
+   * The access and egress stops do not depend on the transit data, the cache is shared with the
+   * copies of this layer.
+   */
+  private final AccessEgressCache accessEgressCache;
+
   private ConstrainedTransfersForPatterns constrainedTransfers;
 
   private final TransferIndexGenerator transferIndexGenerator;
@@ -50,21 +66,22 @@ public class TransitLayer {
 
   /**
    * Makes a shallow copy of the TransitLayer, except for the tripPatternsForDate, where a shallow
-   * copy of the HashMap is made. This is sufficient, as the TransitLayerUpdater will replace entire
-   * keys and their values in the map.
+   * copy of the HashMap is made. This is sufficient, as the TransitLayerUpdater will replace the
+   * immutable values in the map, sharing the unchanged parts with this instance. The copy gets a
+   * new empty trip pattern cache.
    */
   public TransitLayer(TransitLayer transitLayer) {
-    this(
-      transitLayer.tripPatternsRunningOnDate,
-      transitLayer.transfersByStopIndex,
-      transitLayer.transferService,
-      transitLayer.stopModel,
-      transitLayer.transitDataZoneId,
-      transitLayer.transferCache,
-      transitLayer.constrainedTransfers,
-      transitLayer.transferIndexGenerator,
-      transitLayer.stopBoardAlightCosts
-    );
+    this.tripPatternsRunningOnDate = new HashMap<>(transitLayer.tripPatternsRunningOnDate);
+    this.transfersByStopIndex = transitLayer.transfersByStopIndex;
+    this.transferService = transitLayer.transferService;
+    this.stopModel = transitLayer.stopModel;
+    this.transitDataZoneId = transitLayer.transitDataZoneId;
+    this.transferCache = transitLayer.transferCache;
+    this.tripPatternCache = transitLayer.tripPatternCache.emptyCopy();
+    this.accessEgressCache = transitLayer.accessEgressCache;
+    this.constrainedTransfers = transitLayer.constrainedTransfers;
+    this.transferIndexGenerator = transitLayer.transferIndexGenerator;
+    this.stopBoardAlightCosts = transitLayer.stopBoardAlightCosts;
   }
 
   public TransitLayer(
@@ -74,16 +91,23 @@ public class TransitLayer {
     StopModel stopModel,
     ZoneId transitDataZoneId,
     RaptorRequestTransferCache transferCache,
+    RaptorRequestTripPatternCache tripPatternCache,
+    AccessEgressCache accessEgressCache,
     ConstrainedTransfersForPatterns constrainedTransfers,
     TransferIndexGenerator transferIndexGenerator,
     int[] stopBoardAlightCosts
   ) {
-    this.tripPatternsRunningOnDate = new HashMap<>(tripPatternsRunningOnDate);
+    this.tripPatternsRunningOnDate = new HashMap<>();
+    tripPatternsRunningOnDate.forEach((date, patterns) ->
+      this.tripPatternsRunningOnDate.put(date, TripPatternsRunningOnDate.of(patterns))
+    );
     this.transfersByStopIndex = transfersByStopIndex;
     this.transferService = transferService;
     this.stopModel = stopModel;
     this.transitDataZoneId = transitDataZoneId;
     this.transferCache = transferCache;
+    this.tripPatternCache = tripPatternCache;
+    this.accessEgressCache = accessEgressCache;
     this.constrainedTransfers = constrainedTransfers;
     this.transferIndexGenerator = transferIndexGenerator;
     this.stopBoardAlightCosts = stopBoardAlightCosts;
@@ -95,7 +119,8 @@ public class TransitLayer {
   }
 
   public Collection<TripPatternForDate> getTripPatternsForDate(LocalDate date) {
-    return tripPatternsRunningOnDate.getOrDefault(date, List.of());
+    Collection<TripPatternForDate> patterns = tripPatternsRunningOnDate.get(date);
+    return patterns == null ? List.of() : patterns;
   }
 
   /**
@@ -113,7 +138,7 @@ public class TransitLayer {
   }
 
   public List<TripPatternForDate> getTripPatternsRunningOnDateCopy(LocalDate runningPeriodDate) {
-    List<TripPatternForDate> tripPatternForDate = tripPatternsRunningOnDate.get(runningPeriodDate);
+    var tripPatternForDate = tripPatternsRunningOnDate.get(runningPeriodDate);
     return tripPatternForDate != null ? new ArrayList<>(tripPatternForDate) : new ArrayList<>();
   }
 
@@ -133,10 +158,34 @@ public class TransitLayer {
     return transferCache.get(transfersByStopIndex, request);
   }
 
+  /**
+   * Save the cached transfers for requests to the given file, see
+   * {@link RaptorRequestTransferCache#save(File, String, List)}.
+   */
+  public void saveTransferCache(File file, String graphId) {
+    transferCache.save(file, graphId, transfersByStopIndex);
+  }
+
+  /**
+   * Fill the transfer cache from the given file, see
+   * {@link RaptorRequestTransferCache#load(File, String, List)}.
+   */
+  public int loadTransferCache(File file, String graphId) {
+    return transferCache.load(file, graphId, transfersByStopIndex);
+  }
+
   public RaptorRequestTransferCache getTransferCache() {
     return transferCache;
   }
 
+  public RaptorRequestTripPatternCache getTripPatternCache() {
+    return tripPatternCache;
+  }
+
+  public AccessEgressCache getAccessEgressCache() {
+    return accessEgressCache;
+  }
+
   @Nullable
   public ConstrainedTransfersForPatterns getConstrainedTransfers() {
     return constrainedTransfers;
@@ -151,14 +200,18 @@ public class TransitLayer {
   }
 
   /**
-   * Replaces all the TripPatternForDates for a single date. This is an atomic operation according
-   * to the HashMap implementation.
+   * Removes and adds TripPatternForDates for a single date. A new version of the patterns for the
+   * date is created, sharing the unchanged parts with the previous version, and the entry in the
+   * map is replaced. This is an atomic operation according to the HashMap implementation. Only
+   * dates which already exist in the map are updated. The trip pattern cache is cleared.
    */
-  public void replaceTripPatternsForDate(
+  public void updateTripPatternsForDate(
     LocalDate date,
-    List<TripPatternForDate> tripPatternForDates
+    Collection<TripPatternForDate> removed,
+    Collection<TripPatternForDate> added
   ) {
-    this.tripPatternsRunningOnDate.replace(date, tripPatternForDates);
+    tripPatternsRunningOnDate.computeIfPresent(date, (d, p) -> p.update(removed, added));
+    this.tripPatternCache.invalidateAll();
   }
 
   public void setConstrainedTransfers(ConstrainedTransfersForPatterns constrainedTransfers) {
@@ -47,6 +47,11 @@ public interface TransitTuningParameters {
       return 5;
     }
 
+    @Override
+    public int tripPatternCacheMaxSize() {
+      return 5;
+    }
+
     @Override
     public List<Duration> pagingSearchWindowAdjustments() {
       return PAGING_SEARCH_WINDOW_ADJUSTMENTS;
@@ -56,6 +61,21 @@ public interface TransitTuningParameters {
     public List<RouteRequest> transferCacheRequests() {
       return List.of();
     }
+
+    @Override
+    public boolean persistTransferCache() {
+      return false;
+    }
+
+    @Override
+    public int accessEgressCacheMaxSize() {
+      return 0;
+    }
+
+    @Override
+    public Duration accessEgressCacheTimeToLive() {
+      return Duration.ofMinutes(1);
+    }
   };
 
   /**
@@ -77,6 +97,13 @@ public interface TransitTuningParameters {
    */
   int transferCacheMaxSize();
 
+  /**
+   * The maximum number of distinct search dates and transit filters for which the filtered trip
+   * patterns should be cached. The cache is cleared when the realtime transit data is updated. Set
+   * to zero to disable the cache.
+   */
+  int tripPatternCacheMaxSize();
+
   /**
    * This parameter is used to reduce the number of pages a client have to step through for a
    * journey where there are few alternatives/low frequency. This also work well to adjust for
@@ -108,4 +135,22 @@ public interface TransitTuningParameters {
    * {@link org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache}
    */
   List<RouteRequest> transferCacheRequests();
+
+  /**
+   * Return {@code true} to save the raptor transfer cache when the server shuts down, and load it
+   * at the next startup.
+   */
+  boolean persistTransferCache();
+
+  /**
+   * The maximum number of access and egress stops to cache the street search results for, in
+   * total for all cached searches. Set to zero to disable the cache.
+   * {@link org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache}
+   */
+  int accessEgressCacheMaxSize();
+
+  /**
+   * The time the access and egress stops of a street search are kept in the cache.
+   */
+  Duration accessEgressCacheTimeToLive();
 }
@@ -0,0 +1,180 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable collection of the {@link TripPatternForDate}s running on a date. The elements are
+ * grouped in chunks by pattern index, and an update creates a new instance where only the changed
+ * chunks are copied - the rest is shared with the previous version. This keeps the cost of a
+ * realtime update proportional to the number of changed patterns, not the number of patterns
+ * running on the date.
+ * <p>
+ * Like a set, the collection does not contain duplicates (using equals). The chunks are iterated
+ * in pattern index order, but the elements inside a chunk are in insertion order - an element
+ * added by an update is last in its chunk. Hence, the iteration order is NOT sorted by pattern
+ * index.
+ */
+public final class TripPatternsRunningOnDate extends AbstractCollection<TripPatternForDate> {
+
+  /** The number of pattern indexes in each chunk, must be a power of two. */
+  static final int CHUNK_SIZE = 64;
+
+  private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+
+  private static final TripPatternForDate[] EMPTY_CHUNK = new TripPatternForDate[0];
+
+  private final TripPatternForDate[][] chunks;
+  private final int size;
+
+  private TripPatternsRunningOnDate(TripPatternForDate[][] chunks, int size) {
+    this.chunks = chunks;
+    this.size = size;
+  }
+
+  public static TripPatternsRunningOnDate of(Collection<TripPatternForDate> tripPatternForDates) {
+    var elements = new LinkedHashSet<>(tripPatternForDates);
+
+    int[] chunkSizes = new int[0];
+    for (var it : elements) {
+      int ci = chunkIndex(it);
+      if (ci >= chunkSizes.length) {
+        chunkSizes = Arrays.copyOf(chunkSizes, ci + 1);
+      }
+      ++chunkSizes[ci];
+    }
+
+    var chunks = new TripPatternForDate[chunkSizes.length][];
+    for (int i = 0; i < chunks.length; ++i) {
+      chunks[i] = chunkSizes[i] == 0 ? EMPTY_CHUNK : new TripPatternForDate[chunkSizes[i]];
+      chunkSizes[i] = 0;
+    }
+    for (var it : elements) {
+      int ci = chunkIndex(it);
+      chunks[ci][chunkSizes[ci]++] = it;
+    }
+    return new TripPatternsRunningOnDate(chunks, elements.size());
+  }
+
+  /**
+   * Return a new version with the given elements removed and added. Removing an element which
+   * does not exist, or adding an element which already exists, is ignored. Chunks which are not
+   * changed are shared with this instance.
+   */
+  public TripPatternsRunningOnDate update(
+    Collection<TripPatternForDate> removed,
+    Collection<TripPatternForDate> added
+  ) {
+    if (removed.isEmpty() && added.isEmpty()) {
+      return this;
+    }
+    int maxChunkIndex = chunks.length - 1;
+    for (var it : added) {
+      maxChunkIndex = Math.max(maxChunkIndex, chunkIndex(it));
+    }
+
+    var newChunks = Arrays.copyOf(chunks, maxChunkIndex + 1);
+    for (int i = chunks.length; i < newChunks.length; ++i) {
+      newChunks[i] = EMPTY_CHUNK;
+    }
+
+    int newSize = size;
+
+    for (var it : removed) {
+      int ci = chunkIndex(it);
+      if (ci >= newChunks.length) {
+        continue;
+      }
+      var chunk = newChunks[ci];
+      int pos = indexOf(chunk, it);
+      if (pos < 0) {
+        continue;
+      }
+      var result = new TripPatternForDate[chunk.length - 1];
+      System.arraycopy(chunk, 0, result, 0, pos);
+      System.arraycopy(chunk, pos + 1, result, pos, chunk.length - pos - 1);
+      newChunks[ci] = result;
+      --newSize;
+    }
+
+    for (var it : added) {
+      int ci = chunkIndex(it);
+      var chunk = newChunks[ci];
+      if (indexOf(chunk, it) >= 0) {
+        continue;
+      }
+      var result = Arrays.copyOf(chunk, chunk.length + 1);
+      result[chunk.length] = it;
+      newChunks[ci] = result;
+      ++newSize;
+    }
+    return new TripPatternsRunningOnDate(newChunks, newSize);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof TripPatternForDate it)) {
+      return false;
+    }
+    int ci = chunkIndex(it);
+    return ci < chunks.length && indexOf(chunks[ci], it) >= 0;
+  }
+
+  @Override
+  public Iterator<TripPatternForDate> iterator() {
+    return new Iterator<>() {
+      private int chunkIndex = 0;
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        while (chunkIndex < chunks.length && index == chunks[chunkIndex].length) {
+          ++chunkIndex;
+          index = 0;
+        }
+        return chunkIndex < chunks.length;
+      }
+
+      @Override
+      public TripPatternForDate next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return chunks[chunkIndex][index++];
+      }
+    };
+  }
+
+  /** The number of chunks shared with the given other version, used for testing. */
+  int numberOfSharedChunks(TripPatternsRunningOnDate other) {
+    int n = 0;
+    for (int i = 0; i < Math.min(chunks.length, other.chunks.length); ++i) {
+      if (chunks[i] == other.chunks[i]) {
+        ++n;
+      }
+    }
+    return n;
+  }
+
+  private static int chunkIndex(TripPatternForDate tripPatternForDate) {
+    return tripPatternForDate.getTripPattern().patternIndex() >>> CHUNK_SHIFT;
+  }
+
+  private static int indexOf(TripPatternForDate[] chunk, TripPatternForDate value) {
+    for (int i = 0; i < chunk.length; ++i) {
+      if (chunk[i].equals(value)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -1,11 +1,14 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
 
 import static org.opentripplanner.raptor.api.request.Optimization.PARALLEL;
+import static org.opentripplanner.raptor.api.request.Optimization.PARALLEL_ROUTE_SCAN;
+import static org.opentripplanner.raptor.api.request.Optimization.PARALLEL_SEARCH_WINDOW;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.List;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.raptor.api.RaptorConstants;
 import org.opentripplanner.raptor.api.model.RaptorAccessEgress;
@@ -19,6 +22,13 @@ import org.opentripplanner.routing.api.request.RouteRequest;
 
 public class RaptorRequestMapper {
 
+  /** These optimizations are only enabled if Raptor is configured with a thread pool. */
+  private static final List<Optimization> PARALLEL_OPTIMIZATIONS = List.of(
+    PARALLEL,
+    PARALLEL_ROUTE_SCAN,
+    PARALLEL_SEARCH_WINDOW
+  );
+
   private final RouteRequest request;
   private final Collection<? extends RaptorAccessEgress> accessPaths;
   private final Collection<? extends RaptorAccessEgress> egressPaths;
@@ -108,7 +118,7 @@ public class RaptorRequestMapper {
     });
 
     for (Optimization optimization : preferences.transit().raptor().optimizations()) {
-      if (optimization.is(PARALLEL)) {
+      if (optimization.isOneOf(PARALLEL_OPTIMIZATIONS)) {
         if (isMultiThreadedEnbled) {
           builder.enableOptimization(optimization);
         }
@@ -15,6 +15,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.model.Timetable;
+import org.opentripplanner.routing.algorithm.raptoradapter.router.street.AccessEgressCache;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.Transfer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitTuningParameters;
@@ -23,6 +24,7 @@ import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtr
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.cost.RaptorCostConverter;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTripPatternCache;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.site.StopTransferPriority;
 import org.opentripplanner.transit.model.timetable.TripTimes;
@@ -91,6 +93,13 @@ public class TransitLayerMapper {
     }
 
     var transferCache = new RaptorRequestTransferCache(tuningParameters.transferCacheMaxSize());
+    var tripPatternCache = new RaptorRequestTripPatternCache(
+      tuningParameters.tripPatternCacheMaxSize()
+    );
+    var accessEgressCache = new AccessEgressCache(
+      tuningParameters.accessEgressCacheMaxSize(),
+      tuningParameters.accessEgressCacheTimeToLive()
+    );
 
     LOG.info("Mapping complete.");
 
@@ -101,6 +110,8 @@ public class TransitLayerMapper {
       stopModel,
       transitModel.getTimeZone(),
       transferCache,
+      tripPatternCache,
+      accessEgressCache,
       constrainedTransfers,
       transferIndexGenerator,
       createStopTransferCosts(stopModel, tuningParameters)
@@ -3,14 +3,17 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 import gnu.trove.set.TIntSet;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.opentripplanner.framework.application.OTPFeature;
 import org.opentripplanner.model.Timetable;
@@ -27,9 +30,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Update the TransitLayer from a set of TimeTables. A shallow copy is made of the TransitLayer
  * (this also includes a shallow copy of the TripPatternsForDate map). TripPatterns are matched on
- * id and replaced by their updated versions. The realtime TransitLayer is then switched out with
- * the updated copy in an atomic operation. This ensures that any TransitLayer that is referenced
- * from the Graph is never changed.
+ * id and replaced by their updated versions. Only the changed TripPatternForDates are applied to
+ * each date, the unchanged parts are shared with the previous version of the TransitLayer. The
+ * realtime TransitLayer is then switched out with the updated copy in an atomic operation. This
+ * ensures that any TransitLayer that is referenced from the Graph is never changed.
+ * <p>
+ * The duration of each update, and the number of updated timetables and changed
+ * TripPatternForDates (the size of the delta) are recorded as metrics.
  */
 public class TransitLayerUpdater {
 
@@ -53,6 +60,21 @@ public class TransitLayerUpdater {
 
   private final Map<LocalDate, Set<TripPatternForDate>> tripPatternsRunningOnDateMapCache = new HashMap<>();
 
+  private final Timer updateTimer = Timer
+    .builder("transitLayer.update")
+    .description("The time used to apply realtime updates to the transit layer")
+    .register(Metrics.globalRegistry);
+
+  private final DistributionSummary numberOfUpdatedTimetables = DistributionSummary
+    .builder("transitLayer.update.timetables")
+    .description("The number of updated timetables applied in each update")
+    .register(Metrics.globalRegistry);
+
+  private final DistributionSummary numberOfChangedTripPatternsForDate = DistributionSummary
+    .builder("transitLayer.update.changedTripPatternsForDate")
+    .description("The number of TripPatternForDates removed or added, summed over all dates")
+    .register(Metrics.globalRegistry);
+
   public TransitLayerUpdater(
     TransitModel transitModel,
     Map<LocalDate, TIntSet> serviceCodesRunningForDate
@@ -69,7 +91,8 @@ public class TransitLayerUpdater {
       return;
     }
 
-    long startTime = System.currentTimeMillis();
+    var startTime = Timer.start(Metrics.globalRegistry);
+    int numberOfChanges = 0;
 
     // Make a shallow copy of the realtime transit layer. Only the objects that are copied will be
     // changed during this update process.
@@ -165,6 +188,10 @@ public class TransitLayerUpdater {
       // Remove old cached tripPatterns where tripTimes are no longer running
       Set<TripPatternForDate> patternsForDate = tripPatternsRunningOnDateMapCache.get(date);
 
+      // The delta for this date, applied to the transit layer after the cache is updated
+      Set<TripPatternForDate> removed = new HashSet<>();
+      Set<TripPatternForDate> added = new HashSet<>();
+
       for (Map.Entry<TripPattern, Collection<TripPatternForDate>> entry : oldTripPatternsForDate
         .asMap()
         .entrySet()) {
@@ -172,7 +199,9 @@ public class TransitLayerUpdater {
           // Remove old TripPatternForDate for this date if it was valid on this date
           if (oldTripPatternForDate != null) {
             if (oldTripPatternForDate.getRunningPeriodDates().contains(date)) {
-              patternsForDate.remove(oldTripPatternForDate);
+              if (patternsForDate.remove(oldTripPatternForDate)) {
+                removed.add(oldTripPatternForDate);
+              }
             }
           }
         }
@@ -193,8 +222,8 @@ public class TransitLayerUpdater {
               .map(tt -> tt.getTripTimes().isEmpty())
               .orElse(false);
 
-            if (toRemove) {
-              patternsForDate.remove(tripPatternForDate);
+            if (toRemove && patternsForDate.remove(tripPatternForDate)) {
+              removed.add(tripPatternForDate);
             }
           } else {
             LOG.warn("Could not fetch timetable for {}", pattern);
@@ -209,13 +238,19 @@ public class TransitLayerUpdater {
           // Add new TripPatternForDate for this date if it mapped correctly and is valid on this date
           if (newTripPatternForDate != null) {
             if (newTripPatternForDate.getRunningPeriodDates().contains(date)) {
-              patternsForDate.add(newTripPatternForDate);
+              // A pattern removed and added again is not changed
+              if (patternsForDate.add(newTripPatternForDate)) {
+                if (!removed.remove(newTripPatternForDate)) {
+                  added.add(newTripPatternForDate);
+                }
+              }
             }
           }
         }
       }
 
-      realtimeTransitLayer.replaceTripPatternsForDate(date, new ArrayList<>(patternsForDate));
+      realtimeTransitLayer.updateTripPatternsForDate(date, removed, added);
+      numberOfChanges += removed.size() + added.size();
     }
 
     if (transferIndexGenerator != null) {
@@ -226,10 +261,16 @@ public class TransitLayerUpdater {
     // guarantee that the reference is set after all the fields have been updated.
     transitModel.setRealtimeTransitLayer(realtimeTransitLayer);
 
+    long nanos = startTime.stop(updateTimer);
+    numberOfUpdatedTimetables.record(updatedTimetables.size());
+    numberOfChangedTripPatternsForDate.record(numberOfChanges);
+
     LOG.debug(
-      "UPDATING {} tripPatterns took {} ms",
+      "UPDATING {} tripPatterns took {} ms, {} TripPatternForDates changed on {} dates",
       updatedTimetables.size(),
-      System.currentTimeMillis() - startTime
+      TimeUnit.NANOSECONDS.toMillis(nanos),
+      numberOfChanges,
+      datesToBeUpdated.size()
     );
   }
 }
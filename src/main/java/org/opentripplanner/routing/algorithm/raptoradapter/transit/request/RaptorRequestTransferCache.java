@@ -3,6 +3,8 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
@@ -28,7 +30,9 @@ public class RaptorRequestTransferCache {
   private final LoadingCache<CacheKey, RaptorTransferIndex> transferCache;
 
   public RaptorRequestTransferCache(int maximumSize) {
-    transferCache = CacheBuilder.newBuilder().maximumSize(maximumSize).build(cacheLoader());
+    // The cache statistics (hits, misses and load time) are published by MetricsLogging
+    transferCache =
+      CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build(cacheLoader());
   }
 
   public LoadingCache<CacheKey, RaptorTransferIndex> getTransferCache() {
@@ -48,6 +52,46 @@ public class RaptorRequestTransferCache {
     }
   }
 
+  /**
+   * Save the cached transfers to the given file, so they can be loaded at the next startup. Only
+   * the requests currently in the cache, the most recently used, are saved. The {@code graphId}
+   * identifies the graph build, the file is only loaded for the same id.
+   */
+  public void save(File file, String graphId, List<List<Transfer>> transfersByStopIndex) {
+    var entries = transferCache
+      .asMap()
+      .entrySet()
+      .stream()
+      .filter(e -> e.getKey().transfersByStopIndex == transfersByStopIndex)
+      .map(e -> new RaptorTransferIndexFile.Entry(e.getKey().request, e.getValue()))
+      .toList();
+    try {
+      RaptorTransferIndexFile.write(file, graphId, transfersByStopIndex, entries);
+      LOG.info("Saved {} transfer requests to {}", entries.size(), file);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to save the transfer cache to {}: {}", file, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Fill the cache with the transfers saved in the given file. Nothing is loaded if the file does
+   * not exist, or it was written for another graph build.
+   *
+   * @return the number of requests added to the cache
+   */
+  public int load(File file, String graphId, List<List<Transfer>> transfersByStopIndex) {
+    try {
+      var entries = RaptorTransferIndexFile.read(file, graphId, transfersByStopIndex);
+      for (var entry : entries) {
+        transferCache.put(new CacheKey(transfersByStopIndex, entry.request()), entry.index());
+      }
+      return entries.size();
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to load the transfer cache from {}: {}", file, e.getMessage(), e);
+      return 0;
+    }
+  }
+
   private CacheLoader<CacheKey, RaptorTransferIndex> cacheLoader() {
     return new CacheLoader<>() {
       @Override
@@ -0,0 +1,138 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache the trip patterns filtered and merged for a request, so requests with the same search
+ * dates and the same filter can share them. Creating these is a substantial part of the time
+ * spent before the Raptor search starts, and most requests use the default filter.
+ * <p>
+ * There is one cache for each {@link org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer}
+ * instance, the TransitLayerUpdater creates a new instance for each realtime update. The cached
+ * data is therefore always created from the same version of the transit layer. The cache is also
+ * cleared if the trip patterns in the layer are replaced.
+ * <p>
+ * The trip times of the patterns are created when the pattern is first used by a search, and
+ * shared between the patterns with the same trips, see {@link TripPatternTimesCache}.
+ */
+public class RaptorRequestTripPatternCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RaptorRequestTripPatternCache.class);
+
+  private final int maximumSize;
+  private final Cache<CacheKey, RequestTripPatterns> cache;
+
+  /**
+   * The trip times of the cached patterns are shared between the requests with different filters.
+   */
+  @Nullable
+  private final TripPatternTimesCache timesCache;
+
+  public RaptorRequestTripPatternCache(int maximumSize) {
+    this.maximumSize = maximumSize;
+    this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    this.timesCache = maximumSize > 0 ? new TripPatternTimesCache() : null;
+  }
+
+  /**
+   * Create a new empty cache with the same configuration, used when a copy of the transit layer
+   * is made.
+   */
+  public RaptorRequestTripPatternCache emptyCopy() {
+    return new RaptorRequestTripPatternCache(maximumSize);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * @return {@code true} if the trip patterns returned by {@link #get} are cached and shared with
+   * other requests, {@code false} if new patterns are created for each request.
+   */
+  boolean isEnabled() {
+    return maximumSize > 0;
+  }
+
+  /**
+   * @return the cache of trip times shared by the patterns of all requests, or {@code null} if the
+   * cache is off.
+   */
+  @Nullable
+  TripPatternTimesCache timesCache() {
+    return timesCache;
+  }
+
+  RequestTripPatterns get(
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    TransitDataProviderFilter filter,
+    Supplier<RequestTripPatterns> create
+  ) {
+    if (!isEnabled()) {
+      return create.get();
+    }
+    var key = new CacheKey(
+      transitSearchTimeZero,
+      additionalPastSearchDays,
+      additionalFutureSearchDays,
+      filter
+    );
+    try {
+      return cache.get(
+        key,
+        () -> {
+          LOG.debug("Adding trip patterns to cache: {}", key);
+          return create.get();
+        }
+      );
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to get item from trip pattern cache", e);
+    }
+  }
+
+  /**
+   * The trip patterns for a request. The patterns are indexed by pattern index, and the indexes of
+   * the patterns visiting each stop are listed by stop index.
+   */
+  record RequestTripPatterns(
+    List<TripPatternForDates> patternIndex,
+    List<int[]> activeTripPatternsPerStop
+  ) {}
+
+  /**
+   * The filter is part of the key, so the filter must implement equals and hashCode for the cache
+   * to be effective - see {@link RouteRequestTransitDataProviderFilter}.
+   */
+  private record CacheKey(
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    TransitDataProviderFilter filter
+  ) {
+    @Override
+    public String toString() {
+      return ToStringBuilder
+        .of(CacheKey.class)
+        .addObj("transitSearchTimeZero", transitSearchTimeZero)
+        .addNum("additionalPastSearchDays", additionalPastSearchDays)
+        .addNum("additionalFutureSearchDays", additionalFutureSearchDays)
+        .addObj("filter", filter)
+        .toString();
+    }
+  }
+}
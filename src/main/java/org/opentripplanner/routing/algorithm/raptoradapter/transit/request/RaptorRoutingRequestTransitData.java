@@ -4,6 +4,8 @@ import java.time.ZonedDateTime;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.opentripplanner.framework.application.OTPFeature;
@@ -29,6 +31,8 @@ import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtr
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.cost.CostCalculatorFactory;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.GeneralizedCostParametersMapper;
 import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.framework.DurationForEnum;
+import org.opentripplanner.transit.model.basic.TransitMode;
 import org.opentripplanner.transit.model.network.RoutingTripPattern;
 
 /**
@@ -69,6 +73,17 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
 
   private final int validTransitDataEndTime;
 
+  @Nullable
+  private final TransitDataCacheKey transitDataCacheKey;
+
+  /**
+   * A bit for each trip pattern used by the request. The searches of a request may run in
+   * parallel, see {@link #getRouteForIndex(int)}.
+   */
+  private final AtomicLongArray usedTripPatterns = new AtomicLongArray(
+    (RoutingTripPattern.indexCounter() + 63) >>> 6
+  );
+
   public RaptorRoutingRequestTransitData(
     TransitLayer transitLayer,
     ZonedDateTime transitSearchTimeZero,
@@ -81,20 +96,25 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
     this.transitLayer = transitLayer;
     this.transitSearchTimeZero = transitSearchTimeZero;
 
-    // Delegate to the creator to construct the needed data structures. The code is messy so
-    // it is nice to NOT have it in the class. It isolate this code to only be available at
-    // the time of construction
-    var transitDataCreator = new RaptorRoutingRequestTransitDataCreator(
-      transitLayer,
-      transitSearchTimeZero
-    );
-    List<TripPatternForDates> tripPatterns = transitDataCreator.createTripPatterns(
+    // The filtered trip patterns only depend on the search dates and the filter, so they are
+    // shared with other requests through the trip pattern cache of the transit layer.
+    var tripPatternCache = transitLayer.getTripPatternCache();
+    var tripPatterns = tripPatternCache.get(
+      transitSearchTimeZero,
       additionalPastSearchDays,
       additionalFutureSearchDays,
-      filter
+      filter,
+      () ->
+        createTripPatterns(
+          transitLayer,
+          transitSearchTimeZero,
+          additionalPastSearchDays,
+          additionalFutureSearchDays,
+          filter
+        )
     );
-    this.patternIndex = transitDataCreator.createPatternIndex(tripPatterns);
-    this.activeTripPatternsPerStop = transitDataCreator.createTripPatternsPerStop(tripPatterns);
+    this.patternIndex = tripPatterns.patternIndex();
+    this.activeTripPatternsPerStop = tripPatterns.activeTripPatternsPerStop();
     this.transferIndex = transitLayer.getRaptorTransfersForRequest(request);
     this.constrainedTransfers = transitLayer.getConstrainedTransfers();
 
@@ -113,6 +133,19 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
         request.preferences().transit().alightSlack()
       );
 
+    // The key compares the trip patterns by identity, so it is only useful if the patterns are
+    // shared with other requests. Otherwise, Raptor would cache data no request can reuse.
+    this.transitDataCacheKey =
+      tripPatternCache.isEnabled()
+        ? new TransitDataCacheKey(
+          tripPatterns,
+          transferIndex,
+          request.preferences().transfer().slack(),
+          request.preferences().transit().boardSlack(),
+          request.preferences().transit().alightSlack()
+        )
+        : null;
+
     this.validTransitDataStartTime =
       ServiceDateUtils.secondsSinceStartOfTime(
         this.transitSearchTimeZero,
@@ -126,14 +159,40 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
       );
   }
 
+  private static RaptorRequestTripPatternCache.RequestTripPatterns createTripPatterns(
+    TransitLayer transitLayer,
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    TransitDataProviderFilter filter
+  ) {
+    // Delegate to the creator to construct the needed data structures. The code is messy so
+    // it is nice to NOT have it in the class. It isolate this code to only be available at
+    // the time of construction
+    var transitDataCreator = new RaptorRoutingRequestTransitDataCreator(
+      transitLayer,
+      transitSearchTimeZero
+    );
+    List<TripPatternForDates> tripPatterns = transitDataCreator.createTripPatterns(
+      additionalPastSearchDays,
+      additionalFutureSearchDays,
+      filter,
+      transitLayer.getTripPatternCache().timesCache()
+    );
+    return new RaptorRequestTripPatternCache.RequestTripPatterns(
+      transitDataCreator.createPatternIndex(tripPatterns),
+      transitDataCreator.createTripPatternsPerStop(tripPatterns)
+    );
+  }
+
   @Override
   public Iterator<RaptorTransfer> getTransfersFromStop(int stopIndex) {
-    return transferIndex.getForwardTransfers(stopIndex).iterator();
+    return transferIndex.getForwardTransfers(stopIndex);
   }
 
   @Override
   public Iterator<? extends RaptorTransfer> getTransfersToStop(int stopIndex) {
-    return transferIndex.getReversedTransfers(stopIndex).iterator();
+    return transferIndex.getReversedTransfers(stopIndex);
   }
 
   @Override
@@ -152,7 +211,27 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
 
   @Override
   public RaptorRoute<TripSchedule> getRouteForIndex(int routeIndex) {
-    return patternIndex.get(routeIndex);
+    var route = patternIndex.get(routeIndex);
+    route.materialize();
+    int word = routeIndex >>> 6;
+    long bit = 1L << routeIndex;
+    if ((usedTripPatterns.get(word) & bit) == 0) {
+      usedTripPatterns.getAndAccumulate(word, bit, (a, b) -> a | b);
+    }
+    return route;
+  }
+
+  /**
+   * The number of distinct trip patterns used by this request. The trip times of a pattern are
+   * created the first time it is used, by this or an earlier request sharing the times through the
+   * trip pattern cache.
+   */
+  public int numberOfUsedTripPatterns() {
+    int n = 0;
+    for (int i = 0; i < usedTripPatterns.length(); ++i) {
+      n += Long.bitCount(usedTripPatterns.get(i));
+    }
+    return n;
   }
 
   @Override
@@ -241,4 +320,55 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
     }
     return new ConstrainedBoardingSearch(false, toStopTransfers, fromStopTransfers);
   }
+
+  /**
+   * The trip patterns and transfers are shared between requests through the caches of the transit
+   * layer, so the same instances mean the same data. The key is {@code null} if the trip pattern
+   * cache is disabled, the patterns are then created for each request.
+   */
+  @Override
+  @Nullable
+  public Object transitDataCacheKey() {
+    return transitDataCacheKey;
+  }
+
+  /**
+   * The trip patterns and the transfers are compared by identity, comparing the content is too
+   * expensive.
+   */
+  private record TransitDataCacheKey(
+    RaptorRequestTripPatternCache.RequestTripPatterns tripPatterns,
+    RaptorTransferIndex transferIndex,
+    int transferSlack,
+    DurationForEnum<TransitMode> boardSlack,
+    DurationForEnum<TransitMode> alightSlack
+  ) {
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TransitDataCacheKey that)) {
+        return false;
+      }
+      return (
+        tripPatterns == that.tripPatterns &&
+        transferIndex == that.transferIndex &&
+        transferSlack == that.transferSlack &&
+        boardSlack.equals(that.boardSlack) &&
+        alightSlack.equals(that.alightSlack)
+      );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+        System.identityHashCode(tripPatterns),
+        System.identityHashCode(transferIndex),
+        transferSlack,
+        boardSlack,
+        alightSlack
+      );
+    }
+  }
 }
@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
+import javax.annotation.Nullable;
 import org.opentripplanner.framework.time.DurationUtils;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
@@ -92,6 +93,19 @@ class RaptorRoutingRequestTransitDataCreator {
     ZonedDateTime transitSearchTimeZero,
     List<TripPatternForDate> patternForDateList,
     TransitDataProviderFilter filter
+  ) {
+    return merge(transitSearchTimeZero, patternForDateList, filter, null);
+  }
+
+  /**
+   * @param timesCache if not {@code null} the trip times of the merged patterns are shared with
+   *                   the patterns merged for other requests, see {@link TripPatternTimesCache}
+   */
+  static List<TripPatternForDates> merge(
+    ZonedDateTime transitSearchTimeZero,
+    List<TripPatternForDate> patternForDateList,
+    TransitDataProviderFilter filter,
+    @Nullable TripPatternTimesCache timesCache
   ) {
     // Group TripPatternForDate objects by TripPattern.
     // This is done in a loop to increase performance.
@@ -144,7 +158,8 @@ class RaptorRoutingRequestTransitDataCreator {
             tripPattern,
             tripPattern.getAlightingPossible(),
             BoardAlight.ALIGHT
-          )
+          ),
+          timesCache
         )
       );
     }
@@ -155,7 +170,8 @@ class RaptorRoutingRequestTransitDataCreator {
   List<TripPatternForDates> createTripPatterns(
     int additionalPastSearchDays,
     int additionalFutureSearchDays,
-    TransitDataProviderFilter filter
+    TransitDataProviderFilter filter,
+    @Nullable TripPatternTimesCache timesCache
   ) {
     List<TripPatternForDate> tripPatternForDates = getTripPatternsForDateRange(
       additionalPastSearchDays,
@@ -163,7 +179,7 @@ class RaptorRoutingRequestTransitDataCreator {
       filter
     );
 
-    return merge(transitSearchTimeZero, tripPatternForDates, filter);
+    return merge(transitSearchTimeZero, tripPatternForDates, filter, timesCache);
   }
 
   private static List<TripPatternForDate> filterActiveTripPatterns(
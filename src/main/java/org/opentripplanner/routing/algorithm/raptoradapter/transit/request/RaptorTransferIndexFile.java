@@ -0,0 +1,442 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import gnu.trove.list.array.TIntArrayList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.opentripplanner.astar.model.SearchQueueType;
+import org.opentripplanner.model.projectinfo.OtpProjectInfo;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.DefaultRaptorTransfer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.RaptorTransferIndex;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.Transfer;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.framework.DurationForEnum;
+import org.opentripplanner.routing.api.request.preference.AccessibilityPreferences;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.routing.api.request.preference.WheelchairPreferences;
+import org.opentripplanner.routing.core.BicycleOptimizeType;
+import org.opentripplanner.street.search.intersection_model.DrivingDirection;
+import org.opentripplanner.street.search.intersection_model.IntersectionTraversalModel;
+import org.opentripplanner.street.search.request.StreetSearchRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read and write prebuilt {@link RaptorTransferIndex}es, so the transfer cache can be filled at
+ * startup without traversing the street edges of all transfers again.
+ * <p>
+ * The file is a gzipped binary file. The header contains the file format version, the OTP
+ * serialization version id and the id of the graph build, a file written for another graph build,
+ * format or OTP version is ignored. The graph id must change whenever the street graph or the
+ * transfers are rebuilt, since the stored durations and costs depend on the street edges of the
+ * transfers, not only on the transfers themselves. For each cached index the transfer request and
+ * the forward transfers of each stop are stored. A transfer is stored as the position in the list
+ * of transfers for the stop, the duration and the cost. The reversed transfers are derived when
+ * the index is created.
+ * <p>
+ * Only the parts of the request used by the transfer cache key are stored: the mode, the
+ * wheelchair flag and the walk, bike, street and wheelchair preferences. Each value is written
+ * explicitly, enums by name. The other preferences do not affect the transfers, they are set to
+ * the default values when the file is read. Increase {@link #FORMAT_VERSION} if the stored values
+ * change.
+ */
+class RaptorTransferIndexFile {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RaptorTransferIndexFile.class);
+
+  private static final int MAGIC = 0x4f545054;
+
+  private static final int FORMAT_VERSION = 3;
+
+  record Entry(StreetSearchRequest request, RaptorTransferIndex index) {}
+
+  /**
+   * The data read for one entry, before the index is created.
+   */
+  private record RawEntry(
+    StreetSearchRequest request,
+    int[] counts,
+    int[] positions,
+    int[] durations,
+    int[] costs
+  ) {}
+
+  static void write(
+    File file,
+    String graphId,
+    List<List<Transfer>> transfersByStopIndex,
+    Collection<Entry> entries
+  ) throws IOException {
+    var tmpFile = new File(file.getPath() + ".tmp");
+    try (
+      var out = new DataOutputStream(
+        new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))
+      )
+    ) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(OtpProjectInfo.projectInfo().getOtpSerializationVersionId());
+      out.writeUTF(graphId);
+      out.writeInt(transfersByStopIndex.size());
+      out.writeInt(entries.size());
+
+      for (Entry entry : entries) {
+        writeRequest(out, entry.request());
+
+        for (int stop = 0; stop < transfersByStopIndex.size(); ++stop) {
+          var transfers = new ArrayList<RaptorTransfer>();
+          entry.index().getForwardTransfers(stop).forEachRemaining(transfers::add);
+          out.writeInt(transfers.size());
+          for (RaptorTransfer it : transfers) {
+            out.writeInt(positionOf(transfersByStopIndex.get(stop), it));
+            out.writeInt(it.durationInSeconds());
+            out.writeInt(it.generalizedCost());
+          }
+        }
+      }
+    }
+    if (!tmpFile.renameTo(file)) {
+      throw new IOException("Failed to rename " + tmpFile + " to " + file);
+    }
+  }
+
+  /**
+   * Read the entries of the file, the indexes are created in parallel. An empty list is returned
+   * if the file does not exist, or it was written for another graph build or OTP version.
+   */
+  static List<Entry> read(File file, String graphId, List<List<Transfer>> transfersByStopIndex)
+    throws IOException {
+    if (!file.exists()) {
+      return List.of();
+    }
+    var rawEntries = new ArrayList<RawEntry>();
+    try (
+      var in = new DataInputStream(
+        new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))
+      )
+    ) {
+      if (in.readInt() != MAGIC) {
+        LOG.warn("Ignoring transfer cache file {}, the file format is unknown.", file);
+        return List.of();
+      }
+      if (in.readInt() != FORMAT_VERSION) {
+        LOG.info("Ignoring transfer cache file {}, it has another format version.", file);
+        return List.of();
+      }
+      var versionId = in.readUTF();
+      if (!versionId.equals(OtpProjectInfo.projectInfo().getOtpSerializationVersionId())) {
+        LOG.info("Ignoring transfer cache file {}, it was written by another version.", file);
+        return List.of();
+      }
+      if (!in.readUTF().equals(graphId) || in.readInt() != transfersByStopIndex.size()) {
+        LOG.info("Ignoring transfer cache file {}, it was written for another graph.", file);
+        return List.of();
+      }
+      int nEntries = in.readInt();
+      for (int i = 0; i < nEntries; ++i) {
+        rawEntries.add(readEntry(in, transfersByStopIndex.size()));
+      }
+    }
+
+    return rawEntries.parallelStream().map(it -> createEntry(it, transfersByStopIndex)).toList();
+  }
+
+  private static RawEntry readEntry(DataInputStream in, int nStops) throws IOException {
+    var request = readRequest(in);
+
+    int[] counts = new int[nStops];
+    var positions = new TIntArrayList();
+    var durations = new TIntArrayList();
+    var costs = new TIntArrayList();
+
+    for (int stop = 0; stop < nStops; ++stop) {
+      counts[stop] = in.readInt();
+      for (int i = 0; i < counts[stop]; ++i) {
+        positions.add(in.readInt());
+        durations.add(in.readInt());
+        costs.add(in.readInt());
+      }
+    }
+    return new RawEntry(
+      request,
+      counts,
+      positions.toArray(),
+      durations.toArray(),
+      costs.toArray()
+    );
+  }
+
+  private static void writeRequest(DataOutputStream out, StreetSearchRequest request)
+    throws IOException {
+    out.writeUTF(request.mode().name());
+    out.writeBoolean(request.wheelchair());
+
+    var preferences = request.preferences();
+
+    var walk = preferences.walk();
+    out.writeDouble(walk.speed());
+    out.writeDouble(walk.reluctance());
+    out.writeInt(walk.boardCost());
+    out.writeDouble(walk.stairsReluctance());
+    out.writeDouble(walk.stairsTimeFactor());
+    out.writeDouble(walk.safetyFactor());
+
+    var bike = preferences.bike();
+    out.writeDouble(bike.speed());
+    out.writeDouble(bike.reluctance());
+    out.writeInt(bike.boardCost());
+    out.writeDouble(bike.walkingSpeed());
+    out.writeDouble(bike.walkingReluctance());
+    out.writeInt(bike.switchTime());
+    out.writeInt(bike.switchCost());
+    out.writeInt(bike.parkTime());
+    out.writeInt(bike.parkCost());
+    out.writeDouble(bike.stairsReluctance());
+    out.writeUTF(bike.optimizeType().name());
+    out.writeDouble(bike.optimizeTriangle().time());
+    out.writeDouble(bike.optimizeTriangle().slope());
+    out.writeDouble(bike.optimizeTriangle().safety());
+
+    var street = preferences.street();
+    out.writeDouble(street.turnReluctance());
+    out.writeUTF(street.drivingDirection().name());
+    out.writeInt(street.elevator().boardCost());
+    out.writeInt(street.elevator().boardTime());
+    out.writeInt(street.elevator().hopCost());
+    out.writeInt(street.elevator().hopTime());
+    out.writeUTF(street.intersectionTraversalModel().name());
+    writeDurationForMode(out, street.maxAccessEgressDuration());
+    writeDurationForMode(out, street.maxDirectDuration());
+    writeDuration(out, street.routingTimeout());
+    out.writeUTF(street.searchQueueType().name());
+
+    var wheelchair = preferences.wheelchair();
+    writeAccessibility(out, wheelchair.trip());
+    writeAccessibility(out, wheelchair.stop());
+    writeAccessibility(out, wheelchair.elevator());
+    out.writeDouble(wheelchair.inaccessibleStreetReluctance());
+    out.writeDouble(wheelchair.maxSlope());
+    out.writeDouble(wheelchair.slopeExceededReluctance());
+    out.writeDouble(wheelchair.stairsReluctance());
+  }
+
+  /**
+   * Read a request written by {@link #writeRequest}, the values must be read in the same order as
+   * they are written. The preferences are created by the builders, so the values are validated.
+   */
+  private static StreetSearchRequest readRequest(DataInputStream in) throws IOException {
+    var mode = StreetMode.valueOf(in.readUTF());
+    var wheelchair = in.readBoolean();
+
+    double walkSpeed = in.readDouble();
+    double walkReluctance = in.readDouble();
+    int walkBoardCost = in.readInt();
+    double walkStairsReluctance = in.readDouble();
+    double walkStairsTimeFactor = in.readDouble();
+    double walkSafetyFactor = in.readDouble();
+
+    double bikeSpeed = in.readDouble();
+    double bikeReluctance = in.readDouble();
+    int bikeBoardCost = in.readInt();
+    double bikeWalkingSpeed = in.readDouble();
+    double bikeWalkingReluctance = in.readDouble();
+    int bikeSwitchTime = in.readInt();
+    int bikeSwitchCost = in.readInt();
+    int bikeParkTime = in.readInt();
+    int bikeParkCost = in.readInt();
+    double bikeStairsReluctance = in.readDouble();
+    var bikeOptimizeType = BicycleOptimizeType.valueOf(in.readUTF());
+    double bikeTriangleTime = in.readDouble();
+    double bikeTriangleSlope = in.readDouble();
+    double bikeTriangleSafety = in.readDouble();
+
+    double turnReluctance = in.readDouble();
+    var drivingDirection = DrivingDirection.valueOf(in.readUTF());
+    int elevatorBoardCost = in.readInt();
+    int elevatorBoardTime = in.readInt();
+    int elevatorHopCost = in.readInt();
+    int elevatorHopTime = in.readInt();
+    var intersectionTraversalModel = IntersectionTraversalModel.valueOf(in.readUTF());
+    var maxAccessEgressDefault = readDuration(in);
+    var maxAccessEgressValues = readDurationForMode(in);
+    var maxDirectDefault = readDuration(in);
+    var maxDirectValues = readDurationForMode(in);
+    var routingTimeout = readDuration(in);
+    var searchQueueType = SearchQueueType.valueOf(in.readUTF());
+
+    var wheelchairPreferences = WheelchairPreferences
+      .of()
+      .withTrip(readAccessibility(in))
+      .withStop(readAccessibility(in))
+      .withElevator(readAccessibility(in))
+      .withInaccessibleStreetReluctance(in.readDouble())
+      .withMaxSlope(in.readDouble())
+      .withSlopeExceededReluctance(in.readDouble())
+      .withStairsReluctance(in.readDouble())
+      .build();
+
+    var preferences = new RoutingPreferences()
+      .copyOf()
+      .withWalk(it ->
+        it
+          .withSpeed(walkSpeed)
+          .withReluctance(walkReluctance)
+          .withBoardCost(walkBoardCost)
+          .withStairsReluctance(walkStairsReluctance)
+          .withStairsTimeFactor(walkStairsTimeFactor)
+          .withSafetyFactor(walkSafetyFactor)
+      )
+      .withBike(it ->
+        it
+          .withSpeed(bikeSpeed)
+          .withReluctance(bikeReluctance)
+          .withBoardCost(bikeBoardCost)
+          .withWalkingSpeed(bikeWalkingSpeed)
+          .withWalkingReluctance(bikeWalkingReluctance)
+          .withSwitchTime(bikeSwitchTime)
+          .withSwitchCost(bikeSwitchCost)
+          .withParkTime(bikeParkTime)
+          .withParkCost(bikeParkCost)
+          .withStairsReluctance(bikeStairsReluctance)
+          .withOptimizeType(bikeOptimizeType)
+          .withOptimizeTriangle(t ->
+            t.withTime(bikeTriangleTime).withSlope(bikeTriangleSlope).withSafety(bikeTriangleSafety)
+          )
+      )
+      .withStreet(it ->
+        it
+          .withTurnReluctance(turnReluctance)
+          .withDrivingDirection(drivingDirection)
+          .withElevator(e ->
+            e
+              .withBoardCost(elevatorBoardCost)
+              .withBoardTime(elevatorBoardTime)
+              .withHopCost(elevatorHopCost)
+              .withHopTime(elevatorHopTime)
+          )
+          .withIntersectionTraversalModel(intersectionTraversalModel)
+          .withMaxAccessEgressDuration(maxAccessEgressDefault, maxAccessEgressValues)
+          .withMaxDirectDuration(maxDirectDefault, maxDirectValues)
+          .withRoutingTimeout(routingTimeout)
+          .withSearchQueueType(searchQueueType)
+      )
+      .withWheelchair(wheelchairPreferences)
+      .build();
+
+    return StreetSearchRequest
+      .of()
+      .withStartTime(Instant.ofEpochSecond(0))
+      .withPreferences(preferences)
+      .withWheelchair(wheelchair)
+      .withMode(mode)
+      .build();
+  }
+
+  /**
+   * Write the default value, and the values which differ from the default for each mode.
+   */
+  private static void writeDurationForMode(
+    DataOutputStream out,
+    DurationForEnum<StreetMode> durations
+  ) throws IOException {
+    writeDuration(out, durations.defaultValue());
+    var modes = new ArrayList<StreetMode>();
+    for (StreetMode mode : StreetMode.values()) {
+      if (durations.isSet(mode)) {
+        modes.add(mode);
+      }
+    }
+    out.writeInt(modes.size());
+    for (StreetMode mode : modes) {
+      out.writeUTF(mode.name());
+      writeDuration(out, durations.valueOf(mode));
+    }
+  }
+
+  /**
+   * Read the values for each mode written by {@link #writeDurationForMode}, the default value must
+   * be read before this.
+   */
+  private static Map<StreetMode, Duration> readDurationForMode(DataInputStream in)
+    throws IOException {
+    var values = new EnumMap<StreetMode, Duration>(StreetMode.class);
+    int n = in.readInt();
+    for (int i = 0; i < n; ++i) {
+      values.put(StreetMode.valueOf(in.readUTF()), readDuration(in));
+    }
+    return values;
+  }
+
+  private static void writeDuration(DataOutputStream out, Duration duration) throws IOException {
+    out.writeLong(duration.getSeconds());
+    out.writeInt(duration.getNano());
+  }
+
+  private static Duration readDuration(DataInputStream in) throws IOException {
+    return Duration.ofSeconds(in.readLong(), in.readInt());
+  }
+
+  private static void writeAccessibility(DataOutputStream out, AccessibilityPreferences value)
+    throws IOException {
+    out.writeBoolean(value.onlyConsiderAccessible());
+    out.writeInt(value.unknownCost());
+    out.writeInt(value.inaccessibleCost());
+  }
+
+  private static AccessibilityPreferences readAccessibility(DataInputStream in)
+    throws IOException {
+    boolean onlyConsiderAccessible = in.readBoolean();
+    int unknownCost = in.readInt();
+    int inaccessibleCost = in.readInt();
+    return onlyConsiderAccessible
+      ? AccessibilityPreferences.ofOnlyAccessible()
+      : AccessibilityPreferences.ofCost(unknownCost, inaccessibleCost);
+  }
+
+  private static Entry createEntry(RawEntry raw, List<List<Transfer>> transfersByStopIndex) {
+    var transfersByFromStop = new RaptorTransfer[raw.counts().length][];
+    int i = 0;
+    for (int stop = 0; stop < transfersByFromStop.length; ++stop) {
+      var stopTransfers = transfersByStopIndex.get(stop);
+      var transfers = new RaptorTransfer[raw.counts()[stop]];
+      for (int j = 0; j < transfers.length; ++j, ++i) {
+        var transfer = stopTransfers.get(raw.positions()[i]);
+        transfers[j] =
+          new DefaultRaptorTransfer(
+            transfer.getToStop(),
+            raw.durations()[i],
+            raw.costs()[i],
+            transfer
+          );
+      }
+      transfersByFromStop[stop] = transfers;
+    }
+    return new Entry(raw.request(), RaptorTransferIndex.of(transfersByFromStop));
+  }
+
+  private static int positionOf(List<Transfer> transfers, RaptorTransfer raptorTransfer) {
+    if (raptorTransfer instanceof DefaultRaptorTransfer it) {
+      for (int i = 0; i < transfers.size(); ++i) {
+        if (transfers.get(i) == it.transfer()) {
+          return i;
+        }
+      }
+    }
+    throw new IllegalStateException("Transfer not found in the graph: " + raptorTransfer);
+  }
+}
@@ -1,8 +1,11 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
 import org.opentripplanner.model.PickDrop;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
 import org.opentripplanner.routing.api.request.RouteRequest;
@@ -16,6 +19,10 @@ import org.opentripplanner.transit.model.network.RoutingTripPattern;
 import org.opentripplanner.transit.model.timetable.Trip;
 import org.opentripplanner.transit.model.timetable.TripTimes;
 
+/**
+ * Two filters are equal if they filter the transit data in the same way, this is used to cache
+ * the filtered trip patterns, see {@link RaptorRequestTripPatternCache}.
+ */
 public class RouteRequestTransitDataProviderFilter implements TransitDataProviderFilter {
 
   private final boolean requireBikesAllowed;
@@ -143,6 +150,52 @@ public class RouteRequestTransitDataProviderFilter implements TransitDataProvide
     return true;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RouteRequestTransitDataProviderFilter that)) {
+      return false;
+    }
+    return (
+      requireBikesAllowed == that.requireBikesAllowed &&
+      wheelchairEnabled == that.wheelchairEnabled &&
+      includePlannedCancellations == that.includePlannedCancellations &&
+      includeRealtimeCancellations == that.includeRealtimeCancellations &&
+      Objects.equals(wheelchairPreferencesIfEnabled(), that.wheelchairPreferencesIfEnabled()) &&
+      bannedTrips.equals(that.bannedTrips) &&
+      Arrays.equals(filters, that.filters)
+    );
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+      requireBikesAllowed,
+      wheelchairEnabled,
+      includePlannedCancellations,
+      includeRealtimeCancellations,
+      wheelchairPreferencesIfEnabled(),
+      bannedTrips,
+      Arrays.hashCode(filters)
+    );
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(RouteRequestTransitDataProviderFilter.class)
+      .addBoolIfTrue("requireBikesAllowed", requireBikesAllowed)
+      .addBoolIfTrue("wheelchairEnabled", wheelchairEnabled)
+      .addObj("wheelchairPreferences", wheelchairPreferencesIfEnabled())
+      .addBoolIfTrue("includePlannedCancellations", includePlannedCancellations)
+      .addBoolIfTrue("includeRealtimeCancellations", includeRealtimeCancellations)
+      .addCol("bannedTrips", bannedTrips)
+      .addCol("filters", Arrays.asList(filters))
+      .toString();
+  }
+
   @Override
   public BitSet filterAvailableStops(
     RoutingTripPattern tripPattern,
@@ -179,4 +232,9 @@ public class RouteRequestTransitDataProviderFilter implements TransitDataProvide
     }
     return result;
   }
+
+  /** The wheelchair preferences are only used if wheelchair routing is enabled. */
+  private WheelchairPreferences wheelchairPreferencesIfEnabled() {
+    return wheelchairEnabled ? wheelchairPreferences : null;
+  }
 }
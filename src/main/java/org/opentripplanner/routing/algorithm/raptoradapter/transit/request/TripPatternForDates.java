@@ -2,6 +2,8 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 
 import java.util.BitSet;
 import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import org.opentripplanner.framework.tostring.ToStringBuilder;
 import org.opentripplanner.raptor.api.model.RaptorTripPattern;
 import org.opentripplanner.raptor.api.model.SearchDirection;
@@ -41,19 +43,13 @@ public class TripPatternForDates
   private final boolean isFrequencyBased;
 
   /**
-   * The arrival times in a nStops * numberOfTripSchedules sized array. The trips are stored first
-   * by the stop position and then by trip index, so with stops 1 and 2, and trips A and B, the
-   * order is [1A, 1B, 2A, 2B]
+   * The trip times are created the first time the pattern is used by a search, see
+   * {@link #materialize()}. Most searches only use a small part of the patterns.
    */
-  private final int[] arrivalTimes;
+  @Nullable
+  private final TripPatternTimesCache timesCache;
 
-  /**
-   * The arrival times in a nStops * numberOfTripSchedules sized array. The order is the same as in
-   * arrivalTimes.
-   */
-  private final int[] departureTimes;
-
-  private final Accessibility[] wheelchairBoardings;
+  private volatile TripPatternTimes times;
 
   // bit arrays with boarding/alighting information for all stops on trip pattern,
   // potentially filtered by wheelchair accessibility
@@ -66,6 +62,21 @@ public class TripPatternForDates
     int[] offsets,
     BitSet boardingPossible,
     BitSet alightningPossible
+  ) {
+    this(tripPattern, tripPatternForDates, offsets, boardingPossible, alightningPossible, null);
+  }
+
+  /**
+   * @param timesCache if not {@code null} the trip times are shared with other instances with the
+   *                   same trips and offsets
+   */
+  TripPatternForDates(
+    RoutingTripPattern tripPattern,
+    TripPatternForDate[] tripPatternForDates,
+    int[] offsets,
+    BitSet boardingPossible,
+    BitSet alightningPossible,
+    @Nullable TripPatternTimesCache timesCache
   ) {
     this.tripPattern = tripPattern;
     this.tripPatternForDates = tripPatternForDates;
@@ -83,28 +94,43 @@ public class TripPatternForDates
     }
     this.numberOfTripSchedules = numberOfTripSchedules;
     this.isFrequencyBased = hasFrequencies;
+    this.timesCache = timesCache;
+  }
 
-    wheelchairBoardings = new Accessibility[numberOfTripSchedules];
-
-    final int nStops = tripPattern.numberOfStopsInPattern();
-    this.arrivalTimes = new int[nStops * numberOfTripSchedules];
-    this.departureTimes = new int[nStops * numberOfTripSchedules];
-    int i = 0;
-    for (int d = 0; d < this.tripPatternForDates.length; d++) {
-      int offset = this.offsets[d];
-      for (var trip : this.tripPatternForDates[d].tripTimes()) {
-        wheelchairBoardings[i] = trip.getWheelchairAccessibility();
-        for (int s = 0; s < nStops; s++) {
-          this.arrivalTimes[s * numberOfTripSchedules + i] = trip.getArrivalTime(s) + offset;
-          this.departureTimes[s * numberOfTripSchedules + i] = trip.getDepartureTime(s) + offset;
-        }
-        i++;
+  public RoutingTripPattern getTripPattern() {
+    return tripPattern;
+  }
+
+  /**
+   * Create the arrival and departure times of the trips, if they are not created already. This is
+   * done the first time the pattern is used, all methods using the times call it.
+   *
+   * @return {@code true} if the times were created by this call, or taken from the cache of times
+   * shared with other instances.
+   */
+  public boolean materialize() {
+    if (times != null) {
+      return false;
+    }
+    synchronized (this) {
+      if (times != null) {
+        return false;
       }
+      Supplier<TripPatternTimes> create = () ->
+        TripPatternTimes.create(
+          tripPattern.numberOfStopsInPattern(),
+          tripPatternForDates,
+          offsets,
+          numberOfTripSchedules
+        );
+      times =
+        timesCache == null ? create.get() : timesCache.get(tripPatternForDates, offsets, create);
+      return true;
     }
   }
 
-  public RoutingTripPattern getTripPattern() {
-    return tripPattern;
+  public boolean isMaterialized() {
+    return times != null;
   }
 
   /* Support for frequency based routing */
@@ -203,22 +229,26 @@ public class TripPatternForDates
 
   @Override
   public IntUnaryOperator getArrivalTimes(int stopPositionInPattern) {
+    final int[] arrivalTimes = times().arrivalTimes;
     final int base = stopPositionInPattern * numberOfTripSchedules;
     return (int index) -> arrivalTimes[base + index];
   }
 
   @Override
   public IntUnaryOperator getDepartureTimes(int stopPositionInPattern) {
+    final int[] departureTimes = times().departureTimes;
     final int base = stopPositionInPattern * numberOfTripSchedules;
     return (int index) -> departureTimes[base + index];
   }
 
   public IntUnaryOperator getArrivalTimesForTrip(int index) {
+    final int[] arrivalTimes = times().arrivalTimes;
     return (int stopPositionInPattern) ->
       arrivalTimes[stopPositionInPattern * numberOfTripSchedules + index];
   }
 
   public IntUnaryOperator getDepartureTimesForTrip(int index) {
+    final int[] departureTimes = times().departureTimes;
     return (int stopPositionInPattern) ->
       departureTimes[stopPositionInPattern * numberOfTripSchedules + index];
   }
@@ -242,6 +272,7 @@ public class TripPatternForDates
    *         {@link #createCustomizedTripSearch(SearchDirection)} for both forward and reverse
    *         searches.
    */
+  @Override
   public boolean useCustomizedTripSearch() {
     return isFrequencyBased;
   }
@@ -269,6 +300,15 @@ public class TripPatternForDates
   }
 
   public Accessibility wheelchairBoardingForTrip(int index) {
-    return wheelchairBoardings[index];
+    return times().wheelchairBoardings[index];
+  }
+
+  private TripPatternTimes times() {
+    var times = this.times;
+    if (times == null) {
+      materialize();
+      times = this.times;
+    }
+    return times;
   }
 }
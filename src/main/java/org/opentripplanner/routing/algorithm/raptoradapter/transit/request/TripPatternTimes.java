@@ -0,0 +1,62 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.transit.model.basic.Accessibility;
+
+/**
+ * The arrival and departure times and the wheelchair accessibility of all trips of a
+ * {@link TripPatternForDates}, in the arrays used by the Raptor trip search. The times are shifted
+ * by the offset of the service date of each trip. The arrays are immutable after they are created,
+ * so they may be shared by all {@link TripPatternForDates} with the same trips and offsets.
+ */
+final class TripPatternTimes {
+
+  /**
+   * The arrival times in a nStops * numberOfTripSchedules sized array. The trips are stored first
+   * by the stop position and then by trip index, so with stops 1 and 2, and trips A and B, the
+   * order is [1A, 1B, 2A, 2B]
+   */
+  final int[] arrivalTimes;
+
+  /**
+   * The arrival times in a nStops * numberOfTripSchedules sized array. The order is the same as in
+   * arrivalTimes.
+   */
+  final int[] departureTimes;
+
+  final Accessibility[] wheelchairBoardings;
+
+  private TripPatternTimes(
+    int[] arrivalTimes,
+    int[] departureTimes,
+    Accessibility[] wheelchairBoardings
+  ) {
+    this.arrivalTimes = arrivalTimes;
+    this.departureTimes = departureTimes;
+    this.wheelchairBoardings = wheelchairBoardings;
+  }
+
+  static TripPatternTimes create(
+    int nStops,
+    TripPatternForDate[] tripPatternForDates,
+    int[] offsets,
+    int numberOfTripSchedules
+  ) {
+    var wheelchairBoardings = new Accessibility[numberOfTripSchedules];
+    var arrivalTimes = new int[nStops * numberOfTripSchedules];
+    var departureTimes = new int[nStops * numberOfTripSchedules];
+    int i = 0;
+    for (int d = 0; d < tripPatternForDates.length; d++) {
+      int offset = offsets[d];
+      for (var trip : tripPatternForDates[d].tripTimes()) {
+        wheelchairBoardings[i] = trip.getWheelchairAccessibility();
+        for (int s = 0; s < nStops; s++) {
+          arrivalTimes[s * numberOfTripSchedules + i] = trip.getArrivalTime(s) + offset;
+          departureTimes[s * numberOfTripSchedules + i] = trip.getDepartureTime(s) + offset;
+        }
+        i++;
+      }
+    }
+    return new TripPatternTimes(arrivalTimes, departureTimes, wheelchairBoardings);
+  }
+}
@@ -0,0 +1,85 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+
+/**
+ * Share the {@link TripPatternTimes} between the {@link TripPatternForDates} with the same trips
+ * for the same dates. Requests with different transit filters get different instances of
+ * TripPatternForDates, but most patterns are not changed by the filter, and have the same
+ * {@link TripPatternForDate} instances.
+ * <p>
+ * The TripPatternForDate instances are compared by identity, they are immutable and replaced when
+ * the realtime data is updated. The values are weak references, so an entry is kept only as long
+ * as a TripPatternForDates uses the trip times.
+ */
+class TripPatternTimesCache {
+
+  private final Cache<Key, TripPatternTimes> cache = CacheBuilder.newBuilder().weakValues().build();
+
+  TripPatternTimes get(
+    TripPatternForDate[] tripPatternForDates,
+    int[] offsets,
+    Supplier<TripPatternTimes> create
+  ) {
+    try {
+      return cache.get(new Key(tripPatternForDates, offsets), create::get);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to get item from trip pattern times cache", e);
+    }
+  }
+
+  long size() {
+    cache.cleanUp();
+    return cache.size();
+  }
+
+  private static final class Key {
+
+    private final TripPatternForDate[] tripPatternForDates;
+    private final int[] offsets;
+    private final int hashCode;
+
+    private Key(TripPatternForDate[] tripPatternForDates, int[] offsets) {
+      this.tripPatternForDates = tripPatternForDates;
+      this.offsets = offsets;
+      int hash = Arrays.hashCode(offsets);
+      for (TripPatternForDate it : tripPatternForDates) {
+        hash = 31 * hash + System.identityHashCode(it);
+      }
+      this.hashCode = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key that)) {
+        return false;
+      }
+      if (
+        hashCode != that.hashCode ||
+        tripPatternForDates.length != that.tripPatternForDates.length ||
+        !Arrays.equals(offsets, that.offsets)
+      ) {
+        return false;
+      }
+      for (int i = 0; i < tripPatternForDates.length; i++) {
+        if (tripPatternForDates[i] != that.tripPatternForDates[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
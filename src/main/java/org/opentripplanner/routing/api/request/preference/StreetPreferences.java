@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
 import javax.annotation.Nonnull;
+import org.opentripplanner.astar.model.SearchQueueType;
 import org.opentripplanner.framework.lang.DoubleUtils;
 import org.opentripplanner.framework.tostring.ToStringBuilder;
 import org.opentripplanner.routing.api.request.StreetMode;
@@ -37,6 +38,7 @@ public final class StreetPreferences implements Serializable {
   private final DurationForEnum<StreetMode> maxAccessEgressDuration;
   private final DurationForEnum<StreetMode> maxDirectDuration;
   private final Duration routingTimeout;
+  private final SearchQueueType searchQueueType;
 
   private StreetPreferences() {
     this.turnReluctance = 1.0;
@@ -47,6 +49,7 @@ public final class StreetPreferences implements Serializable {
       DurationForEnum.of(StreetMode.class).withDefault(ofMinutes(45)).build();
     this.maxDirectDuration = DurationForEnum.of(StreetMode.class).withDefault(ofHours(4)).build();
     this.routingTimeout = Duration.ofSeconds(5);
+    this.searchQueueType = SearchQueueType.BINARY_HEAP;
   }
 
   private StreetPreferences(Builder builder) {
@@ -57,6 +60,7 @@ public final class StreetPreferences implements Serializable {
     this.maxDirectDuration = requireNonNull(builder.maxDirectDuration);
     this.maxAccessEgressDuration = requireNonNull(builder.maxAccessEgressDuration.build());
     this.routingTimeout = requireNonNull(builder.routingTimeout);
+    this.searchQueueType = requireNonNull(builder.searchQueueType);
   }
 
   public static Builder of() {
@@ -105,6 +109,11 @@ public final class StreetPreferences implements Serializable {
     return routingTimeout;
   }
 
+  /** The priority queue used by the direct street search. */
+  public SearchQueueType searchQueueType() {
+    return searchQueueType;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -115,6 +124,7 @@ public final class StreetPreferences implements Serializable {
       drivingDirection == that.drivingDirection &&
       elevator.equals(that.elevator) &&
       routingTimeout.equals(that.routingTimeout) &&
+      searchQueueType == that.searchQueueType &&
       intersectionTraversalModel == that.intersectionTraversalModel &&
       maxAccessEgressDuration.equals(that.maxAccessEgressDuration) &&
       maxDirectDuration.equals(that.maxDirectDuration)
@@ -128,6 +138,7 @@ public final class StreetPreferences implements Serializable {
       drivingDirection,
       elevator,
       routingTimeout,
+      searchQueueType,
       intersectionTraversalModel,
       maxAccessEgressDuration,
       maxDirectDuration
@@ -141,6 +152,7 @@ public final class StreetPreferences implements Serializable {
       .addNum("turnReluctance", turnReluctance, DEFAULT.turnReluctance)
       .addEnum("drivingDirection", drivingDirection, DEFAULT.drivingDirection)
       .addDuration("routingTimeout", routingTimeout, DEFAULT.routingTimeout())
+      .addEnum("searchQueueType", searchQueueType, DEFAULT.searchQueueType)
       .addObj("elevator", elevator, DEFAULT.elevator)
       .addObj(
         "intersectionTraversalModel",
@@ -162,6 +174,7 @@ public final class StreetPreferences implements Serializable {
     private DurationForEnum.Builder<StreetMode> maxAccessEgressDuration;
     private DurationForEnum<StreetMode> maxDirectDuration;
     private Duration routingTimeout;
+    private SearchQueueType searchQueueType;
 
     public Builder(StreetPreferences original) {
       this.original = original;
@@ -172,6 +185,7 @@ public final class StreetPreferences implements Serializable {
       this.maxAccessEgressDuration = original.maxAccessEgressDuration.copyOf();
       this.maxDirectDuration = original.maxDirectDuration;
       this.routingTimeout = original.routingTimeout;
+      this.searchQueueType = original.searchQueueType;
     }
 
     public StreetPreferences original() {
@@ -225,6 +239,11 @@ public final class StreetPreferences implements Serializable {
       return this;
     }
 
+    public Builder withSearchQueueType(SearchQueueType searchQueueType) {
+      this.searchQueueType = searchQueueType;
+      return this;
+    }
+
     public Builder apply(Consumer<Builder> body) {
       body.accept(this);
       return this;
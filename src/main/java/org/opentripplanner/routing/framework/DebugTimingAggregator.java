@@ -4,6 +4,7 @@ import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -35,6 +36,11 @@ public class DebugTimingAggregator {
   private final Timer egressTimer;
   private final DistributionSummary numAccessesDistribution;
   private final DistributionSummary numEgressesDistribution;
+  private final DistributionSummary numUsedTripPatternsDistribution;
+
+  private final DistributionSummary directStreetAllocatedBytesDistribution;
+  private final DistributionSummary accessAllocatedBytesDistribution;
+  private final DistributionSummary egressAllocatedBytesDistribution;
 
   private final Timer preCalculationTimer;
   private final Timer tripPatternFilterTimer;
@@ -51,6 +57,8 @@ public class DebugTimingAggregator {
   private final List<String> messages = new ArrayList<>();
   private Timer.Sample startedDirectStreetRouter;
   private long directStreetRouterTime;
+  private long startedDirectStreetAllocatedBytes = ThreadAllocationCounter.NOT_AVAILABLE;
+  private long directStreetAllocatedBytes = ThreadAllocationCounter.NOT_AVAILABLE;
   private Timer.Sample startedDirectFlexRouter;
   private long directFlexRouterTime;
   private Timer.Sample finishedPatternFiltering;
@@ -62,8 +70,13 @@ public class DebugTimingAggregator {
   private Timer.Sample startedEgressCalculating;
   private long accessTime;
   private long egressTime;
+  private long startedAccessAllocatedBytes = ThreadAllocationCounter.NOT_AVAILABLE;
+  private long startedEgressAllocatedBytes = ThreadAllocationCounter.NOT_AVAILABLE;
+  private long accessAllocatedBytes = ThreadAllocationCounter.NOT_AVAILABLE;
+  private long egressAllocatedBytes = ThreadAllocationCounter.NOT_AVAILABLE;
   private int numAccesses;
   private int numEgresses;
+  private int numUsedTripPatterns;
   private long precalculationTime;
   private Timer.Sample startedTransitRouterTime;
   private long tripPatternFilterTime;
@@ -101,6 +114,15 @@ public class DebugTimingAggregator {
       DistributionSummary.builder("routing.numEgress").tags(tags).register(registry);
     numAccessesDistribution =
       DistributionSummary.builder("routing.numAccess").tags(tags).register(registry);
+    numUsedTripPatternsDistribution =
+      DistributionSummary.builder("routing.numUsedTripPatterns").tags(tags).register(registry);
+
+    directStreetAllocatedBytesDistribution =
+      allocatedBytesDistribution("routing.directStreet.allocatedBytes", tags, registry);
+    accessAllocatedBytesDistribution =
+      allocatedBytesDistribution("routing.access.allocatedBytes", tags, registry);
+    egressAllocatedBytesDistribution =
+      allocatedBytesDistribution("routing.egress.allocatedBytes", tags, registry);
 
     egressTimer = Timer.builder("routing.egress").tags(tags).register(registry);
     accessTimer = Timer.builder("routing.access").tags(tags).register(registry);
@@ -126,6 +148,7 @@ public class DebugTimingAggregator {
   /** Record the time when starting the direct street router search. */
   public void startedDirectStreetRouter() {
     startedDirectStreetRouter = Timer.start(clock);
+    startedDirectStreetAllocatedBytes = ThreadAllocationCounter.currentThreadAllocatedBytes();
   }
 
   /** Record the time when we finished the direct street router search. */
@@ -134,6 +157,11 @@ public class DebugTimingAggregator {
       return;
     }
     directStreetRouterTime = startedDirectStreetRouter.stop(directStreetRouterTimer);
+    directStreetAllocatedBytes =
+      recordAllocatedBytes(
+        startedDirectStreetAllocatedBytes,
+        directStreetAllocatedBytesDistribution
+      );
   }
 
   /** Record the time when starting the direct flex router search. */
@@ -167,6 +195,7 @@ public class DebugTimingAggregator {
 
   public void startedAccessCalculating() {
     startedAccessCalculating = Timer.start(clock);
+    startedAccessAllocatedBytes = ThreadAllocationCounter.currentThreadAllocatedBytes();
   }
 
   public void finishedAccessCalculating() {
@@ -174,10 +203,13 @@ public class DebugTimingAggregator {
       return;
     }
     accessTime = startedAccessCalculating.stop(accessTimer);
+    accessAllocatedBytes =
+      recordAllocatedBytes(startedAccessAllocatedBytes, accessAllocatedBytesDistribution);
   }
 
   public void startedEgressCalculating() {
     startedEgressCalculating = Timer.start(clock);
+    startedEgressAllocatedBytes = ThreadAllocationCounter.currentThreadAllocatedBytes();
   }
 
   public void finishedEgressCalculating() {
@@ -185,6 +217,8 @@ public class DebugTimingAggregator {
       return;
     }
     egressTime = startedEgressCalculating.stop(egressTimer);
+    egressAllocatedBytes =
+      recordAllocatedBytes(startedEgressAllocatedBytes, egressAllocatedBytesDistribution);
   }
 
   /**
@@ -203,14 +237,17 @@ public class DebugTimingAggregator {
   }
 
   /**
-   * Record the time when we are finished with the raptor search.
+   * Record the time when we are finished with the raptor search, and the number of distinct trip
+   * patterns used by the search.
    */
-  public void finishedRaptorSearch() {
+  public void finishedRaptorSearch(int numUsedTripPatterns) {
     finishedRaptorSearch = Timer.start(clock);
     if (finishedAccessEgress == null) {
       return;
     }
     raptorSearchTime = finishedAccessEgress.stop(raptorSearchTimer);
+    this.numUsedTripPatterns = numUsedTripPatterns;
+    numUsedTripPatternsDistribution.record(numUsedTripPatterns);
   }
 
   /**
@@ -240,6 +277,7 @@ public class DebugTimingAggregator {
     finishedRouters = Timer.start(clock);
     if (directStreetRouterTime > 0) {
       log("├  Direct street routing", directStreetRouterTime);
+      logAllocatedBytes("│  Direct street routing", directStreetAllocatedBytes);
     }
     if (directFlexRouterTime > 0) {
       log("├  Direct flex routing", directFlexRouterTime);
@@ -249,8 +287,10 @@ public class DebugTimingAggregator {
       log("│┌ Creating raptor data model", tripPatternFilterTime);
       log("│├ Access routing (" + numAccesses + " accesses)", accessTime);
       log("│├ Egress routing (" + numEgresses + " egresses)", egressTime);
+      logAllocatedBytes("││ Access routing", accessAllocatedBytes);
+      logAllocatedBytes("││ Egress routing", egressAllocatedBytes);
       log("││ Access/Egress routing", accessEgressTime);
-      log("│├ Main routing", raptorSearchTime);
+      log("│├ Main routing (" + numUsedTripPatterns + " patterns)", raptorSearchTime);
       log("│├ Creating itineraries", itineraryCreationTime);
       log("├┴ Transit routing total", transitRouterTime);
     }
@@ -303,4 +343,31 @@ public class DebugTimingAggregator {
   private void log(String msg, long nanos) {
     messages.add(String.format("%-36s: %5s ms", msg, nanos / nanosToMillis));
   }
+
+  private void logAllocatedBytes(String msg, long bytes) {
+    if (bytes != ThreadAllocationCounter.NOT_AVAILABLE) {
+      messages.add(String.format("%-36s: %5s kB allocated", msg, bytes / 1024));
+    }
+  }
+
+  /**
+   * The allocation is measured on the current thread, so the start and finish methods must be
+   * called from the same thread. This is the case for the direct street search, and for the
+   * access and egress searches - also when they run in parallel.
+   */
+  private static long recordAllocatedBytes(long startValue, DistributionSummary summary) {
+    long bytes = ThreadAllocationCounter.allocatedBytesSince(startValue);
+    if (bytes != ThreadAllocationCounter.NOT_AVAILABLE) {
+      summary.record(bytes);
+    }
+    return bytes;
+  }
+
+  private static DistributionSummary allocatedBytesDistribution(
+    String name,
+    List<Tag> tags,
+    MeterRegistry registry
+  ) {
+    return DistributionSummary.builder(name).baseUnit("bytes").tags(tags).register(registry);
+  }
 }
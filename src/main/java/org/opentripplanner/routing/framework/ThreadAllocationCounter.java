@@ -0,0 +1,49 @@
+package org.opentripplanner.routing.framework;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the number of bytes allocated by the current thread, if the JVM supports it. Used to
+ * measure how much garbage the street searches produce for each request.
+ */
+final class ThreadAllocationCounter {
+
+  static final long NOT_AVAILABLE = -1;
+
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+  private ThreadAllocationCounter() {}
+
+  /**
+   * The total number of bytes allocated by the current thread, or {@link #NOT_AVAILABLE} if
+   * allocation measurement is not supported or turned off.
+   */
+  static long currentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN == null) {
+      return NOT_AVAILABLE;
+    }
+    return THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * The number of bytes allocated since the given start value, or {@link #NOT_AVAILABLE}.
+   */
+  static long allocatedBytesSince(long start) {
+    if (start == NOT_AVAILABLE) {
+      return NOT_AVAILABLE;
+    }
+    long now = currentThreadAllocatedBytes();
+    return now == NOT_AVAILABLE ? NOT_AVAILABLE : now - start;
+  }
+
+  private static com.sun.management.ThreadMXBean threadMXBean() {
+    if (
+      ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean &&
+      bean.isThreadAllocatedMemorySupported() &&
+      bean.isThreadAllocatedMemoryEnabled()
+    ) {
+      return bean;
+    }
+    return null;
+  }
+}
@@ -5,6 +5,7 @@ import jakarta.inject.Inject;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -21,13 +22,17 @@ import org.opentripplanner.ext.geocoder.LuceneIndex;
 import org.opentripplanner.framework.geometry.CompactElevationProfile;
 import org.opentripplanner.framework.geometry.GeometryUtils;
 import org.opentripplanner.model.calendar.openinghours.OpeningHoursCalendarService;
+import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.fares.FareService;
 import org.opentripplanner.routing.graph.index.StreetIndex;
 import org.opentripplanner.routing.linking.VertexLinker;
 import org.opentripplanner.routing.services.notes.StreetNotesService;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
+import org.opentripplanner.street.model.contraction.ContractionHierarchy;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.landmark.LandmarkTable;
+import org.opentripplanner.street.model.stopaccess.StopAccessTable;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.transit.model.framework.Deduplicator;
@@ -114,6 +119,28 @@ public class Graph implements Serializable {
   public DataOverlayParameterBindings dataOverlayParameterBindings;
   private LuceneIndex luceneIndex;
 
+  /**
+   * Street network distances to and from landmark vertices, used as a lower bound in the direct
+   * street search. Only created if enabled in the build config.
+   */
+  @Nullable
+  private LandmarkTable streetLandmarks;
+
+  /**
+   * A contraction hierarchy of the street network for the direct car search. Only created if
+   * enabled in the build config.
+   */
+  @Nullable
+  private ContractionHierarchy carContractionHierarchy;
+
+  /**
+   * Precomputed access and egress paths to and from the stops, by street mode. Only created if
+   * enabled in the build config.
+   */
+  private final Map<StreetMode, StopAccessTable> stopAccessTables = new EnumMap<>(
+    StreetMode.class
+  );
+
   @Inject
   public Graph(
     Deduplicator deduplicator,
@@ -267,8 +294,16 @@ public class Graph implements Serializable {
    *           - something that should go into the index; Hence, inconsistent data.
    */
   public void index(StopModel stopModel) {
+    index(stopModel, VertexLinker.DEFAULT_LINKING_CACHE_SIZE);
+  }
+
+  /**
+   * Same as {@link #index(StopModel)}, with the number of request coordinates to keep in the
+   * linking cache of the {@link VertexLinker}.
+   */
+  public void index(StopModel stopModel, int linkingCacheSize) {
     LOG.info("Index street model...");
-    streetIndex = new StreetIndex(this, stopModel);
+    streetIndex = new StreetIndex(this, stopModel, linkingCacheSize);
     LOG.info("Index street model complete.");
   }
 
@@ -365,6 +400,33 @@ public class Graph implements Serializable {
     this.luceneIndex = luceneIndex;
   }
 
+  @Nullable
+  public LandmarkTable getStreetLandmarks() {
+    return streetLandmarks;
+  }
+
+  public void setStreetLandmarks(@Nullable LandmarkTable streetLandmarks) {
+    this.streetLandmarks = streetLandmarks;
+  }
+
+  @Nullable
+  public ContractionHierarchy getCarContractionHierarchy() {
+    return carContractionHierarchy;
+  }
+
+  public void setCarContractionHierarchy(@Nullable ContractionHierarchy carContractionHierarchy) {
+    this.carContractionHierarchy = carContractionHierarchy;
+  }
+
+  @Nullable
+  public StopAccessTable getStopAccessTable(StreetMode mode) {
+    return stopAccessTables.get(mode);
+  }
+
+  public void addStopAccessTable(StopAccessTable table) {
+    stopAccessTables.put(table.mode(), table);
+  }
+
   private void indexIfNotIndexed(StopModel stopModel) {
     if (streetIndex == null) {
       index(stopModel);
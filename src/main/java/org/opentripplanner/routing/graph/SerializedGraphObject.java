@@ -15,6 +15,7 @@ import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.framework.application.OtpAppException;
@@ -28,6 +29,7 @@ import org.opentripplanner.routing.graph.kryosupport.KryoBuilder;
 import org.opentripplanner.service.worldenvelope.WorldEnvelopeRepository;
 import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.standalone.config.RouterConfig;
+import org.opentripplanner.standalone.server.StartupPhaseMetrics;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.transit.model.basic.SubMode;
@@ -75,6 +77,7 @@ public class SerializedGraphObject implements Serializable {
   public final DataImportIssueSummary issueSummary;
   private final int stopLocationCounter;
   private final int routingTripPatternCounter;
+  private final int vertexCounter;
 
   public SerializedGraphObject(
     Graph graph,
@@ -94,6 +97,7 @@ public class SerializedGraphObject implements Serializable {
     this.allTransitSubModes = SubMode.listAllCachedSubModes();
     this.stopLocationCounter = StopLocation.indexCounter();
     this.routingTripPatternCounter = RoutingTripPattern.indexCounter();
+    this.vertexCounter = Vertex.indexCounter();
   }
 
   public static void verifyTheOutputGraphIsWritableIfDataSourceExist(DataSource graphOutput) {
@@ -167,17 +171,32 @@ public class SerializedGraphObject implements Serializable {
       );
 
       Kryo kryo = KryoBuilder.create();
-      SerializedGraphObject serObj = (SerializedGraphObject) kryo.readClassAndObject(input);
+      SerializedGraphObject serObj = StartupPhaseMetrics.time(
+        "deserializeGraph",
+        () -> (SerializedGraphObject) kryo.readClassAndObject(input)
+      );
       SubMode.deserializeSubModeCache(serObj.allTransitSubModes);
       StopLocation.initIndexCounter(serObj.stopLocationCounter);
       RoutingTripPattern.initIndexCounter(serObj.routingTripPatternCounter);
+      Vertex.initIndexCounter(serObj.vertexCounter);
       CompactElevationProfile.setDistanceBetweenSamplesM(
         serObj.graph.getDistanceBetweenElevationSamples()
       );
       LOG.debug("Graph read.");
-      serObj.reconstructEdgeLists();
-      serObj.transitModel.getStopModel().reindexAfterDeserialization();
-      serObj.transitModel.index();
+
+      // The street edge lists and the transit indexes are independent, build them in parallel
+      var edgeLists = CompletableFuture.runAsync(() ->
+        StartupPhaseMetrics.time("reconstructEdgeLists", serObj::reconstructEdgeLists)
+      );
+      StartupPhaseMetrics.time(
+        "indexTransitModel",
+        () -> {
+          serObj.transitModel.getStopModel().reindexAfterDeserialization();
+          serObj.transitModel.index();
+        }
+      );
+      edgeLists.join();
+
       logSerializationCompleteStatus(serObj.graph, serObj.transitModel);
       return serObj;
     } catch (IOException e) {
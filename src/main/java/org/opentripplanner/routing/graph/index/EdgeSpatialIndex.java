@@ -1,9 +1,12 @@
 package org.opentripplanner.routing.graph.index;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.framework.geometry.HashGridSpatialIndex;
+import org.opentripplanner.framework.geometry.PackedGridSpatialIndex;
 import org.opentripplanner.routing.linking.Scope;
 import org.opentripplanner.street.model.edge.Edge;
 
@@ -14,6 +17,10 @@ import org.opentripplanner.street.model.edge.Edge;
  * the permanent index and inserts into the realtime index REQUEST: Looks at both the permanent and
  * realtime indexes and does not insert into any index
  * <p>
+ * The permanent edges are kept in a {@link PackedGridSpatialIndex} created with the index, and a
+ * small mutable overlay for permanent edges added later. Removing a packed edge only marks it as
+ * removed, the packed index is rebuilt the next time the street index is created.
+ * <p>
  * NOTES ON CONCURRENCY: It is possible that an A Star search would find an edge in the
  * realTimeIndex which is then removed before the actual routing starts. This could result in a
  * NullPointerException on the from/to vertex of the Edge being routed on. This happens seldom
@@ -32,10 +39,28 @@ import org.opentripplanner.street.model.edge.Edge;
  */
 public class EdgeSpatialIndex {
 
+  /**
+   * The edges in the graph when the index is created. This is the bulk of the edges, it is packed
+   * for fast queries.
+   */
+  private final PackedGridSpatialIndex<Edge> packedEdgeIndex;
+
+  /** Permanent edges added after the index is created, e.g. by linking during graph build. */
   private final HashGridSpatialIndex<Edge> permanentEdgeIndex = new HashGridSpatialIndex<>();
 
+  /** Edges removed from the packed index, e.g. street edges split by linking during graph build */
+  private final Set<Edge> removedEdges = ConcurrentHashMap.newKeySet();
+
   private final HashGridSpatialIndex<Edge> realTimeEdgeIndex = new HashGridSpatialIndex<>();
 
+  /**
+   * @param packedEdgeIndex The permanent edges, the edges can later be removed and new permanent
+   *                        edges added.
+   */
+  public EdgeSpatialIndex(PackedGridSpatialIndex<Edge> packedEdgeIndex) {
+    this.packedEdgeIndex = packedEdgeIndex;
+  }
+
   public void insert(LineString lineString, Object obj, Scope scope) {
     switch (scope) {
       case PERMANENT -> permanentEdgeIndex.insert(lineString, obj);
@@ -46,7 +71,11 @@ public class EdgeSpatialIndex {
 
   public void remove(Envelope envelope, final Object item, Scope scope) {
     switch (scope) {
-      case PERMANENT -> permanentEdgeIndex.remove(envelope, item);
+      case PERMANENT -> {
+        if (!permanentEdgeIndex.remove(envelope, item)) {
+          removedEdges.add((Edge) item);
+        }
+      }
       case REALTIME -> realTimeEdgeIndex.remove(envelope, item);
       case REQUEST -> throw new IllegalArgumentException();
     }
@@ -54,9 +83,9 @@ public class EdgeSpatialIndex {
 
   public final Stream<Edge> query(Envelope envelope, Scope scope) {
     return switch (scope) {
-      case PERMANENT, REALTIME -> permanentEdgeIndex.query(envelope).stream();
+      case PERMANENT, REALTIME -> queryPermanent(envelope);
       case REQUEST -> Stream.concat(
-        permanentEdgeIndex.query(envelope).stream(),
+        queryPermanent(envelope),
         realTimeEdgeIndex.query(envelope).stream()
       );
     };
@@ -65,4 +94,17 @@ public class EdgeSpatialIndex {
   public void compact() {
     permanentEdgeIndex.compact();
   }
+
+  @Override
+  public String toString() {
+    return packedEdgeIndex + ", " + permanentEdgeIndex;
+  }
+
+  private Stream<Edge> queryPermanent(Envelope envelope) {
+    var packed = packedEdgeIndex.query(envelope).stream();
+    if (!removedEdges.isEmpty()) {
+      packed = packed.filter(e -> !removedEdges.contains(e));
+    }
+    return Stream.concat(packed, permanentEdgeIndex.query(envelope).stream());
+  }
 }
@@ -11,13 +11,12 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.framework.geometry.GeometryUtils;
-import org.opentripplanner.framework.geometry.HashGridSpatialIndex;
+import org.opentripplanner.framework.geometry.PackedGridSpatialIndex;
 import org.opentripplanner.framework.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.framework.geometry.SplitLineString;
 import org.opentripplanner.framework.i18n.I18NString;
 import org.opentripplanner.framework.i18n.LocalizedString;
 import org.opentripplanner.framework.i18n.NonLocalizedString;
-import org.opentripplanner.framework.logging.ProgressTracker;
 import org.opentripplanner.model.GenericLocation;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.graph.Graph;
@@ -60,18 +59,29 @@ public class StreetIndex {
   private final Map<FeedScopedId, TransitStopVertex> transitStopVertices;
 
   private final EdgeSpatialIndex edgeSpatialIndex;
-  private final HashGridSpatialIndex<Vertex> verticesTree;
+  private final PackedGridSpatialIndex<Vertex> verticesTree;
 
   /**
    * Should only be called by the graph.
    */
-  public StreetIndex(Graph graph, StopModel stopModel) {
+  public StreetIndex(Graph graph, StopModel stopModel, int linkingCacheSize) {
     this.stopModel = stopModel;
-    this.edgeSpatialIndex = new EdgeSpatialIndex();
-    this.verticesTree = new HashGridSpatialIndex<>();
-    this.vertexLinker = new VertexLinker(graph, stopModel, edgeSpatialIndex);
+
+    var vertices = List.copyOf(graph.getVertices());
+    LOG.info("Index {} street vertices...", vertices.size());
+    this.verticesTree =
+      PackedGridSpatialIndex.ofEnvelopes(vertices, v -> new Envelope(v.getCoordinate()));
+    this.edgeSpatialIndex =
+      new EdgeSpatialIndex(
+        PackedGridSpatialIndex.ofLineStrings(
+          vertices.stream().flatMap(v -> v.getOutgoing().stream()).toList(),
+          StreetIndex::edgeGeometryOrStraightLine
+        )
+      );
+    LOG.info("Index street vertices complete.");
+
+    this.vertexLinker = new VertexLinker(graph, stopModel, edgeSpatialIndex, linkingCacheSize);
     this.transitStopVertices = toImmutableMap(graph.getVerticesOfType(TransitStopVertex.class));
-    postSetup(graph.getVertices());
   }
 
   /**
@@ -355,7 +365,8 @@ public class StreetIndex {
       UUID.randomUUID().toString(),
       location.getCoordinate(),
       name,
-      endVertex
+      endVertex,
+      true
     );
 
     TraverseMode nonTransitMode = getTraverseModeForLinker(streetMode, endVertex);
@@ -396,28 +407,6 @@ public class StreetIndex {
     return nonTransitMode;
   }
 
-  private void postSetup(Collection<Vertex> vertices) {
-    var progress = ProgressTracker.track("Index street vertex", 1000, vertices.size());
-    LOG.info(progress.startMessage());
-
-    for (Vertex gv : vertices) {
-      for (Edge e : gv.getOutgoing()) {
-        LineString geometry = edgeGeometryOrStraightLine(e);
-        edgeSpatialIndex.insert(geometry, e, Scope.PERMANENT);
-      }
-      Envelope env = new Envelope(gv.getCoordinate());
-      verticesTree.insert(env, gv);
-
-      //noinspection Convert2MethodRef
-      progress.step(m -> LOG.info(m));
-    }
-
-    // Trim the sizes of the indices
-    edgeSpatialIndex.compact();
-    verticesTree.compact();
-    LOG.info(progress.completeMessage());
-  }
-
   private static Map<FeedScopedId, TransitStopVertex> toImmutableMap(
     Collection<TransitStopVertex> vertices
   ) {
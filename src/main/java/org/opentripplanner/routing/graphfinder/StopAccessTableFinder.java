@@ -0,0 +1,192 @@
+package org.opentripplanner.routing.graphfinder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.opentripplanner.astar.spi.SkipEdgeStrategy;
+import org.opentripplanner.astar.strategy.ComposingSkipEdgeStrategy;
+import org.opentripplanner.astar.strategy.DurationSkipEdgeStrategy;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.stopaccess.StopAccessTable;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.StreetSearchBuilder;
+import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.street.search.strategy.DominanceFunctions;
+
+/**
+ * Find the access or egress stops of a request using the paths of a {@link StopAccessTable},
+ * instead of searching the street network up to the max access/egress duration.
+ * <p>
+ * The origin of the search is usually a set of temporary vertices, which are not in the table. A
+ * short street search through the temporary vertices finds the vertices in the table they are
+ * connected to (the entry vertices). The stops reachable from each entry vertex are read from the
+ * table, and the path to each stop is created by traversing the next edges of the table, starting
+ * with the state of the entry vertex. The paths from the same entry vertex share the states of the
+ * edges they have in common from the entry vertex, so each of these edges is traversed only once.
+ * Two paths may pass the same vertex after reaching it through different edges, e.g. because of
+ * the turn costs. The states are then not shared, the state of a vertex depends on the path to it.
+ * <p>
+ * The stops are the same as the street search would find, except that the turn from the local
+ * search onto the path in the table is not part of the lowest cost comparison. The states of the
+ * paths are created by traversing the edges with the request, so the durations and costs are exact.
+ */
+public class StopAccessTableFinder {
+
+  /** Guard against following the next edges around a loop of zero weight edges */
+  private static final int MAX_PATH_LENGTH = 10_000;
+
+  private final StopAccessTable table;
+  private final Duration durationLimit;
+
+  public StopAccessTableFinder(StopAccessTable table, Duration durationLimit) {
+    this.table = table;
+    this.durationLimit = durationLimit;
+  }
+
+  /**
+   * @param reverseDirection if true the paths returned originate at the stops and have the
+   *                         origin vertices as the destination
+   * @return the stops within the duration limit, not including the origin vertices, or
+   * {@code null} if a path in the table can not be traversed. The street search should be used in
+   * that case.
+   */
+  @Nullable
+  public List<NearbyStop> findNearbyStops(
+    Set<Vertex> originVertices,
+    boolean reverseDirection,
+    RouteRequest request,
+    StreetRequest streetRequest
+  ) {
+    var paths = table.paths(reverseDirection);
+    var candidates = new HashMap<Integer, Candidate>();
+
+    for (State entry : findEntryStates(originVertices, reverseDirection, request, streetRequest)) {
+      Vertex vertex = entry.getVertex();
+      for (int i = paths.start(vertex); i < paths.end(vertex); ++i) {
+        if (entry.getElapsedTimeSeconds() + paths.durationSeconds(i) > durationLimit.toSeconds()) {
+          continue;
+        }
+        var candidate = new Candidate(entry, entry.getWeight() + paths.weight(i));
+        candidates.merge(paths.stop(i), candidate, (a, b) -> a.weight <= b.weight ? a : b);
+      }
+    }
+
+    var stopsFound = new ArrayList<NearbyStop>();
+    Map<Step, State> states = new HashMap<>();
+    for (var it : candidates.entrySet()) {
+      var stopVertex = table.stop(it.getKey());
+      if (originVertices.contains(stopVertex)) {
+        continue;
+      }
+      State state = traverse(paths, it.getKey(), it.getValue().entry, states, reverseDirection);
+      if (state == null) {
+        return null;
+      }
+      State previous = state.getBackState();
+      if (
+        state.isFinal() &&
+        (previous == null || previous.getElapsedTimeSeconds() <= durationLimit.toSeconds())
+      ) {
+        stopsFound.add(NearbyStop.nearbyStopForState(state, stopVertex.getStop()));
+      }
+    }
+    return stopsFound;
+  }
+
+  /**
+   * Search from the origin until the vertices in the table are reached, and return the lowest
+   * cost final state of each of them.
+   */
+  private List<State> findEntryStates(
+    Set<Vertex> originVertices,
+    boolean reverseDirection,
+    RouteRequest request,
+    StreetRequest streetRequest
+  ) {
+    var paths = table.paths(reverseDirection);
+    SkipEdgeStrategy<State, Edge> durationLimitReached = new DurationSkipEdgeStrategy<>(
+      durationLimit
+    );
+    SkipEdgeStrategy<State, Edge> stopAtEntryVertices = (current, edge) ->
+      paths.contains(current.getVertex());
+
+    var spt = StreetSearchBuilder
+      .of()
+      .setSkipEdgeStrategy(
+        new ComposingSkipEdgeStrategy<>(durationLimitReached, stopAtEntryVertices)
+      )
+      .setDominanceFunction(new DominanceFunctions.MinimumWeight())
+      .setRequest(request)
+      .setArriveBy(reverseDirection)
+      .setStreetRequest(streetRequest)
+      .setFrom(reverseDirection ? null : originVertices)
+      .setTo(reverseDirection ? originVertices : null)
+      .getShortestPathTree();
+
+    Map<Vertex, State> best = new HashMap<>();
+    for (State state : spt.getAllStates()) {
+      if (state.isFinal() && paths.contains(state.getVertex())) {
+        best.merge(state.getVertex(), state, (a, b) -> a.getWeight() <= b.getWeight() ? a : b);
+      }
+    }
+    return List.copyOf(best.values());
+  }
+
+  /**
+   * Follow the next edges of the table from the entry vertex to the stop, and traverse the edges.
+   * An edge already traversed from the same state is not traversed again.
+   *
+   * @param states the known result of traversing an edge from a state
+   * @return the state at the stop, or {@code null} if an edge can not be traversed
+   */
+  @Nullable
+  private static State traverse(
+    StopAccessTable.Paths paths,
+    int stop,
+    State entry,
+    Map<Step, State> states,
+    boolean reverseDirection
+  ) {
+    var edges = new ArrayList<Edge>();
+    Vertex vertex = entry.getVertex();
+
+    while (true) {
+      int i = paths.find(vertex, stop);
+      if (i == -1 || edges.size() > MAX_PATH_LENGTH) {
+        return null;
+      }
+      Edge edge = paths.nextEdge(i);
+      if (edge == null) {
+        break;
+      }
+      edges.add(edge);
+      vertex = reverseDirection ? edge.getFromVertex() : edge.getToVertex();
+    }
+
+    State state = entry;
+    for (Edge edge : edges) {
+      var step = new Step(state, edge);
+      State next = states.get(step);
+      if (next == null) {
+        next = edge.traverse(state);
+        if (next == null) {
+          return null;
+        }
+        states.put(step, next);
+      }
+      state = next;
+    }
+    return state;
+  }
+
+  private record Candidate(State entry, double weight) {}
+
+  /** Traversing an edge from a state, the states are compared by identity */
+  private record Step(State state, Edge edge) {}
+}
@@ -0,0 +1,248 @@
+package org.opentripplanner.routing.impl;
+
+import gnu.trove.map.TIntDoubleMap;
+import gnu.trove.map.hash.TIntDoubleHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.opentripplanner.astar.model.BinHeap;
+import org.opentripplanner.astar.model.GraphPath;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.street.model.contraction.ContractionHierarchy;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TraverseMode;
+import org.opentripplanner.street.search.intersection_model.IntersectionTraversalCalculator;
+import org.opentripplanner.street.search.request.StreetSearchRequestMapper;
+import org.opentripplanner.street.search.state.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Find the direct car path between two sets of vertices using the {@link ContractionHierarchy} of
+ * the graph, instead of an A* search.
+ * <p>
+ * The origin and destination are usually temporary vertices, which are not in the hierarchy. A
+ * small Dijkstra search through the temporary vertices finds the vertices in the hierarchy they
+ * are connected to, and the costs of reaching them. The path through the hierarchy is then
+ * traversed edge by edge, with the same request as the A* search would use, to create the states
+ * of the path. If the traversal fails, e.g. because of a time dependent turn restriction, no path
+ * is returned and the caller should fall back to the A* search.
+ */
+public class ContractionHierarchyPathFinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ContractionHierarchyPathFinder.class);
+
+  /**
+   * The maximum number of vertices visited while searching for the vertices in the hierarchy
+   * connected to the origin or destination.
+   */
+  private static final int MAX_LINK_VERTICES = 1000;
+
+  private final ContractionHierarchy hierarchy;
+
+  public ContractionHierarchyPathFinder(ContractionHierarchy hierarchy) {
+    this.hierarchy = hierarchy;
+  }
+
+  /**
+   * @return {@code true} if the hierarchy can be used for the direct street search of the request.
+   * Only plain car requests with the same cost parameters as the hierarchy was built with are
+   * supported.
+   */
+  public boolean canRoute(RouteRequest request) {
+    return (
+      request.journey().direct().mode() == StreetMode.CAR &&
+      hierarchy.isCompatible(request.preferences())
+    );
+  }
+
+  /**
+   * @return the lowest cost path, or {@code null} if no valid path is found in the hierarchy. The
+   * A* search should be used in that case, it may still find a path e.g. through a
+   * no-through-traffic area or a street added after the hierarchy was built.
+   */
+  @Nullable
+  public GraphPath<State, Edge, Vertex> findPath(
+    RouteRequest request,
+    Set<Vertex> from,
+    Set<Vertex> to
+  ) {
+    var forward = new Link(from, false);
+    var backward = new Link(to, true);
+    if (forward.reachesTarget(to) || forward.entries.isEmpty() || backward.entries.isEmpty()) {
+      // Very short trips, which do not enter the hierarchy, are left to the A* search
+      return null;
+    }
+
+    TIntDoubleMap sources = new TIntDoubleHashMap();
+    forward.entries.forEach((vertex, cost) -> {
+      for (int node : hierarchy.nodesLeaving(vertex)) {
+        double c = cost + hierarchy.cost(node);
+        if (!sources.containsKey(node) || c < sources.get(node)) {
+          sources.put(node, c);
+        }
+      }
+    });
+    TIntDoubleMap targets = new TIntDoubleHashMap();
+    backward.entries.forEach((vertex, cost) -> {
+      for (int node : hierarchy.nodesEntering(vertex)) {
+        if (!targets.containsKey(node) || cost < targets.get(node)) {
+          targets.put(node, cost);
+        }
+      }
+    });
+
+    var path = hierarchy.shortestPath(sources, targets);
+    if (path == null) {
+      return null;
+    }
+
+    int[] nodes = path.nodes();
+    for (int node : nodes) {
+      StreetEdge edge = hierarchy.edge(node);
+      if (!isInGraph(edge)) {
+        LOG.debug("The edge {} is removed from the graph after the hierarchy was built", edge);
+        return null;
+      }
+    }
+    var edges = new ArrayList<>(forward.edgesTo(hierarchy.edge(nodes[0]).getFromVertex()));
+    for (int node : nodes) {
+      edges.add(hierarchy.edge(node));
+    }
+    edges.addAll(backward.edgesTo(hierarchy.edge(nodes[nodes.length - 1]).getToVertex()));
+
+    return traverse(request, edges);
+  }
+
+  /**
+   * {@link Edge#remove()} disconnects the edge from its vertices, the edge is then no longer in the
+   * graph.
+   */
+  private static boolean isInGraph(StreetEdge edge) {
+    var to = edge.getToVertex();
+    return to != null && edge.getFromVertex() != null && to.getIncoming().contains(edge);
+  }
+
+  /**
+   * Traverse the edges with the same request as the A* search, in reverse for arrive-by requests.
+   */
+  @Nullable
+  private static GraphPath<State, Edge, Vertex> traverse(RouteRequest request, List<Edge> edges) {
+    var preferences = request.preferences().street();
+    var streetSearchRequest = StreetSearchRequestMapper
+      .map(request)
+      .withMode(request.journey().direct().mode())
+      .withArriveBy(request.arriveBy())
+      .build();
+    streetSearchRequest.setIntersectionTraversalCalculator(
+      IntersectionTraversalCalculator.create(
+        preferences.intersectionTraversalModel(),
+        preferences.drivingDirection()
+      )
+    );
+
+    boolean arriveBy = request.arriveBy();
+    Vertex origin = arriveBy
+      ? edges.get(edges.size() - 1).getToVertex()
+      : edges.get(0).getFromVertex();
+    // A car search has a single initial state
+    var state = State.getInitialStates(Set.of(origin), streetSearchRequest).iterator().next();
+    long maxDuration = preferences.maxDirectDuration().valueOf(StreetMode.CAR).toSeconds();
+
+    for (int i = 0; i < edges.size(); ++i) {
+      Edge edge = edges.get(arriveBy ? edges.size() - 1 - i : i);
+      state = edge.traverse(state);
+      if (state == null || state.getElapsedTimeSeconds() > maxDuration) {
+        return null;
+      }
+    }
+    return new GraphPath<>(state);
+  }
+
+  /**
+   * A Dijkstra search from the origin (or to the destination, in reverse) through the vertices
+   * not in the hierarchy, e.g. the temporary vertices of the request. It stops at the vertices in
+   * the hierarchy.
+   */
+  private class Link {
+
+    private final boolean reverse;
+
+    /** The vertices in the hierarchy reached, and the cost of reaching them */
+    private final Map<Vertex, Double> entries = new HashMap<>();
+    private final Map<Vertex, Double> costs = new HashMap<>();
+    private final Map<Vertex, Edge> backEdges = new HashMap<>();
+
+    Link(Set<Vertex> start, boolean reverse) {
+      this.reverse = reverse;
+
+      var queue = new BinHeap<Vertex>();
+      for (Vertex v : start) {
+        costs.put(v, 0.0);
+        queue.insert(v, 0);
+      }
+      while (!queue.empty() && costs.size() <= MAX_LINK_VERTICES) {
+        double cost = queue.peek_min_key();
+        Vertex v = queue.extract_min();
+        if (cost > costs.get(v)) {
+          continue;
+        }
+        if (hierarchy.contains(v)) {
+          entries.put(v, cost);
+          continue;
+        }
+        for (Edge e : reverse ? v.getIncoming() : v.getOutgoing()) {
+          Vertex next = reverse ? e.getFromVertex() : e.getToVertex();
+          double c = cost + cost(e);
+          if (c < costs.getOrDefault(next, Double.POSITIVE_INFINITY)) {
+            costs.put(next, c);
+            backEdges.put(next, e);
+            queue.insert(next, c);
+          }
+        }
+      }
+    }
+
+    /**
+     * The edges are street edges driven by car, and free edges to and from the temporary
+     * locations. The same cost as for the nodes in the hierarchy is used.
+     */
+    private double cost(Edge e) {
+      if (e instanceof StreetEdge se) {
+        return se.canTraverse(TraverseMode.CAR) && se.getCarSpeed() > 0
+          ? hierarchy.cost(se)
+          : Double.POSITIVE_INFINITY;
+      }
+      return 0;
+    }
+
+    boolean reachesTarget(Set<Vertex> targets) {
+      return targets.stream().anyMatch(costs::containsKey);
+    }
+
+    /**
+     * The edges from the start to the vertex, or from the vertex to the start in reverse, in the
+     * order they are traversed in a depart-after search.
+     */
+    List<Edge> edgesTo(Vertex vertex) {
+      var edges = new LinkedList<Edge>();
+      for (Edge e = backEdges.get(vertex); e != null; e = backEdges.get(vertex)) {
+        if (reverse) {
+          edges.addLast(e);
+          vertex = e.getToVertex();
+        } else {
+          edges.addFirst(e);
+          vertex = e.getFromVertex();
+        }
+      }
+      return edges;
+    }
+  }
+}
@@ -37,6 +37,13 @@ public class DisposableEdgeCollection {
    * Removes all the edges in this collection from the graph.
    */
   public void disposeEdges() {
+    if (scope == Scope.REQUEST) {
+      // The edges of a request are only stored on the temporary vertices of the request, so the
+      // graph is not touched.
+      edges.forEach(Edge::remove);
+      edges.clear();
+      return;
+    }
     if (scope == Scope.REALTIME) {
       for (Edge e : edges) {
         graph.getLinker().removeEdgeFromIndex(e, scope);
@@ -1,29 +1,45 @@
 package org.opentripplanner.routing.linking;
 
 import java.util.HashSet;
+import java.util.Set;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Point;
 import org.opentripplanner.framework.geometry.GeometryUtils;
 import org.opentripplanner.street.model.StreetTraversalPermission;
 import org.opentripplanner.street.model.edge.StreetEdge;
 import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.transit.model.site.AreaStop;
 import org.opentripplanner.transit.service.StopModel;
 
 class FlexLocationAdder {
 
-  static void addFlexLocations(StreetEdge edge, IntersectionVertex v0, StopModel stopModel) {
-    if (edge.getPermission().allows(StreetTraversalPermission.PEDESTRIAN_AND_CAR)) {
-      Point p = GeometryUtils.getGeometryFactory().createPoint(v0.getCoordinate());
-      Envelope env = p.getEnvelopeInternal();
-      for (AreaStop location : stopModel.queryLocationIndex(env)) {
-        if (!location.getGeometry().disjoint(p)) {
-          if (v0.areaStops == null) {
-            v0.areaStops = new HashSet<>();
-          }
-          v0.areaStops.add(location);
-        }
+  /**
+   * Find the flex locations containing the vertex, if the edge it is linked to allows both walking
+   * and driving.
+   */
+  static Set<AreaStop> findFlexLocations(StreetEdge edge, Vertex v0, StopModel stopModel) {
+    if (!edge.getPermission().allows(StreetTraversalPermission.PEDESTRIAN_AND_CAR)) {
+      return Set.of();
+    }
+    Point p = GeometryUtils.getGeometryFactory().createPoint(v0.getCoordinate());
+    Envelope env = p.getEnvelopeInternal();
+    Set<AreaStop> locations = new HashSet<>();
+    for (AreaStop location : stopModel.queryLocationIndex(env)) {
+      if (!location.getGeometry().disjoint(p)) {
+        locations.add(location);
       }
     }
+    return locations;
+  }
+
+  static void addFlexLocations(IntersectionVertex v0, Set<AreaStop> locations) {
+    if (locations.isEmpty()) {
+      return;
+    }
+    if (v0.areaStops == null) {
+      v0.areaStops = new HashSet<>();
+    }
+    v0.areaStops.addAll(locations);
   }
 }
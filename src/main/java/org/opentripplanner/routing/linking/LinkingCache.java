@@ -0,0 +1,187 @@
+package org.opentripplanner.routing.linking;
+
+import static com.google.common.cache.RemovalCause.REPLACED;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.linearref.LinearLocation;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.search.TraverseModeSet;
+
+/**
+ * Cache the street edges, and the location on each edge, found when linking the origin and
+ * destination of a routing request. Clients often send the same coordinates again and again, e.g.
+ * popular addresses and stops, and with the cache the temporary vertices can be created without
+ * searching the spatial index or projecting the coordinate onto the nearby edges.
+ * <p>
+ * The coordinates are rounded to about a meter, so the split point may be up to a meter away from
+ * the point the street would be split at without the cache. The entries linking to an edge must
+ * be invalidated when the edge is split or removed from the spatial index, see
+ * {@link #invalidate(StreetEdge)}. The cache keeps an index from each edge to the entries linking
+ * to it, so invalidating an edge does not scan the cache.
+ * <p>
+ * The edges are searched for outside the cache, and an edge may be invalidated while a search is
+ * running. To avoid caching the result of such a search, the caller reads the {@link #version()}
+ * before searching and passes it to {@link #put}; The result is not cached if an edge was
+ * invalidated in the meantime.
+ */
+public class LinkingCache {
+
+  /** The coordinates are rounded to 1e-5 degrees, about a meter */
+  private static final double RESOLUTION_DEG = 1e-5;
+
+  private final Cache<Key, List<EdgeLocation>> cache;
+
+  /** The keys of the entries linking to each edge, the sets are only modified inside compute */
+  private final Map<StreetEdge, Set<Key>> keysByEdge = new ConcurrentHashMap<>();
+
+  /** Incremented each time an edge is invalidated */
+  private final AtomicLong version = new AtomicLong();
+
+  public LinkingCache(int maximumSize) {
+    // The cache statistics (hits, misses and evictions) are published by MetricsLogging
+    this.cache =
+      CacheBuilder
+        .newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .removalListener(this::unindex)
+        .build();
+  }
+
+  public Cache<?, ?> getCache() {
+    return cache;
+  }
+
+  /**
+   * @return the edges to link the coordinate to, or {@code null} if the coordinate is not cached,
+   * or one of the edges is removed from the graph.
+   */
+  @Nullable
+  List<EdgeLocation> get(
+    Coordinate coordinate,
+    TraverseModeSet traverseModes,
+    LinkingDirection direction
+  ) {
+    var key = Key.of(coordinate, traverseModes, direction);
+    var edges = cache.getIfPresent(key);
+    if (edges != null && !edges.stream().allMatch(it -> isInGraph(it.edge()))) {
+      cache.invalidate(key);
+      return null;
+    }
+    return edges;
+  }
+
+  /**
+   * The current version of the cache, read it before searching for the edges to put in the cache.
+   */
+  long version() {
+    return version.get();
+  }
+
+  /**
+   * Cache the edges found for the coordinate, unless an edge is invalidated after the given
+   * {@code version} was read.
+   */
+  void put(
+    Coordinate coordinate,
+    TraverseModeSet traverseModes,
+    LinkingDirection direction,
+    List<EdgeLocation> edges,
+    long version
+  ) {
+    if (version != this.version.get()) {
+      return;
+    }
+    var key = Key.of(coordinate, traverseModes, direction);
+    cache.put(key, List.copyOf(edges));
+    for (EdgeLocation it : edges) {
+      keysByEdge.compute(
+        it.edge(),
+        (edge, keys) -> {
+          keys = keys == null ? new HashSet<>() : keys;
+          keys.add(key);
+          return keys;
+        }
+      );
+    }
+    // An edge may be invalidated after the version check, before the key is indexed
+    if (version != this.version.get()) {
+      cache.invalidate(key);
+    }
+  }
+
+  /**
+   * Remove all coordinates linking to the given edge. Call this when the edge is split or removed
+   * from the spatial index.
+   */
+  void invalidate(StreetEdge edge) {
+    version.incrementAndGet();
+    var keys = keysByEdge.remove(edge);
+    if (keys != null) {
+      cache.invalidateAll(keys);
+    }
+  }
+
+  /**
+   * Remove an evicted or invalidated entry from the edge index. The notification may be delivered
+   * after the key is put in the cache again, so the key is kept for the edges it still links to.
+   * A replaced entry is left in the index, an edge which is no longer linked to only causes an
+   * unnecessary invalidation of the key.
+   */
+  private void unindex(RemovalNotification<Key, List<EdgeLocation>> notification) {
+    var key = notification.getKey();
+    if (key == null || notification.getValue() == null || notification.getCause() == REPLACED) {
+      return;
+    }
+    // Read the cache outside compute, the cache may deliver notifications when it is read
+    var current = cache.asMap().get(key);
+    for (EdgeLocation it : notification.getValue()) {
+      if (current != null && current.stream().anyMatch(l -> l.edge() == it.edge())) {
+        continue;
+      }
+      keysByEdge.computeIfPresent(
+        it.edge(),
+        (edge, keys) -> {
+          keys.remove(key);
+          return keys.isEmpty() ? null : keys;
+        }
+      );
+    }
+  }
+
+  /**
+   * {@link StreetEdge#remove()} disconnects the edge from its vertices, the edge is then no longer
+   * in the graph.
+   */
+  private static boolean isInGraph(StreetEdge edge) {
+    var to = edge.getToVertex();
+    return to != null && edge.getFromVertex() != null && to.getIncoming().contains(edge);
+  }
+
+  /**
+   * A street edge and the location on the edge geometry closest to the linked coordinate.
+   */
+  record EdgeLocation(StreetEdge edge, LinearLocation location) {}
+
+  private record Key(long x, long y, TraverseModeSet traverseModes, LinkingDirection direction) {
+    static Key of(Coordinate c, TraverseModeSet traverseModes, LinkingDirection direction) {
+      // The mode set is mutable, so a copy is used as key
+      return new Key(
+        Math.round(c.x / RESOLUTION_DEG),
+        Math.round(c.y / RESOLUTION_DEG),
+        traverseModes.clone(),
+        direction
+      );
+    }
+  }
+}
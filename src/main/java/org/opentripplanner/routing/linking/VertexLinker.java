@@ -1,10 +1,13 @@
 package org.opentripplanner.routing.linking;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import org.locationtech.jts.geom.Coordinate;
@@ -24,15 +27,18 @@ import org.opentripplanner.routing.graph.index.EdgeSpatialIndex;
 import org.opentripplanner.street.model.edge.AreaEdge;
 import org.opentripplanner.street.model.edge.AreaEdgeList;
 import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.FreeEdge;
 import org.opentripplanner.street.model.edge.NamedArea;
 import org.opentripplanner.street.model.edge.StreetEdge;
 import org.opentripplanner.street.model.vertex.IntersectionVertex;
 import org.opentripplanner.street.model.vertex.SplitterVertex;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.TemporarySplitterVertex;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.TraverseMode;
 import org.opentripplanner.street.search.TraverseModeSet;
+import org.opentripplanner.transit.model.site.AreaStop;
 import org.opentripplanner.transit.service.StopModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +69,8 @@ public class VertexLinker {
   private static final double DUPLICATE_WAY_EPSILON_METERS = 0.001;
   private static final int INITIAL_SEARCH_RADIUS_METERS = 100;
   private static final int MAX_SEARCH_RADIUS_METERS = 1000;
+  /** The default number of request coordinates to keep in the linking cache */
+  public static final int DEFAULT_LINKING_CACHE_SIZE = 10_000;
   private static final GeometryFactory GEOMETRY_FACTORY = GeometryUtils.getGeometryFactory();
   /**
    * Spatial index of StreetEdges in the graph.
@@ -73,6 +81,8 @@ public class VertexLinker {
 
   private final StopModel stopModel;
 
+  private final LinkingCache linkingCache;
+
   // TODO Temporary code until we refactor WalkableAreaBuilder  (#3152)
   private Boolean addExtraEdgesToAreas = true;
 
@@ -81,9 +91,22 @@ public class VertexLinker {
    * given time.
    */
   public VertexLinker(Graph graph, StopModel stopModel, EdgeSpatialIndex edgeSpatialIndex) {
+    this(graph, stopModel, edgeSpatialIndex, DEFAULT_LINKING_CACHE_SIZE);
+  }
+
+  /**
+   * @param linkingCacheSize the number of request coordinates to keep in the linking cache
+   */
+  public VertexLinker(
+    Graph graph,
+    StopModel stopModel,
+    EdgeSpatialIndex edgeSpatialIndex,
+    int linkingCacheSize
+  ) {
     this.edgeSpatialIndex = edgeSpatialIndex;
     this.graph = graph;
     this.stopModel = stopModel;
+    this.linkingCache = new LinkingCache(linkingCacheSize);
   }
 
   public void linkVertexPermanently(
@@ -117,6 +140,9 @@ public class VertexLinker {
     // Edges without geometry will not have been added to the index in the first place
     if (edge.getGeometry() != null) {
       edgeSpatialIndex.remove(edge.getGeometry().getEnvelopeInternal(), edge, scope);
+      if (edge instanceof StreetEdge streetEdge) {
+        linkingCache.invalidate(streetEdge);
+      }
     }
   }
 
@@ -124,6 +150,13 @@ public class VertexLinker {
     removeEdgeFromIndex(edge, Scope.PERMANENT);
   }
 
+  /**
+   * The cache of the edges found when linking the origin and destination of routing requests.
+   */
+  public LinkingCache getLinkingCache() {
+    return linkingCache;
+  }
+
   // TODO Temporary code until we refactor WalkableAreaBuilder (#3152)
   public void setAddExtraEdgesToAreas(Boolean addExtraEdgesToAreas) {
     this.addExtraEdgesToAreas = addExtraEdgesToAreas;
@@ -179,7 +212,9 @@ public class VertexLinker {
 
   /**
    * This method will link the provided vertex into the street graph. This may involve splitting an
-   * existing edge (if the scope is not PERMANENT, the existing edge will be kept).
+   * existing edge (if the scope is not PERMANENT, the existing edge will be kept). In the REQUEST
+   * scope the new vertices are request scoped, and the vertices and edges shared with other
+   * requests are not modified, see {@link TemporaryVertex#isRequestScoped()}.
    * <p>
    * In OTP2 where the transit search can be quite fast, searching for a good linking point can be a
    * significant fraction of response time. Hannes Junnila has reported >70% speedups in searches by
@@ -208,23 +243,11 @@ public class VertexLinker {
     try {
       Set<StreetVertex> streetVertices = linkToStreetEdges(
         vertex,
-        traverseModes,
-        direction,
+        findClosestEdges(vertex, traverseModes, direction, scope),
         scope,
-        INITIAL_SEARCH_RADIUS_METERS,
+        direction,
         tempEdges
       );
-      if (streetVertices.isEmpty()) {
-        streetVertices =
-          linkToStreetEdges(
-            vertex,
-            traverseModes,
-            direction,
-            scope,
-            MAX_SEARCH_RADIUS_METERS,
-            tempEdges
-          );
-      }
 
       for (StreetVertex streetVertex : streetVertices) {
         List<Edge> edges = edgeFunction.apply(vertex, streetVertex);
@@ -244,13 +267,46 @@ public class VertexLinker {
     return tempEdges;
   }
 
-  private Set<StreetVertex> linkToStreetEdges(
+  /**
+   * Find the closest street edges, and the location on each edge, within the initial search radius,
+   * or the max search radius if there are none. The edges found for a routing request are cached,
+   * see {@link LinkingCache}.
+   */
+  private List<LinkingCache.EdgeLocation> findClosestEdges(
     Vertex vertex,
     TraverseModeSet traverseModes,
     LinkingDirection direction,
+    Scope scope
+  ) {
+    if (scope != Scope.REQUEST) {
+      return findClosestEdges(vertex, traverseModes, scope);
+    }
+    var edges = linkingCache.get(vertex.getCoordinate(), traverseModes, direction);
+    if (edges == null) {
+      long version = linkingCache.version();
+      edges = findClosestEdges(vertex, traverseModes, scope);
+      linkingCache.put(vertex.getCoordinate(), traverseModes, direction, edges, version);
+    }
+    return edges;
+  }
+
+  private List<LinkingCache.EdgeLocation> findClosestEdges(
+    Vertex vertex,
+    TraverseModeSet traverseModes,
+    Scope scope
+  ) {
+    var edges = findClosestEdges(vertex, traverseModes, scope, INITIAL_SEARCH_RADIUS_METERS);
+    if (edges.isEmpty()) {
+      edges = findClosestEdges(vertex, traverseModes, scope, MAX_SEARCH_RADIUS_METERS);
+    }
+    return edges;
+  }
+
+  private List<LinkingCache.EdgeLocation> findClosestEdges(
+    Vertex vertex,
+    TraverseModeSet traverseModes,
     Scope scope,
-    int radiusMeters,
-    DisposableEdgeCollection tempEdges
+    int radiusMeters
   ) {
     final double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
 
@@ -276,17 +332,38 @@ public class VertexLinker {
       .collect(Collectors.toList());
 
     if (candidateEdges.isEmpty()) {
-      return Set.of();
+      return List.of();
     }
 
-    Set<DistanceTo<StreetEdge>> closestEdges = getClosestEdgesPerMode(
-      traverseModes,
-      candidateEdges
-    );
+    return getClosestEdgesPerMode(traverseModes, candidateEdges)
+      .stream()
+      .map(ce -> new LinkingCache.EdgeLocation(ce.item, project(vertex, ce.item, xscale)))
+      .toList();
+  }
+
+  private Set<StreetVertex> linkToStreetEdges(
+    Vertex vertex,
+    List<LinkingCache.EdgeLocation> edges,
+    Scope scope,
+    LinkingDirection direction,
+    DisposableEdgeCollection tempEdges
+  ) {
     Set<AreaEdgeList> linkedAreas = new HashSet<>();
-    return closestEdges
+    Map<IntersectionVertex, IntersectionVertex> requestScopedStarts = new HashMap<>();
+    return edges
       .stream()
-      .map(ce -> link(vertex, ce.item, xscale, scope, direction, tempEdges, linkedAreas))
+      .map(it ->
+        link(
+          vertex,
+          it.edge(),
+          it.location(),
+          scope,
+          direction,
+          tempEdges,
+          linkedAreas,
+          requestScopedStarts
+        )
+      )
       .filter(v -> v != null)
       .collect(Collectors.toSet());
   }
@@ -346,21 +423,26 @@ public class VertexLinker {
     return closesEdges;
   }
 
-  /** Split the edge if necessary return the closest vertex */
+  /** The location on the edge closest to the vertex */
+  private static LinearLocation project(Vertex vertex, StreetEdge edge, double xScale) {
+    // TODO: we've already built this line string, we should save it
+    LineString transformed = equirectangularProject(edge.getGeometry(), xScale);
+    LocationIndexedLine il = new LocationIndexedLine(transformed);
+    return il.project(new Coordinate(vertex.getLon() * xScale, vertex.getLat()));
+  }
+
+  /** Split the edge at the given location if necessary return the closest vertex */
   private StreetVertex link(
     Vertex vertex,
     StreetEdge edge,
-    double xScale,
+    LinearLocation ll,
     Scope scope,
     LinkingDirection direction,
     DisposableEdgeCollection tempEdges,
-    Set<AreaEdgeList> linkedAreas
+    Set<AreaEdgeList> linkedAreas,
+    Map<IntersectionVertex, IntersectionVertex> requestScopedStarts
   ) {
-    // TODO: we've already built this line string, we should save it
     LineString orig = edge.getGeometry();
-    LineString transformed = equirectangularProject(orig, xScale);
-    LocationIndexedLine il = new LocationIndexedLine(transformed);
-    LinearLocation ll = il.project(new Coordinate(vertex.getLon() * xScale, vertex.getLat()));
     double length = SphericalDistanceLibrary.length(orig);
 
     IntersectionVertex start = null;
@@ -410,17 +492,56 @@ public class VertexLinker {
       }
     }
 
-    if (this.addExtraEdgesToAreas && edge instanceof AreaEdge aEdge) {
-      addAreaVertex(start, aEdge.getArea(), scope, tempEdges);
-    }
+    AreaEdgeList area = this.addExtraEdgesToAreas && edge instanceof AreaEdge aEdge
+      ? aEdge.getArea()
+      : null;
     // TODO Consider moving this code
-    if (OTPFeature.FlexRouting.isOn()) {
-      FlexLocationAdder.addFlexLocations(edge, start, stopModel);
+    Set<AreaStop> flexLocations = OTPFeature.FlexRouting.isOn()
+      ? FlexLocationAdder.findFlexLocations(edge, start, stopModel)
+      : Set.of();
+
+    // A routing request must not modify the vertices shared with other requests, so the area
+    // edges and flex locations are added to a request scoped copy of the vertex instead.
+    if (
+      (area != null || !flexLocations.isEmpty()) &&
+      scope == Scope.REQUEST &&
+      !TemporaryVertex.isRequestScoped(start)
+    ) {
+      start = requestScopedStarts.computeIfAbsent(
+        start,
+        v -> requestScopedCopy(v, edge, direction, tempEdges)
+      );
     }
 
+    if (area != null) {
+      addAreaVertex(start, area, scope, tempEdges);
+    }
+    FlexLocationAdder.addFlexLocations(start, flexLocations);
+
     return start;
   }
 
+  /**
+   * Create a request scoped vertex at the location of a vertex shared with other requests, and
+   * connect the shared vertex to it in the linking direction. The edges are only stored on the new
+   * vertex, see {@link TemporaryVertex#isRequestScoped()}.
+   */
+  private IntersectionVertex requestScopedCopy(
+    IntersectionVertex shared,
+    StreetEdge edge,
+    LinkingDirection direction,
+    DisposableEdgeCollection tempEdges
+  ) {
+    var copy = splitVertex(edge, Scope.REQUEST, direction, shared.getLon(), shared.getLat());
+    if (direction == LinkingDirection.OUTGOING || direction == LinkingDirection.BOTH_WAYS) {
+      tempEdges.addEdge(new FreeEdge(shared, copy));
+    }
+    if (direction == LinkingDirection.INCOMING || direction == LinkingDirection.BOTH_WAYS) {
+      tempEdges.addEdge(new FreeEdge(copy, shared));
+    }
+    return copy;
+  }
+
   /**
    * Split the street edge at the given fraction
    *
@@ -459,6 +580,9 @@ public class VertexLinker {
       if (newEdges.tail() != null) {
         edgeSpatialIndex.insert(newEdges.tail().getGeometry(), newEdges.tail(), scope);
       }
+      // The new edges follow the geometry of the original edge, so only the coordinates linked
+      // to the original edge may link to the new edges
+      linkingCache.invalidate(originalEdge);
 
       if (scope == Scope.PERMANENT) {
         // remove original edges from the spatial index
@@ -482,19 +606,22 @@ public class VertexLinker {
     double y
   ) {
     SplitterVertex v;
-    String uniqueSplitLabel = "split_" + graph.nextSplitNumber++;
 
     if (scope != Scope.PERMANENT) {
+      // Temporary vertices are not added to the graph, so they do not need the split counter of
+      // the graph, which is not safe to update from several threads.
       TemporarySplitterVertex tsv = new TemporarySplitterVertex(
-        uniqueSplitLabel,
+        "split_" + UUID.randomUUID(),
         x,
         y,
         originalEdge,
-        direction == LinkingDirection.OUTGOING
+        direction == LinkingDirection.OUTGOING,
+        scope == Scope.REQUEST
       );
       tsv.setWheelchairAccessible(originalEdge.isWheelchairAccessible());
       v = tsv;
     } else {
+      String uniqueSplitLabel = "split_" + graph.nextSplitNumber++;
       v = new SplitterVertex(graph, uniqueSplitLabel, x, y, originalEdge.getName());
     }
     v.addRentalRestriction(originalEdge.getFromVertex().rentalRestrictions());
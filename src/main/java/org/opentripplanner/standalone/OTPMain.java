@@ -9,13 +9,11 @@ import org.geotools.util.WeakCollectionCleaner;
 import org.opentripplanner.framework.application.OtpAppException;
 import org.opentripplanner.graph_builder.GraphBuilder;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueSummary;
-import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.routing.graph.SerializedGraphObject;
 import org.opentripplanner.standalone.config.CommandLineParameters;
 import org.opentripplanner.standalone.configure.ConstructApplication;
 import org.opentripplanner.standalone.configure.LoadApplication;
 import org.opentripplanner.standalone.server.GrizzlyServer;
-import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.updater.configure.UpdaterConfigurator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -170,8 +168,7 @@ public class OTPMain {
 
   private static void startOtpWebServer(CommandLineParameters params, ConstructApplication app) {
     // Index graph for travel search
-    app.transitModel().index();
-    app.graph().index(app.transitModel().getStopModel());
+    app.indexForTravelSearch();
 
     // publishing the config version info make it available to the APIs
     setOtpConfigVersionsOnServerInfo(app);
@@ -188,7 +185,7 @@ public class OTPMain {
     if (params.doServe()) {
       GrizzlyServer grizzlyServer = app.createGrizzlyServer();
 
-      registerShutdownHookToGracefullyShutDownServer(app.transitModel(), app.raptorConfig());
+      registerShutdownHookToGracefullyShutDownServer(app);
 
       // Loop to restart server on uncaught fatal exceptions.
       while (true) {
@@ -211,18 +208,17 @@ public class OTPMain {
    * Shut down this server when evicted or (auto-)reloaded.
    * <ol>
    *   <li>Stop any real-time updater threads.</li>
+   *   <li>Save the raptor transfer cache, if enabled.</li>
    *   <li>Cleanup various stuff of some used libraries (org.geotools), which depend on the
    *   external client to call them for cleaning-up.</li>
    * </ol>
    */
-  private static void registerShutdownHookToGracefullyShutDownServer(
-    TransitModel transitModel,
-    RaptorConfig<?> raptorConfig
-  ) {
+  private static void registerShutdownHookToGracefullyShutDownServer(ConstructApplication app) {
     var hook = new Thread(() -> {
       LOG.info("OTP shutdown started...");
-      UpdaterConfigurator.shutdownGraph(transitModel);
-      raptorConfig.shutdown();
+      UpdaterConfigurator.shutdownGraph(app.transitModel());
+      app.raptorConfig().shutdown();
+      app.saveTransferCache();
       WeakCollectionCleaner.DEFAULT.exit();
       DeferredAuthorityFactory.exit();
     });
@@ -5,6 +5,7 @@ import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V1
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_0;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_1;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_2;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.MissingNode;
@@ -162,6 +163,14 @@ public class BuildConfig implements OtpDataStoreConfig {
 
   public final int maxAreaNodes;
 
+  public final int streetLandmarks;
+
+  public final boolean carContractionHierarchy;
+
+  public final Duration walkStopAccessTableDuration;
+
+  public final Duration bikeStopAccessTableDuration;
+
   public final DataOverlayConfig dataOverlay;
   public final double maxStopToShapeSnapDistance;
   public final Set<String> boardingLocationTags;
@@ -505,6 +514,79 @@ recommended.
           "Visibility calculations for an area will not be done if there are more nodes than this limit."
         )
         .asInt(500);
+    streetLandmarks =
+      root
+        .of("streetLandmarks")
+        .since(V2_3)
+        .summary(
+          "The number of landmarks used to compute street network distance bounds for the direct street search."
+        )
+        .description(
+          """
+The graph builder selects this number of landmark vertices along the edge of the street network,
+and stores the street network distance from and to each landmark for every vertex. The direct
+street search uses these distances to compute a lower bound on the remaining distance, which is
+much better than the straight line distance when the streets do not go straight to the
+destination, e.g. along rivers and fjords. This makes long car and bicycle searches faster.
+
+Each landmark uses 8 bytes of memory per vertex in the graph. Between 8 and 16 landmarks is a good
+choice, the default is 0, which means that no distances are computed.
+"""
+        )
+        .asInt(0);
+    carContractionHierarchy =
+      root
+        .of("carContractionHierarchy")
+        .since(V2_3)
+        .summary("Build a contraction hierarchy to speed up the direct car search.")
+        .description(
+          """
+The contraction hierarchy is built on the street edges, so turn restrictions and turn costs are
+kept. The direct street search uses it for car requests with the default car reluctance, turn
+reluctance, intersection traversal model and driving direction, and without a data overlay. The
+path found is traversed to check that it is valid, otherwise and for all other requests the normal
+A* search is used. Streets in no-through-traffic areas are not part of the hierarchy, trips starting
+or ending in such areas fall back to the A* search.
+
+Building the hierarchy takes a few minutes for a large graph, and uses about as much memory as the
+street edges.
+"""
+        )
+        .asBoolean(false);
+    walkStopAccessTableDuration =
+      root
+        .of("walkStopAccessTableDuration")
+        .since(V2_3)
+        .summary("Precompute the walking paths to and from the stops up to this duration.")
+        .description(
+          """
+The graph builder searches the walking paths from and to each stop, and stores the next edge of the
+path for every street vertex reached. The access and egress search of a walking request then only
+needs to find the street vertices next to the origin and destination, and creates the paths to the
+stops by following the stored edges, instead of searching the street network.
+
+The table is used for requests with the built-in default walk, elevator and turn preferences,
+without wheelchair accessibility or a data overlay, and with a max access/egress duration for
+walking which is not longer than this duration. All other requests use the normal street search.
+The memory used grows with the number of stops times the number of street vertices within this
+duration of a stop, so the duration should be kept short in large graphs, e.g. 15 minutes. The
+default is zero, which means that no table is created.
+"""
+        )
+        .asDuration(Duration.ZERO);
+    bikeStopAccessTableDuration =
+      root
+        .of("bikeStopAccessTableDuration")
+        .since(V2_3)
+        .summary("Precompute the bicycle paths to and from the stops up to this duration.")
+        .description(
+          """
+The same as [walkStopAccessTableDuration](#walkStopAccessTableDuration), for requests with
+bicycle access and egress. The default bicycle preferences must be used. A bicycle reaches many
+more street vertices than walking in the same time, so this duration should be shorter.
+"""
+        )
+        .asDuration(Duration.ZERO);
     maxElevationPropagationMeters =
       root
         .of("maxElevationPropagationMeters")
@@ -4,6 +4,7 @@ import static org.opentripplanner.framework.application.OtpFileNames.ROUTER_CONF
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.NA;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_0;
 import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_1;
+import static org.opentripplanner.standalone.config.framework.json.OtpVersion.V2_3;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.MissingNode;
@@ -11,6 +12,7 @@ import java.io.Serializable;
 import java.time.Duration;
 import org.opentripplanner.ext.vectortiles.VectorTilesResource;
 import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.linking.VertexLinker;
 import org.opentripplanner.standalone.config.framework.json.NodeAdapter;
 import org.opentripplanner.standalone.config.routerconfig.TransitRoutingConfig;
 import org.opentripplanner.standalone.config.routerconfig.UpdatersConfig;
@@ -41,6 +43,7 @@ public class RouterConfig implements Serializable {
   private final NodeAdapter root;
   private final String configVersion;
   private final String requestLogFile;
+  private final int linkingCacheMaxSize;
   private final TransmodelAPIConfig transmodelApi;
   private final RouteRequest routingRequestDefaults;
   private final TransitRoutingConfig transitConfig;
@@ -95,6 +98,23 @@ number of transit vehicles used in that itinerary.
           """
         )
         .asString(null);
+    this.linkingCacheMaxSize =
+      root
+        .of("linkingCacheMaxSize")
+        .since(V2_3)
+        .summary(
+          "The maximum number of request coordinates to cache the closest street edges for."
+        )
+        .description(
+          """
+The origin and destination of a routing request are linked to the closest street edges. The edges,
+and the location on each edge, are cached for the coordinate rounded to about a meter, the street
+mode and the linking direction. Clients often send the same coordinates, e.g. popular addresses and
+stops, and then the linking does not need to search the street graph. An entry is dropped when one
+of its edges is split or removed by realtime updates.
+          """
+        )
+        .asInt(VertexLinker.DEFAULT_LINKING_CACHE_SIZE);
     this.transmodelApi =
       new TransmodelAPIConfig(
         root
@@ -142,6 +162,14 @@ number of transit vehicles used in that itinerary.
     return requestLogFile;
   }
 
+  /**
+   * The maximum number of request coordinates to keep in the linking cache of the
+   * {@link VertexLinker}.
+   */
+  public int linkingCacheMaxSize() {
+    return linkingCacheMaxSize;
+  }
+
   public TransmodelAPIConfig transmodelApi() {
     return transmodelApi;
   }
@@ -27,7 +27,11 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
   private final int iterationDepartureStepInSeconds;
   private final int searchThreadPoolSize;
   private final int transferCacheMaxSize;
+  private final int tripPatternCacheMaxSize;
   private final List<RouteRequest> transferCacheRequests;
+  private final boolean persistTransferCache;
+  private final int accessEgressCacheMaxSize;
+  private final Duration accessEgressCacheTimeToLive;
   private final List<Duration> pagingSearchWindowAdjustments;
 
   private final Map<StopTransferPriority, Integer> stopTransferCost;
@@ -151,6 +155,72 @@ Use values in a range from `0` to `100 000`. **All key/value pairs are required
         )
         .asInt(25);
 
+    this.tripPatternCacheMaxSize =
+      c
+        .of("tripPatternCacheMaxSize")
+        .since(V2_3)
+        .summary(
+          "Maximum number of search dates and transit filters to cache filtered trip patterns for."
+        )
+        .description(
+          """
+Before each transit search the trip patterns are filtered by the search dates and the transit
+filters in the request. Requests with the same dates and filters share the result. The cache is
+cleared each time the realtime data is updated. If too low, requests may be slower. If too high,
+more memory may be used than required. Set to `0` to turn the cache off. The data Raptor derives
+from the trip patterns, the trip-to-trip transfers of the Trip-Based search and the connections
+of the Connection Scan search, is then created for each request instead of being shared.
+"""
+        )
+        .asInt(50);
+
+    this.persistTransferCache =
+      c
+        .of("persistTransferCache")
+        .since(V2_3)
+        .summary("Save the stop-to-stop transfer cache at shutdown and load it at startup.")
+        .description(
+          """
+The transfers for the requests in the transfer cache are saved to the file `transferCache.bin` in
+the base directory when the server shuts down. At the next startup the saved transfers are loaded
+before the `transferCacheRequests` are calculated, so the cache is warm for the requests used
+before the restart. The file is ignored if it was saved for another OTP version or graph build,
+including a rebuild of the same input data.
+"""
+        )
+        .asBoolean(false);
+
+    this.accessEgressCacheMaxSize =
+      c
+        .of("accessEgressCacheMaxSize")
+        .since(V2_3)
+        .summary(
+          "The maximum number of access and egress stops to cache street search results for."
+        )
+        .description(
+          """
+Requests from and to the same place, with the same street mode and preferences, share the access
+and egress stops found by the street search. This is useful if many requests go to the same
+destination, like an airport or a central station. Walking, cycling and driving are cached, but
+not renting, parking or pickup, since these depend on the realtime data. The size is the total
+number of stops in all the cached searches. Set to `0` to turn the cache off.
+"""
+        )
+        .asInt(0);
+
+    this.accessEgressCacheTimeToLive =
+      c
+        .of("accessEgressCacheTimeToLive")
+        .since(V2_3)
+        .summary("How long the access and egress stops of a street search are cached.")
+        .description(
+          """
+Changes to the street graph, like a new linking of a stop, are used when the cached searches for
+the places nearby have expired. See `accessEgressCacheMaxSize`.
+"""
+        )
+        .asDuration(Duration.ofMinutes(1));
+
     this.transferCacheRequests =
       c
         .of("transferCacheRequests")
@@ -243,11 +313,31 @@ for more info."
     return transferCacheMaxSize;
   }
 
+  @Override
+  public int tripPatternCacheMaxSize() {
+    return tripPatternCacheMaxSize;
+  }
+
   @Override
   public List<RouteRequest> transferCacheRequests() {
     return transferCacheRequests;
   }
 
+  @Override
+  public boolean persistTransferCache() {
+    return persistTransferCache;
+  }
+
+  @Override
+  public int accessEgressCacheMaxSize() {
+    return accessEgressCacheMaxSize;
+  }
+
+  @Override
+  public Duration accessEgressCacheTimeToLive() {
+    return accessEgressCacheTimeToLive;
+  }
+
   @Override
   public List<Duration> pagingSearchWindowAdjustments() {
     return pagingSearchWindowAdjustments;
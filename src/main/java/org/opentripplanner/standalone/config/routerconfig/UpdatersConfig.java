@@ -119,8 +119,9 @@ public class UpdatersConfig implements UpdatersParameters {
         .since(V2_2)
         .summary("How long a snapshot should be cached.")
         .description(
-          "If a timetable snapshot is requested less than this number of milliseconds after the previous snapshot, then return the same instance. " +
+          "The realtime updates are committed into a new timetable snapshot at most once within this number of milliseconds. " +
           "Throttles the potentially resource-consuming task of duplicating a TripPattern → Timetable map and indexing the new Timetables. " +
+          "The updates are committed by the updater thread, and updates not committed when applied are committed with this interval. " +
           "Applies to GTFS-RT and Siri updates."
         )
         .asInt(dflt.maxSnapshotFrequencyMs()),
@@ -657,6 +657,24 @@ do not exist."
           .since(V2_2)
           .summary("The model that computes the costs of turns.")
           .asEnum(dft.intersectionTraversalModel())
+      )
+      .withSearchQueueType(
+        c
+          .of("streetSearchQueue")
+          .since(V2_3)
+          .summary("The priority queue used by the street searches.")
+          .description(
+            """
+            The queue is used by the direct street search and the access, egress and transfer
+            searches. The `binary-heap` is the default. The `indexed-4-ary-heap` replaces a queued
+            state when a better state reaches the same vertex, this keeps the queue small in long
+            walk and bicycle searches. The `radix-heap` is a monotone queue without comparisons, it
+            is only used by the searches without a heuristic - the access, egress and transfer
+            searches. The direct street search uses the `binary-heap` instead. Use the street
+            search speed test to compare them on your graph.
+            """
+          )
+          .asEnum(dft.searchQueueType())
       );
   }
 
@@ -1,6 +1,8 @@
 package org.opentripplanner.standalone.configure;
 
 import jakarta.ws.rs.core.Application;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.ext.geocoder.LuceneIndex;
@@ -28,6 +30,7 @@ import org.opentripplanner.standalone.config.OtpConfig;
 import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.standalone.server.GrizzlyServer;
 import org.opentripplanner.standalone.server.OTPWebApplication;
+import org.opentripplanner.standalone.server.StartupPhaseMetrics;
 import org.opentripplanner.street.model.elevation.ElevationUtils;
 import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.updater.configure.UpdaterConfigurator;
@@ -55,6 +58,8 @@ public class ConstructApplication {
 
   private static final Logger LOG = LoggerFactory.getLogger(ConstructApplication.class);
 
+  private static final String TRANSFER_CACHE_FILENAME = "transferCache.bin";
+
   private final CommandLineParameters cli;
   private final GraphBuilderDataSources graphBuilderDataSources;
   private final ConstructApplicationFactory factory;
@@ -96,7 +101,7 @@ public class ConstructApplication {
 
   /**
    * Create a new Grizzly server - call this method once, the new instance is created every time
-   * this method is called.
+   * this method is called. The graph must be indexed first, see {@link #indexForTravelSearch()}.
    */
   public GrizzlyServer createGrizzlyServer() {
     return new GrizzlyServer(cli, createApplication());
@@ -139,8 +144,6 @@ public class ConstructApplication {
     // Create MetricsLogging
     factory.metricsLogging();
 
-    creatTransitLayerForRaptor(transitModel(), routerConfig().transitTuningConfig());
-
     /* Create updater modules from JSON config. */
     UpdaterConfigurator.configure(
       graph(),
@@ -152,7 +155,15 @@ public class ConstructApplication {
 
     initEllipsoidToGeoidDifference();
 
-    initializeTransferCache(routerConfig().transitTuningConfig(), transitModel());
+    StartupPhaseMetrics.time(
+      "transferCache",
+      () -> {
+        if (routerConfig().transitTuningConfig().persistTransferCache()) {
+          loadTransferCache();
+        }
+        initializeTransferCache(routerConfig().transitTuningConfig(), transitModel());
+      }
+    );
 
     if (OTPFeature.SandboxAPITransmodelApi.isOn()) {
       TransmodelAPI.setUp(
@@ -178,6 +189,28 @@ public class ConstructApplication {
     }
   }
 
+  /**
+   * Index the transit model and the street graph, and create the transit layer for Raptor routing.
+   * This must be done before the server is created. The street index and the transit layer both
+   * need the transit model index, but not each other, so they are created in parallel.
+   */
+  public void indexForTravelSearch() {
+    // The transit model is already indexed if the graph was loaded from file
+    transitModel().index();
+
+    var streetIndex = CompletableFuture.runAsync(() ->
+      StartupPhaseMetrics.time(
+        "indexStreetGraph",
+        () -> graph().index(transitModel().getStopModel(), routerConfig().linkingCacheMaxSize())
+      )
+    );
+    StartupPhaseMetrics.time(
+      "createTransitLayer",
+      () -> creatTransitLayerForRaptor(transitModel(), routerConfig().transitTuningConfig())
+    );
+    streetIndex.join();
+  }
+
   /**
    * Create transit layer for Raptor routing. Here we map the scheduled timetables.
    */
@@ -201,6 +234,36 @@ public class ConstructApplication {
     );
   }
 
+  /**
+   * Save the raptor transfer cache, so it can be loaded at the next startup. This does nothing
+   * if {@code transit.persistTransferCache} is not enabled.
+   */
+  public void saveTransferCache() {
+    var transitLayer = transitModel().getTransitLayer();
+    if (routerConfig().transitTuningConfig().persistTransferCache() && transitLayer != null) {
+      transitLayer.saveTransferCache(transferCacheFile(), transferCacheGraphId());
+    }
+  }
+
+  private void loadTransferCache() {
+    var file = transferCacheFile();
+    LOG.info("Loading raptor transfer cache from {}", file);
+    int size = transitModel().getTransitLayer().loadTransferCache(file, transferCacheGraphId());
+    LOG.info("Loaded {} requests into the raptor transfer cache.", size);
+  }
+
+  private File transferCacheFile() {
+    return new File(cli.getBaseDirectory(), TRANSFER_CACHE_FILENAME);
+  }
+
+  /**
+   * Identify the graph build the transfer cache belongs to. The street graph and the transfers
+   * can be built separately (see {@code --loadStreet}), so both build times are used.
+   */
+  private String transferCacheGraphId() {
+    return graph().buildTime + "/" + transitModel().getTransfersBuildTime();
+  }
+
   public static void initializeTransferCache(
     TransitTuningParameters transitTuningConfig,
     TransitModel transitModel
@@ -22,6 +22,7 @@ import java.util.concurrent.ForkJoinPool;
 import org.opentripplanner.graph_builder.issue.api.DataImportIssueSummary;
 import org.opentripplanner.raptor.configure.RaptorConfig;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripSchedule;
+import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.transit.service.TransitModel;
 
 /**
@@ -32,6 +33,7 @@ public class MetricsLogging {
 
   @Inject
   public MetricsLogging(
+    Graph graph,
     TransitModel transitModel,
     RaptorConfig<TripSchedule> raptorConfig,
     DataImportIssueSummary issueSummary
@@ -55,6 +57,20 @@ public class MetricsLogging {
         List.of(Tag.of("cache", "raptorTransfers"))
       )
         .bindTo(Metrics.globalRegistry);
+      new GuavaCacheMetrics(
+        transitModel.getTransitLayer().getAccessEgressCache().getCache(),
+        "accessEgressCache",
+        List.of(Tag.of("cache", "accessEgress"))
+      )
+        .bindTo(Metrics.globalRegistry);
+    }
+    if (graph.getStreetIndex() != null) {
+      new GuavaCacheMetrics(
+        graph.getStreetIndex().getVertexLinker().getLinkingCache().getCache(),
+        "linkingCache",
+        List.of(Tag.of("cache", "linking"))
+      )
+        .bindTo(Metrics.globalRegistry);
     }
     new ExecutorServiceMetrics(
       ForkJoinPool.commonPool(),
@@ -0,0 +1,61 @@
+package org.opentripplanner.standalone.server;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.TimeGauge;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measure the time used by each phase of loading and indexing the graph at startup. The time is
+ * logged and published as the micrometer metric {@code otp.startup.phase}, tagged with the phase
+ * name, so regressions in the startup time are easy to spot.
+ * <p>
+ * Gauges are used instead of timers, because the phases complete before the prometheus registry is
+ * added to the global registry by the web server. A gauge is read when it is scraped, while the
+ * values recorded by a timer before the registry is added are lost.
+ */
+public class StartupPhaseMetrics {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StartupPhaseMetrics.class);
+
+  private static final String METRIC_NAME = "otp.startup.phase";
+
+  private static final Map<String, AtomicLong> DURATION_NANOS = new ConcurrentHashMap<>();
+
+  private StartupPhaseMetrics() {}
+
+  public static void time(String phase, Runnable body) {
+    time(
+      phase,
+      () -> {
+        body.run();
+        return null;
+      }
+    );
+  }
+
+  public static <T> T time(String phase, Supplier<T> body) {
+    long start = System.nanoTime();
+    T result = body.get();
+    long nanos = System.nanoTime() - start;
+
+    DURATION_NANOS.computeIfAbsent(phase, StartupPhaseMetrics::register).set(nanos);
+    LOG.info("Startup phase '{}' done in {} ms.", phase, TimeUnit.NANOSECONDS.toMillis(nanos));
+    return result;
+  }
+
+  private static AtomicLong register(String phase) {
+    var value = new AtomicLong();
+    TimeGauge
+      .builder(METRIC_NAME, value, TimeUnit.NANOSECONDS, AtomicLong::doubleValue)
+      .description("The time used by a phase of loading and indexing the graph at startup")
+      .tag("phase", phase)
+      .register(Metrics.globalRegistry);
+    return value;
+  }
+}
@@ -0,0 +1,321 @@
+package org.opentripplanner.street.model.contraction;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntDoubleMap;
+import gnu.trove.map.hash.TIntDoubleHashMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import java.io.Serializable;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.opentripplanner.astar.model.BinHeap;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.intersection_model.DrivingDirection;
+import org.opentripplanner.street.search.intersection_model.IntersectionTraversalModel;
+
+/**
+ * An edge-based contraction hierarchy of the street network for driving a car.
+ * <p>
+ * The hierarchy is built on the "line graph" of the street network: each node is a street edge
+ * which can be traversed by car, and there is an arc from one node to another if a car can turn
+ * from the first street edge onto the second. U-turns and turns banned by a turn restriction,
+ * which is always active for cars, have no arc. Using edges as nodes keeps the turn restrictions
+ * and turn costs, which a hierarchy on the vertices can not represent.
+ * <p>
+ * The cost of an arc is the weight of the A* street search for traversing the second street edge
+ * including the turn onto it, computed with the car reluctance, turn reluctance and intersection
+ * traversal model the hierarchy was built with. The hierarchy can only be used for requests with
+ * the same parameters, see {@link #isCompatible(RoutingPreferences)}. Time dependent turn
+ * restrictions and no-through-traffic areas are not included, a path found in the hierarchy must be
+ * traversed to check that it is valid.
+ * <p>
+ * The nodes are ordered by "importance" when the hierarchy is built. Each arc goes either up or
+ * down in the order, and shortcut arcs replace the nodes which are removed (contracted). A
+ * shortest path query is a bidirectional Dijkstra search, where the forward search only follows
+ * arcs going up and the backward search only arcs going down. Both searches usually settle a few
+ * hundred nodes, even for long distances.
+ * <p>
+ * The vertices are identified by {@link Vertex#getIndex()}, edges and vertices added to the graph
+ * after the hierarchy is built are not included. Create the hierarchy with
+ * {@link ContractionHierarchyBuilder}.
+ */
+public final class ContractionHierarchy implements Serializable {
+
+  private final int nVertices;
+
+  /** The street edge of each node */
+  private final StreetEdge[] edges;
+
+  /** The cost of traversing the street edge of each node, without turn costs */
+  private final float[] nodeCosts;
+
+  /** The nodes leaving vertex v are in vertexOutNodes from vertexOutStart[v] to [v + 1] */
+  private final int[] vertexOutStart;
+  private final int[] vertexOutNodes;
+
+  /** The nodes entering vertex v are in vertexInNodes from vertexInStart[v] to [v + 1] */
+  private final int[] vertexInStart;
+  private final int[] vertexInNodes;
+
+  /** The arcs from node n to a higher ranked node are in upArcs from upStart[n] to [n + 1] */
+  private final int[] upStart;
+  private final int[] upArcs;
+
+  /** The arcs to node n from a higher ranked node are in downArcs from downStart[n] to [n + 1] */
+  private final int[] downStart;
+  private final int[] downArcs;
+
+  private final int[] arcFrom;
+  private final int[] arcTo;
+  private final float[] arcCost;
+
+  /** The two arcs a shortcut replaces, or -1 for the arcs of the original line graph */
+  private final int[] arcFirst;
+  private final int[] arcSecond;
+
+  private final double carReluctance;
+  private final double turnReluctance;
+  private final IntersectionTraversalModel intersectionTraversalModel;
+  private final DrivingDirection drivingDirection;
+
+  ContractionHierarchy(
+    int nVertices,
+    StreetEdge[] edges,
+    float[] nodeCosts,
+    int[] vertexOutStart,
+    int[] vertexOutNodes,
+    int[] vertexInStart,
+    int[] vertexInNodes,
+    int[] upStart,
+    int[] upArcs,
+    int[] downStart,
+    int[] downArcs,
+    int[] arcFrom,
+    int[] arcTo,
+    float[] arcCost,
+    int[] arcFirst,
+    int[] arcSecond,
+    RoutingPreferences preferences
+  ) {
+    this.nVertices = nVertices;
+    this.edges = edges;
+    this.nodeCosts = nodeCosts;
+    this.vertexOutStart = vertexOutStart;
+    this.vertexOutNodes = vertexOutNodes;
+    this.vertexInStart = vertexInStart;
+    this.vertexInNodes = vertexInNodes;
+    this.upStart = upStart;
+    this.upArcs = upArcs;
+    this.downStart = downStart;
+    this.downArcs = downArcs;
+    this.arcFrom = arcFrom;
+    this.arcTo = arcTo;
+    this.arcCost = arcCost;
+    this.arcFirst = arcFirst;
+    this.arcSecond = arcSecond;
+    this.carReluctance = preferences.car().reluctance();
+    this.turnReluctance = preferences.street().turnReluctance();
+    this.intersectionTraversalModel = preferences.street().intersectionTraversalModel();
+    this.drivingDirection = preferences.street().drivingDirection();
+  }
+
+  public int nNodes() {
+    return edges.length;
+  }
+
+  public StreetEdge edge(int node) {
+    return edges[node];
+  }
+
+  /**
+   * The cost of traversing the street edge of the node, without the cost of turning onto it.
+   */
+  public double cost(int node) {
+    return nodeCosts[node];
+  }
+
+  /**
+   * The cost of driving the given street edge, which does not need to be part of the hierarchy.
+   * This is the cost used for the nodes, so it can be used for the temporary edges to and from the
+   * hierarchy.
+   */
+  public double cost(StreetEdge edge) {
+    return carReluctance * edge.getDistanceMeters() / edge.getCarSpeed();
+  }
+
+  /**
+   * @return {@code true} if the vertex is included in the hierarchy, the vertex may still have no
+   * nodes, e.g. if it is only used by pedestrians.
+   */
+  public boolean contains(Vertex vertex) {
+    int index = vertex.getIndex();
+    return index >= 0 && index < nVertices;
+  }
+
+  /**
+   * The nodes for the street edges leaving the vertex, the vertex must be included.
+   */
+  public int[] nodesLeaving(Vertex vertex) {
+    int v = vertex.getIndex();
+    return Arrays.copyOfRange(vertexOutNodes, vertexOutStart[v], vertexOutStart[v + 1]);
+  }
+
+  /**
+   * The nodes for the street edges entering the vertex, the vertex must be included.
+   */
+  public int[] nodesEntering(Vertex vertex) {
+    int v = vertex.getIndex();
+    return Arrays.copyOfRange(vertexInNodes, vertexInStart[v], vertexInStart[v + 1]);
+  }
+
+  /**
+   * The hierarchy gives the same paths as the A* search only if the request uses the same
+   * parameters for the weight of driving as the hierarchy was built with.
+   */
+  public boolean isCompatible(RoutingPreferences preferences) {
+    return (
+      preferences.car().reluctance() == carReluctance &&
+      preferences.street().turnReluctance() == turnReluctance &&
+      preferences.street().intersectionTraversalModel() == intersectionTraversalModel &&
+      preferences.street().drivingDirection() == drivingDirection
+    );
+  }
+
+  /**
+   * Find the lowest cost path from one of the source nodes to one of the target nodes.
+   *
+   * @param sources the cost of reaching the end of each source node, including the node itself.
+   * @param targets the cost from the end of each target node to the destination.
+   * @return the nodes of the path in order, or {@code null} if there is no path.
+   */
+  @Nullable
+  public NodePath shortestPath(TIntDoubleMap sources, TIntDoubleMap targets) {
+    var forward = new Search(sources);
+    var backward = new Search(targets);
+
+    double best = Double.POSITIVE_INFINITY;
+    int meetingNode = -1;
+
+    while (!forward.queue.empty() || !backward.queue.empty()) {
+      double minForward = forward.queue.empty()
+        ? Double.POSITIVE_INFINITY
+        : forward.queue.peek_min_key();
+      double minBackward = backward.queue.empty()
+        ? Double.POSITIVE_INFINITY
+        : backward.queue.peek_min_key();
+      if (Math.min(minForward, minBackward) >= best) {
+        break;
+      }
+      boolean isForward = minForward <= minBackward;
+      var search = isForward ? forward : backward;
+      var other = isForward ? backward : forward;
+
+      double cost = search.queue.peek_min_key();
+      int node = search.queue.extract_min();
+      if (cost > search.cost.get(node)) {
+        continue;
+      }
+      if (other.cost.containsKey(node) && cost + other.cost.get(node) < best) {
+        best = cost + other.cost.get(node);
+        meetingNode = node;
+      }
+      if (isForward) {
+        for (int i = upStart[node]; i < upStart[node + 1]; ++i) {
+          int arc = upArcs[i];
+          search.relax(arcTo[arc], cost + arcCost[arc], arc);
+        }
+      } else {
+        for (int i = downStart[node]; i < downStart[node + 1]; ++i) {
+          int arc = downArcs[i];
+          search.relax(arcFrom[arc], cost + arcCost[arc], arc);
+        }
+      }
+    }
+
+    if (meetingNode == -1) {
+      return null;
+    }
+
+    var nodes = new TIntArrayList();
+    // The forward search reached the meeting node from a source, collect the arcs backwards
+    var arcs = new TIntArrayList();
+    int node = meetingNode;
+    while (forward.parentArc.get(node) != -1) {
+      int arc = forward.parentArc.get(node);
+      arcs.add(arc);
+      node = arcFrom[arc];
+    }
+    nodes.add(node);
+    for (int i = arcs.size() - 1; i >= 0; --i) {
+      unpack(arcs.get(i), nodes);
+    }
+    node = meetingNode;
+    while (backward.parentArc.get(node) != -1) {
+      int arc = backward.parentArc.get(node);
+      unpack(arc, nodes);
+      node = arcTo[arc];
+    }
+    return new NodePath(nodes.toArray(), best);
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(ContractionHierarchy.class)
+      .addNum("nodes", edges.length)
+      .addNum("arcs", arcFrom.length)
+      .addNum("vertices", nVertices)
+      .toString();
+  }
+
+  /**
+   * Add the nodes after the start of the arc, up to and including the end of the arc, replacing
+   * each shortcut with the two arcs it replaces.
+   */
+  private void unpack(int arc, TIntArrayList nodes) {
+    var stack = new TIntArrayList();
+    stack.add(arc);
+    while (!stack.isEmpty()) {
+      int a = stack.removeAt(stack.size() - 1);
+      if (arcFirst[a] == -1) {
+        nodes.add(arcTo[a]);
+      } else {
+        stack.add(arcSecond[a]);
+        stack.add(arcFirst[a]);
+      }
+    }
+  }
+
+  /**
+   * The nodes of a path through the hierarchy, and the cost from the first source to the last
+   * target including the costs given for them.
+   */
+  public record NodePath(int[] nodes, double cost) {}
+
+  /** The state of one direction of the bidirectional search */
+  private static final class Search {
+
+    private final BinHeap<Integer> queue = new BinHeap<>();
+    private final TIntDoubleHashMap cost = new TIntDoubleHashMap();
+
+    /** The arc used to reach each node, or -1 for the nodes the search starts at */
+    private final TIntIntHashMap parentArc = new TIntIntHashMap();
+
+    Search(TIntDoubleMap initialCosts) {
+      initialCosts.forEachEntry((node, c) -> {
+        relax(node, c, -1);
+        return true;
+      });
+    }
+
+    void relax(int node, double c, int arc) {
+      if (!cost.containsKey(node) || c < cost.get(node)) {
+        cost.put(node, c);
+        parentArc.put(node, arc);
+        queue.insert(node, c);
+      }
+    }
+  }
+}
@@ -0,0 +1,431 @@
+package org.opentripplanner.street.model.contraction;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opentripplanner.astar.model.BinHeap;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.street.model.TurnRestriction;
+import org.opentripplanner.street.model.TurnRestrictionType;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TraverseMode;
+import org.opentripplanner.street.search.intersection_model.IntersectionTraversalCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Build the {@link ContractionHierarchy} for driving a car on a street graph.
+ * <p>
+ * The nodes are contracted in the order of their priority: the number of shortcuts needed to
+ * contract the node minus the number of arcs removed, plus the number of neighbours already
+ * contracted. The priorities are updated lazily, a node is only contracted if its priority is
+ * still the lowest when it is recomputed. A shortcut is only added if a limited "witness" search
+ * does not find another path which is at least as cheap, so the hierarchy may contain some
+ * shortcuts which are not needed, but it is always correct.
+ */
+public class ContractionHierarchyBuilder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ContractionHierarchyBuilder.class);
+
+  /** The maximum number of nodes settled by each witness search */
+  private static final int MAX_WITNESS_SETTLED_NODES = 100;
+
+  private final RoutingPreferences preferences;
+  private final IntersectionTraversalCalculator intersectionTraversalCalculator;
+  private final int nVertices;
+  private final List<StreetEdge> edges = new ArrayList<>();
+  private final Map<StreetEdge, Integer> nodeOfEdge = new IdentityHashMap<>();
+
+  private final TIntArrayList arcFrom = new TIntArrayList();
+  private final TIntArrayList arcTo = new TIntArrayList();
+  private final TFloatArrayList arcCost = new TFloatArrayList();
+  private final TIntArrayList arcFirst = new TIntArrayList();
+  private final TIntArrayList arcSecond = new TIntArrayList();
+
+  /** The arcs leaving and entering each node, including the arcs to contracted nodes */
+  private TIntArrayList[] outArcs;
+  private TIntArrayList[] inArcs;
+
+  private boolean[] contracted;
+  private int[] contractedNeighbours;
+
+  /** The costs of the witness search, reset after each search using the list of visited nodes */
+  private double[] witnessCost;
+  private final TIntArrayList witnessVisited = new TIntArrayList();
+  private final BinHeap<Integer> witnessQueue = new BinHeap<>(64);
+
+  /**
+   * @param vertices    all vertices of the graph, vertices which are not indexed are ignored.
+   * @param preferences the car reluctance, turn reluctance and intersection traversal model used
+   *                    to compute the costs.
+   */
+  public ContractionHierarchyBuilder(Collection<Vertex> vertices, RoutingPreferences preferences) {
+    this.preferences = preferences;
+    this.intersectionTraversalCalculator =
+      IntersectionTraversalCalculator.create(
+        preferences.street().intersectionTraversalModel(),
+        preferences.street().drivingDirection()
+      );
+    this.nVertices =
+      vertices.stream().mapToInt(Vertex::getIndex).max().orElse(Vertex.NOT_INDEXED) + 1;
+
+    for (Vertex v : vertices) {
+      for (Edge e : v.getOutgoing()) {
+        if (e instanceof StreetEdge se && isIncluded(se)) {
+          nodeOfEdge.put(se, edges.size());
+          edges.add(se);
+        }
+      }
+    }
+  }
+
+  public ContractionHierarchy build() {
+    int nNodes = edges.size();
+    outArcs = new TIntArrayList[nNodes];
+    inArcs = new TIntArrayList[nNodes];
+    for (int n = 0; n < nNodes; ++n) {
+      outArcs[n] = new TIntArrayList(4);
+      inArcs[n] = new TIntArrayList(4);
+    }
+    float[] nodeCosts = new float[nNodes];
+    for (int n = 0; n < nNodes; ++n) {
+      nodeCosts[n] = (float) cost(edges.get(n));
+    }
+    for (int n = 0; n < nNodes; ++n) {
+      StreetEdge from = edges.get(n);
+      for (Edge e : from.getToVertex().getOutgoing()) {
+        Integer next = nodeOfEdge.get(e);
+        if (next != null && canTurn(from, (StreetEdge) e)) {
+          double turnCost =
+            preferences.street().turnReluctance() * turnDuration(from, edges.get(next));
+          addArc(n, next, (float) (nodeCosts[next] + turnCost), -1, -1);
+        }
+      }
+    }
+    int nOriginalArcs = arcFrom.size();
+    LOG.info("Contracting {} nodes with {} arcs...", nNodes, nOriginalArcs);
+
+    int[] rank = contract(nNodes);
+    LOG.info("Added {} shortcuts.", arcFrom.size() - nOriginalArcs);
+
+    return createHierarchy(nodeCosts, rank);
+  }
+
+  /**
+   * Only street edges between vertices in the graph, which a car can traverse, are included. The
+   * edges in no-through-traffic areas are not included, the paths using them are found by the A*
+   * search.
+   */
+  private boolean isIncluded(StreetEdge e) {
+    return (
+      isIncluded(e.getFromVertex()) &&
+      isIncluded(e.getToVertex()) &&
+      e.canTraverse(TraverseMode.CAR) &&
+      e.getCarSpeed() > 0 &&
+      !e.isMotorVehicleNoThruTraffic()
+    );
+  }
+
+  private boolean isIncluded(Vertex v) {
+    return v.getIndex() != Vertex.NOT_INDEXED && v.getIndex() < nVertices;
+  }
+
+  /**
+   * The same cost as the A* search computes for a car, see
+   * {@link ContractionHierarchy#cost(StreetEdge)}.
+   */
+  private double cost(StreetEdge e) {
+    return preferences.car().reluctance() * e.getDistanceMeters() / e.getCarSpeed();
+  }
+
+  private double turnDuration(StreetEdge from, StreetEdge to) {
+    if (to.getFromVertex() instanceof IntersectionVertex intersection) {
+      return intersectionTraversalCalculator.computeTraversalDuration(
+        intersection,
+        from,
+        to,
+        TraverseMode.CAR,
+        from.getCarSpeed(),
+        to.getCarSpeed()
+      );
+    }
+    return 0;
+  }
+
+  /**
+   * U-turns are never allowed, and the turn restrictions which are always active for cars are
+   * applied. The restrictions which depend on the time are ignored here, and checked when the path
+   * is traversed.
+   */
+  private static boolean canTurn(StreetEdge from, StreetEdge to) {
+    if (from.isReverseOf(to) || to.isReverseOf(from)) {
+      return false;
+    }
+    for (TurnRestriction restriction : from.getTurnRestrictions()) {
+      if (restriction.time != null || !restriction.modes.contains(TraverseMode.CAR)) {
+        continue;
+      }
+      boolean isRestrictedTurn = to.isEquivalentTo(restriction.to);
+      boolean isOnlyTurn = restriction.type == TurnRestrictionType.ONLY_TURN;
+      if (isOnlyTurn != isRestrictedTurn) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void addArc(int from, int to, float cost, int first, int second) {
+    int arc = arcFrom.size();
+    arcFrom.add(from);
+    arcTo.add(to);
+    arcCost.add(cost);
+    arcFirst.add(first);
+    arcSecond.add(second);
+    outArcs[from].add(arc);
+    inArcs[to].add(arc);
+  }
+
+  /**
+   * Contract all nodes and return the rank of each node, the order they were contracted in.
+   */
+  private int[] contract(int nNodes) {
+    contracted = new boolean[nNodes];
+    contractedNeighbours = new int[nNodes];
+    witnessCost = new double[nNodes];
+    Arrays.fill(witnessCost, Double.POSITIVE_INFINITY);
+
+    var queue = new BinHeap<Integer>(nNodes + 1);
+    for (int n = 0; n < nNodes; ++n) {
+      queue.insert(n, priority(n));
+    }
+
+    int[] rank = new int[nNodes];
+    int nContracted = 0;
+    while (!queue.empty()) {
+      int node = queue.extract_min();
+      double priority = priority(node);
+      if (!queue.empty() && priority > queue.peek_min_key()) {
+        queue.insert(node, priority);
+        continue;
+      }
+      contractNode(node, false);
+      contracted[node] = true;
+      rank[node] = nContracted++;
+      updateNeighbours(node);
+
+      if (nContracted % 100_000 == 0) {
+        LOG.info("Contracted {} of {} nodes", nContracted, nNodes);
+      }
+    }
+    return rank;
+  }
+
+  private double priority(int node) {
+    int degree = activeArcs(outArcs[node], true) + activeArcs(inArcs[node], false);
+    return contractNode(node, true) - degree + contractedNeighbours[node];
+  }
+
+  private int activeArcs(TIntArrayList arcs, boolean outgoing) {
+    int n = 0;
+    for (int i = 0; i < arcs.size(); ++i) {
+      int arc = arcs.get(i);
+      if (!contracted[outgoing ? arcTo.get(arc) : arcFrom.get(arc)]) {
+        ++n;
+      }
+    }
+    return n;
+  }
+
+  private void updateNeighbours(int node) {
+    for (int i = 0; i < outArcs[node].size(); ++i) {
+      ++contractedNeighbours[arcTo.get(outArcs[node].get(i))];
+    }
+    for (int i = 0; i < inArcs[node].size(); ++i) {
+      ++contractedNeighbours[arcFrom.get(inArcs[node].get(i))];
+    }
+  }
+
+  /**
+   * Add the shortcuts needed to remove the node from the graph of the nodes not yet contracted.
+   *
+   * @param simulate only count the shortcuts, do not add them.
+   * @return the number of shortcuts.
+   */
+  private int contractNode(int node, boolean simulate) {
+    int nShortcuts = 0;
+    // Copy the arcs, shortcuts are added to the lists of the neighbours while iterating
+    int[] in = inArcs[node].toArray();
+    int[] out = outArcs[node].toArray();
+
+    for (int inArc : in) {
+      int from = arcFrom.get(inArc);
+      if (contracted[from] || from == node) {
+        continue;
+      }
+      double maxCost = -1;
+      for (int outArc : out) {
+        int to = arcTo.get(outArc);
+        if (!contracted[to] && to != node && to != from) {
+          maxCost = Math.max(maxCost, arcCost.get(inArc) + arcCost.get(outArc));
+        }
+      }
+      if (maxCost < 0) {
+        continue;
+      }
+
+      witnessSearch(from, node, maxCost);
+      for (int outArc : out) {
+        int to = arcTo.get(outArc);
+        if (contracted[to] || to == node || to == from) {
+          continue;
+        }
+        float viaCost = arcCost.get(inArc) + arcCost.get(outArc);
+        if (witnessCost[to] <= viaCost) {
+          continue;
+        }
+        ++nShortcuts;
+        if (!simulate) {
+          addArc(from, to, viaCost, inArc, outArc);
+        }
+      }
+      resetWitnessSearch();
+    }
+    return nShortcuts;
+  }
+
+  /**
+   * A Dijkstra search from the source over the nodes not yet contracted, not passing the ignored
+   * node. It stops after a fixed number of nodes or when the max cost is reached, so a witness
+   * path is not always found, even if there is one.
+   */
+  private void witnessSearch(int source, int ignoredNode, double maxCost) {
+    var queue = witnessQueue;
+    witnessCost[source] = 0;
+    witnessVisited.add(source);
+    queue.insert(source, 0);
+
+    int nSettled = 0;
+    while (!queue.empty() && nSettled < MAX_WITNESS_SETTLED_NODES) {
+      double cost = queue.peek_min_key();
+      int node = queue.extract_min();
+      if (cost > witnessCost[node]) {
+        continue;
+      }
+      if (cost > maxCost) {
+        break;
+      }
+      ++nSettled;
+      TIntArrayList arcs = outArcs[node];
+      for (int i = 0; i < arcs.size(); ++i) {
+        int arc = arcs.get(i);
+        int to = arcTo.get(arc);
+        if (contracted[to] || to == ignoredNode) {
+          continue;
+        }
+        double c = cost + arcCost.get(arc);
+        if (c < witnessCost[to]) {
+          if (witnessCost[to] == Double.POSITIVE_INFINITY) {
+            witnessVisited.add(to);
+          }
+          witnessCost[to] = c;
+          queue.insert(to, c);
+        }
+      }
+    }
+  }
+
+  private void resetWitnessSearch() {
+    for (int i = 0; i < witnessVisited.size(); ++i) {
+      witnessCost[witnessVisited.get(i)] = Double.POSITIVE_INFINITY;
+    }
+    witnessVisited.resetQuick();
+    witnessQueue.reset();
+  }
+
+  private ContractionHierarchy createHierarchy(float[] nodeCosts, int[] rank) {
+    int nNodes = edges.size();
+    int nArcs = arcFrom.size();
+
+    int[] upDegree = new int[nNodes];
+    int[] downDegree = new int[nNodes];
+    for (int arc = 0; arc < nArcs; ++arc) {
+      int from = arcFrom.get(arc);
+      int to = arcTo.get(arc);
+      if (rank[from] < rank[to]) {
+        ++upDegree[from];
+      } else {
+        ++downDegree[to];
+      }
+    }
+    int[] upStart = offsets(upDegree);
+    int[] downStart = offsets(downDegree);
+    int[] upArcs = new int[upStart[nNodes]];
+    int[] downArcs = new int[downStart[nNodes]];
+    // Reuse the degree arrays as the next free position of each node
+    System.arraycopy(upStart, 0, upDegree, 0, nNodes);
+    System.arraycopy(downStart, 0, downDegree, 0, nNodes);
+    for (int arc = 0; arc < nArcs; ++arc) {
+      int from = arcFrom.get(arc);
+      int to = arcTo.get(arc);
+      if (rank[from] < rank[to]) {
+        upArcs[upDegree[from]++] = arc;
+      } else {
+        downArcs[downDegree[to]++] = arc;
+      }
+    }
+
+    int[] outDegree = new int[nVertices];
+    int[] inDegree = new int[nVertices];
+    for (StreetEdge e : edges) {
+      ++outDegree[e.getFromVertex().getIndex()];
+      ++inDegree[e.getToVertex().getIndex()];
+    }
+    int[] vertexOutStart = offsets(outDegree);
+    int[] vertexInStart = offsets(inDegree);
+    int[] vertexOutNodes = new int[nNodes];
+    int[] vertexInNodes = new int[nNodes];
+    System.arraycopy(vertexOutStart, 0, outDegree, 0, nVertices);
+    System.arraycopy(vertexInStart, 0, inDegree, 0, nVertices);
+    for (int n = 0; n < nNodes; ++n) {
+      StreetEdge e = edges.get(n);
+      vertexOutNodes[outDegree[e.getFromVertex().getIndex()]++] = n;
+      vertexInNodes[inDegree[e.getToVertex().getIndex()]++] = n;
+    }
+
+    return new ContractionHierarchy(
+      nVertices,
+      edges.toArray(new StreetEdge[0]),
+      nodeCosts,
+      vertexOutStart,
+      vertexOutNodes,
+      vertexInStart,
+      vertexInNodes,
+      upStart,
+      upArcs,
+      downStart,
+      downArcs,
+      arcFrom.toArray(),
+      arcTo.toArray(),
+      arcCost.toArray(),
+      arcFirst.toArray(),
+      arcSecond.toArray(),
+      preferences
+    );
+  }
+
+  private static int[] offsets(int[] degree) {
+    int[] offsets = new int[degree.length + 1];
+    for (int i = 0; i < degree.length; ++i) {
+      offsets[i + 1] = offsets[i] + degree[i];
+    }
+    return offsets;
+  }
+}
@@ -8,6 +8,7 @@ import java.util.Objects;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.astar.spi.AStarEdge;
 import org.opentripplanner.framework.i18n.I18NString;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
 import org.opentripplanner.street.search.state.State;
 
@@ -33,8 +34,12 @@ public abstract class Edge implements AStarEdge<State, Edge, Vertex>, Serializab
     }
     this.fromv = v1;
     this.tov = v2;
-    fromv.addOutgoing(this);
-    tov.addIncoming(this);
+    if (isStoredOn(fromv, tov)) {
+      fromv.addOutgoing(this);
+    }
+    if (isStoredOn(tov, fromv)) {
+      tov.addIncoming(this);
+    }
   }
 
   public final Vertex getFromVertex() {
@@ -138,23 +143,39 @@ public abstract class Edge implements AStarEdge<State, Edge, Vertex>, Serializab
   }
 
   public void remove() {
+    boolean storedOnFromVertex = fromv != null && isStoredOn(fromv, tov);
+    boolean storedOnToVertex = tov != null && isStoredOn(tov, fromv);
+
     if (this.fromv != null) {
-      for (Edge edge : this.fromv.getIncoming()) {
-        edge.removeTurnRestrictionsTo(this);
+      if (storedOnFromVertex) {
+        for (Edge edge : this.fromv.getIncoming()) {
+          edge.removeTurnRestrictionsTo(this);
+        }
+        this.fromv.removeOutgoing(this);
       }
-
-      this.fromv.removeOutgoing(this);
       this.fromv = null;
     }
 
     if (this.tov != null) {
-      this.tov.removeIncoming(this);
+      if (storedOnToVertex) {
+        this.tov.removeIncoming(this);
+      }
       this.tov = null;
     }
   }
 
   public void removeTurnRestrictionsTo(Edge origin) {}
 
+  /**
+   * An edge between a request scoped temporary vertex and a vertex shared with other requests is
+   * only stored on the request scoped vertex, see {@link TemporaryVertex#isRequestScoped()}.
+   */
+  private static boolean isStoredOn(Vertex vertex, Vertex otherVertex) {
+    return (
+      TemporaryVertex.isRequestScoped(vertex) || !TemporaryVertex.isRequestScoped(otherVertex)
+    );
+  }
+
   /* SERIALIZATION */
 
   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
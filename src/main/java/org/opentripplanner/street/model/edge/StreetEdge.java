@@ -31,6 +31,7 @@ import org.opentripplanner.street.model.vertex.BarrierVertex;
 import org.opentripplanner.street.model.vertex.IntersectionVertex;
 import org.opentripplanner.street.model.vertex.SplitterVertex;
 import org.opentripplanner.street.model.vertex.StreetVertex;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
 import org.opentripplanner.street.search.TraverseMode;
 import org.opentripplanner.street.search.TraverseModeSet;
 import org.opentripplanner.street.search.state.State;
@@ -1027,8 +1028,14 @@ public class StreetEdge
    * on incoming edges.
    */
   private static void copyRestrictionsToSplitEdges(StreetEdge edge, SplitStreetEdge splitEdges) {
-    // Copy turn restriction which have a .to of this edge (present on the incoming edges of fromv)
-    if (splitEdges.head() != null) {
+    // Copy turn restriction which have a .to of this edge (present on the incoming edges of fromv).
+    // This is not done for request scoped splits, since it would modify the shared incoming edges.
+    // The restrictions of the original edge still apply, see
+    // TemporaryPartialStreetEdge#isEquivalentTo(Edge).
+    if (
+      splitEdges.head() != null &&
+      !TemporaryVertex.isRequestScoped(splitEdges.head().getToVertex())
+    ) {
       edge
         .getFromVertex()
         .getIncoming()
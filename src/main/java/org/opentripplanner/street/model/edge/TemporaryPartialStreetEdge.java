@@ -4,6 +4,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.framework.i18n.I18NString;
 import org.opentripplanner.street.model.vertex.StreetVertex;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
 
 public final class TemporaryPartialStreetEdge extends StreetEdge implements TemporaryEdge {
 
@@ -30,8 +31,14 @@ public final class TemporaryPartialStreetEdge extends StreetEdge implements Temp
     double length
   ) {
     super(v1, v2, geometry, name, length, parentEdge.getPermission(), false);
-    v1.addRentalRestriction(parentEdge.getFromVertex().rentalRestrictions());
-    v2.addRentalRestriction(parentEdge.getToVertex().rentalRestrictions());
+    // A vertex of the graph is an end of the parent edge and has the restrictions already, it is
+    // not modified since it is shared with other requests.
+    if (v1 instanceof TemporaryVertex) {
+      v1.addRentalRestriction(parentEdge.getFromVertex().rentalRestrictions());
+    }
+    if (v2 instanceof TemporaryVertex) {
+      v2.addRentalRestriction(parentEdge.getToVertex().rentalRestrictions());
+    }
     this.parentEdge = parentEdge;
     this.geometry = super.getGeometry();
   }
@@ -0,0 +1,90 @@
+package org.opentripplanner.street.model.landmark;
+
+import java.io.Serializable;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+/**
+ * The shortest street network distance from and to a small set of landmark vertices, for every
+ * vertex in the graph. This is used to compute a lower bound on the network distance between two
+ * vertices, using the triangle inequality (the ALT, A* with Landmarks and Triangle inequality,
+ * method):
+ * <pre>
+ * d(v, t) >= d(L, t) - d(L, v)
+ * d(v, t) >= d(v, L) - d(t, L)
+ * </pre>
+ * The bound is much tighter than the straight line distance when the street network is not a grid,
+ * e.g. along rivers and fjords and around parks and railways.
+ * <p>
+ * The vertices are identified by {@link Vertex#getIndex()}, vertices added to the graph after the
+ * table is created are not included. The distances are in meters, and only {@code StreetEdge}s
+ * count, all other edges are assumed to have zero length. The distances are stored with the
+ * landmarks of a vertex next to each other, so a lookup reads one continuous range of each array.
+ * <p>
+ * Create the table with {@link LandmarkTableBuilder}.
+ */
+public final class LandmarkTable implements Serializable {
+
+  private final int[] landmarks;
+  private final int nVertices;
+
+  /** The distance from landmark l to vertex v is stored at v * nLandmarks + l */
+  private final float[] fromLandmark;
+
+  /** The distance from vertex v to landmark l is stored at v * nLandmarks + l */
+  private final float[] toLandmark;
+
+  LandmarkTable(int[] landmarks, int nVertices, float[] fromLandmark, float[] toLandmark) {
+    this.landmarks = landmarks;
+    this.nVertices = nVertices;
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = toLandmark;
+  }
+
+  public int nLandmarks() {
+    return landmarks.length;
+  }
+
+  /**
+   * @return {@code true} if the vertex with the given index is included in the table.
+   */
+  public boolean contains(int vertexIndex) {
+    return vertexIndex >= 0 && vertexIndex < nVertices;
+  }
+
+  /**
+   * A lower bound on the street network distance in meters from one vertex to another, both
+   * vertices must be included in the table. Landmarks which can not be reached from or can not
+   * reach one of the vertices are skipped, so the bound is 0 if nothing is known.
+   */
+  public double lowerBound(int from, int to) {
+    int k = landmarks.length;
+    int fromOffset = from * k;
+    int toOffset = to * k;
+    double best = 0;
+    for (int l = 0; l < k; ++l) {
+      best = Math.max(best, diff(fromLandmark[toOffset + l], fromLandmark[fromOffset + l]));
+      best = Math.max(best, diff(toLandmark[fromOffset + l], toLandmark[toOffset + l]));
+    }
+    return best;
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(LandmarkTable.class)
+      .addNum("landmarks", landmarks.length)
+      .addNum("vertices", nVertices)
+      .toString();
+  }
+
+  /**
+   * The distances are rounded down to a float, so {@code b} may be up to one ulp shorter than the
+   * exact distance. Subtract the ulp, so the difference is never longer than the exact difference.
+   */
+  private static double diff(float a, float b) {
+    return a == Float.POSITIVE_INFINITY || b == Float.POSITIVE_INFINITY
+      ? 0
+      : (double) a - b - Math.ulp(b);
+  }
+}
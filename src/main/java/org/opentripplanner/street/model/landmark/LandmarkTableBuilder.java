@@ -0,0 +1,240 @@
+package org.opentripplanner.street.model.landmark;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+import org.opentripplanner.astar.model.BinHeap;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Select the landmarks and compute the {@link LandmarkTable} for a street graph.
+ * <p>
+ * The landmarks are selected with the "farthest" method: the first landmark is the vertex
+ * farthest away from the center of the graph, and each of the next landmarks is the vertex
+ * farthest away from all landmarks selected so far. This spreads the landmarks along the edge of
+ * the network, where they give the best bounds. The distances are computed with one Dijkstra
+ * search from and one to each landmark, the searches to the landmarks run in parallel.
+ */
+public class LandmarkTableBuilder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LandmarkTableBuilder.class);
+
+  private final int nVertices;
+
+  /** The outgoing edges of vertex v are outTo/outLength[outStart[v]] to [outStart[v + 1] - 1] */
+  private final int[] outStart;
+  private final int[] outTo;
+  private final float[] outLength;
+
+  /** The incoming edges of vertex v are inFrom/inLength[inStart[v]] to [inStart[v + 1] - 1] */
+  private final int[] inStart;
+  private final int[] inFrom;
+  private final float[] inLength;
+
+  private final int centerVertex;
+
+  /**
+   * @param vertices all vertices of the graph, vertices which are not indexed are ignored.
+   */
+  public LandmarkTableBuilder(Collection<Vertex> vertices) {
+    this.nVertices =
+      vertices.stream().mapToInt(Vertex::getIndex).max().orElse(Vertex.NOT_INDEXED) + 1;
+
+    int[] outDegree = new int[nVertices];
+    int[] inDegree = new int[nVertices];
+    int nEdges = 0;
+    for (Vertex v : vertices) {
+      for (Edge e : v.getOutgoing()) {
+        if (isIncluded(e)) {
+          ++outDegree[e.getFromVertex().getIndex()];
+          ++inDegree[e.getToVertex().getIndex()];
+          ++nEdges;
+        }
+      }
+    }
+    this.outStart = offsets(outDegree);
+    this.inStart = offsets(inDegree);
+    this.outTo = new int[nEdges];
+    this.outLength = new float[nEdges];
+    this.inFrom = new int[nEdges];
+    this.inLength = new float[nEdges];
+
+    // Reuse the degree arrays as the next free position of each vertex
+    System.arraycopy(outStart, 0, outDegree, 0, nVertices);
+    System.arraycopy(inStart, 0, inDegree, 0, nVertices);
+    for (Vertex v : vertices) {
+      for (Edge e : v.getOutgoing()) {
+        if (isIncluded(e)) {
+          int from = e.getFromVertex().getIndex();
+          int to = e.getToVertex().getIndex();
+          float length = length(e);
+          int i = outDegree[from]++;
+          outTo[i] = to;
+          outLength[i] = length;
+          int j = inDegree[to]++;
+          inFrom[j] = from;
+          inLength[j] = length;
+        }
+      }
+    }
+    this.centerVertex = findCenterVertex(vertices);
+  }
+
+  /**
+   * Select the given number of landmarks and compute the distances to and from them.
+   */
+  public LandmarkTable build(int nLandmarks) {
+    int[] landmarks = new int[nLandmarks];
+    var fromLandmark = new double[nLandmarks][];
+
+    if (centerVertex == Vertex.NOT_INDEXED) {
+      return new LandmarkTable(new int[0], nVertices, new float[0], new float[0]);
+    }
+
+    // The distance to the closest landmark selected so far, or from the center for the first
+    double[] minDistance = dijkstra(centerVertex, outStart, outTo, outLength);
+    for (int l = 0; l < nLandmarks; ++l) {
+      landmarks[l] = farthestVertex(minDistance);
+      fromLandmark[l] = dijkstra(landmarks[l], outStart, outTo, outLength);
+      if (l == 0) {
+        // The center is not a landmark
+        minDistance = fromLandmark[0].clone();
+      } else {
+        for (int v = 0; v < nVertices; ++v) {
+          minDistance[v] = Math.min(minDistance[v], fromLandmark[l][v]);
+        }
+      }
+      LOG.info("Landmark {} of {} is vertex {}", l + 1, nLandmarks, landmarks[l]);
+    }
+
+    var toLandmark = IntStream
+      .range(0, nLandmarks)
+      .parallel()
+      .mapToObj(l -> dijkstra(landmarks[l], inStart, inFrom, inLength))
+      .toArray(double[][]::new);
+
+    return new LandmarkTable(landmarks, nVertices, pack(fromLandmark), pack(toLandmark));
+  }
+
+  /**
+   * Only edges between vertices in the graph are included, the temporary edges of requests and
+   * realtime updates are not.
+   */
+  private boolean isIncluded(Edge e) {
+    return isIncluded(e.getFromVertex()) && isIncluded(e.getToVertex());
+  }
+
+  private boolean isIncluded(Vertex v) {
+    return v.getIndex() != Vertex.NOT_INDEXED && v.getIndex() < nVertices;
+  }
+
+  /**
+   * The length used to compute the distances. This must be a lower bound on the distance used to
+   * estimate the travel time in a search, so other edges than street edges count as zero. The
+   * traversal time of e.g. pathways and elevators is not proportional to the length.
+   */
+  private static float length(Edge e) {
+    return e instanceof StreetEdge ? floorToFloat(e.getDistanceMeters()) : 0f;
+  }
+
+  private static int[] offsets(int[] degree) {
+    int[] offsets = new int[degree.length + 1];
+    for (int i = 0; i < degree.length; ++i) {
+      offsets[i + 1] = offsets[i] + degree[i];
+    }
+    return offsets;
+  }
+
+  /**
+   * The vertex with outgoing edges closest to the center of the bounding box of the graph. This is
+   * likely in the main connected component of the network.
+   */
+  private int findCenterVertex(Collection<Vertex> vertices) {
+    var x = vertices.stream().mapToDouble(Vertex::getLon).summaryStatistics();
+    var y = vertices.stream().mapToDouble(Vertex::getLat).summaryStatistics();
+    double cx = (x.getMin() + x.getMax()) / 2;
+    double cy = (y.getMin() + y.getMax()) / 2;
+
+    int best = Vertex.NOT_INDEXED;
+    double bestDistance = Double.MAX_VALUE;
+    for (Vertex v : vertices) {
+      int i = v.getIndex();
+      if (isIncluded(v) && outStart[i + 1] > outStart[i]) {
+        double d = (v.getLon() - cx) * (v.getLon() - cx) + (v.getLat() - cy) * (v.getLat() - cy);
+        if (d < bestDistance) {
+          bestDistance = d;
+          best = i;
+        }
+      }
+    }
+    return best;
+  }
+
+  private static int farthestVertex(double[] distance) {
+    int best = 0;
+    for (int v = 1; v < distance.length; ++v) {
+      if (
+        distance[v] != Double.POSITIVE_INFINITY &&
+        (distance[best] == Double.POSITIVE_INFINITY || distance[v] > distance[best])
+      ) {
+        best = v;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * The shortest distance from the source to all vertices, following the given adjacency. Pass
+   * the incoming edges to get the distance from all vertices to the source.
+   */
+  private double[] dijkstra(int source, int[] start, int[] adjacent, float[] length) {
+    double[] distance = new double[nVertices];
+    Arrays.fill(distance, Double.POSITIVE_INFINITY);
+    distance[source] = 0;
+
+    // A vertex can be inserted more than once, the stale entries are skipped
+    var queue = new BinHeap<Integer>(1024);
+    queue.insert(source, 0);
+    while (!queue.empty()) {
+      double d = queue.peek_min_key();
+      int v = queue.extract_min();
+      if (d > distance[v]) {
+        continue;
+      }
+      for (int i = start[v]; i < start[v + 1]; ++i) {
+        int u = adjacent[i];
+        double du = d + length[i];
+        if (du < distance[u]) {
+          distance[u] = du;
+          queue.insert(u, du);
+        }
+      }
+    }
+    return distance;
+  }
+
+  /**
+   * Pack the distances with the landmarks of each vertex next to each other. The distances are
+   * rounded down, see {@link LandmarkTable#lowerBound(int, int)}.
+   */
+  private float[] pack(double[][] distances) {
+    int k = distances.length;
+    float[] packed = new float[nVertices * k];
+    for (int l = 0; l < k; ++l) {
+      for (int v = 0; v < nVertices; ++v) {
+        packed[v * k + l] = floorToFloat(distances[l][v]);
+      }
+    }
+    return packed;
+  }
+
+  /** The largest float less than or equal to the given value */
+  private static float floorToFloat(double value) {
+    float f = (float) value;
+    return f > value ? Math.nextDown(f) : f;
+  }
+}
@@ -0,0 +1,185 @@
+package org.opentripplanner.street.model.stopaccess;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.opentripplanner.framework.tostring.ToStringBuilder;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.TransitStopVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+/**
+ * The precomputed access and egress paths between the street vertices and the transit stops near
+ * them, for one street mode.
+ * <p>
+ * For each stop the table stores a shortest path tree of the street search for the mode, up to a
+ * maximum duration, both to the stop (access) and from the stop (egress). The tree is stored as
+ * one entry for each vertex and stop: the weight and duration of the path between them, and the
+ * next edge of the path. Following the next edges from vertex to vertex gives the full path, so
+ * the access or egress paths of a request can be created by traversing the edges, without a search.
+ * <p>
+ * The paths are only valid for requests with the same preferences as the table was built with, see
+ * {@link #isCompatible(RouteRequest, StreetMode, Duration)}. The vertices are identified by
+ * {@link Vertex#getIndex()}, vertices added to the graph after the table is built are not
+ * included. Create the table with {@link StopAccessTableBuilder}.
+ */
+public final class StopAccessTable implements Serializable {
+
+  private final StreetMode mode;
+  private final Duration maxDuration;
+  private final RoutingPreferences preferences;
+
+  private final TransitStopVertex[] stops;
+
+  /** The paths from the vertices to the stops */
+  private final Paths toStops;
+
+  /** The paths from the stops to the vertices */
+  private final Paths fromStops;
+
+  StopAccessTable(
+    StreetMode mode,
+    Duration maxDuration,
+    RoutingPreferences preferences,
+    TransitStopVertex[] stops,
+    Paths toStops,
+    Paths fromStops
+  ) {
+    this.mode = mode;
+    this.maxDuration = maxDuration;
+    this.preferences = preferences;
+    this.stops = stops;
+    this.toStops = toStops;
+    this.fromStops = fromStops;
+  }
+
+  public StreetMode mode() {
+    return mode;
+  }
+
+  public Duration maxDuration() {
+    return maxDuration;
+  }
+
+  public TransitStopVertex stop(int stop) {
+    return stops[stop];
+  }
+
+  /**
+   * @param fromStops {@code true} for the egress paths from the stops, {@code false} for the access
+   *                  paths to the stops.
+   */
+  public Paths paths(boolean fromStops) {
+    return fromStops ? this.fromStops : this.toStops;
+  }
+
+  /**
+   * The table gives the same paths as the street search only if the request uses the same
+   * preferences for the mode as the table was built with, and does not search further than the
+   * paths in the table.
+   */
+  public boolean isCompatible(RouteRequest request, StreetMode mode, Duration durationLimit) {
+    var other = request.preferences();
+    return (
+      mode == this.mode &&
+      durationLimit.compareTo(maxDuration) <= 0 &&
+      !request.wheelchair() &&
+      other.walk().equals(preferences.walk()) &&
+      (mode != StreetMode.BIKE || other.bike().equals(preferences.bike())) &&
+      other.street().elevator().equals(preferences.street().elevator()) &&
+      other.street().turnReluctance() == preferences.street().turnReluctance() &&
+      other.street().intersectionTraversalModel() ==
+      preferences.street().intersectionTraversalModel()
+    );
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(StopAccessTable.class)
+      .addEnum("mode", mode)
+      .addDuration("maxDuration", maxDuration)
+      .addNum("stops", stops.length)
+      .addNum("accessEntries", toStops.size())
+      .addNum("egressEntries", fromStops.size())
+      .toString();
+  }
+
+  /**
+   * The paths in one direction. The entries of vertex v are from {@code start(v)} to
+   * {@code end(v)}, ordered by stop.
+   */
+  public static final class Paths implements Serializable {
+
+    private final int[] vertexStart;
+    private final int[] stop;
+    private final float[] weight;
+    private final int[] duration;
+    private final Edge[] nextEdge;
+
+    Paths(int[] vertexStart, int[] stop, float[] weight, int[] duration, Edge[] nextEdge) {
+      this.vertexStart = vertexStart;
+      this.stop = stop;
+      this.weight = weight;
+      this.duration = duration;
+      this.nextEdge = nextEdge;
+    }
+
+    public int size() {
+      return stop.length;
+    }
+
+    public boolean contains(Vertex vertex) {
+      int index = vertex.getIndex();
+      return index >= 0 && index < vertexStart.length - 1;
+    }
+
+    /** The first entry of the vertex, the vertex must be included */
+    public int start(Vertex vertex) {
+      return vertexStart[vertex.getIndex()];
+    }
+
+    /** The entry after the last entry of the vertex, the vertex must be included */
+    public int end(Vertex vertex) {
+      return vertexStart[vertex.getIndex() + 1];
+    }
+
+    /**
+     * @return the entry of the vertex for the stop, or -1 if the stop is not reachable within the
+     * maximum duration.
+     */
+    public int find(Vertex vertex, int stop) {
+      if (!contains(vertex)) {
+        return -1;
+      }
+      int i = Arrays.binarySearch(this.stop, start(vertex), end(vertex), stop);
+      return i < 0 ? -1 : i;
+    }
+
+    public int stop(int entry) {
+      return stop[entry];
+    }
+
+    public double weight(int entry) {
+      return weight[entry];
+    }
+
+    public int durationSeconds(int entry) {
+      return duration[entry];
+    }
+
+    /**
+     * The next edge of the path: the edge leaving the vertex towards the stop for the paths to the
+     * stops, or the edge entering the vertex from the stop for the paths from the stops. This is
+     * {@code null} at the stop itself.
+     */
+    @Nullable
+    public Edge nextEdge(int entry) {
+      return nextEdge[entry];
+    }
+  }
+}
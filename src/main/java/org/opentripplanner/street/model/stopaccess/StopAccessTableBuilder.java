@@ -0,0 +1,173 @@
+package org.opentripplanner.street.model.stopaccess;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.opentripplanner.astar.strategy.DurationSkipEdgeStrategy;
+import org.opentripplanner.framework.logging.ProgressTracker;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.TransitStopVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.StreetSearchBuilder;
+import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.street.search.strategy.DominanceFunctions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Create a {@link StopAccessTable} by running the same street search as the access and egress
+ * search of a request, from and to each stop. The searches for the stops run in parallel.
+ */
+public class StopAccessTableBuilder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StopAccessTableBuilder.class);
+
+  private final RouteRequest request;
+  private final StreetMode mode;
+  private final Duration maxDuration;
+  private final int nVertices;
+  private final TransitStopVertex[] stops;
+
+  /**
+   * @param vertices    all vertices of the graph
+   * @param request     the preferences of the request are used for the street searches
+   * @param mode        {@link StreetMode#WALK} or {@link StreetMode#BIKE}
+   * @param maxDuration the maximum duration of the paths in the table
+   */
+  public StopAccessTableBuilder(
+    Collection<Vertex> vertices,
+    RouteRequest request,
+    StreetMode mode,
+    Duration maxDuration
+  ) {
+    if (mode != StreetMode.WALK && mode != StreetMode.BIKE) {
+      throw new IllegalArgumentException("Unsupported street mode: " + mode);
+    }
+    this.request = request;
+    this.mode = mode;
+    this.maxDuration = maxDuration;
+    this.nVertices =
+      vertices.stream().mapToInt(Vertex::getIndex).max().orElse(Vertex.NOT_INDEXED) + 1;
+    this.stops =
+      vertices
+        .stream()
+        .filter(TransitStopVertex.class::isInstance)
+        .filter(v -> v.getIndex() != Vertex.NOT_INDEXED)
+        .toArray(TransitStopVertex[]::new);
+  }
+
+  public StopAccessTable build() {
+    var progress = ProgressTracker.track(
+      "Create " + mode + " stop access table",
+      1000,
+      stops.length
+    );
+
+    var results = IntStream
+      .range(0, stops.length)
+      .parallel()
+      .mapToObj(i -> {
+        var result = new StopPaths(search(stops[i], false), search(stops[i], true));
+        //Keep lambda! A method-ref would causes incorrect class and line number to be logged
+        //noinspection Convert2MethodRef
+        progress.step(m -> LOG.info(m));
+        return result;
+      })
+      .toList();
+    LOG.info(progress.completeMessage());
+
+    return new StopAccessTable(
+      mode,
+      maxDuration,
+      request.preferences(),
+      stops,
+      createPaths(results.stream().map(StopPaths::toStop).toList()),
+      createPaths(results.stream().map(StopPaths::fromStop).toList())
+    );
+  }
+
+  /**
+   * Search the paths to the stop (in reverse) or from the stop, and return the best final state of
+   * each vertex.
+   */
+  private List<Entry> search(TransitStopVertex stop, boolean fromStop) {
+    var spt = StreetSearchBuilder
+      .of()
+      .setSkipEdgeStrategy(new DurationSkipEdgeStrategy<>(maxDuration))
+      .setDominanceFunction(new DominanceFunctions.MinimumWeight())
+      .setRequest(request)
+      .setArriveBy(!fromStop)
+      .setStreetRequest(new StreetRequest(mode))
+      .setFrom(fromStop ? Set.of(stop) : null)
+      .setTo(fromStop ? null : Set.of(stop))
+      .getShortestPathTree();
+
+    Map<Vertex, State> best = new HashMap<>();
+    for (State state : spt.getAllStates()) {
+      Vertex v = state.getVertex();
+      if (!state.isFinal() || v.getIndex() == Vertex.NOT_INDEXED || v.getIndex() >= nVertices) {
+        continue;
+      }
+      best.merge(v, state, (a, b) -> a.getWeight() <= b.getWeight() ? a : b);
+    }
+
+    var entries = new ArrayList<Entry>(best.size());
+    for (State state : best.values()) {
+      entries.add(
+        new Entry(
+          state.getVertex().getIndex(),
+          (float) state.getWeight(),
+          (int) state.getElapsedTimeSeconds(),
+          state.getBackEdge()
+        )
+      );
+    }
+    return entries;
+  }
+
+  /**
+   * Group the entries by vertex. The entries of each vertex are ordered by stop, because the stops
+   * are added in order.
+   */
+  private StopAccessTable.Paths createPaths(List<List<Entry>> entriesByStop) {
+    int[] vertexStart = new int[nVertices + 1];
+    for (List<Entry> entries : entriesByStop) {
+      for (Entry e : entries) {
+        ++vertexStart[e.vertex + 1];
+      }
+    }
+    for (int v = 0; v < nVertices; ++v) {
+      vertexStart[v + 1] += vertexStart[v];
+    }
+
+    int size = vertexStart[nVertices];
+    int[] stop = new int[size];
+    float[] weight = new float[size];
+    int[] duration = new int[size];
+    Edge[] nextEdge = new Edge[size];
+
+    int[] next = vertexStart.clone();
+    for (int s = 0; s < entriesByStop.size(); ++s) {
+      for (Entry e : entriesByStop.get(s)) {
+        int i = next[e.vertex]++;
+        stop[i] = s;
+        weight[i] = e.weight;
+        duration[i] = e.duration;
+        nextEdge[i] = e.edge;
+      }
+    }
+    return new StopAccessTable.Paths(vertexStart, stop, weight, duration, nextEdge);
+  }
+
+  private record Entry(int vertex, float weight, int duration, Edge edge) {}
+
+  private record StopPaths(List<Entry> toStop, List<Entry> fromStop) {}
+}
@@ -11,6 +11,7 @@ import org.opentripplanner.street.model.edge.StreetEdge;
 public class TemporarySplitterVertex extends SplitterVertex implements TemporaryVertex {
 
   private final boolean endVertex;
+  private final boolean requestScoped;
   private boolean wheelchairAccessible;
 
   public TemporarySplitterVertex(
@@ -19,9 +20,21 @@ public class TemporarySplitterVertex extends SplitterVertex implements Temporary
     double y,
     StreetEdge streetEdge,
     boolean endVertex
+  ) {
+    this(label, x, y, streetEdge, endVertex, false);
+  }
+
+  public TemporarySplitterVertex(
+    String label,
+    double x,
+    double y,
+    StreetEdge streetEdge,
+    boolean endVertex,
+    boolean requestScoped
   ) {
     super(null, label, x, y, streetEdge.getName());
     this.endVertex = endVertex;
+    this.requestScoped = requestScoped;
     this.wheelchairAccessible = streetEdge.isWheelchairAccessible();
   }
 
@@ -42,6 +55,11 @@ public class TemporarySplitterVertex extends SplitterVertex implements Temporary
     return endVertex;
   }
 
+  @Override
+  public boolean isRequestScoped() {
+    return requestScoped;
+  }
+
   public boolean isWheelchairAccessible() {
     return wheelchairAccessible;
   }
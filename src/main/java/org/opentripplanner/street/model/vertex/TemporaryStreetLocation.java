@@ -8,15 +8,27 @@ import org.opentripplanner.street.model.edge.TemporaryEdge;
 public final class TemporaryStreetLocation extends StreetLocation implements TemporaryVertex {
 
   private final boolean endVertex;
+  private final boolean requestScoped;
 
   public TemporaryStreetLocation(
     String id,
     Coordinate nearestPoint,
     I18NString name,
     boolean endVertex
+  ) {
+    this(id, nearestPoint, name, endVertex, false);
+  }
+
+  public TemporaryStreetLocation(
+    String id,
+    Coordinate nearestPoint,
+    I18NString name,
+    boolean endVertex,
+    boolean requestScoped
   ) {
     super(id, nearestPoint, name);
     this.endVertex = endVertex;
+    this.requestScoped = requestScoped;
   }
 
   @Override
@@ -51,4 +63,9 @@ public final class TemporaryStreetLocation extends StreetLocation implements Tem
   public boolean isEndVertex() {
     return endVertex;
   }
+
+  @Override
+  public boolean isRequestScoped() {
+    return requestScoped;
+  }
 }
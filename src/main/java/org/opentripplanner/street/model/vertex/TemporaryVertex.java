@@ -22,5 +22,22 @@ public interface TemporaryVertex {
     TemporaryVertexDispose.dispose(vertex);
   }
 
+  /**
+   * Return true if the given vertex is a request scoped temporary vertex.
+   */
+  static boolean isRequestScoped(Vertex vertex) {
+    return vertex instanceof TemporaryVertex it && it.isRequestScoped();
+  }
+
   boolean isEndVertex();
+
+  /**
+   * A request scoped vertex is only used by the routing request which created it. An edge between
+   * a request scoped vertex and a vertex shared with other requests is only added to the edge lists
+   * of the request scoped vertex, so a routing request never modifies the shared graph. The search
+   * finds these edges using a {@link org.opentripplanner.street.search.TemporaryEdgeOverlay}.
+   */
+  default boolean isRequestScoped() {
+    return false;
+  }
 }
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.astar.spi.AStarVertex;
 import org.opentripplanner.framework.geometry.DirectionUtils;
@@ -29,6 +30,19 @@ public abstract class Vertex implements AStarVertex<State, Edge, Vertex>, Serial
 
   private static final Logger LOG = LoggerFactory.getLogger(Vertex.class);
 
+  /**
+   * The index used for vertices not added to the graph, like the temporary vertices created when
+   * linking the origin and destination of a request.
+   */
+  public static final int NOT_INDEXED = -1;
+
+  private static final AtomicInteger INDEX_COUNTER = new AtomicInteger(0);
+
+  /**
+   * Dense integer index assigned to every vertex added to the graph, see {@link #getIndex()}.
+   */
+  private final int index;
+
   /**
    * Short debugging name. This is a graph mathematical term as in https://en.wikipedia.org/wiki/Graph_labeling
    */
@@ -50,7 +64,10 @@ public abstract class Vertex implements AStarVertex<State, Edge, Vertex>, Serial
     this.y = y;
     // null graph means temporary vertex
     if (g != null) {
+      this.index = INDEX_COUNTER.getAndIncrement();
       g.addVertex(this);
+    } else {
+      this.index = NOT_INDEXED;
     }
     this.name = new NonLocalizedString("(no name provided)");
   }
@@ -162,6 +179,17 @@ public abstract class Vertex implements AStarVertex<State, Edge, Vertex>, Serial
     return this.name.toString();
   }
 
+  /**
+   * This is the OTP internal <em>synthetic key</em> of the vertex. Vertices added to the graph are
+   * numbered from zero and up, so the index can be used to store search state in flat arrays
+   * instead of hash maps. Temporary vertices return {@link #NOT_INDEXED}. The index will not
+   * change, but it is not guaranteed to be the same across different graph builds.
+   */
+  @Override
+  public int getIndex() {
+    return index;
+  }
+
   /** Every vertex has a label which is globally unique. */
   public String getLabel() {
     return label;
@@ -230,6 +258,20 @@ public abstract class Vertex implements AStarVertex<State, Edge, Vertex>, Serial
     rentalRestrictions.remove(ext);
   }
 
+  /**
+   * The number of indexes handed out so far, all vertex indexes are less than this number.
+   */
+  public static int indexCounter() {
+    return INDEX_COUNTER.get();
+  }
+
+  /**
+   * Use this ONLY when deserializing the graph. Sets the counter value to the highest recorded value
+   */
+  public static void initIndexCounter(int indexCounter) {
+    INDEX_COUNTER.set(indexCounter);
+  }
+
   /**
    * A static helper method to avoid repeated code for outgoing and incoming lists. Synchronization
    * must be handled by the caller, to avoid passing edge array pointers that may be invalidated.
@@ -6,6 +6,7 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 import org.opentripplanner.astar.AStarBuilder;
 import org.opentripplanner.astar.spi.DominanceFunction;
+import org.opentripplanner.astar.spi.ExtraEdgesStrategy;
 import org.opentripplanner.astar.spi.RemainingWeightHeuristic;
 import org.opentripplanner.ext.dataoverlay.routing.DataOverlayContext;
 import org.opentripplanner.routing.api.request.RouteRequest;
@@ -125,4 +126,13 @@ public class StreetSearchBuilder extends AStarBuilder<State, Edge, Vertex, Stree
   protected DominanceFunction<State> createDefaultDominanceFunction() {
     return new DominanceFunctions.Pareto();
   }
+
+  @Override
+  protected ExtraEdgesStrategy<Edge, Vertex> createDefaultExtraEdgesStrategy(
+    Collection<Vertex> origin,
+    Collection<Vertex> destination
+  ) {
+    var overlay = TemporaryEdgeOverlay.of(origin, destination);
+    return overlay.isEmpty() ? null : overlay;
+  }
 }
@@ -0,0 +1,99 @@
+package org.opentripplanner.street.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.opentripplanner.astar.spi.ExtraEdgesStrategy;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.TemporaryVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+/**
+ * The edges connecting the request scoped temporary vertices of a routing request to the shared
+ * street graph. These edges are only stored on the temporary vertices, see
+ * {@link TemporaryVertex#isRequestScoped()}, so the requests can link to the same streets at the
+ * same time without locking or modifying the graph.
+ * <p>
+ * The overlay finds the edges by traversing the temporary subgraphs connected to the origin and
+ * destination of a search, and returns them as extra edges of the shared vertices they connect to.
+ * For example, the edge from a street vertex to the split vertex in front of the destination is an
+ * extra outgoing edge of the street vertex.
+ */
+public class TemporaryEdgeOverlay implements ExtraEdgesStrategy<Edge, Vertex> {
+
+  private final Map<Vertex, List<Edge>> outgoing = new HashMap<>();
+  private final Map<Vertex, List<Edge>> incoming = new HashMap<>();
+
+  private TemporaryEdgeOverlay() {}
+
+  /**
+   * Create an overlay with the temporary subgraphs connected to the origin and destination
+   * vertices. Vertices which are not request scoped are ignored.
+   */
+  public static TemporaryEdgeOverlay of(
+    Collection<? extends Vertex> origin,
+    Collection<? extends Vertex> destination
+  ) {
+    var overlay = new TemporaryEdgeOverlay();
+    var todo = new ArrayDeque<Vertex>();
+    var visited = new HashSet<Vertex>();
+
+    for (var vertices : List.of(origin, destination)) {
+      for (Vertex v : vertices) {
+        if (TemporaryVertex.isRequestScoped(v) && visited.add(v)) {
+          todo.add(v);
+        }
+      }
+    }
+
+    while (!todo.isEmpty()) {
+      Vertex current = todo.poll();
+      for (Edge edge : current.getOutgoing()) {
+        overlay.add(edge.getToVertex(), edge, overlay.incoming, visited, todo);
+      }
+      for (Edge edge : current.getIncoming()) {
+        overlay.add(edge.getFromVertex(), edge, overlay.outgoing, visited, todo);
+      }
+    }
+    return overlay;
+  }
+
+  public boolean isEmpty() {
+    return outgoing.isEmpty() && incoming.isEmpty();
+  }
+
+  @Override
+  public Collection<Edge> extraOutgoingEdges(Vertex vertex) {
+    return outgoing.getOrDefault(vertex, List.of());
+  }
+
+  @Override
+  public Collection<Edge> extraIncomingEdges(Vertex vertex) {
+    return incoming.getOrDefault(vertex, List.of());
+  }
+
+  /**
+   * Add the edge to the shared vertex, or continue the traversal if the vertex is another
+   * temporary vertex.
+   */
+  private void add(
+    Vertex vertex,
+    Edge edge,
+    Map<Vertex, List<Edge>> edgesByVertex,
+    Set<Vertex> visited,
+    Collection<Vertex> todo
+  ) {
+    if (TemporaryVertex.isRequestScoped(vertex)) {
+      if (visited.add(vertex)) {
+        todo.add(vertex);
+      }
+    } else {
+      edgesByVertex.computeIfAbsent(vertex, v -> new ArrayList<>()).add(edge);
+    }
+  }
+}
@@ -28,6 +28,11 @@ import org.opentripplanner.street.model.vertex.Vertex;
  * in the A-Star search, as well as removing them after the search has been done. It implements
  * AutoCloseable, in order to be able to use the try-with-resources statement, making the clean-up
  * automatic.
+ * <p>
+ * The temporary vertices are request scoped, the edges connecting them to the graph are only
+ * stored on the temporary vertices, and the graph itself is not modified. The search finds these
+ * edges using a {@link TemporaryEdgeOverlay}, which is created by the {@link StreetSearchBuilder}
+ * for the origin and destination vertices of the search.
  */
 public class TemporaryVerticesContainer implements AutoCloseable {
 
@@ -65,8 +70,9 @@ public class TemporaryVerticesContainer implements AutoCloseable {
   /* INSTANCE METHODS */
 
   /**
-   * Tear down this container, removing any temporary edges from the "permanent" graph objects. This
-   * enables all temporary objects for garbage collection.
+   * Tear down this container, disconnecting the temporary edges from the temporary vertices. The
+   * "permanent" graph objects do not reference the temporary objects, so they are garbage
+   * collected when the request is done.
    */
   public void close() {
     this.tempEdges.forEach(DisposableEdgeCollection::disposeEdges);
@@ -64,13 +64,7 @@ public class EuclideanRemainingWeightHeuristic implements RemainingWeightHeurist
    */
   @Override
   public double estimateRemainingWeight(State s) {
-    Vertex sv = s.getVertex();
-    double euclideanDistance = SphericalDistanceLibrary.fastDistance(
-      sv.getLat(),
-      sv.getLon(),
-      lat,
-      lon
-    );
+    double distance = estimateRemainingDistance(s.getVertex());
 
     // After parking or finishing the rental of a vehicle, you can't ever move faster than walking speed.
     boolean useWalkSpeed;
@@ -82,6 +76,14 @@ public class EuclideanRemainingWeightHeuristic implements RemainingWeightHeurist
     }
 
     final double streetSpeed = useWalkSpeed ? walkingSpeed : maxStreetSpeed;
-    return euclideanDistance / streetSpeed;
+    return distance / streetSpeed;
+  }
+
+  /**
+   * A lower bound on the distance in meters from the vertex to the target, or from the target to
+   * the vertex in an arrive-by search. This is the straight line distance.
+   */
+  protected double estimateRemainingDistance(Vertex v) {
+    return SphericalDistanceLibrary.fastDistance(v.getLat(), v.getLon(), lat, lon);
   }
 }
@@ -0,0 +1,100 @@
+package org.opentripplanner.street.search.strategy;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.landmark.LandmarkTable;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+/**
+ * A remaining weight heuristic using the street network distance lower bounds of a
+ * {@link LandmarkTable} instead of the straight line distance, when the bound is larger. The
+ * travel speed is the same as for the {@link EuclideanRemainingWeightHeuristic}.
+ * <p>
+ * The targets of a search are usually temporary vertices, which are not in the table. The
+ * heuristic uses the closest vertices in the table the target can be reached from instead (or
+ * reached from the target in an arrive-by search), the part of the path through the temporary
+ * vertices is at least zero meters.
+ */
+public class LandmarkRemainingWeightHeuristic extends EuclideanRemainingWeightHeuristic {
+
+  /**
+   * Stop looking for vertices in the table close to the target after this many vertices, and use
+   * the straight line distance only.
+   */
+  private static final int MAX_VERTICES_TO_VISIT = 100;
+
+  private final LandmarkTable landmarks;
+
+  private boolean arriveBy;
+
+  /** The vertices in the table closest to the target, or null if the table should not be used */
+  private int[] entryVertices;
+
+  public LandmarkRemainingWeightHeuristic(LandmarkTable landmarks) {
+    this.landmarks = landmarks;
+  }
+
+  @Override
+  public void initialize(
+    StreetMode streetMode,
+    Set<Vertex> fromVertices,
+    Set<Vertex> toVertices,
+    boolean arriveBy,
+    RoutingPreferences preferences
+  ) {
+    super.initialize(streetMode, fromVertices, toVertices, arriveBy, preferences);
+    this.arriveBy = arriveBy;
+    this.entryVertices = findEntryVertices(toVertices, arriveBy);
+  }
+
+  @Override
+  protected double estimateRemainingDistance(Vertex v) {
+    double distance = super.estimateRemainingDistance(v);
+    if (entryVertices == null || !landmarks.contains(v.getIndex())) {
+      return distance;
+    }
+    double networkDistance = Double.MAX_VALUE;
+    for (int entry : entryVertices) {
+      networkDistance =
+        Math.min(
+          networkDistance,
+          arriveBy
+            ? landmarks.lowerBound(entry, v.getIndex())
+            : landmarks.lowerBound(v.getIndex(), entry)
+        );
+    }
+    return Math.max(distance, networkDistance);
+  }
+
+  /**
+   * Find the vertices in the table the targets can be reached from (or reached from the targets in
+   * an arrive-by search), without passing other vertices in the table.
+   */
+  private int[] findEntryVertices(Set<Vertex> targets, boolean arriveBy) {
+    Set<Integer> result = new HashSet<>();
+    var visited = new HashSet<Vertex>(targets);
+    var todo = new ArrayDeque<Vertex>(targets);
+
+    while (!todo.isEmpty()) {
+      Vertex v = todo.poll();
+      if (landmarks.contains(v.getIndex())) {
+        result.add(v.getIndex());
+        continue;
+      }
+      for (Edge e : arriveBy ? v.getOutgoing() : v.getIncoming()) {
+        Vertex next = arriveBy ? e.getToVertex() : e.getFromVertex();
+        if (visited.add(next)) {
+          if (visited.size() > MAX_VERTICES_TO_VISIT) {
+            return null;
+          }
+          todo.add(next);
+        }
+      }
+    }
+    return result.isEmpty() ? null : result.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
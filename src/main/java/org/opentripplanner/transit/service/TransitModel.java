@@ -75,6 +75,9 @@ public class TransitModel implements Serializable {
 
   private final Multimap<StopLocation, PathTransfer> transfersByStop = HashMultimap.create();
 
+  /** The time the transfers were added, identifies the transfers of a graph build. */
+  private Instant transfersBuildTime = null;
+
   private StopModel stopModel;
   private ZonedDateTime transitServiceStarts = LocalDate.MAX.atStartOfDay(ZoneId.systemDefault());
   private ZonedDateTime transitServiceEnds = LocalDate.MIN.atStartOfDay(ZoneId.systemDefault());
@@ -396,6 +399,16 @@ public class TransitModel implements Serializable {
     return transfersByStop.get(stop);
   }
 
+  /**
+   * The time the pre-generated transfers were added to the model, or {@code null} if no transfers
+   * are added. This is serialized with the model, so together with the build time of the street
+   * graph it identifies the graph build the transfers belong to.
+   */
+  @Nullable
+  public Instant getTransfersBuildTime() {
+    return transfersBuildTime;
+  }
+
   public StopModel getStopModel() {
     return stopModel;
   }
@@ -480,6 +493,7 @@ public class TransitModel implements Serializable {
   public void addAllTransfersByStops(Multimap<StopLocation, PathTransfer> transfersByStop) {
     invalidateIndex();
     this.transfersByStop.putAll(transfersByStop);
+    this.transfersBuildTime = Instant.now();
   }
 
   /**
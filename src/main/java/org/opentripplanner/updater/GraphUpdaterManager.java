@@ -1,6 +1,7 @@
 package org.opentripplanner.updater;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -134,13 +135,22 @@ public class GraphUpdaterManager implements WriteToGraphCallback, GraphUpdaterSt
 
   @Override
   public Future<?> execute(GraphWriterRunnable runnable) {
-    return scheduler.submit(() -> {
-      try {
-        runnable.run(graph, transitModel);
-      } catch (Exception e) {
-        LOG.error("Error while running graph writer {}:", runnable.getClass().getName(), e);
-      }
-    });
+    return scheduler.submit(() -> runGraphWriter(runnable));
+  }
+
+  /**
+   * Run the given graph writer on the graph writer thread repeatedly, with the given delay between
+   * the end of one execution and the start of the next. An exception does not stop the following
+   * executions.
+   */
+  public void executeRepeatedly(GraphWriterRunnable runnable, Duration delay) {
+    long delayMs = delay.toMillis();
+    scheduler.scheduleWithFixedDelay(
+      () -> runGraphWriter(runnable),
+      delayMs,
+      delayMs,
+      TimeUnit.MILLISECONDS
+    );
   }
 
   @Override
@@ -204,6 +214,14 @@ public class GraphUpdaterManager implements WriteToGraphCallback, GraphUpdaterSt
     return scheduler;
   }
 
+  private void runGraphWriter(GraphWriterRunnable runnable) {
+    try {
+      runnable.run(graph, transitModel);
+    } catch (Exception e) {
+      LOG.error("Error while running graph writer {}:", runnable.getClass().getName(), e);
+    }
+  }
+
   /**
    * This method start a task during startup and log a message when all updaters are initialized.
    * When all updaters are ready, then OTP is ready for processing routing requests.
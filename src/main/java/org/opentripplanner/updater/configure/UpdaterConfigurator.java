@@ -1,5 +1,6 @@
 package org.opentripplanner.updater.configure;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import org.opentripplanner.ext.siri.SiriTimetableSnapshotSource;
@@ -96,6 +97,7 @@ public class UpdaterConfigurator {
 
     GraphUpdaterManager updaterManager = new GraphUpdaterManager(graph, transitModel, updaters);
     updaterManager.startUpdaters();
+    scheduleTimetableSnapshotFlush(updaterManager);
 
     // Stop the updater manager if it contains nothing
     if (updaterManager.numberOfUpdaters() == 0) {
@@ -117,6 +119,32 @@ public class UpdaterConfigurator {
 
   /* private methods */
 
+  /**
+   * The timetable snapshot sources commit the buffer at most once within the max snapshot
+   * frequency. Updates applied within this interval after a commit are published by flushing the
+   * buffer periodically on the graph writer thread - routing threads only read the last snapshot.
+   */
+  private void scheduleTimetableSnapshotFlush(GraphUpdaterManager updaterManager) {
+    int maxSnapshotFrequencyMs = updatersParameters
+      .timetableSnapshotParameters()
+      .maxSnapshotFrequencyMs();
+
+    // Without a max frequency every batch of updates is committed when it is applied
+    if (maxSnapshotFrequencyMs <= 0) {
+      return;
+    }
+    var delay = Duration.ofMillis(maxSnapshotFrequencyMs);
+
+    if (gtfsTimetableSnapshotSource != null) {
+      var source = gtfsTimetableSnapshotSource;
+      updaterManager.executeRepeatedly((graph, transitModel) -> source.flushBuffer(), delay);
+    }
+    if (siriTimetableSnapshotSource != null) {
+      var source = siriTimetableSnapshotSource;
+      updaterManager.executeRepeatedly((graph, transitModel) -> source.flushBuffer(), delay);
+    }
+  }
+
   /**
    * Use the online UpdaterDirectoryService to fetch VehicleRental updaters.
    */
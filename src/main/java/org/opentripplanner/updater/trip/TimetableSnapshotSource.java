@@ -21,10 +21,12 @@ import com.google.transit.realtime.GtfsRealtime.TripUpdate;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
 import de.mfdz.MfdzRealtimeExtensions;
 import java.text.ParseException;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -32,6 +34,7 @@ import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.opentripplanner.framework.i18n.I18NString;
 import org.opentripplanner.framework.i18n.NonLocalizedString;
 import org.opentripplanner.framework.lang.StringUtils;
@@ -41,6 +44,7 @@ import org.opentripplanner.model.StopTime;
 import org.opentripplanner.model.Timetable;
 import org.opentripplanner.model.TimetableSnapshot;
 import org.opentripplanner.model.TimetableSnapshotProvider;
+import org.opentripplanner.model.TripTimesPatch;
 import org.opentripplanner.model.UpdateError;
 import org.opentripplanner.model.UpdateSuccess;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
@@ -64,6 +68,7 @@ import org.opentripplanner.updater.GtfsRealtimeMapper;
 import org.opentripplanner.updater.ResultLogger;
 import org.opentripplanner.updater.TimetableSnapshotSourceParameters;
 import org.opentripplanner.updater.UpdateResult;
+import org.opentripplanner.updater.trip.metrics.TimetableSnapshotMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,10 +94,13 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
   private final TimetableSnapshot buffer = new TimetableSnapshot();
 
   /**
-   * Lock to indicate that buffer is in use
+   * Lock to indicate that buffer is in use. The lock is only used by the threads applying updates
+   * and committing the buffer, routing threads never touch it.
    */
   private final ReentrantLock bufferLock = new ReentrantLock(true);
 
+  private final TimetableSnapshotMetrics metrics = new TimetableSnapshotMetrics("gtfs");
+
   /**
    * A synchronized cache of trip patterns that are added to the graph due to GTFS-realtime
    * messages.
@@ -105,15 +113,15 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
   private final TransitLayerUpdater transitLayerUpdater;
 
   /**
-   * If a timetable snapshot is requested less than this number of milliseconds after the previous
-   * snapshot, just return the same one. Throttles the potentially resource-consuming task of
-   * duplicating a TripPattern → Timetable map and indexing the new Timetables.
+   * The buffer is committed at most once within this number of milliseconds. Throttles the
+   * potentially resource-consuming task of indexing the new Timetables. Changes not committed
+   * when applied are committed by {@link #flushBuffer()}.
    */
   private final int maxSnapshotFrequencyMs;
 
   /**
-   * The last committed snapshot that was handed off to a routing thread. This snapshot may be given
-   * to more than one routing thread if the maximum snapshot frequency is exceeded.
+   * The last committed snapshot that was handed off to a routing thread. This snapshot is given to
+   * all routing threads until the next commit.
    */
   private volatile TimetableSnapshot snapshot = null;
 
@@ -135,6 +143,9 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
    */
   private final Supplier<LocalDate> localDateNow;
 
+  /** The clock used to throttle the commits. */
+  private final Clock clock;
+
   public TimetableSnapshotSource(
     TimetableSnapshotSourceParameters parameters,
     TransitModel transitModel
@@ -150,6 +161,18 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     TimetableSnapshotSourceParameters parameters,
     TransitModel transitModel,
     Supplier<LocalDate> localDateNow
+  ) {
+    this(parameters, transitModel, localDateNow, Clock.systemUTC());
+  }
+
+  /**
+   * Package local to allow unit-tests to control the time used to throttle the commits.
+   */
+  TimetableSnapshotSource(
+    TimetableSnapshotSourceParameters parameters,
+    TransitModel transitModel,
+    Supplier<LocalDate> localDateNow,
+    Clock clock
   ) {
     this.timeZone = transitModel.getTimeZone();
     this.transitService = new DefaultTransitService(transitModel);
@@ -159,35 +182,35 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     this.maxSnapshotFrequencyMs = parameters.maxSnapshotFrequencyMs();
     this.purgeExpiredData = parameters.purgeExpiredData();
     this.localDateNow = localDateNow;
+    this.clock = clock;
 
     // Inject this into the transit model
     transitModel.initTimetableSnapshotProvider(this);
   }
 
   /**
-   * @return an up-to-date snapshot mapping TripPatterns to Timetables. This snapshot and the
+   * @return the latest committed snapshot mapping TripPatterns to Timetables. This snapshot and the
    * timetable objects it references are guaranteed to never change, so the requesting thread is
    * provided a consistent view of all TripTimes. The routing thread need only release its reference
-   * to the snapshot to release resources.
+   * to the snapshot to release resources. This does not lock, the snapshot is committed by the
+   * thread applying the updates.
    */
   public TimetableSnapshot getTimetableSnapshot() {
-    TimetableSnapshot snapshotToReturn;
+    return snapshot;
+  }
 
-    // Try to get a lock on the buffer
-    if (bufferLock.tryLock()) {
-      // Make a new snapshot if necessary
-      try {
-        snapshotToReturn = getTimetableSnapshot(false);
-      } finally {
-        bufferLock.unlock();
-      }
-    } else {
-      // No lock could be obtained because there is either a snapshot commit busy or updates
-      // are applied at this moment, just return the current snapshot
-      snapshotToReturn = snapshot;
+  /**
+   * Commit the changes in the buffer if the max snapshot frequency allows it. This should be called
+   * periodically by the graph writer thread, to publish the updates which were not committed when
+   * they were applied, because of the max snapshot frequency.
+   */
+  public void flushBuffer() {
+    metrics.lock(bufferLock);
+    try {
+      commitTimetableSnapshot(false);
+    } finally {
+      metrics.unlock(bufferLock);
     }
-
-    return snapshotToReturn;
   }
 
   /**
@@ -216,7 +239,7 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     }
 
     // Acquire lock on buffer
-    bufferLock.lock();
+    metrics.lock(bufferLock);
 
     Map<TripDescriptor.ScheduleRelationship, Integer> failuresByRelationship = new HashMap<>();
     List<Result<UpdateSuccess, UpdateError>> results = new ArrayList<>();
@@ -228,62 +251,43 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
       }
 
       LOG.debug("message contains {} trip updates", updates.size());
-      int uIndex = 0;
-      for (TripUpdate tripUpdate : updates) {
-        if (!tripUpdate.hasTrip()) {
-          debug(feedId, "", "Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
-          continue;
-        }
 
-        if (fuzzyTripMatcher != null) {
-          final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
-          tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
-        }
+      // Match the trips and create the updated trip times of SCHEDULED trips in parallel. This
+      // does not change the buffer or the transit model, so the updates are independent.
+      var preparedUpdates = TripUpdatePrepareExecutor.prepare(
+        updates,
+        it -> prepareTripUpdate(fuzzyTripMatcher, backwardsDelayPropagationType, it, feedId)
+      );
 
-        final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+      // Trips changed by other than SCHEDULED updates in this batch, a SCHEDULED update for one of
+      // these trips may depend on the change, so it is prepared again.
+      Set<FeedScopedId> tripsChangedInBatch = new HashSet<>();
 
-        if (!tripDescriptor.hasTripId() || tripDescriptor.getTripId().isBlank()) {
-          debug(feedId, "", "No trip id found for gtfs-rt trip update: \n{}", tripUpdate);
+      int uIndex = 0;
+      for (PreparedTripUpdate prepared : preparedUpdates) {
+        if (prepared == null) {
           continue;
         }
-
-        FeedScopedId tripId = new FeedScopedId(feedId, tripUpdate.getTrip().getTripId());
-
-        LocalDate serviceDate;
-        if (tripDescriptor.hasStartDate()) {
-          try {
-            serviceDate = ServiceDateUtils.parseString(tripDescriptor.getStartDate());
-          } catch (final ParseException e) {
-            debug(
-              tripId,
-              "Failed to parse start date in gtfs-rt trip update: {}",
-              tripDescriptor.getStartDate()
-            );
-            continue;
-          }
-        } else {
-          // TODO: figure out the correct service date. For the special case that a trip
-          // starts for example at 40:00, yesterday would probably be a better guess.
-          serviceDate = localDateNow.get();
-        }
+        final TripUpdate tripUpdate = prepared.tripUpdate();
+        final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+        final FeedScopedId tripId = prepared.tripId();
+        final LocalDate serviceDate = prepared.serviceDate();
 
         uIndex += 1;
         LOG.debug("trip update #{} ({} updates) :", uIndex, tripUpdate.getStopTimeUpdateCount());
         LOG.trace("{}", tripUpdate);
 
-        // Determine what kind of trip update this is
-        final TripDescriptor.ScheduleRelationship tripScheduleRelationship = determineTripScheduleRelationship(
-          tripDescriptor
-        );
+        final var tripScheduleRelationship = prepared.scheduleRelationship();
+
+        var scheduledTrip = prepared.scheduledTrip();
+        if (scheduledTrip != null && tripsChangedInBatch.contains(tripId)) {
+          scheduledTrip =
+            prepareScheduledTrip(tripUpdate, tripId, serviceDate, backwardsDelayPropagationType);
+        }
 
         Result<UpdateSuccess, UpdateError> result =
           switch (tripScheduleRelationship) {
-            case SCHEDULED -> handleScheduledTrip(
-              tripUpdate,
-              tripId,
-              serviceDate,
-              backwardsDelayPropagationType
-            );
+            case SCHEDULED -> handleScheduledTrip(tripId, serviceDate, scheduledTrip);
             case ADDED -> validateAndHandleAddedTrip(
               tripUpdate,
               tripDescriptor,
@@ -302,6 +306,10 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
             case DUPLICATED -> UpdateError.result(tripId, NOT_IMPLEMENTED_DUPLICATED);
           };
 
+        if (tripScheduleRelationship != TripDescriptor.ScheduleRelationship.SCHEDULED) {
+          tripsChangedInBatch.add(tripId);
+        }
+
         results.add(result);
         if (result.isFailure()) {
           debug(tripId, "Failed to apply TripUpdate.");
@@ -317,16 +325,15 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
 
       // Make a snapshot after each message in anticipation of incoming requests
       // Purge data if necessary (and force new snapshot if anything was purged)
-      // Make sure that the public (locking) getTimetableSnapshot function is not called.
       if (purgeExpiredData) {
         final boolean modified = purgeExpiredData();
-        getTimetableSnapshot(modified);
+        commitTimetableSnapshot(modified);
       } else {
-        getTimetableSnapshot(false);
+        commitTimetableSnapshot(false);
       }
     } finally {
       // Always release lock
-      bufferLock.unlock();
+      metrics.unlock(bufferLock);
     }
 
     var updateResult = UpdateResult.ofResults(results);
@@ -358,20 +365,91 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
       });
   }
 
-  private TimetableSnapshot getTimetableSnapshot(final boolean force) {
-    final long now = System.currentTimeMillis();
-    if (force || now - lastSnapshotTime > maxSnapshotFrequencyMs) {
+  /**
+   * Match the trip of the update, and resolve the trip id, service date and schedule relationship.
+   * For SCHEDULED trips the updated trip times are created as well. This must not change the
+   * buffer or the transit model, since it is done in parallel for all updates in a batch.
+   *
+   * @return the prepared update or {@code null} if the update can not be applied.
+   */
+  @Nullable
+  private PreparedTripUpdate prepareTripUpdate(
+    @Nullable GtfsRealtimeFuzzyTripMatcher fuzzyTripMatcher,
+    BackwardsDelayPropagationType backwardsDelayPropagationType,
+    TripUpdate tripUpdate,
+    String feedId
+  ) {
+    if (!tripUpdate.hasTrip()) {
+      debug(feedId, "", "Missing TripDescriptor in gtfs-rt trip update: \n{}", tripUpdate);
+      return null;
+    }
+
+    if (fuzzyTripMatcher != null) {
+      final TripDescriptor trip = fuzzyTripMatcher.match(feedId, tripUpdate.getTrip());
+      tripUpdate = tripUpdate.toBuilder().setTrip(trip).build();
+    }
+
+    final TripDescriptor tripDescriptor = tripUpdate.getTrip();
+
+    if (!tripDescriptor.hasTripId() || tripDescriptor.getTripId().isBlank()) {
+      debug(feedId, "", "No trip id found for gtfs-rt trip update: \n{}", tripUpdate);
+      return null;
+    }
+
+    FeedScopedId tripId = new FeedScopedId(feedId, tripUpdate.getTrip().getTripId());
+
+    LocalDate serviceDate;
+    if (tripDescriptor.hasStartDate()) {
+      try {
+        serviceDate = ServiceDateUtils.parseString(tripDescriptor.getStartDate());
+      } catch (final ParseException e) {
+        debug(
+          tripId,
+          "Failed to parse start date in gtfs-rt trip update: {}",
+          tripDescriptor.getStartDate()
+        );
+        return null;
+      }
+    } else {
+      // TODO: figure out the correct service date. For the special case that a trip
+      // starts for example at 40:00, yesterday would probably be a better guess.
+      serviceDate = localDateNow.get();
+    }
+
+    // Determine what kind of trip update this is
+    final TripDescriptor.ScheduleRelationship tripScheduleRelationship = determineTripScheduleRelationship(
+      tripDescriptor
+    );
+
+    var scheduledTrip = tripScheduleRelationship == TripDescriptor.ScheduleRelationship.SCHEDULED
+      ? prepareScheduledTrip(tripUpdate, tripId, serviceDate, backwardsDelayPropagationType)
+      : null;
+
+    return new PreparedTripUpdate(
+      tripUpdate,
+      tripId,
+      serviceDate,
+      tripScheduleRelationship,
+      scheduledTrip
+    );
+  }
+
+  /**
+   * Commit the buffer, the caller must hold the {@link #bufferLock}.
+   */
+  private void commitTimetableSnapshot(final boolean force) {
+    final long now = clock.millis();
+    if (force || now - lastSnapshotTime >= maxSnapshotFrequencyMs) {
       if (force || buffer.isDirty()) {
         LOG.debug("Committing {}", buffer);
-        snapshot = buffer.commit(transitLayerUpdater, force);
+        snapshot = metrics.recordCommit(() -> buffer.commit(transitLayerUpdater, force));
       } else {
         LOG.debug("Buffer was unchanged, keeping old snapshot.");
       }
-      lastSnapshotTime = System.currentTimeMillis();
+      lastSnapshotTime = clock.millis();
     } else {
       LOG.debug("Snapshot frequency exceeded. Reusing snapshot {}", snapshot);
     }
-    return snapshot;
   }
 
   /**
@@ -395,7 +473,14 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     return tripScheduleRelationship;
   }
 
-  private Result<UpdateSuccess, UpdateError> handleScheduledTrip(
+  /**
+   * Validate a SCHEDULED trip update and create the updated trip times. This does not change the
+   * buffer, and can be done in parallel for different updates.
+   *
+   * @return a failure if the update is not valid, otherwise the pattern of the trip and the result
+   * of creating the updated trip times.
+   */
+  private Result<ScheduledTripUpdate, UpdateError> prepareScheduledTrip(
     TripUpdate tripUpdate,
     FeedScopedId tripId,
     LocalDate serviceDate,
@@ -426,15 +511,30 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
       return UpdateError.result(tripId, NO_SERVICE_ON_DATE);
     }
 
+    // Get new TripTimes based on scheduled timetable
+    var result = pattern
+      .getScheduledTimetable()
+      .createUpdatedTripTimes(tripUpdate, timeZone, serviceDate, backwardsDelayPropagationType);
+
+    return Result.success(new ScheduledTripUpdate(pattern, result));
+  }
+
+  private Result<UpdateSuccess, UpdateError> handleScheduledTrip(
+    FeedScopedId tripId,
+    LocalDate serviceDate,
+    Result<ScheduledTripUpdate, UpdateError> scheduledTrip
+  ) {
+    if (scheduledTrip.isFailure()) {
+      return scheduledTrip.toFailureResult();
+    }
+    final TripPattern pattern = scheduledTrip.successValue().pattern();
+
     // If this trip_id has been used for previously ADDED/MODIFIED trip message (e.g. when the
     // sequence of stops has changed, and is now changing back to the originally scheduled one),
     // mark that previously created trip as DELETED.
     cancelPreviouslyAddedTrip(tripId, serviceDate, CancelationType.DELETE);
 
-    // Get new TripTimes based on scheduled timetable
-    var result = pattern
-      .getScheduledTimetable()
-      .createUpdatedTripTimes(tripUpdate, timeZone, serviceDate, backwardsDelayPropagationType);
+    var result = scheduledTrip.successValue().tripTimesPatch();
 
     if (result.isFailure()) {
       // necessary so the success type is correct
@@ -1158,6 +1258,24 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     LOG.debug(m, params);
   }
 
+  /**
+   * A trip update with the trip matched, and the trip times created for SCHEDULED trips.
+   *
+   * @param scheduledTrip The validated pattern and updated trip times, only set for SCHEDULED trips
+   */
+  private record PreparedTripUpdate(
+    TripUpdate tripUpdate,
+    FeedScopedId tripId,
+    LocalDate serviceDate,
+    TripDescriptor.ScheduleRelationship scheduleRelationship,
+    @Nullable Result<ScheduledTripUpdate, UpdateError> scheduledTrip
+  ) {}
+
+  private record ScheduledTripUpdate(
+    TripPattern pattern,
+    Result<TripTimesPatch, UpdateError> tripTimesPatch
+  ) {}
+
   private enum CancelationType {
     CANCEL,
     DELETE,
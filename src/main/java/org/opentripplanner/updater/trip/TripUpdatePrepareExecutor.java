@@ -0,0 +1,99 @@
+package org.opentripplanner.updater.trip;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Prepares the realtime updates of a batch in parallel, before they are applied serially by the
+ * timetable snapshot sources. The work is done in a dedicated thread pool shared by all updaters,
+ * not in the common fork-join pool, so the updaters do not compete with other users of the common
+ * pool. The pool has one thread less than the number of available processors, the calling thread
+ * prepares a part of the batch as well.
+ */
+public final class TripUpdatePrepareExecutor {
+
+  /** Batches smaller than this are prepared by the calling thread only. */
+  private static final int MIN_UPDATES_PER_TASK = 16;
+
+  private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() - 1;
+
+  private static final ExecutorService POOL = POOL_SIZE < 1
+    ? null
+    : Executors.newFixedThreadPool(
+      POOL_SIZE,
+      new ThreadFactoryBuilder().setNameFormat("TripUpdatePrepare-%d").setDaemon(true).build()
+    );
+
+  private TripUpdatePrepareExecutor() {}
+
+  /**
+   * Prepare each of the updates, and return the results in the same order as the updates. An
+   * exception thrown by {@code prepare} is thrown by this method, after all tasks are done.
+   */
+  public static <T, R> List<R> prepare(List<T> updates, Function<? super T, ? extends R> prepare) {
+    int nTasks = POOL == null ? 1 : Math.min(POOL_SIZE + 1, updates.size() / MIN_UPDATES_PER_TASK);
+    if (nTasks <= 1) {
+      return updates.stream().<R>map(prepare).toList();
+    }
+
+    Object[] results = new Object[updates.size()];
+    List<Future<?>> futures = new ArrayList<>(nTasks - 1);
+    for (int task = 1; task < nTasks; ++task) {
+      int t = task;
+      futures.add(POOL.submit(() -> prepareRange(updates, prepare, results, t, nTasks)));
+    }
+
+    RuntimeException error = null;
+    try {
+      prepareRange(updates, prepare, results, 0, nTasks);
+    } catch (RuntimeException e) {
+      error = e;
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(it -> it.cancel(true));
+        throw new IllegalStateException("Interrupted while preparing realtime updates", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Error err) {
+          throw err;
+        }
+        if (error == null) {
+          error =
+            e.getCause() instanceof RuntimeException re
+              ? re
+              : new IllegalStateException(e.getCause());
+        }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<R> list = (List<R>) Arrays.asList(results);
+    return list;
+  }
+
+  /** Prepare every {@code nTasks}'th update starting at {@code task}. */
+  private static <T, R> void prepareRange(
+    List<T> updates,
+    Function<? super T, ? extends R> prepare,
+    Object[] results,
+    int task,
+    int nTasks
+  ) {
+    for (int i = task; i < results.length; i += nTasks) {
+      results[i] = prepare.apply(updates.get(i));
+    }
+  }
+}
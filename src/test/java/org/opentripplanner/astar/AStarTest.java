@@ -9,9 +9,14 @@ import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.astar.model.GraphPath;
+import org.opentripplanner.astar.model.SearchQueueType;
 import org.opentripplanner.astar.model.ShortestPathTree;
+import org.opentripplanner.astar.model.ShortestPathTreeStorage;
+import org.opentripplanner.astar.spi.RemainingWeightHeuristic;
 import org.opentripplanner.astar.spi.SearchTerminationStrategy;
 import org.opentripplanner.framework.i18n.NonLocalizedString;
 import org.opentripplanner.routing.algorithm.MultiTargetTerminationStrategy;
@@ -85,8 +90,9 @@ public class AStarTest {
     edges("market_20th", "russell_20th", "leary_20th", "ballard_20th", "shilshole_20th");
   }
 
-  @Test
-  public void testForward() {
+  @ParameterizedTest
+  @EnumSource(ShortestPathTreeStorage.class)
+  public void testForward(ShortestPathTreeStorage storage) {
     var request = new RouteRequest();
 
     request.withPreferences(pref -> pref.withWalk(w -> w.withSpeed(1.0)));
@@ -95,6 +101,7 @@ public class AStarTest {
     ShortestPathTree tree = StreetSearchBuilder
       .of()
       .setHeuristic(new EuclideanRemainingWeightHeuristic())
+      .setShortestPathTreeStorage(storage)
       .setRequest(request)
       .setFrom(from)
       .setTo(to)
@@ -156,8 +163,9 @@ public class AStarTest {
     assertEquals("leary_20th", states.get(n + 6).getVertex().getLabel());
   }
 
-  @Test
-  public void testForwardExtraEdges() {
+  @ParameterizedTest
+  @EnumSource(ShortestPathTreeStorage.class)
+  public void testForwardExtraEdges(ShortestPathTreeStorage storage) {
     var request = new RouteRequest();
 
     request.withPreferences(pref -> pref.withWalk(w -> w.withSpeed(1.0)));
@@ -181,6 +189,7 @@ public class AStarTest {
     ShortestPathTree<State, Edge, Vertex> tree = StreetSearchBuilder
       .of()
       .setHeuristic(new EuclideanRemainingWeightHeuristic())
+      .setShortestPathTreeStorage(storage)
       .setRequest(request)
       .setFrom(from)
       .setTo(to)
@@ -203,8 +212,9 @@ public class AStarTest {
     assertEquals("near_56th_20th", states.get(8).getVertex().getLabel());
   }
 
-  @Test
-  public void testBackExtraEdges() {
+  @ParameterizedTest
+  @EnumSource(SearchQueueType.class)
+  public void testBackExtraEdges(SearchQueueType searchQueueType) {
     var request = new RouteRequest();
 
     request.withPreferences(pref -> pref.withWalk(w -> w.withSpeed(1.0)));
@@ -229,6 +239,7 @@ public class AStarTest {
     ShortestPathTree tree = StreetSearchBuilder
       .of()
       .setHeuristic(new EuclideanRemainingWeightHeuristic())
+      .setSearchQueueType(searchQueueType)
       .setRequest(request)
       .setFrom(from)
       .setTo(to)
@@ -251,6 +262,37 @@ public class AStarTest {
     assertEquals("near_56th_20th", states.get(8).getVertex().getLabel());
   }
 
+  /**
+   * The heuristic overestimates the weight from the origin, so the keys of the next states are
+   * lower than the key of the origin. This is not supported by the radix heap, the search must use
+   * another queue and find the path.
+   */
+  @ParameterizedTest
+  @EnumSource(SearchQueueType.class)
+  public void testInconsistentHeuristic(SearchQueueType searchQueueType) {
+    var request = new RouteRequest();
+
+    request.withPreferences(pref -> pref.withWalk(w -> w.withSpeed(1.0)));
+    Vertex from = graph.getVertex("56th_24th");
+    Vertex to = graph.getVertex("leary_20th");
+    RemainingWeightHeuristic<State> heuristic = s -> s.getVertex() == from ? 10_000 : 0;
+
+    ShortestPathTree tree = StreetSearchBuilder
+      .of()
+      .setHeuristic(heuristic)
+      .setSearchQueueType(searchQueueType)
+      .setRequest(request)
+      .setFrom(from)
+      .setTo(to)
+      .getShortestPathTree();
+
+    GraphPath path = tree.getPath(to);
+
+    assertNotNull(path);
+    List<State> states = path.states;
+    assertEquals("leary_20th", states.get(states.size() - 1).getVertex().getLabel());
+  }
+
   @Test
   public void testMultipleTargets() {
     var request = new RouteRequest();
@@ -0,0 +1,128 @@
+package org.opentripplanner.astar.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class IndexedFourAryHeapTest {
+
+  private static final int N = 50000;
+
+  private final Set<String> dominated = new HashSet<>();
+
+  /** The vertex index is the first character in the element, the rest is the "state" */
+  private final IndexedFourAryHeap<String> subject = new IndexedFourAryHeap<>(
+    10,
+    e -> e.charAt(0) - 'A',
+    e -> !dominated.contains(e)
+  );
+
+  @Test
+  void extractInPriorityOrder() {
+    var random = new Random(13);
+    var heap = new IndexedFourAryHeap<Integer>(10, e -> -1, e -> true);
+    var expected = new PriorityQueue<Integer>();
+
+    for (int i = 0; i < N; i++) {
+      int value = random.nextInt(10_000);
+      heap.insert(value, value * 0.5);
+      expected.add(value);
+    }
+    assertEquals(N, heap.size());
+
+    List<Integer> result = new ArrayList<>();
+    while (!heap.empty()) {
+      result.add(heap.extract_min());
+    }
+    List<Integer> expectedResult = new ArrayList<>();
+    while (!expected.isEmpty()) {
+      expectedResult.add(expected.remove());
+    }
+    assertEquals(expectedResult, result);
+    assertNull(heap.extract_min());
+    assertThrows(IllegalStateException.class, heap::peek_min_key);
+  }
+
+  @Test
+  void replaceDominatedElementWithDecreasedKey() {
+    subject.insert("A1", 5.0);
+    subject.insert("B1", 3.0);
+    subject.insert("C1", 4.0);
+
+    dominated.add("A1");
+    subject.insert("A2", 1.0);
+
+    // A1 is replaced, not added
+    assertEquals(3, subject.size());
+    assertEquals(1.0, subject.peek_min_key());
+    assertEquals("A2", subject.extract_min());
+    assertEquals("B1", subject.extract_min());
+    assertEquals("C1", subject.extract_min());
+    assertTrue(subject.empty());
+  }
+
+  @Test
+  void replaceDominatedElementWithIncreasedKey() {
+    subject.insert("A1", 1.0);
+    subject.insert("B1", 3.0);
+
+    dominated.add("A1");
+    subject.insert("A2", 5.0);
+
+    assertEquals(2, subject.size());
+    assertEquals("B1", subject.extract_min());
+    assertEquals("A2", subject.extract_min());
+  }
+
+  @Test
+  void keepLiveElementsWithSameIndex() {
+    subject.insert("A1", 2.0);
+    subject.insert("A2", 1.0);
+    assertEquals(2, subject.size());
+
+    // The last inserted element is tracked, A1 is not replaced even if it is dominated
+    dominated.add("A1");
+    dominated.add("A2");
+    subject.insert("A3", 3.0);
+
+    assertEquals(2, subject.size());
+    assertEquals("A1", subject.extract_min());
+    assertEquals("A3", subject.extract_min());
+  }
+
+  @Test
+  void insertAfterExtract() {
+    subject.insert("A1", 1.0);
+    assertEquals("A1", subject.extract_min());
+
+    // The extracted element is not in the heap, so it is not replaced
+    dominated.add("A1");
+    subject.insert("A2", 2.0);
+    subject.insert("B1", 0.5);
+
+    assertEquals("B1", subject.extract_min());
+    assertEquals("A2", subject.extract_min());
+  }
+
+  @Test
+  void reset() {
+    subject.insert("A1", 1.0);
+    subject.insert("B1", 2.0);
+    subject.reset();
+    assertTrue(subject.empty());
+
+    dominated.add("A1");
+    subject.insert("A2", 3.0);
+    assertEquals(1, subject.size());
+    assertEquals("A2", subject.extract_min());
+  }
+}
@@ -0,0 +1,87 @@
+package org.opentripplanner.astar.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RadixHeapTest {
+
+  private static final int N = 50000;
+
+  private final RadixHeap<Double> subject = new RadixHeap<>();
+
+  @Test
+  void extractInPriorityOrder() {
+    var random = new Random(17);
+    List<Double> input = new ArrayList<>(N);
+    for (int i = 0; i < N; i++) {
+      input.add(random.nextDouble() * 10_000);
+    }
+    input.forEach(it -> subject.insert(it, it));
+    assertEquals(N, subject.size());
+
+    List<Double> result = new ArrayList<>();
+    while (!subject.empty()) {
+      double key = subject.peek_min_key();
+      double value = subject.extract_min();
+      assertEquals(key, value);
+      result.add(value);
+    }
+    assertEquals(input.stream().sorted().toList(), result);
+    assertNull(subject.extract_min());
+    assertThrows(IllegalStateException.class, subject::peek_min_key);
+  }
+
+  @Test
+  void monotoneInsertAndExtract() {
+    var random = new Random(19);
+    double last = 0.0;
+
+    for (int i = 0; i < N; i++) {
+      // Like Dijkstra, insert elements with a priority greater than the last extracted element
+      for (int j = random.nextInt(3); j > 0; --j) {
+        double value = last + random.nextDouble() * 100;
+        subject.insert(value, value);
+      }
+      if (!subject.empty()) {
+        double value = subject.extract_min();
+        assertTrue(value >= last);
+        last = value;
+      }
+    }
+  }
+
+  @Test
+  void priorityLessThanLastExtractedIsRejected() {
+    subject.insert(2.0, 2.0);
+    subject.insert(3.0, 3.0);
+    assertEquals(2.0, (double) subject.extract_min());
+
+    assertThrows(IllegalArgumentException.class, () -> subject.insert(1.0, 1.0));
+    assertThrows(IllegalArgumentException.class, () -> subject.insert(Double.NaN, Double.NaN));
+
+    // Equal to the last extracted priority is allowed
+    subject.insert(2.0, 2.0);
+    assertEquals(2.0, (double) subject.extract_min());
+    assertEquals(3.0, (double) subject.extract_min());
+  }
+
+  @Test
+  void reset() {
+    subject.insert(5.0, 5.0);
+    assertEquals(5.0, (double) subject.extract_min());
+    subject.insert(7.0, 7.0);
+    subject.reset();
+    assertTrue(subject.empty());
+
+    // After reset the heap start over at zero
+    subject.insert(1.0, 1.0);
+    assertEquals(1.0, (double) subject.extract_min());
+  }
+}
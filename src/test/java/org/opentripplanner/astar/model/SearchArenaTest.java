@@ -0,0 +1,63 @@
+package org.opentripplanner.astar.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SearchArenaTest {
+
+  @Test
+  void arenaCanOnlyBeBorrowedOnceAtATime() {
+    var arena = SearchArena.borrow();
+    assertNotNull(arena);
+    try {
+      assertNull(SearchArena.borrow(), "A nested search must allocate its own memory");
+    } finally {
+      arena.release();
+    }
+
+    var again = SearchArena.borrow();
+    try {
+      assertSame(arena, again);
+    } finally {
+      again.release();
+    }
+  }
+
+  @Test
+  void queueIsReusedAndReset() {
+    var arena = SearchArena.borrow();
+    SearchQueue<String> first;
+    try {
+      first = arena.<String>queue(SearchQueueType.INDEXED_4_ARY_HEAP, e -> -1, e -> true);
+      first.insert("A", 1.0);
+      first.insert("B", 2.0);
+      assertEquals(2, first.size());
+    } finally {
+      arena.release();
+    }
+
+    arena = SearchArena.borrow();
+    try {
+      SearchQueue<String> second = arena.queue(
+        SearchQueueType.INDEXED_4_ARY_HEAP,
+        e -> e.charAt(0) - 'A',
+        e -> !e.equals("A1")
+      );
+      assertSame(first, second);
+      assertTrue(second.empty());
+
+      // The queue must use the functions passed in by the current search, A1 is replaced by A2
+      second.insert("A1", 3.0);
+      second.insert("A2", 1.0);
+      assertEquals(1, second.size());
+      assertEquals("A2", second.extract_min());
+    } finally {
+      arena.release();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package org.opentripplanner.framework.collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PersistentMapTest {
+
+  @Test
+  void empty() {
+    PersistentMap<String, String> subject = PersistentMap.empty();
+    assertTrue(subject.isEmpty());
+    assertNull(subject.get("A"));
+    assertSame(subject, subject.minus("A"));
+    assertEquals(Map.of(), subject.asMap());
+  }
+
+  @Test
+  void plusAndMinusDoNotChangeTheOriginal() {
+    var original = PersistentMap.<String, Integer>empty().plus("A", 1).plus("B", 2);
+    var changed = original.plus("A", 3).minus("B").plus("C", 4);
+
+    assertEquals(Map.of("A", 1, "B", 2), original.asMap());
+    assertEquals(Map.of("A", 3, "C", 4), changed.asMap());
+  }
+
+  @Test
+  void sameValueReturnsSameMap() {
+    Integer value = 1000;
+    var subject = PersistentMap.<String, Integer>empty().plus("A", value);
+    assertSame(subject, subject.plus("A", value));
+  }
+
+  @Test
+  void randomOperationsMatchHashMap() {
+    var random = new Random(17);
+    var expected = new HashMap<Integer, Integer>();
+    PersistentMap<Integer, Integer> subject = PersistentMap.empty();
+
+    for (int i = 0; i < 100_000; i++) {
+      int key = random.nextInt(5_000);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        subject = subject.minus(key);
+      } else {
+        expected.put(key, i);
+        subject = subject.plus(key, i);
+      }
+    }
+    assertEquals(expected.size(), subject.size());
+    assertEquals(expected, subject.asMap());
+    assertEquals(expected, new HashMap<>(subject.asMap()));
+
+    var visited = new HashMap<Integer, Integer>();
+    subject.forEach(visited::put);
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  void keysWithSameHashCode() {
+    var a = new SameHash("A");
+    var b = new SameHash("B");
+    var c = new SameHash("C");
+
+    var subject = PersistentMap.<SameHash, String>empty().plus(a, "a").plus(b, "b").plus(c, "c");
+    assertEquals(3, subject.size());
+    assertEquals("b", subject.get(b));
+
+    subject = subject.minus(b).plus(new SameHash("D"), "d");
+    assertEquals(3, subject.size());
+    assertFalse(subject.containsKey(b));
+    assertEquals("c", subject.get(c));
+
+    subject = subject.minus(a).minus(c).minus(new SameHash("D"));
+    assertTrue(subject.isEmpty());
+  }
+
+  @Test
+  void mixCollidingAndOtherKeys() {
+    var subject = PersistentMap.<Object, String>empty()
+      .plus(new SameHash("A"), "a")
+      .plus(new SameHash("B"), "b")
+      .plus(SameHash.HASH, "int")
+      .plus(SameHash.HASH + 32, "int+32");
+
+    assertEquals(4, subject.size());
+    assertEquals("int", subject.get(SameHash.HASH));
+    assertEquals("b", subject.get(new SameHash("B")));
+    assertEquals(4, subject.asMap().entrySet().size());
+  }
+
+  private record SameHash(String value) {
+    static final int HASH = 42;
+
+    @Override
+    public int hashCode() {
+      return HASH;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package org.opentripplanner.framework.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+
+class PackedGridSpatialIndexTest {
+
+  private static final int N_OBJS = 1000;
+  private static final int N_QUERIES = 1000;
+
+  /**
+   * The packed index use the same grid as the hash grid, so the result, including the false
+   * positives, should be the same. The area crosses both the equator and the prime meridian.
+   */
+  @Test
+  void sameResultAsHashGridForEnvelopes() {
+    var rand = new Random(42);
+    var hashGrid = new HashGridSpatialIndex<Envelope>();
+    var envelopes = new ArrayList<Envelope>();
+
+    for (int i = 0; i < N_OBJS; i++) {
+      var envelope = new Envelope(randomCoordinate(rand), randomCoordinate(rand));
+      envelopes.add(envelope);
+      hashGrid.insert(envelope, envelope);
+    }
+    var subject = PackedGridSpatialIndex.ofEnvelopes(envelopes, e -> e);
+
+    assertEquals(N_OBJS, subject.size());
+    for (int i = 0; i < N_QUERIES; i++) {
+      var searchEnv = new Envelope(randomCoordinate(rand), randomCoordinate(rand));
+      assertEquals(
+        new HashSet<>(hashGrid.query(searchEnv)),
+        new HashSet<>(subject.query(searchEnv))
+      );
+    }
+  }
+
+  @Test
+  void sameResultAsHashGridForLineStrings() {
+    var rand = new Random(7);
+    var hashGrid = new HashGridSpatialIndex<LineString>();
+    var lineStrings = new ArrayList<LineString>();
+
+    for (int i = 0; i < N_OBJS; i++) {
+      var a = randomCoordinate(rand);
+      var b = randomCoordinate(rand);
+      var lineString = GeometryUtils.makeLineString(a.x, a.y, a.x + 0.01, a.y, b.x, b.y);
+      lineStrings.add(lineString);
+      hashGrid.insert(lineString, lineString);
+    }
+    var subject = PackedGridSpatialIndex.ofLineStrings(lineStrings, it -> it);
+
+    for (int i = 0; i < N_QUERIES; i++) {
+      var c = randomCoordinate(rand);
+      var searchEnv = new Envelope(c.x - 0.002, c.x + 0.002, c.y - 0.002, c.y + 0.002);
+      assertEquals(
+        new HashSet<>(hashGrid.query(searchEnv)),
+        new HashSet<>(subject.query(searchEnv))
+      );
+    }
+  }
+
+  @Test
+  void emptyIndex() {
+    var subject = PackedGridSpatialIndex.ofEnvelopes(List.<Envelope>of(), e -> e);
+    assertTrue(subject.query(new Envelope(0, 1, 0, 1)).isEmpty());
+  }
+
+  private static Coordinate randomCoordinate(Random rand) {
+    return new Coordinate(rand.nextDouble() * 0.1 - 0.05, rand.nextDouble() * 0.1 - 0.05);
+  }
+}
@@ -17,6 +17,7 @@ import org.locationtech.jts.geom.Polygon;
 import org.opentripplanner.framework.geometry.GeometryUtils;
 import org.opentripplanner.framework.i18n.I18NString;
 import org.opentripplanner.framework.i18n.LocalizedString;
+import org.opentripplanner.framework.i18n.NonLocalizedString;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.linking.LinkingDirection;
 import org.opentripplanner.routing.linking.VertexLinker;
@@ -26,10 +27,13 @@ import org.opentripplanner.street.model.edge.AreaEdgeList;
 import org.opentripplanner.street.model.edge.Edge;
 import org.opentripplanner.street.model.edge.NamedArea;
 import org.opentripplanner.street.model.edge.StreetTransitStopLink;
+import org.opentripplanner.street.model.edge.TemporaryFreeEdge;
 import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
 import org.opentripplanner.street.model.vertex.TransitStopVertex;
 import org.opentripplanner.street.model.vertex.TransitStopVertexBuilder;
 import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TemporaryEdgeOverlay;
 import org.opentripplanner.street.search.TraverseMode;
 import org.opentripplanner.street.search.TraverseModeSet;
 import org.opentripplanner.transit.model._data.TransitModelForTest;
@@ -235,6 +239,53 @@ public class LinkStopToPlatformTest {
     assertTrue(v1.isConnected(v2));
   }
 
+  /**
+   * Link a routing request location very close to a platform vertex. The location is linked to
+   * the opposite corner through a request scoped copy of the vertex, the graph is not modified.
+   */
+  @Test
+  public void testLinkRequestLocationNearPlatformVertex() {
+    Coordinate[] platform = {
+      new Coordinate(10, 60.002),
+      new Coordinate(10.004, 60.002),
+      new Coordinate(10.004, 60),
+      new Coordinate(10, 60),
+    };
+    // add entrance to every corner of the platform
+    int[] visibilityPoints = { 0, 1, 2, 3 };
+
+    Graph graph = prepareTest(platform, visibilityPoints, new Coordinate[0]);
+    int nEdges = graph.getEdges().size();
+    var oppositeCorner = graph.getVertex("1");
+    int nIncomingEdges = oppositeCorner.getIncoming().size();
+
+    // place the origin inside the platform, very near of the bottom left corner
+    var origin = new TemporaryStreetLocation(
+      "origin",
+      new Coordinate(10.00000001, 60.00000001),
+      new NonLocalizedString("origin"),
+      false,
+      true
+    );
+    graph
+      .getLinker()
+      .linkVertexForRequest(
+        origin,
+        new TraverseModeSet(TraverseMode.WALK),
+        LinkingDirection.INCOMING,
+        (vertex, streetVertex) ->
+          List.of(new TemporaryFreeEdge((TemporaryStreetLocation) vertex, streetVertex))
+      );
+
+    assertEquals(nEdges, graph.getEdges().size());
+    assertEquals(nIncomingEdges, oppositeCorner.getIncoming().size());
+
+    var overlay = TemporaryEdgeOverlay.of(List.of(origin), List.of());
+    assertTrue(
+      overlay.extraIncomingEdges(oppositeCorner).stream().anyMatch(AreaEdge.class::isInstance)
+    );
+  }
+
   private void linkStops(Graph graph) {
     VertexLinker linker = graph.getLinker();
 
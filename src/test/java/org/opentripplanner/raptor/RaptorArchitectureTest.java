@@ -38,6 +38,10 @@ public class RaptorArchitectureTest {
   private static final Package RR_MC_CONFIGURE = RR_MULTI_CRITERIA.subPackage("configure");
   private static final Package RR_STANDARD = RANGE_RAPTOR.subPackage("standard");
   private static final Package RR_STD_CONFIGURE = RR_STANDARD.subPackage("configure");
+  private static final Package RR_TRIP_BASED = RANGE_RAPTOR.subPackage("tripbased");
+  private static final Package RR_TB_CONFIGURE = RR_TRIP_BASED.subPackage("configure");
+  private static final Package RR_CSA = RANGE_RAPTOR.subPackage("csa");
+  private static final Package RR_CSA_CONFIGURE = RR_CSA.subPackage("configure");
   private static final Package RR_CONTEXT = RANGE_RAPTOR.subPackage("context");
 
   /**
@@ -190,6 +194,20 @@ public class RaptorArchitectureTest {
       .verify();
   }
 
+  @Test
+  void enforcePackageDependenciesInTripBasedImplementation() {
+    RR_TRIP_BASED.dependsOn(RR_SHARED_PACKAGES).verify();
+    RR_TB_CONFIGURE
+      .dependsOn(RR_SHARED_PACKAGES, RR_CONTEXT, RR_PATH_CONFIGURE, RR_TRIP_BASED)
+      .verify();
+  }
+
+  @Test
+  void enforcePackageDependenciesInConnectionScanImplementation() {
+    RR_CSA.dependsOn(RR_SHARED_PACKAGES).verify();
+    RR_CSA_CONFIGURE.dependsOn(RR_SHARED_PACKAGES, RR_CONTEXT, RR_CSA).verify();
+  }
+
   @Test
   void enforcePackageDependenciesInRaptorService() {
     SERVICE
@@ -216,7 +234,11 @@ public class RaptorArchitectureTest {
         RR_TRANSIT,
         RR_CONTEXT,
         RR_STD_CONFIGURE,
-        RR_MC_CONFIGURE
+        RR_MC_CONFIGURE,
+        RR_TRIP_BASED,
+        RR_TB_CONFIGURE,
+        RR_CSA,
+        RR_CSA_CONFIGURE
       )
       .verify();
   }
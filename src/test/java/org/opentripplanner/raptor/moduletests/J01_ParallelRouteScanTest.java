@@ -0,0 +1,141 @@
+package org.opentripplanner.raptor.moduletests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.framework.time.TimeUtils.hm2time;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.api.PathUtils;
+import org.opentripplanner.raptor._data.transit.TestAccessEgress;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.api.request.Optimization;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+
+/**
+ * FEATURE UNDER TEST
+ * <p>
+ * Raptor should find the same paths when the routes of each round are scanned in parallel, also
+ * when more than one trip arrive at the same time. The network must have more than a few hundred
+ * routes in one round, or the round is scanned on the calling thread.
+ */
+public class J01_ParallelRouteScanTest implements RaptorTestConstants {
+
+  private static final int N_ROUTES_ROUND_ONE = 600;
+  private static final int N_ROUTES_ROUND_TWO = 400;
+  private static final int STOP_OFFSET_ROUND_ONE = 10;
+  private static final int STOP_OFFSET_ROUND_TWO = STOP_OFFSET_ROUND_ONE + N_ROUTES_ROUND_ONE;
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+  private final RaptorConfig<TestTripSchedule> config = new RaptorConfig<>(
+    new RaptorTuningParameters() {
+      @Override
+      public int searchThreadPoolSize() {
+        return 3;
+      }
+    }
+  );
+  private final RaptorService<TestTripSchedule> raptorService = new RaptorService<>(config);
+
+  /**
+   * Stops on routes (stop indexes):
+   *   R1-i:  A - (10 + i) - B         for i in 0..599
+   *   R2-i:  B - (610 + i) - C        for i in 0..399
+   *
+   * Schedule:
+   *   R1-150, R1-350 and R1-550 arrive first at B, at the same time.
+   *   R2-99, R2-199, R2-299 and R2-399 arrive first at C, at the same time.
+   *
+   * Access: A 30s, Egress: C 20s
+   */
+  @BeforeEach
+  void setup() {
+    for (int i = 0; i < N_ROUTES_ROUND_ONE; ++i) {
+      int arrival = i % 200 == 150 ? hm2time(0, 20) : hm2time(0, 25) + 60 * (i % 10);
+      data.withRoute(
+        route(pattern("R1-" + i, STOP_A, STOP_OFFSET_ROUND_ONE + i, STOP_B))
+          .withTimetable(schedule().times(T00_01, hm2time(0, 10), arrival))
+      );
+    }
+    for (int i = 0; i < N_ROUTES_ROUND_TWO; ++i) {
+      int arrival = i % 100 == 99 ? hm2time(0, 50) : hm2time(0, 55) + 60 * (i % 3);
+      data.withRoute(
+        route(pattern("R2-" + i, STOP_B, STOP_OFFSET_ROUND_TWO + i, STOP_C))
+          .withTimetable(schedule().times(hm2time(0, 36), hm2time(0, 40), arrival))
+      );
+    }
+    requestBuilder
+      .searchParams()
+      .addAccessPaths(TestAccessEgress.walk(STOP_A, D30s))
+      .addEgressPaths(TestAccessEgress.walk(STOP_C, D20s))
+      .earliestDepartureTime(T00_00)
+      .latestArrivalTime(T01_00)
+      .timetable(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    config.shutdown();
+  }
+
+  @ParameterizedTest
+  @EnumSource(SearchDirection.class)
+  void testStandardProfile(SearchDirection direction) {
+    requestBuilder.profile(RaptorProfile.STANDARD).searchDirection(direction);
+
+    var request = requestBuilder.build();
+    var expected = search(request);
+    var result = search(
+      request.mutate().enableOptimization(Optimization.PARALLEL_ROUTE_SCAN).build()
+    );
+
+    assertTrue(expected.contains("BUS R2-"), expected);
+    assertEquals(expected, result);
+  }
+
+  @Test
+  void testFirstTripArrivingAtTheSameTimeIsUsed() {
+    requestBuilder
+      .profile(RaptorProfile.STANDARD)
+      .enableOptimization(Optimization.PARALLEL_ROUTE_SCAN);
+
+    var result = search(requestBuilder.build());
+
+    assertTrue(result.contains("BUS R1-150 "), result);
+    assertTrue(result.contains("BUS R2-99 "), result);
+  }
+
+  @ParameterizedTest
+  @EnumSource(SearchDirection.class)
+  void testMinTravelDurationProfile(SearchDirection direction) {
+    requestBuilder.profile(RaptorProfile.MIN_TRAVEL_DURATION).searchDirection(direction);
+    requestBuilder.searchParams().searchOneIterationOnly();
+
+    var request = requestBuilder.build();
+    var expected = search(request);
+    var result = search(
+      request.mutate().enableOptimization(Optimization.PARALLEL_ROUTE_SCAN).build()
+    );
+
+    assertEquals(expected, result);
+  }
+
+  private String search(RaptorRequest<TestTripSchedule> request) {
+    return PathUtils.pathsToString(raptorService.route(request, data));
+  }
+}
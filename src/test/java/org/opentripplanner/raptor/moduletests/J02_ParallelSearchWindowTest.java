@@ -0,0 +1,134 @@
+package org.opentripplanner.raptor.moduletests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.framework.time.TimeUtils.hm2time;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.api.PathUtils;
+import org.opentripplanner.raptor._data.transit.TestAccessEgress;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.api.request.Optimization;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+
+/**
+ * FEATURE UNDER TEST
+ * <p>
+ * Raptor should find the same paths when the search-window is split and each part is searched in
+ * parallel. The search-window of one hour has 60 iterations, and is split in 4 parts - one for
+ * each thread in the pool and one for the calling thread.
+ */
+public class J02_ParallelSearchWindowTest implements RaptorTestConstants {
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+  private final RaptorConfig<TestTripSchedule> config = new RaptorConfig<>(
+    new RaptorTuningParameters() {
+      @Override
+      public int searchThreadPoolSize() {
+        return 3;
+      }
+    }
+  );
+  private final RaptorService<TestTripSchedule> raptorService = new RaptorService<>(config);
+
+  /**
+   * Routes:
+   *   R1:  A - B    every 10 minutes from 00:05 to 02:45, 15 minutes ride
+   *   R2:  B - C    every 15 minutes from 00:10 to 03:10, 10 minutes ride
+   *   R3:  A - C    every 30 minutes from 00:15 to 02:45, 35 minutes ride
+   *
+   * Access: A 30s, Egress: C 20s
+   */
+  @BeforeEach
+  void setup() {
+    data.withRoute(
+      route(pattern("R1", STOP_A, STOP_B))
+        .withTimetable(schedule().times("00:05 00:20").repeat(17, D10m))
+    );
+    data.withRoute(
+      route(pattern("R2", STOP_B, STOP_C))
+        .withTimetable(schedule().times("00:10 00:20").repeat(13, 15 * D1m))
+    );
+    data.withRoute(
+      route(pattern("R3", STOP_A, STOP_C))
+        .withTimetable(schedule().times("00:15 00:50").repeat(6, 30 * D1m))
+    );
+    requestBuilder
+      .searchParams()
+      .addAccessPaths(TestAccessEgress.walk(STOP_A, D30s))
+      .addEgressPaths(TestAccessEgress.walk(STOP_C, D20s))
+      .earliestDepartureTime(T00_00)
+      .latestArrivalTime(hm2time(3, 30))
+      .searchWindowInSeconds(60 * D1m)
+      .timetable(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    config.shutdown();
+  }
+
+  static List<Arguments> testCases() {
+    return List.of(
+      Arguments.of(RaptorProfile.STANDARD, SearchDirection.FORWARD),
+      Arguments.of(RaptorProfile.STANDARD, SearchDirection.REVERSE),
+      Arguments.of(RaptorProfile.MULTI_CRITERIA, SearchDirection.FORWARD)
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("testCases")
+  void testSplitSearchWindow(RaptorProfile profile, SearchDirection direction) {
+    requestBuilder.profile(profile).searchDirection(direction);
+
+    var request = requestBuilder.build();
+    var expected = search(request);
+    var result = search(
+      request.mutate().enableOptimization(Optimization.PARALLEL_SEARCH_WINDOW).build()
+    );
+
+    // Paths departing in more than one sub-window
+    assertTrue(expected.lines().count() > 4, expected);
+    assertEquals(expected, result);
+  }
+
+  /**
+   * The reverse multi-criteria search does not return all paths in the search-window, so the
+   * result would depend on how the window is split. The search-window is not split, and the result
+   * must be the same as without the optimization.
+   */
+  @Test
+  void testReverseMultiCriteriaIsNotSplit() {
+    requestBuilder.profile(RaptorProfile.MULTI_CRITERIA).searchDirection(SearchDirection.REVERSE);
+
+    var request = requestBuilder.build();
+    var expected = search(request);
+    var result = search(
+      request.mutate().enableOptimization(Optimization.PARALLEL_SEARCH_WINDOW).build()
+    );
+
+    assertEquals(expected, result);
+  }
+
+  private String search(RaptorRequest<TestTripSchedule> request) {
+    return PathUtils.pathsToString(raptorService.route(request, data));
+  }
+}
@@ -0,0 +1,154 @@
+package org.opentripplanner.raptor.moduletests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.framework.time.TimeUtils.hm2time;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.api.PathUtils;
+import org.opentripplanner.raptor._data.transit.TestAccessEgress;
+import org.opentripplanner.raptor._data.transit.TestTransfer;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+
+/**
+ * FEATURE UNDER TEST
+ * <p>
+ * The Trip-Based profile should find the same paths as Standard Range Raptor. Transfers at the
+ * same stop and walking transfers are both used, and the optimal paths departing in the
+ * search-window have 0 or 1 transfer.
+ */
+public class J03_TripBasedRoutingTest implements RaptorTestConstants {
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+  private final RaptorService<TestTripSchedule> raptorService = new RaptorService<>(
+    RaptorConfig.defaultConfigForTest()
+  );
+
+  /**
+   * Routes:
+   *   R1:  A - B    every 10 minutes from 00:05 to 02:45, 15 minutes ride
+   *   R2:  B - C    every 15 minutes from 00:10 to 03:10, 10 minutes ride
+   *   R3:  A - C    every 30 minutes from 00:15 to 02:45, 35 minutes ride
+   *   R4:  D - C    every 20 minutes from 00:12 to 02:52, 9 minutes ride
+   *
+   * Transfers: B - D 2 minutes
+   * Access: A 30s, Egress: C 20s
+   */
+  @BeforeEach
+  void setup() {
+    data.withRoute(
+      route(pattern("R1", STOP_A, STOP_B))
+        .withTimetable(schedule().times("00:05 00:20").repeat(17, D10m))
+    );
+    data.withRoute(
+      route(pattern("R2", STOP_B, STOP_C))
+        .withTimetable(schedule().times("00:10 00:20").repeat(13, 15 * D1m))
+    );
+    data.withRoute(
+      route(pattern("R3", STOP_A, STOP_C))
+        .withTimetable(schedule().times("00:15 00:50").repeat(6, 30 * D1m))
+    );
+    data.withRoute(
+      route(pattern("R4", STOP_D, STOP_C))
+        .withTimetable(schedule().times("00:12 00:21").repeat(8, 20 * D1m))
+    );
+    data.withTransfer(STOP_B, TestTransfer.transfer(STOP_D, D2m));
+
+    requestBuilder
+      .searchParams()
+      .addAccessPaths(TestAccessEgress.walk(STOP_A, D30s))
+      .addEgressPaths(TestAccessEgress.walk(STOP_C, D20s))
+      .earliestDepartureTime(T00_00)
+      .latestArrivalTime(hm2time(3, 30));
+  }
+
+  @Test
+  void testSearchWindowWithTimetable() {
+    requestBuilder.searchParams().searchWindowInSeconds(60 * D1m).timetable(true);
+
+    var expected = search(RaptorProfile.STANDARD);
+    var result = search(RaptorProfile.TRIP_BASED);
+
+    // Both R2 and R4 are used to get to the destination
+    assertTrue(expected.contains("R2") && expected.contains("R4"), expected);
+    assertEquals(expected, result);
+  }
+
+  @Test
+  void testSearchWindow() {
+    requestBuilder.searchParams().searchWindowInSeconds(60 * D1m);
+
+    var expected = search(RaptorProfile.STANDARD);
+    var result = search(RaptorProfile.TRIP_BASED);
+
+    assertTrue(expected.contains("R3"), expected);
+    assertEquals(expected, result);
+  }
+
+  @Test
+  void testOneIteration() {
+    requestBuilder.searchParams().searchOneIterationOnly();
+
+    var expected = search(RaptorProfile.STANDARD);
+    var result = search(RaptorProfile.TRIP_BASED);
+
+    assertTrue(expected.contains("R3"), expected);
+    assertEquals(expected, result);
+  }
+
+  /**
+   * The second trip of R5 departs after and arrives before the first trip. This is not supported
+   * by the Trip-Based index, so Standard Range Raptor is used instead.
+   */
+  @Test
+  void testTripsOvertakingEachOtherIsSolvedByStandardRangeRaptor() {
+    data.withRoute(
+      route(pattern("R5", STOP_A, STOP_C))
+        .withTimetable(schedule("00:30 01:30"), schedule("00:35 00:40"))
+    );
+    requestBuilder.searchParams().searchWindowInSeconds(60 * D1m);
+
+    var expected = search(RaptorProfile.STANDARD);
+    var result = search(RaptorProfile.TRIP_BASED);
+
+    assertTrue(expected.contains("R5 0:35 0:40"), expected);
+    assertEquals(expected, result);
+  }
+
+  @Test
+  void testReverseSearchIsNotSupported() {
+    requestBuilder
+      .profile(RaptorProfile.TRIP_BASED)
+      .searchDirection(SearchDirection.REVERSE)
+      .searchParams()
+      .searchWindowInSeconds(60 * D1m);
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> raptorService.route(requestBuilder.build(), data)
+    );
+  }
+
+  private String search(RaptorProfile profile) {
+    var request = requestBuilder
+      .build()
+      .mutate()
+      .profile(profile)
+      .searchDirection(SearchDirection.FORWARD)
+      .build();
+    return PathUtils.pathsToString(raptorService.route(request, data));
+  }
+}
@@ -0,0 +1,139 @@
+package org.opentripplanner.raptor.moduletests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.framework.time.TimeUtils.hm2time;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.opentripplanner.raptor.RaptorService;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.api.PathUtils;
+import org.opentripplanner.raptor._data.transit.TestAccessEgress;
+import org.opentripplanner.raptor._data.transit.TestTransfer;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+import org.opentripplanner.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.raptor.api.model.SearchDirection;
+import org.opentripplanner.raptor.api.request.Optimization;
+import org.opentripplanner.raptor.api.request.RaptorProfile;
+import org.opentripplanner.raptor.api.request.RaptorRequest;
+import org.opentripplanner.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.raptor.configure.RaptorConfig;
+import org.opentripplanner.raptor.rangeraptor.internalapi.Heuristics;
+import org.opentripplanner.raptor.service.RangeRaptorDynamicSearch;
+
+/**
+ * FEATURE UNDER TEST
+ * <p>
+ * The Connection Scan worker should find the same paths as the min-travel-duration Range Raptor
+ * search in both search directions, and the heuristics of a multi-criteria search should be the
+ * same when the heuristic searches use the connection scan.
+ */
+public class J04_ConnectionScanTest implements RaptorTestConstants {
+
+  private static final int UNREACHED = -9999;
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+  private final RaptorConfig<TestTripSchedule> config = RaptorConfig.defaultConfigForTest();
+  private final RaptorService<TestTripSchedule> raptorService = new RaptorService<>(config);
+
+  /**
+   * Routes:
+   *   R1:  A - B - E  every 10 minutes from 00:05 to 02:45, 15 + 10 minutes ride
+   *   R2:  B - C      every 15 minutes from 00:10 to 03:10, 10 minutes ride
+   *   R3:  A - C      every 30 minutes from 00:15 to 02:45, 35 minutes ride
+   *   R4:  D - C      every 20 minutes from 00:12 to 02:52, 9 minutes ride
+   *
+   * Transfers: B - D 2 minutes
+   * Access: A 30s, Egress: C 20s
+   */
+  @BeforeEach
+  void setup() {
+    data.withRoute(
+      route(pattern("R1", STOP_A, STOP_B, STOP_E))
+        .withTimetable(schedule().times("00:05 00:20 00:30").repeat(17, D10m))
+    );
+    data.withRoute(
+      route(pattern("R2", STOP_B, STOP_C))
+        .withTimetable(schedule().times("00:10 00:20").repeat(13, 15 * D1m))
+    );
+    data.withRoute(
+      route(pattern("R3", STOP_A, STOP_C))
+        .withTimetable(schedule().times("00:15 00:50").repeat(6, 30 * D1m))
+    );
+    data.withRoute(
+      route(pattern("R4", STOP_D, STOP_C))
+        .withTimetable(schedule().times("00:12 00:21").repeat(8, 20 * D1m))
+    );
+    data.withTransfer(STOP_B, TestTransfer.transfer(STOP_D, D2m));
+
+    requestBuilder
+      .searchParams()
+      .addAccessPaths(TestAccessEgress.walk(STOP_A, D30s))
+      .addEgressPaths(TestAccessEgress.walk(STOP_C, D20s))
+      .earliestDepartureTime(T00_00)
+      .latestArrivalTime(hm2time(3, 30))
+      .timetable(true);
+  }
+
+  @ParameterizedTest
+  @EnumSource(SearchDirection.class)
+  void testMinTravelDurationProfile(SearchDirection direction) {
+    requestBuilder.profile(RaptorProfile.MIN_TRAVEL_DURATION).searchDirection(direction);
+    requestBuilder.searchParams().searchOneIterationOnly();
+
+    var request = requestBuilder.build();
+    var expected = search(request);
+    var result = search(
+      request.mutate().enableOptimization(Optimization.CONNECTION_SCAN).build()
+    );
+
+    // R1 and R2 is faster than R3
+    assertTrue(expected.contains("26m50s"), expected);
+    assertEquals(expected, result);
+  }
+
+  @Test
+  void testMultiCriteriaHeuristics() {
+    requestBuilder
+      .profile(RaptorProfile.MULTI_CRITERIA)
+      .enableOptimization(Optimization.PARETO_CHECK_AGAINST_DESTINATION);
+    requestBuilder.searchParams().searchWindowInSeconds(60 * D1m);
+
+    var request = requestBuilder.build();
+    var expected = new RangeRaptorDynamicSearch<>(config, data, request);
+    var expectedPaths = PathUtils.pathsToString(expected.route());
+
+    request = request.mutate().enableOptimization(Optimization.CONNECTION_SCAN).build();
+    var result = new RangeRaptorDynamicSearch<>(config, data, request);
+    var resultPaths = PathUtils.pathsToString(result.route());
+
+    assertHeuristicsEquals(
+      expected.getDestinationHeuristics(),
+      result.getDestinationHeuristics()
+    );
+    assertEquals(expectedPaths, resultPaths);
+  }
+
+  private String search(RaptorRequest<TestTripSchedule> request) {
+    return PathUtils.pathsToString(raptorService.route(request, data));
+  }
+
+  private static void assertHeuristicsEquals(Heuristics expected, Heuristics result) {
+    assertArrayEquals(
+      expected.bestTravelDurationToIntArray(UNREACHED),
+      result.bestTravelDurationToIntArray(UNREACHED)
+    );
+    assertArrayEquals(
+      expected.bestNumOfTransfersToIntArray(UNREACHED),
+      result.bestNumOfTransfersToIntArray(UNREACHED)
+    );
+  }
+}
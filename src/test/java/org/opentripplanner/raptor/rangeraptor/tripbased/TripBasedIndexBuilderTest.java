@@ -0,0 +1,40 @@
+package org.opentripplanner.raptor.rangeraptor.tripbased;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.opentripplanner.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.raptor._data.transit.TestTripSchedule.schedule;
+
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.raptor._data.RaptorTestConstants;
+import org.opentripplanner.raptor._data.transit.TestTransitData;
+
+class TripBasedIndexBuilderTest implements RaptorTestConstants {
+
+  private final TestTransitData data = new TestTransitData();
+
+  @Test
+  void build() {
+    data.withRoute(
+      route("R1", STOP_A, STOP_B, STOP_C)
+        .withTimetable(schedule("00:10 00:20 00:30"), schedule("00:15 00:25 00:30"))
+    );
+    data.withRoute(route("R2", STOP_B, STOP_D).withTimetable(schedule("00:30 00:40")));
+
+    var index = TripBasedIndexBuilder.build(data, null, 1);
+
+    assertNotNull(index);
+    assertEquals(3, index.numberOfTrips());
+  }
+
+  @Test
+  void tripsOvertakingEachOtherAreNotSupported() {
+    data.withRoute(
+      route("R1", STOP_A, STOP_B, STOP_C)
+        .withTimetable(schedule("00:10 00:20 00:40"), schedule("00:15 00:25 00:30"))
+    );
+
+    assertNull(TripBasedIndexBuilder.build(data, null, 1));
+  }
+}
@@ -0,0 +1,66 @@
+package org.opentripplanner.raptor.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TransitDataCacheTest {
+
+  private final TransitDataCache<String, String> subject = new TransitDataCache<>(2);
+  private final List<Runnable> tasks = new ArrayList<>();
+  private int nCreated = 0;
+
+  @Test
+  void createValueOnCallingThread() {
+    assertEquals("A", subject.get("A", () -> create("A"), null));
+    assertEquals("A", subject.get("A", () -> create("A"), null));
+    assertEquals(1, nCreated);
+  }
+
+  @Test
+  void createValueInTheBackground() {
+    assertNull(subject.get("A", () -> create("A"), tasks::add));
+    assertNull(subject.get("A", () -> create("A"), tasks::add));
+    assertEquals(1, tasks.size());
+
+    tasks.get(0).run();
+
+    assertEquals("A", subject.get("A", () -> create("A"), tasks::add));
+    assertEquals(1, nCreated);
+  }
+
+  @Test
+  void failedValueIsCachedAsNull() {
+    assertNull(subject.get("A", this::fail, null));
+    assertNull(subject.get("A", () -> create("A"), null));
+    assertEquals(0, nCreated);
+  }
+
+  @Test
+  void removeLeastRecentlyUsed() {
+    subject.get("A", () -> create("A"), null);
+    subject.get("B", () -> create("B"), null);
+    subject.get("A", () -> create("A"), null);
+    subject.get("C", () -> create("C"), null);
+    assertEquals(3, nCreated);
+
+    // A and C are kept, B is removed
+    subject.get("A", () -> create("A"), null);
+    subject.get("C", () -> create("C"), null);
+    assertEquals(3, nCreated);
+    subject.get("B", () -> create("B"), null);
+    assertEquals(4, nCreated);
+  }
+
+  private String create(String value) {
+    ++nCreated;
+    return value;
+  }
+
+  private String fail() {
+    throw new IllegalStateException("Expected");
+  }
+}
@@ -0,0 +1,333 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner._support.time.ZoneIds;
+import org.opentripplanner.astar.model.GraphPath;
+import org.opentripplanner.framework.i18n.NonLocalizedString;
+import org.opentripplanner.graph_builder.module.NearbyStopFinder;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.algorithm.GraphRoutingTest;
+import org.opentripplanner.routing.algorithm.mapping.GraphPathToItineraryMapper;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.routing.error.RoutingValidationException;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.vertex.StreetVertex;
+import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
+import org.opentripplanner.street.model.vertex.TransitStopVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TemporaryVerticesContainer;
+import org.opentripplanner.street.search.request.StreetSearchRequest;
+import org.opentripplanner.street.search.state.State;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.site.StopLocation;
+
+/**
+ * The tests of the cache key use a search without results. The reuse of the paths found is tested
+ * with this graph, and a destination on the street between A and B.
+ * <pre>
+ *  A ---- B ---- C
+ *  |      |      |
+ *  S1     S2     S3
+ * </pre>
+ */
+class AccessEgressCacheTest extends GraphRoutingTest {
+
+  private static final Duration DURATION_LIMIT = Duration.ofMinutes(45);
+  private static final GenericLocation ORIGIN = new GenericLocation(47.5000, 19.0060);
+  private static final GenericLocation DESTINATION = new GenericLocation(47.5001, 19.0015);
+
+  private final AccessEgressCache subject = new AccessEgressCache(100, Duration.ofMinutes(1));
+  private final AtomicInteger searches = new AtomicInteger();
+  private final Supplier<Collection<NearbyStop>> search = () -> {
+    searches.incrementAndGet();
+    return List.of();
+  };
+
+  @Test
+  void requestsToTheSamePlaceShareTheSearch() {
+    var first = get(location("Airport"), new RouteRequest(), StreetMode.WALK, true);
+    var second = get(location("Airport"), new RouteRequest(), StreetMode.WALK, true);
+
+    assertEquals(1, searches.get());
+    assertEquals(first, second);
+  }
+
+  @Test
+  void egressOfALaterRequestUsesItsOwnTemporaryVertices() {
+    var graph = streetGraph();
+    var request = new RouteRequest();
+    request.setFrom(ORIGIN);
+    request.setTo(DESTINATION);
+
+    try (var first = temporaryVertices(graph, request)) {
+      assertEquals(3, egress(first, request).size());
+    }
+
+    // The temporary edges of the first request are removed when it is done
+    try (var second = temporaryVertices(graph, request)) {
+      var stops = egress(second, request);
+      assertEquals(1, searches.get());
+      assertSameStops(streetSearch(second, request), stops);
+
+      var mapper = new GraphPathToItineraryMapper(
+        ZoneIds.BERLIN,
+        graph.streetNotesService,
+        graph.ellipsoidToGeoidDifference
+      );
+      for (NearbyStop it : stops) {
+        // The egress is mapped the same way as in the RaptorPathToItineraryMapper
+        var path = new GraphPath<>(it.state);
+        assertEquals(it.stop, ((TransitStopVertex) path.states.getFirst().getVertex()).getStop());
+        assertTrue(second.getToVertices().contains(path.states.getLast().getVertex()));
+
+        var itinerary = mapper.generateItinerary(path);
+        assertEquals(1, itinerary.getLegs().size(), itinerary.toString());
+      }
+    }
+  }
+
+  @Test
+  void pathsThroughOtherTemporaryVerticesAreNotReused() {
+    // A vertex which is not shared by the requests, like a vertex linked by a realtime updater
+    var vertex = new TemporaryStreetLocation(
+      "Rental",
+      new Coordinate(19.002, 47.499),
+      new NonLocalizedString("Rental"),
+      false
+    );
+    var state = new State(vertex, StreetSearchRequest.of().build());
+    Supplier<Collection<NearbyStop>> searchThroughVertex = () -> {
+      searches.incrementAndGet();
+      return List.of(new NearbyStop(TransitModelForTest.stop("S4").build(), 0, List.of(), state));
+    };
+
+    get(location("Airport"), searchThroughVertex);
+    get(location("Airport"), searchThroughVertex);
+
+    assertEquals(2, searches.get());
+  }
+
+  @Test
+  void placeModeDirectionAndPreferencesArePartOfTheKey() {
+    get(location("Airport"), new RouteRequest(), StreetMode.WALK, true);
+    get(location("Station"), new RouteRequest(), StreetMode.WALK, true);
+    get(location("Airport"), new RouteRequest(), StreetMode.BIKE, true);
+    get(location("Airport"), new RouteRequest(), StreetMode.WALK, false);
+
+    var request = new RouteRequest();
+    request.withPreferences(pref -> pref.withWalk(w -> w.withSpeed(0.8)));
+    get(location("Airport"), request, StreetMode.WALK, true);
+
+    assertEquals(5, searches.get());
+  }
+
+  @Test
+  void preferencesOfOtherModesAreIgnored() {
+    var request = new RouteRequest();
+    request.withPreferences(pref -> pref.withBike(b -> b.withSpeed(3.0)));
+
+    get(location("Airport"), new RouteRequest(), StreetMode.WALK, true);
+    get(location("Airport"), request, StreetMode.WALK, true);
+
+    assertEquals(1, searches.get());
+  }
+
+  @Test
+  void rentalIsNotCached() {
+    get(location("Airport"), new RouteRequest(), StreetMode.BIKE_RENTAL, true);
+    get(location("Airport"), new RouteRequest(), StreetMode.BIKE_RENTAL, true);
+
+    assertEquals(2, searches.get());
+  }
+
+  @Test
+  void cacheIsDisabledIfTheSizeIsZero() {
+    var disabled = new AccessEgressCache(0, Duration.ofMinutes(1));
+    for (int i = 0; i < 2; ++i) {
+      disabled.get(
+        location("Airport"),
+        new RouteRequest(),
+        new StreetRequest(StreetMode.WALK),
+        true,
+        DURATION_LIMIT,
+        search
+      );
+    }
+    assertEquals(2, searches.get());
+  }
+
+  @Test
+  void concurrentRequestsWaitForTheSearch() throws Exception {
+    var started = new CountDownLatch(1);
+    var done = new CountDownLatch(1);
+    Supplier<Collection<NearbyStop>> slowSearch = () -> {
+      started.countDown();
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      return search.get();
+    };
+
+    var executor = Executors.newFixedThreadPool(2);
+    try {
+      var first = executor.submit(() -> get(location("Airport"), slowSearch));
+      started.await();
+      var second = executor.submit(() -> get(location("Airport"), slowSearch));
+      done.countDown();
+
+      assertEquals(first.get(), second.get());
+      assertEquals(1, searches.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void errorsFromTheSearchAreNotWrapped() {
+    assertThrows(
+      RoutingValidationException.class,
+      () ->
+        get(
+          location("Airport"),
+          () -> {
+            throw new RoutingValidationException(List.of());
+          }
+        )
+    );
+  }
+
+  private Collection<NearbyStop> get(
+    Set<Vertex> vertices,
+    RouteRequest request,
+    StreetMode mode,
+    boolean fromTarget
+  ) {
+    return subject.get(
+      vertices,
+      request,
+      new StreetRequest(mode),
+      fromTarget,
+      DURATION_LIMIT,
+      search
+    );
+  }
+
+  private Collection<NearbyStop> get(
+    Set<Vertex> vertices,
+    Supplier<Collection<NearbyStop>> search
+  ) {
+    return subject.get(
+      vertices,
+      new RouteRequest(),
+      new StreetRequest(StreetMode.WALK),
+      true,
+      DURATION_LIMIT,
+      search
+    );
+  }
+
+  private Collection<NearbyStop> egress(
+    TemporaryVerticesContainer temporaryVertices,
+    RouteRequest request
+  ) {
+    return subject.get(
+      temporaryVertices.getToVertices(),
+      request,
+      new StreetRequest(StreetMode.WALK),
+      true,
+      DURATION_LIMIT,
+      () -> {
+        searches.incrementAndGet();
+        return streetSearch(temporaryVertices, request);
+      }
+    );
+  }
+
+  private static List<NearbyStop> streetSearch(
+    TemporaryVerticesContainer temporaryVertices,
+    RouteRequest request
+  ) {
+    return new NearbyStopFinder(null, DURATION_LIMIT, null, true)
+      .findNearbyStopsViaStreets(
+        temporaryVertices.getToVertices(),
+        true,
+        request,
+        new StreetRequest(StreetMode.WALK)
+      );
+  }
+
+  private static TemporaryVerticesContainer temporaryVertices(Graph graph, RouteRequest request) {
+    return new TemporaryVerticesContainer(graph, request, StreetMode.WALK, StreetMode.WALK);
+  }
+
+  private Graph streetGraph() {
+    var model = modelOf(
+      new Builder() {
+        @Override
+        public void build() {
+          StreetVertex A = intersection("A", 47.500, 19.000);
+          StreetVertex B = intersection("B", 47.500, 19.003);
+          StreetVertex C = intersection("C", 47.500, 19.006);
+
+          biLink(A, stop("S1", 47.4985, 19.0001));
+          biLink(B, stop("S2", 47.4985, 19.0031));
+          biLink(C, stop("S3", 47.4985, 19.0061));
+
+          var all = StreetTraversalPermission.ALL;
+          street(A, B, 230, all, all);
+          street(B, C, 240, all, all);
+        }
+      }
+    );
+    return model.graph();
+  }
+
+  private static void assertSameStops(
+    Collection<NearbyStop> expected,
+    Collection<NearbyStop> actual
+  ) {
+    Map<StopLocation, NearbyStop> actualByStop = actual
+      .stream()
+      .collect(Collectors.toMap(it -> it.stop, it -> it));
+
+    assertEquals(expected.size(), actual.size(), actual.toString());
+    for (NearbyStop it : expected) {
+      var other = actualByStop.get(it.stop);
+      assertNotNull(other, it.stop.toString());
+      assertEquals(it.state.getElapsedTimeSeconds(), other.state.getElapsedTimeSeconds());
+      assertEquals(it.state.getWeight(), other.state.getWeight(), 0.001);
+    }
+  }
+
+  /** A new temporary vertex is created for each request */
+  private static Set<Vertex> location(String name) {
+    var coordinate = name.equals("Airport")
+      ? new Coordinate(11.10, 60.19)
+      : new Coordinate(10.75, 59.91);
+    return Set.of(
+      new TemporaryStreetLocation(name, coordinate, new NonLocalizedString(name), true)
+    );
+  }
+}
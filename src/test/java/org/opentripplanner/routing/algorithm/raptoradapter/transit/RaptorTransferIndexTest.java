@@ -0,0 +1,68 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.street.search.request.StreetSearchRequest;
+
+class RaptorTransferIndexTest {
+
+  private static final StreetSearchRequest REQUEST = StreetSearchRequest.of().build();
+
+  /**
+   * Stop 0 has two transfers to stop 2, only the cheapest is kept. Stop 1 has no transfers.
+   */
+  private final RaptorTransferIndex subject = RaptorTransferIndex.create(
+    List.of(
+      List.of(new Transfer(2, 200), new Transfer(2, 100), new Transfer(3, 50)),
+      List.of(),
+      List.of(new Transfer(3, 100)),
+      List.of(new Transfer(0, 10))
+    ),
+    REQUEST
+  );
+
+  @Test
+  void forwardTransfers() {
+    assertEquals("[2:100, 3:50]", toString(subject.getForwardTransfers(0)));
+    assertEquals("[]", toString(subject.getForwardTransfers(1)));
+    assertEquals("[3:100]", toString(subject.getForwardTransfers(2)));
+    assertEquals("[0:10]", toString(subject.getForwardTransfers(3)));
+  }
+
+  @Test
+  void reversedTransfers() {
+    assertEquals("[3:10]", toString(subject.getReversedTransfers(0)));
+    assertEquals("[]", toString(subject.getReversedTransfers(1)));
+    assertEquals("[0:100]", toString(subject.getReversedTransfers(2)));
+    assertEquals("[0:50, 2:100]", toString(subject.getReversedTransfers(3)));
+  }
+
+  @Test
+  void iteratorThrowsWhenExhausted() {
+    var it = subject.getForwardTransfers(1);
+    assertFalse(it.hasNext());
+    assertThrows(NoSuchElementException.class, it::next);
+  }
+
+  /**
+   * List the transfers as "stop:distance", sorted on stop.
+   */
+  private static String toString(Iterator<RaptorTransfer> it) {
+    var list = new ArrayList<RaptorTransfer>();
+    it.forEachRemaining(list::add);
+    return list
+      .stream()
+      .sorted((a, b) -> Integer.compare(a.stop(), b.stop()))
+      .map(t -> t.stop() + ":" + ((DefaultRaptorTransfer) t).transfer().getDistanceMeters())
+      .toList()
+      .toString();
+  }
+}
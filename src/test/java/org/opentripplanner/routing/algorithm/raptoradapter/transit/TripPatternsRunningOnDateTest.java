@@ -0,0 +1,121 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.network.Route;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.site.RegularStop;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+class TripPatternsRunningOnDateTest {
+
+  private static final RegularStop STOP = TransitModelForTest.stopForTest("TEST:STOP", 0, 0);
+  private static final Route ROUTE = TransitModelForTest.route("1").build();
+  private static final LocalDate DATE = LocalDate.of(2023, 2, 1);
+  private static final int N = 5 * TripPatternsRunningOnDate.CHUNK_SIZE;
+
+  private final List<TripPatternForDate> patterns = IntStream
+    .range(0, N)
+    .mapToObj(i -> tripPatternForDate("P" + i, DATE))
+    .toList();
+
+  @Test
+  void createFromCollection() {
+    var subject = TripPatternsRunningOnDate.of(patterns);
+
+    assertEquals(N, subject.size());
+    assertEquals(new HashSet<>(patterns), new HashSet<>(subject));
+    assertTrue(subject.contains(patterns.get(7)));
+  }
+
+  @Test
+  void duplicatesAreIgnored() {
+    var list = new ArrayList<>(patterns);
+    list.add(patterns.get(3));
+
+    var subject = TripPatternsRunningOnDate.of(list);
+    assertEquals(N, subject.size());
+
+    subject = subject.update(List.of(), List.of(patterns.get(5)));
+    assertEquals(N, subject.size());
+  }
+
+  @Test
+  void updateSharesUnchangedChunks() {
+    var original = TripPatternsRunningOnDate.of(patterns);
+    var removed = patterns.get(0);
+    var added = tripPatternForDate("P-NEW", DATE);
+
+    var updated = original.update(List.of(removed), List.of(added));
+
+    assertEquals(N, updated.size());
+    assertFalse(updated.contains(removed));
+    assertTrue(updated.contains(added));
+
+    // The original is not changed
+    assertEquals(N, original.size());
+    assertTrue(original.contains(removed));
+    assertFalse(original.contains(added));
+
+    // Only the chunks of the removed and the added pattern are copied
+    int numberOfChunks = chunkIndex(patterns.get(N - 1)) + 1;
+    int chunkOfRemoved = chunkIndex(removed);
+    int chunkOfAdded = chunkIndex(added);
+    int numberOfCopiedChunks = chunkOfAdded < numberOfChunks && chunkOfAdded != chunkOfRemoved
+      ? 2
+      : 1;
+    assertEquals(
+      numberOfChunks - numberOfCopiedChunks,
+      updated.numberOfSharedChunks(original)
+    );
+  }
+
+  @Test
+  void emptyUpdateReturnsSameInstance() {
+    var subject = TripPatternsRunningOnDate.of(patterns);
+    assertSame(subject, subject.update(List.of(), List.of()));
+  }
+
+  @Test
+  void removeNotExistingElement() {
+    var subject = TripPatternsRunningOnDate.of(patterns.subList(0, 10));
+    var updated = subject.update(List.of(patterns.get(20)), List.of());
+
+    assertEquals(10, updated.size());
+  }
+
+  private static int chunkIndex(TripPatternForDate tripPatternForDate) {
+    int patternIndex = tripPatternForDate.getTripPattern().patternIndex();
+    return patternIndex / TripPatternsRunningOnDate.CHUNK_SIZE;
+  }
+
+  private static TripPatternForDate tripPatternForDate(String id, LocalDate date) {
+    var stopTime = new StopTime();
+    stopTime.setStop(STOP);
+    var tripPattern = TripPattern
+      .of(TransitModelForTest.id(id))
+      .withRoute(ROUTE)
+      .withStopPattern(new StopPattern(List.of(stopTime)))
+      .build()
+      .getRoutingTripPattern();
+    var tripTimes = new TripTimes(
+      TransitModelForTest.trip(id).withRoute(ROUTE).build(),
+      List.of(stopTime),
+      new Deduplicator()
+    );
+    return new TripPatternForDate(tripPattern, List.of(tripTimes), List.of(), date);
+  }
+}
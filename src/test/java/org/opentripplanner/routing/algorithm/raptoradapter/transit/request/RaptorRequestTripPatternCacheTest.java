@@ -0,0 +1,112 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTripPatternCache.RequestTripPatterns;
+import org.opentripplanner.routing.api.request.preference.WheelchairPreferences;
+import org.opentripplanner.routing.api.request.request.filter.AllowAllTransitFilter;
+
+class RaptorRequestTripPatternCacheTest {
+
+  private static final ZonedDateTime DAY_1 = ZonedDateTime.of(
+    2023,
+    2,
+    1,
+    0,
+    0,
+    0,
+    0,
+    ZoneId.of("Europe/Oslo")
+  );
+  private static final ZonedDateTime DAY_2 = DAY_1.plusDays(1);
+
+  private final RaptorRequestTripPatternCache subject = new RaptorRequestTripPatternCache(10);
+
+  private int numberOfCreatedPatterns = 0;
+
+  @Test
+  void sameDatesAndEqualFilterIsCached() {
+    var first = get(subject, DAY_1, filter(false));
+    var second = get(subject, DAY_1, filter(false));
+
+    assertSame(first, second);
+    assertEquals(1, numberOfCreatedPatterns);
+    assertEquals(1, subject.size());
+    assertTrue(subject.isEnabled());
+  }
+
+  @Test
+  void differentDatesOrFilterIsNotShared() {
+    var first = get(subject, DAY_1, filter(false));
+
+    assertNotSame(first, get(subject, DAY_2, filter(false)));
+    assertNotSame(first, get(subject, DAY_1, filter(true)));
+    assertEquals(3, numberOfCreatedPatterns);
+  }
+
+  @Test
+  void invalidateAll() {
+    var first = get(subject, DAY_1, filter(false));
+    subject.invalidateAll();
+
+    assertNotSame(first, get(subject, DAY_1, filter(false)));
+    assertEquals(2, numberOfCreatedPatterns);
+  }
+
+  @Test
+  void emptyCopyDoesNotShareCachedPatterns() {
+    var first = get(subject, DAY_1, filter(false));
+    var copy = subject.emptyCopy();
+
+    assertEquals(0, copy.size());
+    assertNotSame(first, get(copy, DAY_1, filter(false)));
+  }
+
+  @Test
+  void cacheWithZeroSizeIsOff() {
+    var cache = new RaptorRequestTripPatternCache(0);
+
+    assertNotSame(get(cache, DAY_1, filter(false)), get(cache, DAY_1, filter(false)));
+    assertEquals(0, cache.size());
+    // The patterns are not shared, so Raptor must not cache the data derived from them
+    assertFalse(cache.isEnabled());
+  }
+
+  private RequestTripPatterns get(
+    RaptorRequestTripPatternCache cache,
+    ZonedDateTime transitSearchTimeZero,
+    TransitDataProviderFilter filter
+  ) {
+    return cache.get(
+      transitSearchTimeZero,
+      0,
+      1,
+      filter,
+      () -> {
+        ++numberOfCreatedPatterns;
+        return new RequestTripPatterns(List.of(), List.of());
+      }
+    );
+  }
+
+  private static TransitDataProviderFilter filter(boolean requireBikesAllowed) {
+    return new RouteRequestTransitDataProviderFilter(
+      requireBikesAllowed,
+      false,
+      WheelchairPreferences.DEFAULT,
+      false,
+      false,
+      Set.of(),
+      List.of(AllowAllTransitFilter.of())
+    );
+  }
+}
@@ -1,6 +1,8 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
 
 import java.time.LocalDate;
@@ -83,6 +85,33 @@ public class RaptorRoutingRequestTransitDataCreatorTest {
     assertEquals(86400, ((TripScheduleWithOffset) r3.getTripSchedule(2)).getSecondsOffset());
   }
 
+  @Test
+  public void testTripTimesAreCreatedOnFirstUseAndShared() {
+    LocalDate date = LocalDate.of(2019, 3, 30);
+    ZonedDateTime startOfTime = ServiceDateUtils.asStartOfService(date, ZoneIds.LONDON);
+    RoutingTripPattern tripPattern = createTripPattern(TP_ID_1);
+    List<TripPatternForDate> tripPatternsForDates = List.of(
+      new TripPatternForDate(tripPattern, List.of(createTripTimesForTest()), List.of(), date)
+    );
+    var timesCache = new TripPatternTimesCache();
+
+    var first = RaptorRoutingRequestTransitDataCreator
+      .merge(startOfTime, tripPatternsForDates, new TestTransitDataProviderFilter(), timesCache)
+      .get(0);
+    var second = RaptorRoutingRequestTransitDataCreator
+      .merge(startOfTime, tripPatternsForDates, new TestTransitDataProviderFilter(), timesCache)
+      .get(0);
+
+    assertFalse(first.isMaterialized());
+    assertEquals(7200, first.getArrivalTimes(1).applyAsInt(0));
+    assertTrue(first.isMaterialized());
+    assertFalse(first.materialize());
+
+    assertTrue(second.materialize());
+    assertEquals(1, timesCache.size());
+    assertEquals(7200, second.getArrivalTimes(1).applyAsInt(0));
+  }
+
   private static TripPatternForDates findTripPatternForDate(
     int patternIndex,
     List<TripPatternForDates> list
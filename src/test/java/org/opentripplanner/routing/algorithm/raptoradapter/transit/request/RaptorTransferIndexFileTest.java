@@ -0,0 +1,185 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.raptor.api.model.RaptorTransfer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.RaptorTransferIndex;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.Transfer;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.BicycleOptimizeType;
+import org.opentripplanner.street.search.request.StreetSearchRequest;
+import org.opentripplanner.street.search.request.StreetSearchRequestMapper;
+
+class RaptorTransferIndexFileTest {
+
+  private static final StreetSearchRequest REQUEST = StreetSearchRequest
+    .of()
+    .withMode(StreetMode.WALK)
+    .withPreferences(p -> p.withWalk(w -> w.withSpeed(1.7)))
+    .build();
+
+  private static final String GRAPH_ID = "2024-01-01T10:00:00Z/2024-01-01T10:05:00Z";
+
+  private final List<List<Transfer>> transfersByStopIndex = List.of(
+    List.of(new Transfer(1, 200), new Transfer(2, 100)),
+    List.of(new Transfer(0, 200)),
+    List.of()
+  );
+
+  private File file;
+
+  @BeforeEach
+  void setup() throws Exception {
+    file = File.createTempFile("transferCache", ".bin");
+  }
+
+  @AfterEach
+  void teardown() throws Exception {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Test
+  void writeAndRead() throws Exception {
+    var index = RaptorTransferIndex.create(transfersByStopIndex, REQUEST);
+
+    RaptorTransferIndexFile.write(
+      file,
+      GRAPH_ID,
+      transfersByStopIndex,
+      List.of(new RaptorTransferIndexFile.Entry(REQUEST, index))
+    );
+    var entries = RaptorTransferIndexFile.read(file, GRAPH_ID, transfersByStopIndex);
+
+    assertEquals(1, entries.size());
+    var entry = entries.get(0);
+    assertEquals(REQUEST.mode(), entry.request().mode());
+    assertEquals(REQUEST.preferences().walk(), entry.request().preferences().walk());
+
+    for (int stop = 0; stop < transfersByStopIndex.size(); ++stop) {
+      // The transfers are equal only if they refer to the same transfer instance in the graph
+      assertEquals(
+        list(index.getForwardTransfers(stop)),
+        list(entry.index().getForwardTransfers(stop))
+      );
+      assertEquals(
+        list(index.getReversedTransfers(stop)),
+        list(entry.index().getReversedTransfers(stop))
+      );
+    }
+  }
+
+  @Test
+  void writeAndReadDefaultRouteRequest() throws Exception {
+    var request = StreetSearchRequestMapper.mapToTransferRequest(new RouteRequest()).build();
+
+    assertRequestEquals(request, writeAndRead(request));
+  }
+
+  @Test
+  void writeAndReadRouteRequestWithPreferences() throws Exception {
+    var routeRequest = new RouteRequest();
+    routeRequest.setWheelchair(true);
+    routeRequest.withPreferences(p ->
+      p
+        .withWalk(w -> w.withSpeed(1.1).withStairsReluctance(3.0))
+        .withBike(b ->
+          b
+            .withSpeed(6.0)
+            .withOptimizeType(BicycleOptimizeType.TRIANGLE)
+            .withOptimizeTriangle(t -> t.withTime(1).withSlope(2).withSafety(3))
+        )
+        .withStreet(s ->
+          s
+            .withTurnReluctance(2.0)
+            .withElevator(e -> e.withBoardTime(30))
+            .withMaxAccessEgressDuration(StreetMode.BIKE, Duration.ofMinutes(20))
+            .withRoutingTimeout(Duration.ofMillis(1500))
+        )
+        .withWheelchair(w -> w.withTripOnlyAccessible().withStopCost(100, 200).withMaxSlope(0.1))
+    );
+    var request = StreetSearchRequestMapper.mapToTransferRequest(routeRequest).build();
+
+    assertRequestEquals(request, writeAndRead(request));
+  }
+
+  @Test
+  void loadedRequestsAreCacheHits() {
+    var request = new RouteRequest();
+    var cache = new RaptorRequestTransferCache(10);
+    var index = cache.get(transfersByStopIndex, request);
+    cache.save(file, GRAPH_ID, transfersByStopIndex);
+
+    var loadedCache = new RaptorRequestTransferCache(10);
+    assertEquals(1, loadedCache.load(file, GRAPH_ID, transfersByStopIndex));
+
+    var loadedIndex = loadedCache.get(transfersByStopIndex, request);
+    assertEquals(0, loadedCache.getTransferCache().stats().loadCount());
+    assertEquals(list(index.getForwardTransfers(0)), list(loadedIndex.getForwardTransfers(0)));
+  }
+
+  @Test
+  void ignoreFileForAnotherGraph() throws Exception {
+    var index = RaptorTransferIndex.create(transfersByStopIndex, REQUEST);
+    RaptorTransferIndexFile.write(
+      file,
+      GRAPH_ID,
+      transfersByStopIndex,
+      List.of(new RaptorTransferIndexFile.Entry(REQUEST, index))
+    );
+
+    // A rebuilt graph can have the same transfers, but other street costs, speeds or permissions
+    var rebuiltGraphId = "2024-02-01T10:00:00Z/2024-02-01T10:05:00Z";
+    assertTrue(RaptorTransferIndexFile.read(file, rebuiltGraphId, transfersByStopIndex).isEmpty());
+
+    var otherGraph = List.of(List.of(new Transfer(1, 200)), List.<Transfer>of());
+    assertTrue(RaptorTransferIndexFile.read(file, GRAPH_ID, otherGraph).isEmpty());
+  }
+
+  @Test
+  void missingFile() throws Exception {
+    Files.delete(file.toPath());
+    assertTrue(RaptorTransferIndexFile.read(file, GRAPH_ID, transfersByStopIndex).isEmpty());
+  }
+
+  private StreetSearchRequest writeAndRead(StreetSearchRequest request) throws Exception {
+    var index = RaptorTransferIndex.create(transfersByStopIndex, request);
+    RaptorTransferIndexFile.write(
+      file,
+      GRAPH_ID,
+      transfersByStopIndex,
+      List.of(new RaptorTransferIndexFile.Entry(request, index))
+    );
+    var entries = RaptorTransferIndexFile.read(file, GRAPH_ID, transfersByStopIndex);
+    assertEquals(1, entries.size());
+    return entries.get(0).request();
+  }
+
+  private static void assertRequestEquals(
+    StreetSearchRequest expected,
+    StreetSearchRequest actual
+  ) {
+    assertEquals(expected.mode(), actual.mode());
+    assertEquals(expected.wheelchair(), actual.wheelchair());
+    assertEquals(expected.preferences().walk(), actual.preferences().walk());
+    assertEquals(expected.preferences().bike(), actual.preferences().bike());
+    assertEquals(expected.preferences().street(), actual.preferences().street());
+    assertEquals(expected.preferences().wheelchair(), actual.preferences().wheelchair());
+  }
+
+  private static List<RaptorTransfer> list(Iterator<RaptorTransfer> it) {
+    var list = new ArrayList<RaptorTransfer>();
+    it.forEachRemaining(list::add);
+    return list;
+  }
+}
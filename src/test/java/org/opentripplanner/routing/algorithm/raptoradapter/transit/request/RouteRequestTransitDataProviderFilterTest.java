@@ -2,6 +2,7 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDate;
@@ -264,6 +265,52 @@ public class RouteRequestTransitDataProviderFilterTest {
     assertFalse(valid);
   }
 
+  @Test
+  public void equalFiltersForSameParameters() {
+    var filter = new RouteRequestTransitDataProviderFilter(
+      false,
+      false,
+      DEFAULT_ACCESSIBILITY,
+      false,
+      false,
+      Set.of(TRIP_ID),
+      filterForMode(TransitMode.BUS)
+    );
+    var same = new RouteRequestTransitDataProviderFilter(
+      false,
+      false,
+      RELAXED_ACCESSIBILITY,
+      false,
+      false,
+      Set.of(TRIP_ID),
+      filterForMode(TransitMode.BUS)
+    );
+    var otherMode = new RouteRequestTransitDataProviderFilter(
+      false,
+      false,
+      DEFAULT_ACCESSIBILITY,
+      false,
+      false,
+      Set.of(TRIP_ID),
+      filterForMode(TransitMode.RAIL)
+    );
+    var wheelchair = new RouteRequestTransitDataProviderFilter(
+      false,
+      true,
+      DEFAULT_ACCESSIBILITY,
+      false,
+      false,
+      Set.of(TRIP_ID),
+      filterForMode(TransitMode.BUS)
+    );
+
+    // The wheelchair preferences are ignored when wheelchair routing is off
+    assertEquals(filter, same);
+    assertEquals(filter.hashCode(), same.hashCode());
+    assertNotEquals(filter, otherMode);
+    assertNotEquals(filter, wheelchair);
+  }
+
   @Test
   public void transitModeFilteringTest() {
     TripTimes tripTimes = createTestTripTimes(
@@ -7,6 +7,7 @@ import static org.opentripplanner.routing.api.request.preference.ImmutablePrefer
 import java.time.Duration;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.opentripplanner.astar.model.SearchQueueType;
 import org.opentripplanner.street.search.intersection_model.DrivingDirection;
 import org.opentripplanner.street.search.intersection_model.IntersectionTraversalModel;
 
@@ -20,6 +21,7 @@ class StreetPreferencesTest {
   private static final Duration MAX_ACCESS_EGRESS = Duration.ofMinutes(5);
   private static final Duration MAX_DIRECT = Duration.ofMinutes(10);
   public static final Duration ROUTING_TIMEOUT = Duration.ofSeconds(3);
+  private static final SearchQueueType SEARCH_QUEUE_TYPE = SearchQueueType.RADIX_HEAP;
 
   private final StreetPreferences subject = StreetPreferences
     .of()
@@ -30,6 +32,7 @@ class StreetPreferencesTest {
     .withMaxAccessEgressDuration(MAX_ACCESS_EGRESS, Map.of())
     .withMaxDirectDuration(MAX_DIRECT, Map.of())
     .withRoutingTimeout(ROUTING_TIMEOUT)
+    .withSearchQueueType(SEARCH_QUEUE_TYPE)
     .build();
 
   @Test
@@ -67,6 +70,11 @@ class StreetPreferencesTest {
     assertEquals(ROUTING_TIMEOUT, subject.routingTimeout());
   }
 
+  @Test
+  void searchQueueType() {
+    assertEquals(SEARCH_QUEUE_TYPE, subject.searchQueueType());
+  }
+
   @Test
   void testOfAndCopyOf() {
     // Return same object if no value is set
@@ -90,6 +98,7 @@ class StreetPreferencesTest {
       "turnReluctance: 2.0, " +
       "drivingDirection: LEFT, " +
       "routingTimeout: 3s, " +
+      "searchQueueType: RADIX_HEAP, " +
       "elevator: ElevatorPreferences{boardTime: 2m}, " +
       "intersectionTraversalModel: NORWAY, " +
       "maxAccessEgressDuration: DurationForStreetMode{default:5m}, " +
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Coordinate;
@@ -27,6 +28,7 @@ import org.opentripplanner.street.model.vertex.IntersectionVertex;
 import org.opentripplanner.street.model.vertex.StreetVertex;
 import org.opentripplanner.street.model.vertex.TemporaryVertex;
 import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.street.search.TemporaryEdgeOverlay;
 import org.opentripplanner.street.search.TemporaryVerticesContainer;
 import org.opentripplanner.transit.model.framework.Deduplicator;
 import org.opentripplanner.transit.service.StopModel;
@@ -69,24 +71,20 @@ public class TemporaryVerticesContainerTest {
     // Then:
     originAndDestinationInsertedCorrect();
 
+    // And - the permanent vertexes are not modified by the request
+    assertPermanentVertexesNotReferencingTemporaryElements();
+
     // And When:
     subject.close();
 
-    // Then - permanent vertexes
-    for (Vertex v : permanentVertexes) {
-      // - does not reference the any temporary nodes anymore
-      for (Edge e : v.getIncoming()) {
-        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getFromVertex());
-      }
-      for (Edge e : v.getOutgoing()) {
-        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getToVertex());
-      }
-    }
+    // Then - permanent vertexes does not reference the any temporary nodes
+    assertPermanentVertexesNotReferencingTemporaryElements();
   }
 
   private static <T extends Collection<String>> T findAllReachableVertexes(
     Vertex vertex,
     boolean forward,
+    TemporaryEdgeOverlay overlay,
     T list
   ) {
     if (list.contains(vertex.getDefaultName())) {
@@ -95,11 +93,13 @@ public class TemporaryVerticesContainerTest {
 
     list.add(vertex.getDefaultName());
     if (forward) {
-      vertex.getOutgoing().forEach(it -> findAllReachableVertexes(it.getToVertex(), forward, list));
+      Stream
+        .concat(vertex.getOutgoing().stream(), overlay.extraOutgoingEdges(vertex).stream())
+        .forEach(it -> findAllReachableVertexes(it.getToVertex(), forward, overlay, list));
     } else {
-      vertex
-        .getIncoming()
-        .forEach(it -> findAllReachableVertexes(it.getFromVertex(), forward, list));
+      Stream
+        .concat(vertex.getIncoming().stream(), overlay.extraIncomingEdges(vertex).stream())
+        .forEach(it -> findAllReachableVertexes(it.getFromVertex(), forward, overlay, list));
     }
     return list;
   }
@@ -109,10 +109,14 @@ public class TemporaryVerticesContainerTest {
     assertEquals("Origin", subject.getFromVertices().iterator().next().getDefaultName());
     assertEquals("Destination", subject.getToVertices().iterator().next().getDefaultName());
 
+    // The edges from the permanent vertexes to the temporary vertexes are found by the overlay
+    var overlay = TemporaryEdgeOverlay.of(subject.getFromVertices(), subject.getToVertices());
+
     // And - from the origin
     Collection<String> vertexesReachableFromOrigin = findAllReachableVertexes(
       subject.getFromVertices().iterator().next(),
       true,
+      overlay,
       new ArrayList<>()
     );
     String msg = "All reachable vertexes from origin: " + vertexesReachableFromOrigin;
@@ -127,6 +131,7 @@ public class TemporaryVerticesContainerTest {
     Collection<String> vertexesReachableFromDestination = findAllReachableVertexes(
       subject.getToVertices().iterator().next(),
       false,
+      overlay,
       new ArrayList<>()
     );
     msg = "All reachable vertexes back from destination: " + vertexesReachableFromDestination;
@@ -140,6 +145,17 @@ public class TemporaryVerticesContainerTest {
     assertFalse(vertexesReachableFromDestination.contains("C"), msg);
   }
 
+  private void assertPermanentVertexesNotReferencingTemporaryElements() {
+    for (Vertex v : permanentVertexes) {
+      for (Edge e : v.getIncoming()) {
+        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getFromVertex());
+      }
+      for (Edge e : v.getOutgoing()) {
+        assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getToVertex());
+      }
+    }
+  }
+
   private void createStreetEdge(StreetVertex v0, StreetVertex v1, String name) {
     LineString geom = gf.createLineString(
       new Coordinate[] { v0.getCoordinate(), v1.getCoordinate() }
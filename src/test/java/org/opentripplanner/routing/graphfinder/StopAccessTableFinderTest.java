@@ -0,0 +1,228 @@
+package org.opentripplanner.routing.graphfinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.graph_builder.module.NearbyStopFinder;
+import org.opentripplanner.routing.algorithm.GraphRoutingTest;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.stopaccess.StopAccessTable;
+import org.opentripplanner.street.model.stopaccess.StopAccessTableBuilder;
+import org.opentripplanner.street.model.vertex.StreetVertex;
+import org.opentripplanner.street.model.vertex.TemporaryStreetLocation;
+import org.opentripplanner.street.model.vertex.Vertex;
+import org.opentripplanner.transit.model.site.StopLocation;
+
+/**
+ * This creates a graph with stops along two streets, and a temporary origin and destination
+ * <pre>
+ *  O - A ---- B ---- C
+ *      |      |      |
+ *     S1     S2     S3
+ *      |      |      |
+ *      D ---- E ---- F - T
+ *             |
+ *            S4
+ * </pre>
+ */
+class StopAccessTableFinderTest extends GraphRoutingTest {
+
+  private static final Duration MAX_DURATION = Duration.ofMinutes(20);
+
+  private TemporaryStreetLocation origin;
+  private TemporaryStreetLocation destination;
+  private StopAccessTable table;
+
+  @BeforeEach
+  void setUp() {
+    var model = modelOf(
+      new Builder() {
+        @Override
+        public void build() {
+          StreetVertex A = intersection("A", 47.500, 19.000);
+          StreetVertex B = intersection("B", 47.500, 19.003);
+          StreetVertex C = intersection("C", 47.500, 19.006);
+          StreetVertex D = intersection("D", 47.497, 19.000);
+          StreetVertex E = intersection("E", 47.497, 19.003);
+          StreetVertex F = intersection("F", 47.497, 19.006);
+
+          biLink(A, stop("S1", 47.4985, 19.0001));
+          biLink(B, stop("S2", 47.4985, 19.0031));
+          biLink(C, stop("S3", 47.4985, 19.0061));
+          biLink(E, stop("S4", 47.4960, 19.0031));
+
+          var all = StreetTraversalPermission.ALL;
+          street(A, B, 230, all, all);
+          street(B, C, 240, all, all);
+          street(D, E, 250, all, all);
+          street(E, F, 260, all, all);
+          street(A, D, 330, all, all);
+          street(B, E, 340, all, all);
+          street(C, F, 350, all, all);
+
+          origin = streetLocation("O", 47.500, 18.999, false);
+          link(origin, A);
+          destination = streetLocation("T", 47.497, 19.007, true);
+          link(F, destination);
+        }
+      }
+    );
+    table =
+      new StopAccessTableBuilder(
+        model.graph().getVertices(),
+        new RouteRequest(),
+        StreetMode.WALK,
+        MAX_DURATION
+      )
+        .build();
+  }
+
+  @Test
+  void accessStopsAreTheSameAsInTheStreetSearch() {
+    assertSameStops(streetSearch(origin, false, MAX_DURATION), tableSearch(origin, false));
+  }
+
+  @Test
+  void egressStopsAreTheSameAsInTheStreetSearch() {
+    assertSameStops(
+      streetSearch(destination, true, MAX_DURATION),
+      tableSearch(destination, true)
+    );
+  }
+
+  @Test
+  void stopsAreLimitedByTheDurationOfTheRequest() {
+    var limit = Duration.ofMinutes(4);
+    var expected = streetSearch(origin, false, limit);
+    var actual = new StopAccessTableFinder(table, limit)
+      .findNearbyStops(Set.of(origin), false, new RouteRequest(), new StreetRequest());
+
+    assertNotNull(actual);
+    assertEquals(2, actual.size(), actual.toString());
+    assertSameStops(expected, actual);
+  }
+
+  /**
+   * The paths to S5 and S6 diverge after A and merge again at X. The turn costs at X make the path
+   * to S5 go straight through P and the path to S6 straight through Q, so the state of X can not
+   * be shared.
+   * <pre>
+   *        P       Z - S6
+   *  O - A   X
+   *        Q       Y - S5
+   * </pre>
+   */
+  @Test
+  void pathsMergingAfterDivergingDoNotShareStates() {
+    var vertices = new HashMap<String, Vertex>();
+    var model = modelOf(
+      new Builder() {
+        @Override
+        public void build() {
+          StreetVertex A = intersection("A", 47.500, 19.000);
+          StreetVertex P = intersection("P", 47.501, 19.001);
+          StreetVertex Q = intersection("Q", 47.499, 19.001);
+          StreetVertex X = intersection("X", 47.500, 19.002);
+          StreetVertex Y = intersection("Y", 47.499, 19.003);
+          StreetVertex Z = intersection("Z", 47.501, 19.003);
+
+          biLink(Y, stop("S5", 47.4985, 19.0035));
+          biLink(Z, stop("S6", 47.5015, 19.0035));
+
+          var all = StreetTraversalPermission.ALL;
+          street(A, P, 100, all, all);
+          street(A, Q, 100, all, all);
+          street(P, X, 100, all, all);
+          street(Q, X, 100, all, all);
+          street(X, Y, 100, all, all);
+          street(X, Z, 100, all, all);
+
+          var origin = streetLocation("O", 47.500, 18.999, false);
+          link(origin, A);
+          vertices.putAll(Map.of("O", origin, "P", P, "Q", Q));
+        }
+      }
+    );
+    var table = new StopAccessTableBuilder(
+      model.graph().getVertices(),
+      new RouteRequest(),
+      StreetMode.WALK,
+      MAX_DURATION
+    )
+      .build();
+
+    var result = new StopAccessTableFinder(table, MAX_DURATION)
+      .findNearbyStops(
+        Set.of(vertices.get("O")),
+        false,
+        new RouteRequest(),
+        new StreetRequest()
+      );
+
+    assertNotNull(result);
+    assertEquals(2, result.size(), result.toString());
+    for (NearbyStop it : result) {
+      var expected = it.stop.getId().getId().equals("S5") ? "P" : "Q";
+      var other = expected.equals("P") ? "Q" : "P";
+      var visited = it.edges.stream().map(Edge::getToVertex).toList();
+      assertTrue(visited.contains(vertices.get(expected)), it.stop + ": " + visited);
+      assertFalse(visited.contains(vertices.get(other)), it.stop + ": " + visited);
+    }
+  }
+
+  @Test
+  void onlyRequestsWithTheSamePreferencesAreCompatible() {
+    var request = new RouteRequest();
+    assertTrue(table.isCompatible(request, StreetMode.WALK, MAX_DURATION));
+    assertFalse(table.isCompatible(request, StreetMode.BIKE, MAX_DURATION));
+    assertFalse(table.isCompatible(request, StreetMode.WALK, MAX_DURATION.plusMinutes(1)));
+
+    request.withPreferences(pref -> pref.withWalk(w -> w.withSpeed(0.8)));
+    assertFalse(table.isCompatible(request, StreetMode.WALK, MAX_DURATION));
+  }
+
+  private List<NearbyStop> tableSearch(Vertex vertex, boolean reverse) {
+    var result = new StopAccessTableFinder(table, MAX_DURATION)
+      .findNearbyStops(Set.of(vertex), reverse, new RouteRequest(), new StreetRequest());
+    assertNotNull(result);
+    return result;
+  }
+
+  private static List<NearbyStop> streetSearch(Vertex vertex, boolean reverse, Duration limit) {
+    return new NearbyStopFinder(null, limit, null, true)
+      .findNearbyStopsViaStreets(Set.of(vertex), reverse, new RouteRequest(), new StreetRequest());
+  }
+
+  private static void assertSameStops(
+    Collection<NearbyStop> expected,
+    Collection<NearbyStop> actual
+  ) {
+    Map<StopLocation, NearbyStop> actualByStop = actual
+      .stream()
+      .collect(Collectors.toMap(it -> it.stop, it -> it));
+
+    assertEquals(expected.size(), actual.size(), actual.toString());
+    for (NearbyStop it : expected) {
+      var other = actualByStop.get(it.stop);
+      assertNotNull(other, it.stop.toString());
+      assertEquals(it.edges, other.edges);
+      assertEquals(it.state.getElapsedTimeSeconds(), other.state.getElapsedTimeSeconds());
+      assertEquals(it.state.getWeight(), other.state.getWeight(), 0.001);
+    }
+  }
+}
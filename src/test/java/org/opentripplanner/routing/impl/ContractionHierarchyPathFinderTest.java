@@ -0,0 +1,79 @@
+package org.opentripplanner.routing.impl;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.contraction.ContractionHierarchyBuilder;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+
+class ContractionHierarchyPathFinderTest {
+
+  private static final int N = 3;
+
+  /** A grid of two-way streets */
+  private final Graph graph = new Graph();
+  private final IntersectionVertex[][] grid = new IntersectionVertex[N][N];
+  private final RouteRequest request = new RouteRequest();
+
+  ContractionHierarchyPathFinderTest() {
+    for (int i = 0; i < N; ++i) {
+      for (int j = 0; j < N; ++j) {
+        grid[i][j] = new IntersectionVertex(graph, "V" + i + j, 10.0 + j * 0.002, 59.0 + i * 0.001);
+      }
+    }
+    for (int i = 0; i < N; ++i) {
+      for (int j = 0; j < N; ++j) {
+        if (i + 1 < N) {
+          street(grid[i][j], grid[i + 1][j]);
+        }
+        if (j + 1 < N) {
+          street(grid[i][j], grid[i][j + 1]);
+        }
+      }
+    }
+    request.journey().direct().setMode(StreetMode.CAR);
+  }
+
+  @Test
+  void findPath() {
+    var subject = createPathFinder();
+
+    var path = subject.findPath(request, Set.of(grid[0][0]), Set.of(grid[N - 1][N - 1]));
+
+    assertNotNull(path);
+    assertSame(grid[0][0], path.states.getFirst().getVertex());
+    assertSame(grid[N - 1][N - 1], path.states.getLast().getVertex());
+  }
+
+  @Test
+  void edgeRemovedAfterTheHierarchyIsBuilt() {
+    var subject = createPathFinder();
+    var path = subject.findPath(request, Set.of(grid[0][0]), Set.of(grid[N - 1][N - 1]));
+    assertNotNull(path);
+
+    // The removed edge has no from and to vertex
+    graph.removeEdge(path.edges.get(1));
+
+    // The caller falls back to the A* search
+    assertNull(subject.findPath(request, Set.of(grid[0][0]), Set.of(grid[N - 1][N - 1])));
+  }
+
+  private ContractionHierarchyPathFinder createPathFinder() {
+    var hierarchy = new ContractionHierarchyBuilder(graph.getVertices(), request.preferences())
+      .build();
+    return new ContractionHierarchyPathFinder(hierarchy);
+  }
+
+  private static void street(IntersectionVertex a, IntersectionVertex b) {
+    streetEdge(a, b, 100, StreetTraversalPermission.ALL);
+    streetEdge(b, a, 100, StreetTraversalPermission.ALL);
+  }
+}
@@ -0,0 +1,81 @@
+package org.opentripplanner.routing.linking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.opentripplanner.street.model._data.StreetModelForTest.intersectionVertex;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.linearref.LinearLocation;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.search.TraverseMode;
+import org.opentripplanner.street.search.TraverseModeSet;
+
+class LinkingCacheTest {
+
+  private static final Coordinate COORDINATE = new Coordinate(10.0, 59.0);
+  private static final TraverseModeSet WALK = new TraverseModeSet(TraverseMode.WALK);
+  private static final TraverseModeSet CAR = new TraverseModeSet(TraverseMode.CAR);
+
+  private final StreetEdge edge = streetEdge(
+    intersectionVertex(59.0, 10.0),
+    intersectionVertex(59.001, 10.0)
+  );
+  private final StreetEdge otherEdge = streetEdge(
+    intersectionVertex(59.1, 10.1),
+    intersectionVertex(59.101, 10.1)
+  );
+  private final List<LinkingCache.EdgeLocation> edges = List.of(
+    new LinkingCache.EdgeLocation(edge, new LinearLocation(0, 0.5))
+  );
+
+  private final LinkingCache subject = new LinkingCache(10);
+
+  @Test
+  void getCachedEdges() {
+    subject.put(COORDINATE, WALK, LinkingDirection.OUTGOING, edges, subject.version());
+
+    assertEquals(edges, subject.get(COORDINATE, WALK, LinkingDirection.OUTGOING));
+    // Less than a meter away
+    var nearby = new Coordinate(10.000003, 59.000003);
+    assertEquals(edges, subject.get(nearby, WALK, LinkingDirection.OUTGOING));
+
+    assertNull(subject.get(new Coordinate(10.0001, 59.0), WALK, LinkingDirection.OUTGOING));
+    assertNull(subject.get(COORDINATE, CAR, LinkingDirection.OUTGOING));
+    assertNull(subject.get(COORDINATE, WALK, LinkingDirection.INCOMING));
+  }
+
+  @Test
+  void invalidate() {
+    subject.put(COORDINATE, WALK, LinkingDirection.OUTGOING, edges, subject.version());
+
+    subject.invalidate(otherEdge);
+    assertEquals(edges, subject.get(COORDINATE, WALK, LinkingDirection.OUTGOING));
+
+    subject.invalidate(edge);
+    assertNull(subject.get(COORDINATE, WALK, LinkingDirection.OUTGOING));
+  }
+
+  @Test
+  void putAfterInvalidateIsIgnored() {
+    long version = subject.version();
+    // The edge is split while the closest edges are searched for
+    subject.invalidate(edge);
+
+    subject.put(COORDINATE, WALK, LinkingDirection.OUTGOING, edges, version);
+    assertNull(subject.get(COORDINATE, WALK, LinkingDirection.OUTGOING));
+
+    subject.put(COORDINATE, WALK, LinkingDirection.OUTGOING, edges, subject.version());
+    assertEquals(edges, subject.get(COORDINATE, WALK, LinkingDirection.OUTGOING));
+  }
+
+  @Test
+  void edgeRemovedFromGraph() {
+    subject.put(COORDINATE, WALK, LinkingDirection.OUTGOING, edges, subject.version());
+
+    edge.remove();
+    assertNull(subject.get(COORDINATE, WALK, LinkingDirection.OUTGOING));
+  }
+}
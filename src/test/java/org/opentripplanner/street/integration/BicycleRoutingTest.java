@@ -1,15 +1,19 @@
 package org.opentripplanner.street.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.opentripplanner.test.support.PolylineAssert.assertThatPolylinesAreEqual;
 
 import java.time.Instant;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.locationtech.jts.geom.Geometry;
 import org.opentripplanner.ConstantsForTests;
 import org.opentripplanner.TestOtpModel;
 import org.opentripplanner._support.time.ZoneIds;
+import org.opentripplanner.astar.model.SearchQueueType;
 import org.opentripplanner.framework.geometry.EncodedPolyline;
 import org.opentripplanner.model.GenericLocation;
 import org.opentripplanner.model.plan.StreetLeg;
@@ -67,6 +71,60 @@ public class BicycleRoutingTest {
     assertThatPolylinesAreEqual(polyline2, "ccsgH{|au@?Rd@_@~BmB^]r@i@FExAqAlAeAT~@R~@");
   }
 
+  /**
+   * The heuristic of the direct street search is not consistent for bicycles, the safety factors
+   * can lower the key of a state below the last key extracted. The search must find a path with the
+   * same weight using any of the queue types, the radix heap is not used when the search has a
+   * heuristic.
+   */
+  @ParameterizedTest
+  @EnumSource(SearchQueueType.class)
+  public void directSearchWithEachQueueType(SearchQueueType searchQueueType) {
+    var mozartStr = new GenericLocation(48.59713, 8.86107);
+    var fritzLeharStr = new GenericLocation(48.59696, 8.85806);
+
+    double expected = computeWeight(
+      herrenbergGraph,
+      mozartStr,
+      fritzLeharStr,
+      SearchQueueType.BINARY_HEAP
+    );
+    double weight = computeWeight(herrenbergGraph, mozartStr, fritzLeharStr, searchQueueType);
+
+    assertEquals(expected, weight, 0.001);
+  }
+
+  private static double computeWeight(
+    Graph graph,
+    GenericLocation from,
+    GenericLocation to,
+    SearchQueueType searchQueueType
+  ) {
+    RouteRequest request = new RouteRequest();
+    request.setDateTime(dateTime);
+    request.setFrom(from);
+    request.setTo(to);
+    request.withPreferences(p ->
+      p
+        .withBike(it -> it.withOptimizeType(BicycleOptimizeType.SAFE))
+        .withStreet(it -> it.withSearchQueueType(searchQueueType))
+    );
+    request.journey().direct().setMode(StreetMode.BIKE);
+
+    try (
+      var temporaryVertices = new TemporaryVerticesContainer(
+        graph,
+        request,
+        StreetMode.BIKE,
+        StreetMode.BIKE
+      )
+    ) {
+      var paths = new GraphPathFinder(null).graphPathFinderEntryPoint(request, temporaryVertices);
+      assertFalse(paths.isEmpty());
+      return paths.get(0).getWeight();
+    }
+  }
+
   private static String computePolyline(Graph graph, GenericLocation from, GenericLocation to) {
     RouteRequest request = new RouteRequest();
     request.setDateTime(dateTime);
@@ -0,0 +1,183 @@
+package org.opentripplanner.street.model.contraction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import gnu.trove.map.hash.TIntDoubleHashMap;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.routing.api.request.preference.RoutingPreferences;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.StreetTraversalPermission;
+import org.opentripplanner.street.model.TurnRestriction;
+import org.opentripplanner.street.model.TurnRestrictionType;
+import org.opentripplanner.street.model.edge.StreetEdge;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.search.TraverseMode;
+import org.opentripplanner.street.search.TraverseModeSet;
+
+class ContractionHierarchyTest {
+
+  private static final int N = 4;
+
+  /** Without turn costs the expected costs are easy to compute */
+  private static final RoutingPreferences PREFERENCES = new RoutingPreferences()
+    .copyOf()
+    .withStreet(it -> it.withTurnReluctance(0))
+    .build();
+
+  /**
+   * A grid of two-way streets with random lengths, and one one-way street across the grid.
+   */
+  private final Graph graph = new Graph();
+  private final IntersectionVertex[][] grid = new IntersectionVertex[N][N];
+
+  ContractionHierarchyTest() {
+    var random = new Random(42);
+    for (int i = 0; i < N; ++i) {
+      for (int j = 0; j < N; ++j) {
+        grid[i][j] = new IntersectionVertex(graph, "V" + i + j, 10.0 + j * 0.002, 59.0 + i * 0.001);
+      }
+    }
+    for (int i = 0; i < N; ++i) {
+      for (int j = 0; j < N; ++j) {
+        if (i + 1 < N) {
+          street(grid[i][j], grid[i + 1][j], 100 + random.nextInt(200));
+        }
+        if (j + 1 < N) {
+          street(grid[i][j], grid[i][j + 1], 100 + random.nextInt(200));
+        }
+      }
+    }
+    streetEdge(grid[0][0], grid[N - 1][N - 1], 500, StreetTraversalPermission.ALL);
+  }
+
+  @Test
+  void shortestPathsHaveTheLowestCost() {
+    var subject = new ContractionHierarchyBuilder(graph.getVertices(), PREFERENCES).build();
+
+    for (int s = 0; s < subject.nNodes(); ++s) {
+      double[] expected = shortestCosts(subject, s);
+      for (int t = 0; t < subject.nNodes(); ++t) {
+        var path = subject.shortestPath(costs(s, subject.cost(s)), costs(t, 0));
+        if (expected[t] == Double.POSITIVE_INFINITY) {
+          assertNull(path);
+          continue;
+        }
+        assertNotNull(path, s + " -> " + t);
+        assertEquals(expected[t], path.cost(), 0.01, s + " -> " + t);
+        assertValidPath(subject, path.nodes(), s, t);
+      }
+    }
+  }
+
+  @Test
+  void turnRestrictionsAreKept() {
+    var from = edge(grid[0][0], grid[0][1]);
+    var to = edge(grid[0][1], grid[1][1]);
+    from.addTurnRestriction(
+      new TurnRestriction(
+        from,
+        to,
+        TurnRestrictionType.NO_TURN,
+        new TraverseModeSet(TraverseMode.CAR),
+        null
+      )
+    );
+    var subject = new ContractionHierarchyBuilder(graph.getVertices(), PREFERENCES).build();
+
+    int s = node(subject, from);
+    int t = node(subject, to);
+    var path = subject.shortestPath(costs(s, subject.cost(s)), costs(t, 0));
+
+    assertNotNull(path);
+    assertTrue(path.nodes().length > 2, Arrays.toString(path.nodes()));
+    assertValidPath(subject, path.nodes(), s, t);
+  }
+
+  @Test
+  void onlyCarEdgesAreIncluded() {
+    streetEdge(grid[0][0], grid[1][1], 10, StreetTraversalPermission.PEDESTRIAN);
+
+    var subject = new ContractionHierarchyBuilder(graph.getVertices(), PREFERENCES).build();
+
+    // Two edges for each street of the grid, and the one-way street
+    assertEquals(4 * N * (N - 1) + 1, subject.nNodes());
+    assertTrue(subject.contains(grid[0][0]));
+    assertTrue(subject.isCompatible(PREFERENCES));
+    assertFalse(subject.isCompatible(new RoutingPreferences()));
+  }
+
+  private static void street(IntersectionVertex a, IntersectionVertex b, double length) {
+    streetEdge(a, b, length, StreetTraversalPermission.ALL);
+    streetEdge(b, a, length, StreetTraversalPermission.ALL);
+  }
+
+  private static StreetEdge edge(IntersectionVertex from, IntersectionVertex to) {
+    return from
+      .getOutgoingStreetEdges()
+      .stream()
+      .filter(it -> it.getToVertex() == to)
+      .findFirst()
+      .orElseThrow();
+  }
+
+  private static int node(ContractionHierarchy hierarchy, StreetEdge edge) {
+    for (int n = 0; n < hierarchy.nNodes(); ++n) {
+      if (hierarchy.edge(n) == edge) {
+        return n;
+      }
+    }
+    throw new IllegalArgumentException(edge.toString());
+  }
+
+  private static TIntDoubleHashMap costs(int node, double cost) {
+    var costs = new TIntDoubleHashMap();
+    costs.put(node, cost);
+    return costs;
+  }
+
+  private static void assertValidPath(ContractionHierarchy hierarchy, int[] nodes, int s, int t) {
+    assertEquals(s, nodes[0]);
+    assertEquals(t, nodes[nodes.length - 1]);
+    for (int i = 1; i < nodes.length; ++i) {
+      var from = hierarchy.edge(nodes[i - 1]);
+      var to = hierarchy.edge(nodes[i]);
+      assertSame(from.getToVertex(), to.getFromVertex());
+      assertTrue(canTurn(from, to), from + " -> " + to);
+    }
+  }
+
+  private static boolean canTurn(StreetEdge from, StreetEdge to) {
+    return (
+      !from.isReverseOf(to) &&
+      from.getTurnRestrictions().stream().noneMatch(it -> it.to == to)
+    );
+  }
+
+  /** Bellman-Ford on the street edges, the graph is small */
+  private static double[] shortestCosts(ContractionHierarchy hierarchy, int source) {
+    int n = hierarchy.nNodes();
+    double[] cost = new double[n];
+    Arrays.fill(cost, Double.POSITIVE_INFINITY);
+    cost[source] = hierarchy.cost(source);
+    for (int round = 0; round < n; ++round) {
+      for (int a = 0; a < n; ++a) {
+        for (int b = 0; b < n; ++b) {
+          var from = hierarchy.edge(a);
+          var to = hierarchy.edge(b);
+          if (from.getToVertex() == to.getFromVertex() && canTurn(from, to)) {
+            cost[b] = Math.min(cost[b], cost[a] + hierarchy.cost(b));
+          }
+        }
+      }
+    }
+    return cost;
+  }
+}
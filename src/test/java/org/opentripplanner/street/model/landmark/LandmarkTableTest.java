@@ -0,0 +1,95 @@
+package org.opentripplanner.street.model.landmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.opentripplanner.street.model._data.StreetModelForTest.streetEdge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.framework.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.street.model.edge.Edge;
+import org.opentripplanner.street.model.vertex.IntersectionVertex;
+import org.opentripplanner.street.model.vertex.StreetVertex;
+import org.opentripplanner.street.model.vertex.Vertex;
+
+class LandmarkTableTest {
+
+  private static final int N = 10;
+
+  /**
+   * Two streets along each bank of a river, with a bridge at the east end.
+   */
+  private final Graph graph = new Graph();
+  private final List<StreetVertex> north = new ArrayList<>();
+  private final List<StreetVertex> south = new ArrayList<>();
+  private final LandmarkTable subject;
+
+  LandmarkTableTest() {
+    for (int i = 0; i < N; ++i) {
+      north.add(new IntersectionVertex(graph, "N" + i, 10.0 + i * 0.002, 59.001));
+      south.add(new IntersectionVertex(graph, "S" + i, 10.0 + i * 0.002, 59.0));
+    }
+    for (int i = 1; i < N; ++i) {
+      streetEdge(north.get(i - 1), north.get(i));
+      streetEdge(north.get(i), north.get(i - 1));
+      // One-way street
+      streetEdge(south.get(i - 1), south.get(i));
+    }
+    streetEdge(north.get(N - 1), south.get(N - 1));
+    streetEdge(south.get(N - 1), north.get(N - 1));
+
+    subject = new LandmarkTableBuilder(graph.getVertices()).build(3);
+  }
+
+  @Test
+  void lowerBoundIsNotLongerThanTheShortestPath() {
+    var vertices = new ArrayList<Vertex>(graph.getVertices());
+    for (Vertex from : vertices) {
+      double[] distance = shortestDistances(from, vertices);
+      for (int i = 0; i < vertices.size(); ++i) {
+        double bound = subject.lowerBound(from.getIndex(), vertices.get(i).getIndex());
+        assertTrue(bound <= distance[i], from + " -> " + vertices.get(i));
+      }
+    }
+  }
+
+  @Test
+  void lowerBoundAcrossTheRiver() {
+    var from = south.get(0);
+    var to = north.get(0);
+    var straightLine = SphericalDistanceLibrary.distance(from.getCoordinate(), to.getCoordinate());
+
+    double bound = subject.lowerBound(from.getIndex(), to.getIndex());
+
+    assertTrue(bound > 10 * straightLine, "bound: " + bound);
+  }
+
+  @Test
+  void contains() {
+    assertEquals(3, subject.nLandmarks());
+    assertTrue(subject.contains(north.get(0).getIndex()));
+    assertFalse(subject.contains(Vertex.NOT_INDEXED));
+    assertFalse(subject.contains(Vertex.indexCounter()));
+  }
+
+  /** Bellman-Ford, the graph is small */
+  private static double[] shortestDistances(Vertex from, List<Vertex> vertices) {
+    double[] distance = new double[vertices.size()];
+    Arrays.fill(distance, Double.POSITIVE_INFINITY);
+    distance[vertices.indexOf(from)] = 0;
+    for (int round = 0; round < vertices.size(); ++round) {
+      for (Vertex v : vertices) {
+        for (Edge e : v.getOutgoing()) {
+          int i = vertices.indexOf(e.getFromVertex());
+          int j = vertices.indexOf(e.getToVertex());
+          distance[j] = Math.min(distance[j], distance[i] + e.getDistanceMeters());
+        }
+      }
+    }
+    return distance;
+  }
+}
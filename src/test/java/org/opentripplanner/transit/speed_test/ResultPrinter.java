@@ -122,6 +122,40 @@ class ResultPrinter {
     }
   }
 
+  /**
+   * Compare the average time of each Connection Scan profile with the same profile without the
+   * connection scan. The baseline profile must be part of the test run to be compared.
+   */
+  static void printConnectionScanComparison(
+    String header,
+    SpeedTestProfile[] profiles,
+    Map<SpeedTestProfile, List<Integer>> result
+  ) {
+    boolean headerPrinted = false;
+    for (SpeedTestProfile p : profiles) {
+      var baseline = p.connectionScanBaseline();
+      if (baseline == null || result.get(p) == null || result.get(baseline) == null) {
+        continue;
+      }
+      if (!headerPrinted) {
+        System.err.println();
+        System.err.println(header);
+        headerPrinted = true;
+      }
+      double avg = result.get(p).stream().mapToInt(it -> it).average().orElse(0d);
+      double avgBaseline = result.get(baseline).stream().mapToInt(it -> it).average().orElse(0d);
+
+      System.err.printf(
+        " ==> %-32s vs %-28s : %6.1f ms / %6.1f ms = %5.2f%n",
+        p.name(),
+        baseline.name(),
+        avg,
+        avgBaseline,
+        avgBaseline == 0d ? 0d : avg / avgBaseline
+      );
+    }
+  }
+
   private static void printResult(
     String status,
     TestCase tc,
@@ -0,0 +1,135 @@
+package org.opentripplanner.transit.speed_test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.framework.geometry.GeometryUtils;
+import org.opentripplanner.framework.geometry.HashGridSpatialIndex;
+import org.opentripplanner.framework.geometry.PackedGridSpatialIndex;
+import org.opentripplanner.framework.geometry.SphericalDistanceLibrary;
+
+/**
+ * Compare the {@link HashGridSpatialIndex} and the {@link PackedGridSpatialIndex} on the query
+ * used to link a coordinate to the street network: find the nearest street segment within 100
+ * meters of a random point. The street network is a synthetic network of random short segments.
+ * The time to build each index and the average time per query is reported.
+ * <p>
+ * Run it with (the arguments are the number of segments and the number of queries):
+ * <pre>
+ * mvn compiler:testCompile exec:java -Dexec.mainClass="org.opentripplanner.transit.speed_test.SpatialIndexSpeedTest" -Dexec.classpathScope=test -Dexec.args="2000000 200000"
+ * </pre>
+ */
+public class SpatialIndexSpeedTest {
+
+  private static final double X0 = 10.0;
+  private static final double Y0 = 59.5;
+  private static final double SIZE_DEG = 1.0;
+  private static final double MAX_SEGMENT_DEG = 0.002;
+  private static final double SEARCH_RADIUS_DEG = SphericalDistanceLibrary.metersToDegrees(100);
+  private static final int ROUNDS = 5;
+
+  private final Random random = new Random(42);
+  private final List<LineString> segments = new ArrayList<>();
+  private final List<Coordinate> queryPoints = new ArrayList<>();
+
+  private SpatialIndexSpeedTest(int numberOfSegments, int numberOfQueries) {
+    for (int i = 0; i < numberOfSegments; ++i) {
+      double x = X0 + random.nextDouble() * SIZE_DEG;
+      double y = Y0 + random.nextDouble() * SIZE_DEG;
+      segments.add(
+        GeometryUtils.makeLineString(
+          x,
+          y,
+          x + (random.nextDouble() - 0.5) * MAX_SEGMENT_DEG,
+          y + (random.nextDouble() - 0.5) * MAX_SEGMENT_DEG
+        )
+      );
+    }
+    for (int i = 0; i < numberOfQueries; ++i) {
+      queryPoints.add(
+        new Coordinate(X0 + random.nextDouble() * SIZE_DEG, Y0 + random.nextDouble() * SIZE_DEG)
+      );
+    }
+  }
+
+  public static void main(String[] args) {
+    int numberOfSegments = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    int numberOfQueries = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+    new SpatialIndexSpeedTest(numberOfSegments, numberOfQueries).runTest();
+  }
+
+  private void runTest() {
+    System.out.printf("%n%-10s %12s %16s %12s%n", "Index", "Build (ms)", "Query (µs)", "Found");
+
+    for (int round = 0; round < ROUNDS; ++round) {
+      long start = System.nanoTime();
+      var hashGrid = new HashGridSpatialIndex<LineString>();
+      for (LineString it : segments) {
+        hashGrid.insert(it, it);
+      }
+      hashGrid.compact();
+      report("HashGrid", System.nanoTime() - start, hashGrid::query);
+
+      start = System.nanoTime();
+      var packed = PackedGridSpatialIndex.ofLineStrings(segments, it -> it);
+      report("Packed", System.nanoTime() - start, packed::query);
+    }
+  }
+
+  private void report(String name, long buildNanos, Function<Envelope, List<LineString>> index) {
+    int found = 0;
+    long start = System.nanoTime();
+    for (Coordinate p : queryPoints) {
+      if (nearest(p, index) != null) {
+        ++found;
+      }
+    }
+    long queryNanos = System.nanoTime() - start;
+
+    System.out.printf(
+      "%-10s %12d %16.2f %12d%n",
+      name,
+      buildNanos / 1_000_000,
+      queryNanos / (1000.0 * queryPoints.size()),
+      found
+    );
+  }
+
+  /**
+   * Find the nearest segment within the search radius, like the vertex linker does.
+   */
+  private static LineString nearest(Coordinate p, Function<Envelope, List<LineString>> index) {
+    double xscale = Math.cos(p.y * Math.PI / 180);
+    var env = new Envelope(p);
+    env.expandBy(SEARCH_RADIUS_DEG / xscale, SEARCH_RADIUS_DEG);
+
+    LineString best = null;
+    double bestDistance = SEARCH_RADIUS_DEG;
+    for (LineString it : index.apply(env)) {
+      double d = distance(p, it, xscale);
+      if (d < bestDistance) {
+        bestDistance = d;
+        best = it;
+      }
+    }
+    return best;
+  }
+
+  /** The distance from the point to the segment in degrees latitude, in a local projection */
+  private static double distance(Coordinate p, LineString segment, double xscale) {
+    var a = segment.getCoordinateN(0);
+    var b = segment.getCoordinateN(1);
+    double ax = (a.x - p.x) * xscale, ay = a.y - p.y;
+    double bx = (b.x - p.x) * xscale, by = b.y - p.y;
+    double dx = bx - ax, dy = by - ay;
+    double len2 = dx * dx + dy * dy;
+    double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+    double x = ax + t * dx, y = ay + t * dy;
+    return Math.sqrt(x * x + y * y);
+  }
+}
@@ -254,7 +254,7 @@ public class SpeedTest {
     ConfigModel.initializeOtpFeatures(new OtpConfigLoader(opts.rootDir()).loadOtpConfig());
   }
 
-  private static LoadModel loadGraph(File baseDir, URI path) {
+  static LoadModel loadGraph(File baseDir, URI path) {
     File file = path == null
       ? OtpDataStore.graphFile(baseDir)
       : path.isAbsolute() ? new File(path) : new File(baseDir, path.getPath());
@@ -301,6 +301,16 @@ public class SpeedTest {
   private void printProfileStatistics() {
     ResultPrinter.printProfileResults("Worker: ", opts.profiles(), workerResults);
     ResultPrinter.printProfileResults("Total:  ", opts.profiles(), totalResults);
+    ResultPrinter.printConnectionScanComparison(
+      "Connection Scan vs Range Raptor (worker avg): ",
+      opts.profiles(),
+      workerResults
+    );
+    ResultPrinter.printConnectionScanComparison(
+      "Connection Scan vs Range Raptor (total avg): ",
+      opts.profiles(),
+      totalResults
+    );
   }
 
   /**
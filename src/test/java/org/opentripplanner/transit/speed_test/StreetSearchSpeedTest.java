@@ -0,0 +1,330 @@
+package org.opentripplanner.transit.speed_test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.opentripplanner.astar.model.SearchQueueType;
+import org.opentripplanner.astar.model.ShortestPathTreeStorage;
+import org.opentripplanner.astar.strategy.DurationSkipEdgeStrategy;
+import org.opentripplanner.framework.application.OtpAppException;
+import org.opentripplanner.routing.api.request.RouteRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.request.StreetRequest;
+import org.opentripplanner.routing.error.RoutingValidationException;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.impl.ContractionHierarchyPathFinder;
+import org.opentripplanner.standalone.OtpStartupInfo;
+import org.opentripplanner.standalone.config.ConfigModel;
+import org.opentripplanner.standalone.config.OtpConfigLoader;
+import org.opentripplanner.street.model.contraction.ContractionHierarchyBuilder;
+import org.opentripplanner.street.model.landmark.LandmarkTable;
+import org.opentripplanner.street.model.landmark.LandmarkTableBuilder;
+import org.opentripplanner.street.search.StreetSearchBuilder;
+import org.opentripplanner.street.search.TemporaryVerticesContainer;
+import org.opentripplanner.street.search.strategy.DominanceFunctions;
+import org.opentripplanner.street.search.strategy.EuclideanRemainingWeightHeuristic;
+import org.opentripplanner.street.search.strategy.LandmarkRemainingWeightHeuristic;
+import org.opentripplanner.transit.speed_test.model.testcase.CsvFileSupport;
+import org.opentripplanner.transit.speed_test.model.testcase.TestCaseDefinition;
+import org.opentripplanner.transit.speed_test.options.SpeedTestCmdLineOpts;
+import org.opentripplanner.transit.speed_test.options.SpeedTestConfig;
+
+/**
+ * Measure the performance of the A* street search with different search setups, all combinations
+ * of {@link ShortestPathTreeStorage}, {@link SearchQueueType} and remaining weight heuristic
+ * (straight line or landmarks) are tested. The origin and destination of each SpeedTest test-case is
+ * linked to the street graph and routed with a direct street search (same setup as the
+ * {@link org.opentripplanner.routing.impl.GraphPathFinder}) for each street mode. Linking is not
+ * part of the measured time.
+ * <p>
+ * The car searches are also run with the car contraction hierarchy. The hierarchy is built with
+ * the request preferences of the speed test config, if the graph does not have a compatible one.
+ * The {@link LandmarkTable} of the graph is used by the landmark setups, a table with
+ * {@link #DEFAULT_LANDMARKS} landmarks is built if the graph does not have one.
+ * <p>
+ * The test uses the same input files as the {@link SpeedTest}, run it with:
+ * <pre>
+ * mvn compiler:testCompile exec:java -Dexec.mainClass="org.opentripplanner.transit.speed_test.StreetSearchSpeedTest" -Dexec.classpathScope=test -Dexec.args="--dir=test/performance/norway -n 5"
+ * </pre>
+ */
+public class StreetSearchSpeedTest {
+
+  private static final String TRAVEL_SEARCH_FILENAME = "travelSearch";
+  private static final int DEFAULT_LANDMARKS = 16;
+  private static final List<StreetMode> MODES = List.of(
+    StreetMode.WALK,
+    StreetMode.BIKE,
+    StreetMode.CAR
+  );
+
+  private final Graph graph;
+  private final SpeedTestCmdLineOpts opts;
+  private final SpeedTestConfig config;
+  private final List<TestCaseDefinition> testCases;
+  private final List<Setup> setups;
+  private final ContractionHierarchyPathFinder contractionHierarchy;
+
+  private final com.sun.management.ThreadMXBean threadBean =
+    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  public StreetSearchSpeedTest(SpeedTestCmdLineOpts opts, SpeedTestConfig config, Graph graph) {
+    this.opts = opts;
+    this.config = config;
+    this.graph = graph;
+    this.testCases = readTestCases(opts, config);
+    this.setups = createSetups(createLandmarks(graph));
+    this.contractionHierarchy = createContractionHierarchy(graph, config.request);
+  }
+
+  public static void main(String[] args) {
+    try {
+      OtpStartupInfo.logInfo();
+      var opts = new SpeedTestCmdLineOpts(args);
+      var config = SpeedTestConfig.config(opts.rootDir());
+      ConfigModel.initializeOtpFeatures(new OtpConfigLoader(opts.rootDir()).loadOtpConfig());
+      var model = SpeedTest.loadGraph(opts.rootDir(), config.graph);
+
+      new StreetSearchSpeedTest(opts, config, model.graph()).runTest();
+    } catch (OtpAppException ae) {
+      System.err.println(ae.getMessage());
+      System.exit(1);
+    } catch (Exception e) {
+      System.err.println(e.getMessage());
+      e.printStackTrace(System.err);
+      System.exit(1);
+    }
+  }
+
+  public void runTest() {
+    // The first sample is used to warm up the JIT compiler, the result is not reported
+    runSample(new ArrayList<>());
+
+    final int nSamples = opts.numberOfTestsSamplesToRun();
+    System.err.println("Run Street Search Speed Test [" + nSamples + " samples]");
+
+    for (int i = 1; i <= nSamples; ++i) {
+      var results = new ArrayList<Result>();
+      runSample(results);
+      System.err.println("\nSample " + i + "/" + nSamples);
+      results.forEach(it -> System.err.println(it.toString()));
+    }
+  }
+
+  private void runSample(List<Result> results) {
+    for (StreetMode mode : MODES) {
+      int firstResult = results.size();
+      for (Setup setup : setups) {
+        results.add(new Result(setup.name(), mode));
+      }
+      var hierarchyResult = new Result("ContractionHierarchy", mode);
+      if (mode == StreetMode.CAR) {
+        results.add(hierarchyResult);
+      }
+      for (TestCaseDefinition tc : testCases) {
+        var request = createRequest(tc, mode);
+        try (var vertices = new TemporaryVerticesContainer(graph, request, mode, mode)) {
+          for (int i = 0; i < setups.size(); ++i) {
+            runSearch(setups.get(i), request, vertices, mode, results.get(firstResult + i));
+          }
+          if (mode == StreetMode.CAR) {
+            runContractionHierarchySearch(request, vertices, hierarchyResult);
+          }
+        } catch (RoutingValidationException e) {
+          // The origin or destination could not be linked for this mode, skip it
+        }
+      }
+    }
+  }
+
+  private void runSearch(
+    Setup setup,
+    RouteRequest request,
+    TemporaryVerticesContainer vertices,
+    StreetMode mode,
+    Result result
+  ) {
+    var builder = StreetSearchBuilder
+      .of()
+      .setHeuristic(new EuclideanRemainingWeightHeuristic())
+      .setSkipEdgeStrategy(
+        new DurationSkipEdgeStrategy(
+          request.preferences().street().maxDirectDuration().valueOf(mode)
+        )
+      )
+      .setDominanceFunction(new DominanceFunctions.MinimumWeight())
+      .setRequest(request)
+      .setStreetRequest(new StreetRequest(mode))
+      .setVerticesContainer(vertices);
+
+    setup.body().accept(builder);
+
+    long threadId = Thread.currentThread().getId();
+    long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+    long startTime = System.nanoTime();
+
+    List<?> paths;
+    try {
+      paths = builder.getPathsToTarget();
+    } catch (IllegalArgumentException e) {
+      // The radix heap fails if the heuristic is not consistent
+      result.addFailed();
+      return;
+    }
+
+    result.add(
+      System.nanoTime() - startTime,
+      threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes,
+      !paths.isEmpty()
+    );
+  }
+
+  /**
+   * Find the path in the contraction hierarchy, without falling back to the A* search. A path not
+   * found in the hierarchy is reported as not found.
+   */
+  private void runContractionHierarchySearch(
+    RouteRequest request,
+    TemporaryVerticesContainer vertices,
+    Result result
+  ) {
+    long threadId = Thread.currentThread().getId();
+    long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+    long startTime = System.nanoTime();
+
+    var path = contractionHierarchy.findPath(
+      request,
+      vertices.getFromVertices(),
+      vertices.getToVertices()
+    );
+
+    result.add(
+      System.nanoTime() - startTime,
+      threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes,
+      path != null
+    );
+  }
+
+  private static ContractionHierarchyPathFinder createContractionHierarchy(
+    Graph graph,
+    RouteRequest request
+  ) {
+    var hierarchy = graph.getCarContractionHierarchy();
+    if (hierarchy == null || !hierarchy.isCompatible(request.preferences())) {
+      long startTime = System.nanoTime();
+      hierarchy =
+        new ContractionHierarchyBuilder(graph.getVertices(), request.preferences()).build();
+      System.err.printf(
+        "Built the car contraction hierarchy in %d ms: %s%n",
+        (System.nanoTime() - startTime) / 1_000_000,
+        hierarchy
+      );
+    }
+    return new ContractionHierarchyPathFinder(hierarchy);
+  }
+
+  private static LandmarkTable createLandmarks(Graph graph) {
+    var landmarks = graph.getStreetLandmarks();
+    if (landmarks == null) {
+      long startTime = System.nanoTime();
+      landmarks = new LandmarkTableBuilder(graph.getVertices()).build(DEFAULT_LANDMARKS);
+      System.err.printf(
+        "Built the street landmark table in %d ms: %s%n",
+        (System.nanoTime() - startTime) / 1_000_000,
+        landmarks
+      );
+    }
+    return landmarks;
+  }
+
+  private RouteRequest createRequest(TestCaseDefinition tc, StreetMode mode) {
+    var request = config.request.clone();
+    request.setFrom(tc.fromPlace());
+    request.setTo(tc.toPlace());
+    request.journey().direct().setMode(mode);
+    return request;
+  }
+
+  private static List<TestCaseDefinition> readTestCases(
+    SpeedTestCmdLineOpts opts,
+    SpeedTestConfig config
+  ) {
+    var ids = opts.testCaseIds();
+    return new CsvFileSupport(opts.rootDir(), TRAVEL_SEARCH_FILENAME, config.feedId, false)
+      .readTestCaseDefinitions()
+      .stream()
+      .filter(tc -> ids.isEmpty() || ids.contains(tc.id()))
+      .toList();
+  }
+
+  private static List<Setup> createSetups(LandmarkTable landmarks) {
+    var list = new ArrayList<Setup>();
+    for (var storage : ShortestPathTreeStorage.values()) {
+      for (var queueType : SearchQueueType.values()) {
+        list.add(
+          new Setup(
+            storage + " / " + queueType,
+            it -> it.setShortestPathTreeStorage(storage).setSearchQueueType(queueType)
+          )
+        );
+        list.add(
+          new Setup(
+            storage + " / " + queueType + " / ALT",
+            it ->
+              it
+                .setShortestPathTreeStorage(storage)
+                .setSearchQueueType(queueType)
+                .setHeuristic(new LandmarkRemainingWeightHeuristic(landmarks))
+          )
+        );
+      }
+    }
+    return list;
+  }
+
+  /** A named configuration of the street search to measure. */
+  private record Setup(String name, Consumer<StreetSearchBuilder> body) {}
+
+  private static class Result {
+
+    private final String setup;
+    private final StreetMode mode;
+    private int nSearches = 0;
+    private int nPathsFound = 0;
+    private int nFailed = 0;
+    private long totalTimeNanos = 0;
+    private long totalAllocatedBytes = 0;
+
+    private Result(String setup, StreetMode mode) {
+      this.setup = setup;
+      this.mode = mode;
+    }
+
+    void add(long timeNanos, long allocatedBytes, boolean pathFound) {
+      ++nSearches;
+      if (pathFound) {
+        ++nPathsFound;
+      }
+      totalTimeNanos += timeNanos;
+      totalAllocatedBytes += allocatedBytes;
+    }
+
+    void addFailed() {
+      ++nFailed;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+        "%-36s %-5s  searches: %4d  found: %4d  failed: %4d  avg time: %8.2f ms  avg alloc: %10.1f kB",
+        setup,
+        mode,
+        nSearches,
+        nPathsFound,
+        nFailed,
+        nSearches == 0 ? 0.0 : totalTimeNanos / (nSearches * 1_000_000.0),
+        nSearches == 0 ? 0.0 : totalAllocatedBytes / (nSearches * 1024.0)
+      );
+    }
+  }
+}
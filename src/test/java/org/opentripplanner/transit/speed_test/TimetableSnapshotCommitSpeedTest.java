@@ -0,0 +1,123 @@
+package org.opentripplanner.transit.speed_test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.TimetableSnapshot;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.site.RegularStop;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+/**
+ * Measure how the latency of {@link TimetableSnapshot#commit()} develops as realtime updates
+ * accumulate in the snapshot buffer. A synthetic network of trip patterns is updated with a fixed
+ * number of trip updates between each commit, every update is for a new pattern and service date,
+ * so the amount of data in the snapshot grows steadily. The average commit time is reported for
+ * each block of commits. With structural sharing the commit time should stay flat, not grow with
+ * the accumulated volume.
+ * <p>
+ * Run it with (the arguments are number of patterns, updates per commit and number of commits):
+ * <pre>
+ * mvn compiler:testCompile exec:java -Dexec.mainClass="org.opentripplanner.transit.speed_test.TimetableSnapshotCommitSpeedTest" -Dexec.classpathScope=test -Dexec.args="50000 10 20000"
+ * </pre>
+ */
+public class TimetableSnapshotCommitSpeedTest {
+
+  private static final int NUMBER_OF_STOPS = 5_000;
+  private static final int STOPS_PER_PATTERN = 10;
+  private static final int NUMBER_OF_SERVICE_DATES = 7;
+  private static final int COMMITS_PER_BLOCK = 1_000;
+  private static final LocalDate FIRST_SERVICE_DATE = LocalDate.of(2023, 1, 1);
+
+  private final Random random = new Random(42);
+  private final int updatesPerCommit;
+  private final int numberOfCommits;
+  private final List<TripPattern> patterns = new ArrayList<>();
+  private final List<TripTimes> tripTimes = new ArrayList<>();
+
+  private TimetableSnapshotCommitSpeedTest(
+    int numberOfPatterns,
+    int updatesPerCommit,
+    int numberOfCommits
+  ) {
+    this.updatesPerCommit = updatesPerCommit;
+    this.numberOfCommits = numberOfCommits;
+    createNetwork(numberOfPatterns);
+  }
+
+  public static void main(String[] args) {
+    int numberOfPatterns = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+    int updatesPerCommit = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int numberOfCommits = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+    new TimetableSnapshotCommitSpeedTest(numberOfPatterns, updatesPerCommit, numberOfCommits)
+      .runTest();
+  }
+
+  private void runTest() {
+    var buffer = new TimetableSnapshot();
+    int accumulatedUpdates = 0;
+    long blockNanos = 0;
+
+    System.out.printf("%n%12s %16s %16s%n", "Commits", "Accumulated", "Avg commit (µs)");
+
+    for (int commit = 1; commit <= numberOfCommits; ++commit) {
+      for (int i = 0; i < updatesPerCommit; ++i) {
+        int index = accumulatedUpdates % patterns.size();
+        int day = (accumulatedUpdates / patterns.size()) % NUMBER_OF_SERVICE_DATES;
+        buffer.update(patterns.get(index), tripTimes.get(index), FIRST_SERVICE_DATE.plusDays(day));
+        ++accumulatedUpdates;
+      }
+
+      long start = System.nanoTime();
+      buffer.commit();
+      blockNanos += System.nanoTime() - start;
+
+      if (commit % COMMITS_PER_BLOCK == 0) {
+        System.out.printf(
+          "%12d %16d %16.1f%n",
+          commit,
+          accumulatedUpdates,
+          blockNanos / (1000.0 * COMMITS_PER_BLOCK)
+        );
+        blockNanos = 0;
+      }
+    }
+  }
+
+  private void createNetwork(int numberOfPatterns) {
+    var stops = new ArrayList<RegularStop>();
+    for (int i = 0; i < NUMBER_OF_STOPS; ++i) {
+      stops.add(TransitModelForTest.stopForTest("S" + i, 60.0, 10.0));
+    }
+    var route = TransitModelForTest.route("R1").build();
+    var deduplicator = new Deduplicator();
+
+    for (int i = 0; i < numberOfPatterns; ++i) {
+      var patternStops = new RegularStop[STOPS_PER_PATTERN];
+      for (int s = 0; s < STOPS_PER_PATTERN; ++s) {
+        patternStops[s] = stops.get(random.nextInt(NUMBER_OF_STOPS));
+      }
+      var pattern = TransitModelForTest
+        .tripPattern("P" + i, route)
+        .withStopPattern(TransitModelForTest.stopPattern(patternStops))
+        // Every 10th pattern is added by realtime updates, these are indexed by stop as well
+        .withCreatedByRealtimeUpdater(i % 10 == 0)
+        .build();
+
+      var trip = TransitModelForTest.trip("T" + i).build();
+      var stopTimes = new ArrayList<StopTime>();
+      for (int s = 0; s < STOPS_PER_PATTERN; ++s) {
+        stopTimes.add(TransitModelForTest.stopTime(trip, s, patternStops[s]));
+        stopTimes.get(s).setArrivalTime(3600 + 120 * s);
+        stopTimes.get(s).setDepartureTime(3600 + 120 * s);
+      }
+      patterns.add(pattern);
+      tripTimes.add(new TripTimes(trip, stopTimes, deduplicator));
+    }
+  }
+}
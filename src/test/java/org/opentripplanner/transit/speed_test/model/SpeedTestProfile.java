@@ -2,7 +2,9 @@ package org.opentripplanner.transit.speed_test.model;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.opentripplanner.raptor.api.model.SearchDirection;
 import org.opentripplanner.raptor.api.request.Optimization;
 import org.opentripplanner.raptor.api.request.RaptorProfile;
@@ -20,6 +22,12 @@ public enum SpeedTestProfile {
     RaptorProfile.STANDARD,
     SearchDirection.REVERSE
   ),
+  trip_based(
+    "tb",
+    "Trip-Based routing, same paths as Standard Range Raptor [ transfers, arrival time ].",
+    RaptorProfile.TRIP_BASED,
+    SearchDirection.FORWARD
+  ),
   best_time(
     "bt",
     "Best Time Range Raptor, super fast. Arrival times only, no path.",
@@ -44,6 +52,20 @@ public enum SpeedTestProfile {
     RaptorProfile.MIN_TRAVEL_DURATION,
     SearchDirection.REVERSE
   ),
+  min_travel_duration_csa(
+    "bdc",
+    "Minimum(Best) Duration using the Connection Scan Algorithm.",
+    RaptorProfile.MIN_TRAVEL_DURATION,
+    SearchDirection.FORWARD,
+    Optimization.CONNECTION_SCAN
+  ),
+  min_travel_duration_reverse_csa(
+    "bdrc",
+    "Minimum(Best) Duration Reverse using the Connection Scan Algorithm.",
+    RaptorProfile.MIN_TRAVEL_DURATION,
+    SearchDirection.REVERSE,
+    Optimization.CONNECTION_SCAN
+  ),
   multi_criteria(
     "mc",
     "Multi-Criteria Range Raptor [ transfers, arrival time, travel time, cost ].",
@@ -56,6 +78,14 @@ public enum SpeedTestProfile {
     RaptorProfile.MULTI_CRITERIA,
     SearchDirection.FORWARD,
     Optimization.PARETO_CHECK_AGAINST_DESTINATION
+  ),
+  multi_criteria_destination_csa(
+    "mdc",
+    "Multi-Criteria Range Raptor with destination pruning, the heuristics use Connection Scan.",
+    RaptorProfile.MULTI_CRITERIA,
+    SearchDirection.FORWARD,
+    Optimization.PARETO_CHECK_AGAINST_DESTINATION,
+    Optimization.CONNECTION_SCAN
   );
 
   final String shortName;
@@ -105,6 +135,33 @@ public enum SpeedTestProfile {
     return optimizations;
   }
 
+  /**
+   * The profile to compare the performance of the Connection Scan Algorithm with: The profile with
+   * the same Raptor profile, search direction and optimizations, except the connection scan.
+   * Return {@code null} if this profile does not use the connection scan.
+   */
+  @Nullable
+  public SpeedTestProfile connectionScanBaseline() {
+    if (!optimizations.contains(Optimization.CONNECTION_SCAN)) {
+      return null;
+    }
+    var baseline = optimizations
+      .stream()
+      .filter(it -> !it.is(Optimization.CONNECTION_SCAN))
+      .collect(Collectors.toSet());
+
+    for (SpeedTestProfile it : values()) {
+      if (
+        it.raptorProfile == raptorProfile &&
+        it.direction == direction &&
+        Set.copyOf(it.optimizations).equals(baseline)
+      ) {
+        return it;
+      }
+    }
+    return null;
+  }
+
   /* private methods */
 
   private static SpeedTestProfile parseOne(String value) {
@@ -23,7 +23,13 @@ import com.google.transit.realtime.GtfsRealtime.TripUpdate;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeEvent;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
 import de.mfdz.MfdzRealtimeExtensions.StopTimePropertiesExtension.DropOffPickupType;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
@@ -131,6 +137,40 @@ public class TimetableSnapshotSourceTest {
     assertNotSame(snapshot, newSnapshot);
   }
 
+  @Test
+  public void testFlushBufferCommitsPendingUpdates() throws InvalidProtocolBufferException {
+    var clock = new TestClock();
+    var updater = new TimetableSnapshotSource(
+      TimetableSnapshotSourceParameters.DEFAULT.withMaxSnapshotFrequencyMs(100),
+      transitModel,
+      () -> SERVICE_DATE,
+      clock
+    );
+    var updates = List.of(TripUpdate.parseFrom(cancellation));
+
+    updater.applyTripUpdates(TRIP_MATCHER_NOOP, REQUIRED_NO_DATA, fullDataset, updates, feedId);
+    final TimetableSnapshot snapshot = updater.getTimetableSnapshot();
+    assertNotNull(snapshot);
+
+    // This is normally not committed, since it is applied within the max snapshot frequency
+    updater.applyTripUpdates(TRIP_MATCHER_NOOP, REQUIRED_NO_DATA, fullDataset, updates, feedId);
+
+    // Not committed before the max snapshot frequency has passed
+    clock.advance(Duration.ofMillis(99));
+    updater.flushBuffer();
+    assertSame(snapshot, updater.getTimetableSnapshot());
+
+    clock.advance(Duration.ofMillis(1));
+    updater.flushBuffer();
+    final TimetableSnapshot newSnapshot = updater.getTimetableSnapshot();
+    assertNotSame(snapshot, newSnapshot);
+
+    // Nothing more to commit
+    clock.advance(Duration.ofMillis(100));
+    updater.flushBuffer();
+    assertSame(newSnapshot, updater.getTimetableSnapshot());
+  }
+
   @Test
   public void testHandleCanceledTrip() throws InvalidProtocolBufferException {
     final FeedScopedId tripId = new FeedScopedId(feedId, "1.1");
@@ -851,6 +891,120 @@ public class TimetableSnapshotSourceTest {
     }
   }
 
+  /**
+   * Batches with many updates are prepared in parallel, but must give the same result as applying
+   * the updates one by one in the order of the batch.
+   */
+  @Nested
+  class ParallelPrepare {
+
+    private final int nUpdates = 100;
+    private FeedScopedId tripId;
+    private FeedScopedId tripId2;
+    private TimetableSnapshotSource updater;
+
+    @BeforeEach
+    public void setUpUpdater() {
+      tripId = new FeedScopedId(feedId, "1.1");
+      tripId2 = new FeedScopedId(feedId, "1.2");
+      updater = defaultUpdater();
+    }
+
+    @Test
+    public void updatesOfTheSameTripAreAppliedInOrder() {
+      var updates = new ArrayList<TripUpdate>();
+      for (int i = 1; i <= nUpdates; ++i) {
+        updates.add(delayed(i % 2 == 0 ? tripId : tripId2, i));
+      }
+
+      var result = updater.applyTripUpdates(
+        TRIP_MATCHER_NOOP,
+        REQUIRED_NO_DATA,
+        fullDataset,
+        updates,
+        feedId
+      );
+
+      assertEquals(nUpdates, result.successful());
+      assertEquals(RealTimeState.UPDATED, realtimeTripTimes(tripId).getRealTimeState());
+      assertEquals(nUpdates, realtimeTripTimes(tripId).getArrivalDelay(1));
+      assertEquals(nUpdates - 1, realtimeTripTimes(tripId2).getArrivalDelay(1));
+    }
+
+    @Test
+    public void scheduledUpdateAfterCanceledUpdateOfTheSameTrip() {
+      var updates = new ArrayList<TripUpdate>();
+      updates.add(canceled(tripId));
+      for (int i = 1; i <= nUpdates; ++i) {
+        updates.add(delayed(tripId2, i));
+      }
+      updates.add(delayed(tripId, 5));
+
+      var result = updater.applyTripUpdates(
+        TRIP_MATCHER_NOOP,
+        REQUIRED_NO_DATA,
+        fullDataset,
+        updates,
+        feedId
+      );
+
+      assertEquals(nUpdates + 2, result.successful());
+      assertEquals(RealTimeState.UPDATED, realtimeTripTimes(tripId).getRealTimeState());
+      assertEquals(5, realtimeTripTimes(tripId).getArrivalDelay(1));
+      assertEquals(nUpdates, realtimeTripTimes(tripId2).getArrivalDelay(1));
+    }
+
+    @Test
+    public void canceledUpdateAfterScheduledUpdateOfTheSameTrip() {
+      var updates = new ArrayList<TripUpdate>();
+      updates.add(delayed(tripId, 5));
+      for (int i = 1; i <= nUpdates; ++i) {
+        updates.add(delayed(tripId2, i));
+      }
+      updates.add(canceled(tripId));
+
+      var result = updater.applyTripUpdates(
+        TRIP_MATCHER_NOOP,
+        REQUIRED_NO_DATA,
+        fullDataset,
+        updates,
+        feedId
+      );
+
+      assertEquals(nUpdates + 2, result.successful());
+      assertEquals(RealTimeState.CANCELED, realtimeTripTimes(tripId).getRealTimeState());
+      assertEquals(RealTimeState.UPDATED, realtimeTripTimes(tripId2).getRealTimeState());
+    }
+
+    private TripUpdate delayed(FeedScopedId tripId, int delay) {
+      return new TripUpdateBuilder(
+        tripId.getId(),
+        SERVICE_DATE,
+        ScheduleRelationship.SCHEDULED,
+        transitModel.getTimeZone()
+      )
+        .addDelayedStopTime(2, delay)
+        .build();
+    }
+
+    private TripUpdate canceled(FeedScopedId tripId) {
+      return new TripUpdateBuilder(
+        tripId.getId(),
+        SERVICE_DATE,
+        ScheduleRelationship.CANCELED,
+        transitModel.getTimeZone()
+      )
+        .build();
+    }
+
+    private TripTimes realtimeTripTimes(FeedScopedId tripId) {
+      var trip = transitModel.getTransitModelIndex().getTripForId().get(tripId);
+      var pattern = transitModel.getTransitModelIndex().getPatternForTrip().get(trip);
+      var snapshot = updater.getTimetableSnapshot();
+      return snapshot.resolve(pattern, SERVICE_DATE).getTripTimes(trip);
+    }
+  }
+
   @Nested
   class Added {
 
@@ -1171,4 +1325,29 @@ public class TimetableSnapshotSourceTest {
     assertNotSame(snapshotA.resolve(pattern, null), snapshotA.resolve(pattern, yesterday));
     assertSame(snapshotA.resolve(pattern, null), snapshotB.resolve(pattern, null));
   }
+
+  /** A clock which only moves when it is advanced by the test. */
+  private static class TestClock extends Clock {
+
+    private Instant now = Instant.parse("2022-01-01T12:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
 }